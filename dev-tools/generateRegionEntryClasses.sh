@@ -0,0 +1,82 @@
+#!/bin/bash
+#
+# Licensed to the Apache Software Foundation (ASF) under one or more
+# contributor license agreements.  See the NOTICE file distributed with
+# this work for additional information regarding copyright ownership.
+# The ASF licenses this file to You under the Apache License, Version 2.0
+# (the "License"); you may not use this file except in compliance with
+# the License.  You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+
+# Generates the leaf region entry classes (VMThinRegionEntryHeapObjectKey and
+# friends) from LeafRegionEntry.cpp using the C preprocessor.
+# StoredKey classes, whose key can be moved off-heap, are only generated for
+# the OffHeap memory type.
+#
+# Run it from the top level directory of the source tree:
+#   dev-tools/generateRegionEntryClasses.sh [outputDirectory]
+# The classes are written next to LeafRegionEntry.cpp unless an output
+# directory is given.
+
+SRCDIR=geode-core/src/main/java/com/gemstone/gemfire/internal/cache
+SRCFILE=$SRCDIR/LeafRegionEntry.cpp
+OUTDIR=${1:-$SRCDIR}
+
+if [ ! -f $SRCFILE ]; then
+  echo "$SRCFILE not found; run this script from the top level directory" >&2
+  exit 1
+fi
+
+for VERTYPE in VM Versioned
+do
+  for RETYPE in Thin Stats ThinLRU StatsLRU ThinDisk StatsDisk ThinDiskLRU StatsDiskLRU
+  do
+    for MEMTYPE in Heap OffHeap
+    do
+      KEYTYPES="ObjectKey IntKey LongKey UUIDKey StringKey1 StringKey2"
+      if [ "$MEMTYPE" = "OffHeap" ]; then
+        KEYTYPES="$KEYTYPES StoredKey"
+      fi
+      for KEYTYPE in $KEYTYPES
+      do
+        PARENT=${VERTYPE}${RETYPE}RegionEntry${MEMTYPE}
+        OUT=${PARENT}${KEYTYPE}
+        ARGS="-DPARENT_CLASS=$PARENT -DLEAF_CLASS=$OUT"
+        if [ "$VERTYPE" = "Versioned" ]; then
+          ARGS="$ARGS -DVERSIONED"
+        fi
+        if [[ "$RETYPE" = *Stats* ]]; then
+          ARGS="$ARGS -DSTATS"
+        fi
+        if [[ "$RETYPE" = *Disk* ]]; then
+          ARGS="$ARGS -DDISK"
+        fi
+        if [[ "$RETYPE" = *LRU* ]]; then
+          ARGS="$ARGS -DLRU"
+        fi
+        if [ "$MEMTYPE" = "OffHeap" ]; then
+          ARGS="$ARGS -DOFFHEAP"
+        fi
+        case $KEYTYPE in
+          ObjectKey) ARGS="$ARGS -DKEY_OBJECT" ;;
+          IntKey) ARGS="$ARGS -DKEY_INT" ;;
+          LongKey) ARGS="$ARGS -DKEY_LONG" ;;
+          UUIDKey) ARGS="$ARGS -DKEY_UUID" ;;
+          StringKey1) ARGS="$ARGS -DKEY_STRING1" ;;
+          StringKey2) ARGS="$ARGS -DKEY_STRING2" ;;
+          StoredKey) ARGS="$ARGS -DKEY_STORED" ;;
+        esac
+        echo generating $OUTDIR/$OUT.java
+        cpp -E -P -C -undef -nostdinc $ARGS $SRCFILE > $OUTDIR/$OUT.java
+      done
+    done
+  done
+done
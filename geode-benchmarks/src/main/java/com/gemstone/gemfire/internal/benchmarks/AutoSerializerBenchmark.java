@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.PdxSerializerObject;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.pdx.ReflectionBasedAutoSerializer;
+import com.gemstone.gemfire.pdx.internal.AutoSerializableManager;
+
+/**
+ * Compares the reflection based auto serializer with the generated one of
+ * {@link AutoSerializableManager#GENERATED}. JMH runs every value of
+ * <code>generated</code> in its own fork, so the mode is set before any
+ * class is seen by the serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AutoSerializerBenchmark {
+
+  @Param({"false", "true"})
+  public boolean generated;
+
+  private Cache cache;
+  private Trade trade;
+  private byte[] serializedTrade;
+
+  @Setup(Level.Trial)
+  public void createCache() throws IOException {
+    AutoSerializableManager.GENERATED = generated;
+    // classes in com.gemstone, like Trade, are not auto serialized otherwise
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "auto.serialization.no.hardcoded.excludes", "true");
+    cache = BenchmarkCacheFactory.createCache(new Properties(), false,
+        new ReflectionBasedAutoSerializer(Pattern.quote(Trade.class.getName())));
+    trade = new Trade(42L, "GEODE", 1000, 12.5d, true, "NYSE");
+    // the first write defines the pdx type
+    serializedTrade = BlobHelper.serializeToBlob(trade);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCacheFactory.closeCache(cache);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(trade, hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public Object deserialize() throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(serializedTrade);
+  }
+
+  public static class Trade implements PdxSerializerObject {
+    private long id;
+    private String secId;
+    private int qty;
+    private double price;
+    private boolean buy;
+    private String exchange;
+
+    public Trade() {
+      // for deserialization
+    }
+
+    public Trade(long id, String secId, int qty, double price, boolean buy, String exchange) {
+      this.id = id;
+      this.secId = secId;
+      this.qty = qty;
+      this.price = price;
+      this.buy = buy;
+      this.exchange = exchange;
+    }
+  }
+}
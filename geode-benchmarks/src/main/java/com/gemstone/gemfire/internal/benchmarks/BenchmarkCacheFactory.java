@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+
+import java.util.Properties;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.pdx.PdxSerializer;
+
+/**
+ * Creates the loner caches used by the benchmarks. The cache does not join a
+ * distributed system so every benchmark can be run on a single machine without
+ * a locator.
+ */
+public class BenchmarkCacheFactory {
+
+  private BenchmarkCacheFactory() {
+    // no instances
+  }
+
+  public static Cache createCache() {
+    return createCache(new Properties(), false);
+  }
+
+  /**
+   * @param props additional gemfire properties, for example
+   *          {@link com.gemstone.gemfire.distributed.ConfigurationProperties#OFF_HEAP_MEMORY_SIZE}
+   * @param pdxReadSerialized whether pdx values are returned as PdxInstances
+   */
+  public static Cache createCache(Properties props, boolean pdxReadSerialized) {
+    return createCache(props, pdxReadSerialized, null);
+  }
+
+  /**
+   * @param pdxSerializer the cache's pdx serializer, or null for none
+   */
+  public static Cache createCache(Properties props, boolean pdxReadSerialized,
+      PdxSerializer pdxSerializer) {
+    CacheFactory factory = new CacheFactory(props);
+    factory.set(MCAST_PORT, "0");
+    factory.set(LOCATORS, "");
+    factory.set(LOG_LEVEL, "warning");
+    factory.set(STATISTIC_SAMPLING_ENABLED, "false");
+    factory.setPdxReadSerialized(pdxReadSerialized);
+    if (pdxSerializer != null) {
+      factory.setPdxSerializer(pdxSerializer);
+    }
+    return factory.create();
+  }
+
+  public static void closeCache(Cache cache) {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+}
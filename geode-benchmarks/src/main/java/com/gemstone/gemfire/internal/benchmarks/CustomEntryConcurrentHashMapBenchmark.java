@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
+
+/**
+ * Measures the CustomEntryConcurrentHashMap that backs every region map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CustomEntryConcurrentHashMapBenchmark {
+
+  @Param({ "1000", "1000000" })
+  public int keyCount;
+
+  private CustomEntryConcurrentHashMap<Long, Object> map;
+  private final Object value = new Object();
+
+  @Setup(Level.Trial)
+  public void populate() {
+    map = new CustomEntryConcurrentHashMap<>();
+    for (long i = 0; i < keyCount; i++) {
+      map.put(i, value);
+    }
+  }
+
+  private long randomKey() {
+    return ThreadLocalRandom.current().nextLong(keyCount);
+  }
+
+  @Benchmark
+  public Object get() {
+    return map.get(randomKey());
+  }
+
+  @Benchmark
+  public boolean containsKey() {
+    return map.containsKey(randomKey());
+  }
+
+  @Benchmark
+  public Object put() {
+    return map.put(randomKey(), value);
+  }
+
+  @Benchmark
+  public Object putIfAbsent() {
+    return map.putIfAbsent(randomKey(), value);
+  }
+
+  @Benchmark
+  public Object removeAndPut() {
+    long key = randomKey();
+    map.remove(key);
+    return map.put(key, value);
+  }
+}
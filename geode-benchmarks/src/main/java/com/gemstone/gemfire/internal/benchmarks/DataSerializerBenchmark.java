@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.internal.ByteArrayDataInput;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+
+/**
+ * Measures the DataSerializer primitives and HeapDataOutputStream that sit
+ * under every value serialization and p2p message. No cache is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DataSerializerBenchmark {
+
+  private static final String STRING_VALUE = "The quick brown fox jumps over the lazy dog";
+
+  private final ByteArrayDataInput input = new ByteArrayDataInput();
+  private byte[] serializedString;
+  private byte[] serializedObject;
+  private byte[] serializedPrimitives;
+  private byte[] byteArrayValue;
+
+  @Setup(Level.Trial)
+  public void serializeValues() throws IOException {
+    byteArrayValue = new byte[1024];
+
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeString(STRING_VALUE, hdos);
+    serializedString = hdos.toByteArray();
+
+    hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(Long.valueOf(Long.MAX_VALUE), hdos);
+    serializedObject = hdos.toByteArray();
+
+    hdos = new HeapDataOutputStream(Version.CURRENT);
+    writePrimitives(hdos);
+    serializedPrimitives = hdos.toByteArray();
+  }
+
+  private void writePrimitives(HeapDataOutputStream hdos) throws IOException {
+    DataSerializer.writePrimitiveInt(Integer.MAX_VALUE, hdos);
+    DataSerializer.writePrimitiveLong(Long.MAX_VALUE, hdos);
+    DataSerializer.writePrimitiveDouble(Math.PI, hdos);
+    DataSerializer.writePrimitiveBoolean(true, hdos);
+  }
+
+  @Benchmark
+  public byte[] writeString() throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeString(STRING_VALUE, hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public String readString() throws IOException {
+    input.initialize(serializedString, Version.CURRENT);
+    return DataSerializer.readString(input);
+  }
+
+  @Benchmark
+  public byte[] writePrimitives() throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    writePrimitives(hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public long readPrimitives() throws IOException {
+    input.initialize(serializedPrimitives, Version.CURRENT);
+    long result = DataSerializer.readPrimitiveInt(input);
+    result += DataSerializer.readPrimitiveLong(input);
+    result += (long) DataSerializer.readPrimitiveDouble(input);
+    result += DataSerializer.readPrimitiveBoolean(input) ? 1 : 0;
+    return result;
+  }
+
+  @Benchmark
+  public byte[] writeObject() throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(Long.valueOf(Long.MAX_VALUE), hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public Object readObject() throws IOException, ClassNotFoundException {
+    input.initialize(serializedObject, Version.CURRENT);
+    return DataSerializer.readObject(input);
+  }
+
+  @Benchmark
+  public byte[] writeByteArray() throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeByteArray(byteArrayValue, hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public int writeLargeByteArrayChunked() throws IOException {
+    // grows the stream past its initial chunk so chunk chaining is measured
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    for (int i = 0; i < 64; i++) {
+      hdos.write(byteArrayValue);
+    }
+    return hdos.size();
+  }
+}
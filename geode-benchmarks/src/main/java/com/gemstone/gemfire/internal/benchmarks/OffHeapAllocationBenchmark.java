@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocator;
+import com.gemstone.gemfire.internal.offheap.MemoryAllocatorImpl;
+import com.gemstone.gemfire.internal.offheap.StoredObject;
+
+/**
+ * Measures off-heap allocate/free through the FreeListManager and puts into
+ * an off-heap partitioned region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OffHeapAllocationBenchmark {
+
+  @Param({ "64", "1024", "65536" })
+  public int allocationSize;
+
+  @Param({ "256m" })
+  public String offHeapMemorySize;
+
+  @Param({ "10000" })
+  public int keyCount;
+
+  private Cache cache;
+  private MemoryAllocator allocator;
+  private Region<Long, byte[]> region;
+  private byte[] value;
+
+  @Setup(Level.Trial)
+  public void createCache() {
+    Properties props = new Properties();
+    props.setProperty(OFF_HEAP_MEMORY_SIZE, offHeapMemorySize);
+    cache = BenchmarkCacheFactory.createCache(props, false);
+    allocator = MemoryAllocatorImpl.getAllocator();
+    region = cache.<Long, byte[]> createRegionFactory(RegionShortcut.PARTITION)
+        .setOffHeap(true).create("offheap");
+    value = new byte[allocationSize];
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCacheFactory.closeCache(cache);
+  }
+
+  @Benchmark
+  public void allocateAndFree() {
+    StoredObject storedObject = allocator.allocate(allocationSize);
+    storedObject.release();
+  }
+
+  @Benchmark
+  public void allocateAndInitializeAndFree() {
+    StoredObject storedObject = allocator.allocateAndInitialize(value, false, false);
+    storedObject.release();
+  }
+
+  @Benchmark
+  public void putOffHeap() {
+    region.put(ThreadLocalRandom.current().nextLong(keyCount), value);
+  }
+}
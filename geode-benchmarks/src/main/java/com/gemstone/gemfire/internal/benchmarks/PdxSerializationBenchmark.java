@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.gemfire.pdx.PdxReader;
+import com.gemstone.gemfire.pdx.PdxSerializable;
+import com.gemstone.gemfire.pdx.PdxWriter;
+
+/**
+ * Measures PDX serialization and deserialization of a small domain object,
+ * and field access on a PdxInstance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PdxSerializationBenchmark {
+
+  private Cache cache;
+  private Position position;
+  private byte[] serializedPosition;
+  private PdxInstance pdxInstance;
+
+  @Setup(Level.Trial)
+  public void createCache() throws IOException, ClassNotFoundException {
+    cache = BenchmarkCacheFactory.createCache();
+    position = new Position(42L, "GEODE", 1000, 12.5d, "NYSE");
+    serializedPosition = BlobHelper.serializeToBlob(position);
+    pdxInstance = cache.createPdxInstanceFactory(Position.class.getName())
+        .writeLong("id", position.id)
+        .writeString("secId", position.secId)
+        .writeInt("qty", position.qty)
+        .writeDouble("mktValue", position.mktValue)
+        .writeString("exchange", position.exchange)
+        .create();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCacheFactory.closeCache(cache);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(position, hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public Object deserialize() throws IOException, ClassNotFoundException {
+    return BlobHelper.deserializeBlob(serializedPosition);
+  }
+
+  @Benchmark
+  public Object getField() {
+    return pdxInstance.getField("secId");
+  }
+
+  @Benchmark
+  public Object getObject() {
+    return pdxInstance.getObject();
+  }
+
+  public static class Position implements PdxSerializable {
+    private long id;
+    private String secId;
+    private int qty;
+    private double mktValue;
+    private String exchange;
+
+    public Position() {
+      // for deserialization
+    }
+
+    public Position(long id, String secId, int qty, double mktValue, String exchange) {
+      this.id = id;
+      this.secId = secId;
+      this.qty = qty;
+      this.mktValue = mktValue;
+      this.exchange = exchange;
+    }
+
+    @Override
+    public void toData(PdxWriter writer) {
+      writer.writeLong("id", id);
+      writer.writeString("secId", secId);
+      writer.writeInt("qty", qty);
+      writer.writeDouble("mktValue", mktValue);
+      writer.writeString("exchange", exchange);
+    }
+
+    @Override
+    public void fromData(PdxReader reader) {
+      id = reader.readLong("id");
+      secId = reader.readString("secId");
+      qty = reader.readInt("qty");
+      mktValue = reader.readDouble("mktValue");
+      exchange = reader.readString("exchange");
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+
+/**
+ * Measures get, put and putAll on local, replicated and partitioned regions
+ * hosted by a single member. This exercises LocalRegion.get/put and
+ * AbstractRegionMap.basicPut without any distribution cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RegionOperationsBenchmark {
+
+  @Param({ "LOCAL", "REPLICATE", "PARTITION" })
+  public RegionShortcut regionShortcut;
+
+  @Param({ "100000" })
+  public int keyCount;
+
+  @Param({ "100" })
+  public int valueSize;
+
+  @Param({ "100" })
+  public int putAllSize;
+
+  private Cache cache;
+  private Region<Long, byte[]> region;
+  private byte[] value;
+  private Map<Long, byte[]> putAllMap;
+
+  @Setup(Level.Trial)
+  public void createRegion() {
+    cache = BenchmarkCacheFactory.createCache();
+    region = cache.<Long, byte[]> createRegionFactory(regionShortcut).create("benchmark");
+    value = new byte[valueSize];
+    for (long i = 0; i < keyCount; i++) {
+      region.put(i, value);
+    }
+    putAllMap = new HashMap<>();
+    for (long i = 0; i < putAllSize; i++) {
+      putAllMap.put(i, value);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCache() {
+    BenchmarkCacheFactory.closeCache(cache);
+  }
+
+  private long randomKey() {
+    return ThreadLocalRandom.current().nextLong(keyCount);
+  }
+
+  @Benchmark
+  public byte[] get() {
+    return region.get(randomKey());
+  }
+
+  @Benchmark
+  public Object getForLongKey() {
+    // partitioned regions fall back to the boxed get
+    return ((LocalRegion) region).getForLongKey(randomKey());
+  }
+
+  @Benchmark
+  public byte[] getMissing() {
+    return region.get(-1L - randomKey());
+  }
+
+  @Benchmark
+  public Object put() {
+    return region.put(randomKey(), value);
+  }
+
+  @Benchmark
+  public void putAll() {
+    region.putAll(putAllMap);
+  }
+
+  @Benchmark
+  public boolean containsKey() {
+    return region.containsKey(randomKey());
+  }
+}
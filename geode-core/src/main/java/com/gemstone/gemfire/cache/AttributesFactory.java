@@ -39,6 +39,7 @@ import com.gemstone.gemfire.internal.cache.PartitionAttributesImpl;
 import com.gemstone.gemfire.internal.cache.PartitionedRegionHelper;
 import com.gemstone.gemfire.internal.cache.UserSpecifiedRegionAttributes;
 import com.gemstone.gemfire.internal.cache.xmlcache.RegionAttributesCreation;
+import com.gemstone.gemfire.internal.compression.DictionaryCompressor;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 
 /** Creates instances of {@link RegionAttributes}. An <code>AttributesFactory</code>
@@ -1548,6 +1549,10 @@ public class AttributesFactory<K,V> {
     if (null != attrs.getCompressor() && !attrs.getCloningEnabled()) {
       throw new IllegalStateException("Cloning cannot be disabled when a compressor is set.");
     }
+
+    if (attrs.getCompressor() instanceof DictionaryCompressor && attrs.getDataPolicy().withPersistence()) {
+      throw new IllegalStateException("A DictionaryCompressor cannot be used by a persistent region because its dictionary is not persisted.");
+    }
   }
 
 
@@ -39,6 +39,7 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
 import com.gemstone.gemfire.pdx.internal.FieldNotFoundInPdxVersion;
+import com.gemstone.gemfire.pdx.internal.PdxField;
 import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
 import com.gemstone.gemfire.pdx.JSONFormatter;
 
@@ -310,10 +311,12 @@ public class AttributeDescriptor {
       QueryInvocationTargetException {
     if (target instanceof PdxInstanceImpl) {
       PdxInstanceImpl pdxInstance = (PdxInstanceImpl) target;
-      // if the field is present in the pdxinstance
-      if (pdxInstance.hasField(_name)) { 
+      // if the field is present in the pdxinstance; look it up in the
+      // type's field index once and read it by field
+      PdxField field = pdxInstance.getPdxType().getPdxField(_name);
+      if (field != null) { 
         // return PdxString if field is a String otherwise invoke readField
-        return pdxInstance.getRawField(_name);
+        return pdxInstance.getRawField(field);
       }
       else {
         // field not found in the pdx instance, look for the field in any of the
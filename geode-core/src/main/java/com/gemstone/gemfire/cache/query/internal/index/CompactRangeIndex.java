@@ -69,6 +69,7 @@ import com.gemstone.gemfire.internal.cache.RegionEntryContext;
 import com.gemstone.gemfire.internal.cache.VMThinRegionEntryHeap;
 import com.gemstone.gemfire.internal.cache.persistence.query.CloseableIterator;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.internal.offheap.OffHeapHelper;
 import com.gemstone.gemfire.pdx.internal.PdxString;
 
 //@todo Extend to support the keys or entries of a region.
@@ -1438,6 +1439,9 @@ public class CompactRangeIndex extends AbstractIndex {
       assert !target.isInvalid() : "value in RegionEntry should not be INVALID";
       DummyQRegion dQRegion = new DummyQRegion(rgn);
       dQRegion.setEntry(target);
+      // only index keys outlive this evaluation and applyProjection copies
+      // them to the heap, so the value can be read in place
+      dQRegion.setReadInPlace(true);
       Object params[] = { dQRegion };
       ExecutionContext context = new ExecutionContext(params, this.cache);
       context.newScope(IndexCreationHelper.INDEX_QUERY_SCOPE_ID);
@@ -1477,6 +1481,7 @@ public class CompactRangeIndex extends AbstractIndex {
         throw new IMQException(e);
       } finally {
         context.popScope();
+        dQRegion.releaseInPlaceValue();
       }
     }
 
@@ -1637,6 +1642,8 @@ public class CompactRangeIndex extends AbstractIndex {
       if (indexKey == null) {
         indexKey = IndexManager.NULL;
       }
+      // the value may have been read in place from off-heap memory
+      indexKey = OffHeapHelper.copyIfReadInPlace(indexKey);
       // if the first key is PdxString set the flag so that rest of the keys
       // would be converted to PdxString
       if (!isIndexedPdxKeysFlagSet) {
@@ -41,6 +41,7 @@ import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.RegionEntry;
 import com.gemstone.gemfire.internal.cache.RegionEntryContext;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.internal.offheap.OffHeapHelper;
 import com.gemstone.gemfire.internal.offheap.StoredObject;
 import com.gemstone.gemfire.internal.offheap.annotations.Released;
 import com.gemstone.gemfire.internal.offheap.annotations.Retained;
@@ -59,6 +60,8 @@ public class DummyQRegion extends QRegion {
   private ResultsSet entries = null;
   private List valueInList = null;
   private Object[] valueInArray = null;
+  private boolean readInPlace = false;
+  @Retained private StoredObject inPlaceValue = null;
   
   public DummyQRegion(Region region) {
     super(region, false);
@@ -88,12 +91,56 @@ public class DummyQRegion extends QRegion {
   }
   
   public void setEntry(RegionEntry e){
+    releaseInPlaceValue();
     this.entry = e;
   }
   
   public RegionEntry getEntry(){
     return this.entry;
   }
+
+  /**
+   * If true then an off-heap PDX value is read in place when
+   * {@link OffHeapHelper#canReadInPlace(StoredObject)} allows it. The value
+   * then stays retained until {@link #releaseInPlaceValue()} is called, so
+   * nothing read from it may be kept after that.
+   */
+  public void setReadInPlace(boolean readInPlace) {
+    this.readInPlace = readInPlace;
+  }
+
+  /**
+   * Releases the off-heap value that was retained to be read in place, if any.
+   */
+  public void releaseInPlaceValue() {
+    @Released StoredObject ohval = this.inPlaceValue;
+    if (ohval != null) {
+      this.inPlaceValue = null;
+      ohval.release();
+    }
+  }
+
+  private Object getDeserializedValue() {
+    if (this.inPlaceValue != null) {
+      return OffHeapHelper.readInPlace(this.inPlaceValue);
+    }
+    Object val = this.entry.getValueOffHeapOrDiskWithoutFaultIn((LocalRegion) getRegion());
+    if (val instanceof StoredObject) {
+      @Retained @Released StoredObject ohval = (StoredObject) val;
+      if (this.readInPlace && OffHeapHelper.canReadInPlace(ohval)) {
+        this.inPlaceValue = ohval;
+        return OffHeapHelper.readInPlace(ohval);
+      }
+      try {
+        val = ohval.getDeserializedValue(getRegion(), this.entry);
+      } finally {
+        ohval.release();
+      }
+    } else if (val instanceof CachedDeserializable) {
+      val = ((CachedDeserializable)val).getDeserializedValue(getRegion(), this.entry);
+    } 
+    return val;
+  }
   
   @Override
   public SelectResults getKeys() {
@@ -132,17 +179,7 @@ public class DummyQRegion extends QRegion {
       valueInList = new  ArrayList(1);      
     }
     valueInList.clear();
-    Object val = this.entry.getValueOffHeapOrDiskWithoutFaultIn((LocalRegion) getRegion());
-    if (val instanceof StoredObject) {
-      @Retained @Released StoredObject ohval = (StoredObject) val;
-      try {
-        val = ohval.getDeserializedValue(getRegion(), this.entry);
-      } finally {
-        ohval.release();
-      }
-    } else if (val instanceof CachedDeserializable) {
-      val = ((CachedDeserializable)val).getDeserializedValue(getRegion(), this.entry);
-    } 
+    Object val = getDeserializedValue();
     valueInList.add(val);
     return valueInList;
   }
@@ -152,17 +189,7 @@ public class DummyQRegion extends QRegion {
     if(valueInArray == null){
       valueInArray = new  Object[1];      
     }   
-    Object val = this.entry.getValueOffHeapOrDiskWithoutFaultIn((LocalRegion) getRegion());
-    if (val instanceof StoredObject) {      
-      @Retained @Released StoredObject ohval = (StoredObject) val;
-      try {
-        val = ohval.getDeserializedValue(getRegion(), this.entry);
-      } finally {
-        ohval.release();
-      }
-    } else if (val instanceof CachedDeserializable) {
-      val = ((CachedDeserializable)val).getDeserializedValue(getRegion(), this.entry);
-    } 
+    Object val = getDeserializedValue();
     valueInArray[0] = val;
     return valueInArray;
   }
@@ -174,17 +201,7 @@ public class DummyQRegion extends QRegion {
       values.setElementType(valueType);
     }
     values.clear();
-    Object val = this.entry.getValueOffHeapOrDiskWithoutFaultIn((LocalRegion) getRegion());
-    if (val instanceof StoredObject) {
-      @Retained @Released StoredObject ohval = (StoredObject) val;
-      try {
-        val = ohval.getDeserializedValue(getRegion(), this.entry);
-      } finally {
-        ohval.release();
-      }
-    } else if (val instanceof CachedDeserializable) {
-      val = ((CachedDeserializable)val).getDeserializedValue(getRegion(), this.entry);
-    } 
+    Object val = getDeserializedValue();
     values.add(val);
     return values;
   }
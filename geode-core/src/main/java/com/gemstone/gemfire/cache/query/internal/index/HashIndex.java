@@ -79,6 +79,7 @@ import com.gemstone.gemfire.internal.cache.Token;
 import com.gemstone.gemfire.internal.cache.persistence.query.CloseableIterator;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.offheap.OffHeapHelper;
 import com.gemstone.gemfire.internal.offheap.StoredObject;
 import com.gemstone.gemfire.internal.offheap.annotations.Released;
 import com.gemstone.gemfire.internal.offheap.annotations.Retained;
@@ -871,6 +872,26 @@ public class HashIndex extends AbstractIndex {
     return ((LocalRegion) getRegion()).new NonTXEntry(entry);
   }
   
+  /**
+   * Returns the entry's off-heap value, retained, if it is a PDX that
+   * {@link OffHeapHelper#canReadInPlace(StoredObject)} allows to be read in
+   * place; otherwise returns null. The caller must release what is returned.
+   */
+  private @Retained StoredObject getTargetObjectToReadInPlace(RegionEntry entry) {
+    if (!this.indexOnValues || !OffHeapHelper.READ_PDX_IN_PLACE) {
+      return null;
+    }
+    Object o = entry.getValueOffHeapOrDiskWithoutFaultIn((LocalRegion) getRegion());
+    if (o instanceof StoredObject) {
+      @Retained StoredObject ohval = (StoredObject) o;
+      if (OffHeapHelper.canReadInPlace(ohval)) {
+        return ohval;
+      }
+      ohval.release();
+    }
+    return null;
+  }
+
   private Object getTargetObjectForUpdate(RegionEntry entry) {
     if (this.indexOnValues) {
       Object o = entry.getValueOffHeapOrDiskWithoutFaultIn((LocalRegion) getRegion());
@@ -1211,8 +1232,13 @@ public class HashIndex extends AbstractIndex {
     public void evaluate(RegionEntry target, boolean add) throws IMQException {
       assert !target.isInvalid() : "value in RegionEntry should not be INVALID";
       ExecutionContext context = null;
+      DummyQRegion dQRegion = null;
       try {
         context = createExecutionContext(target);
+        // only index keys outlive this evaluation and applyProjection copies
+        // them to the heap, so the value can be read in place
+        dQRegion = (DummyQRegion) context.getBindArgument(1);
+        dQRegion.setReadInPlace(true);
         doNestedIterations(0, add, context);
 
       } catch (IMQException imqe) {
@@ -1223,6 +1249,9 @@ public class HashIndex extends AbstractIndex {
         if (context != null) {
           context.popScope();
         }
+        if (dQRegion != null) {
+          dQRegion.releaseInPlaceValue();
+        }
       }
     }
 
@@ -1377,6 +1406,8 @@ public class HashIndex extends AbstractIndex {
       if (indexKey == null) {
         indexKey = IndexManager.NULL;
       }
+      // the value may have been read in place from off-heap memory
+      indexKey = OffHeapHelper.copyIfReadInPlace(indexKey);
 
       RegionEntry entry = ((DummyQRegion) context.getBindArgument(1))
           .getEntry();
@@ -1484,11 +1515,17 @@ public class HashIndex extends AbstractIndex {
       Object value = object;
       
       ExecutionContext newContext = null;
+      @Retained StoredObject inPlaceValue = null;
 
       if (object instanceof RegionEntry) {
         RegionEntry regionEntry = (RegionEntry) object;
         newContext = createExecutionContext(regionEntry);
-        value = getTargetObjectForUpdate(regionEntry);
+        inPlaceValue = getTargetObjectToReadInPlace(regionEntry);
+        if (inPlaceValue != null) {
+          value = OffHeapHelper.readInPlace(inPlaceValue);
+        } else {
+          value = getTargetObjectForUpdate(regionEntry);
+        }
       }
 
       // context we use is the update context, from IMQEvaluator
@@ -1499,10 +1536,15 @@ public class HashIndex extends AbstractIndex {
       Object key = null;
       try {
         key = this.indexedExpr.evaluate(newContext);
+        key = OffHeapHelper.copyIfReadInPlace(key);
       } catch (Exception e) {
         if (logger.isDebugEnabled()) {
           logger.debug("Could not reevaluate key for hash index");
         }
+      } finally {
+        if (inPlaceValue != null) {
+          inPlaceValue.release();
+        }
       }
       
       if (key == null) {
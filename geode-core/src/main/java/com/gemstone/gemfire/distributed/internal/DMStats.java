@@ -532,12 +532,24 @@ public interface DMStats {
 
   public void incPdxSerialization(int bytesWritten);
 
+  public void incPdxCompactSerialization(int bytesWritten, int fixedWidthBytes);
+
   public void incPdxDeserialization(int i);
 
   public long startPdxInstanceDeserialization();
 
   public void endPdxInstanceDeserialization(long start);
   public void incPdxInstanceCreations();
+
+  public void incHdosPoolHits();
+
+  public void incHdosPoolMisses();
+
+  public void incHdosPoolDiscards();
+
+  public void incHdosPoolStreamsInUse(int delta);
+
+  public int getHdosPoolStreamsInUse();
   
   //Stats for GMSHealthMonitor
   public long getHeartbeatRequestsSent();
@@ -128,6 +128,9 @@ public class DistributionStats implements DMStats {
 
   private final static int pdxSerializationsId;
   private final static int pdxSerializedBytesId;
+  private final static int pdxCompactSerializationsId;
+  private final static int pdxCompactSerializedBytesId;
+  private final static int pdxCompactFixedWidthBytesId;
 
   private final static int deserializationTimeId;
   private final static int deserializationsId;
@@ -138,6 +141,11 @@ public class DistributionStats implements DMStats {
   private final static int pdxInstanceDeserializationTimeId;
   private final static int pdxInstanceCreationsId;
 
+  private final static int hdosPoolHitsId;
+  private final static int hdosPoolMissesId;
+  private final static int hdosPoolDiscardsId;
+  private final static int hdosPoolStreamsInUseId;
+
   private final static int msgSerializationTimeId;
   private final static int msgDeserializationTimeId;
 
@@ -451,6 +459,9 @@ public class DistributionStats implements DMStats {
         f.createLongCounter("serializedBytes", "Total number of bytes produced by object serialization. This includes pdx serializations.", "bytes"),
         f.createIntCounter("pdxSerializations", "Total number of pdx serializations.", "ops"),
         f.createLongCounter("pdxSerializedBytes", "Total number of bytes produced by pdx serialization.", "bytes"),
+        f.createIntCounter("pdxCompactSerializations", "Total number of pdx serializations that used the compact encoding.", "ops"),
+        f.createLongCounter("pdxCompactSerializedBytes", "Total number of bytes produced by pdx serializations that used the compact encoding.", "bytes"),
+        f.createLongCounter("pdxCompactFixedWidthBytes", "Total number of bytes the pdx serializations that used the compact encoding would have produced had they written their int and long fields at fixed width.", "bytes"),
         f.createLongCounter("deserializationTime", "Total amount of time, in nanoseconds, spent deserializing objects. This includes deserialization that results in a PdxInstance.", "nanoseconds"),
         f.createIntCounter("deserializations", "Total number of object deserialization calls. This includes deserialization that results in a PdxInstance.", "ops"),
         f.createLongCounter("deserializedBytes", "Total number of bytes read by object deserialization. This includes deserialization that results in a PdxInstance.", "bytes"),
@@ -461,6 +472,10 @@ public class DistributionStats implements DMStats {
         f.createIntCounter("pdxInstanceDeserializations", "Total number of times getObject has been called on a PdxInstance.", "ops"),
         f.createLongCounter("pdxInstanceDeserializationTime", "Total amount of time, in nanoseconds, spent deserializing PdxInstances by calling getObject.", "nanoseconds"),
         f.createIntCounter("pdxInstanceCreations", "Total number of times a deserialization created a PdxInstance.", "ops"),
+        f.createLongCounter("hdosPoolHits", "Total number of serialization output streams that were reused from the pool.", "operations"),
+        f.createLongCounter("hdosPoolMisses", "Total number of serialization output streams that were created because the pool had none of the requested size.", "operations"),
+        f.createLongCounter("hdosPoolDiscards", "Total number of released serialization output streams that were not kept by the pool.", "operations"),
+        f.createIntGauge("hdosPoolStreamsInUse", "Current number of serialization output streams acquired from the pool and not yet released. A value that keeps growing means streams are not being released.", "streams"),
 
         f.createLongCounter("batchSendTime", "Total amount of time, in nanoseconds, spent queueing and flushing message batches", "nanoseconds"),
         f.createLongCounter("batchWaitTime", "Reserved for future use", "nanoseconds"),
@@ -642,12 +657,20 @@ public class DistributionStats implements DMStats {
     deserializedBytesId = type.nameToId("deserializedBytes");
     pdxSerializationsId = type.nameToId("pdxSerializations");
     pdxSerializedBytesId = type.nameToId("pdxSerializedBytes");
+    pdxCompactSerializationsId = type.nameToId("pdxCompactSerializations");
+    pdxCompactSerializedBytesId = type.nameToId("pdxCompactSerializedBytes");
+    pdxCompactFixedWidthBytesId = type.nameToId("pdxCompactFixedWidthBytes");
     pdxDeserializationsId = type.nameToId("pdxDeserializations");
     pdxDeserializedBytesId = type.nameToId("pdxDeserializedBytes");
     pdxInstanceDeserializationsId = type.nameToId("pdxInstanceDeserializations");
     pdxInstanceDeserializationTimeId = type.nameToId("pdxInstanceDeserializationTime");
     pdxInstanceCreationsId = type.nameToId("pdxInstanceCreations");
 
+    hdosPoolHitsId = type.nameToId("hdosPoolHits");
+    hdosPoolMissesId = type.nameToId("hdosPoolMisses");
+    hdosPoolDiscardsId = type.nameToId("hdosPoolDiscards");
+    hdosPoolStreamsInUseId = type.nameToId("hdosPoolStreamsInUse");
+
     msgSerializationTimeId = type.nameToId("msgSerializationTime");
     msgDeserializationTimeId = type.nameToId("msgDeserializationTime");
 
@@ -1227,6 +1250,11 @@ public class DistributionStats implements DMStats {
     stats.incInt(pdxSerializationsId, 1);
     stats.incLong(pdxSerializedBytesId, bytes);
   }
+  public void incPdxCompactSerialization(int bytes, int fixedWidthBytes) {
+    stats.incInt(pdxCompactSerializationsId, 1);
+    stats.incLong(pdxCompactSerializedBytesId, bytes);
+    stats.incLong(pdxCompactFixedWidthBytesId, fixedWidthBytes);
+  }
   public void incPdxDeserialization(int bytes) {
     stats.incInt(pdxDeserializationsId, 1);
     stats.incLong(pdxDeserializedBytesId, bytes);
@@ -1234,6 +1262,21 @@ public class DistributionStats implements DMStats {
   public void incPdxInstanceCreations() {
     stats.incInt(pdxInstanceCreationsId, 1);
   }
+  public void incHdosPoolHits() {
+    stats.incLong(hdosPoolHitsId, 1);
+  }
+  public void incHdosPoolMisses() {
+    stats.incLong(hdosPoolMissesId, 1);
+  }
+  public void incHdosPoolDiscards() {
+    stats.incLong(hdosPoolDiscardsId, 1);
+  }
+  public void incHdosPoolStreamsInUse(int delta) {
+    stats.incInt(hdosPoolStreamsInUseId, delta);
+  }
+  public int getHdosPoolStreamsInUse() {
+    return stats.getInt(hdosPoolStreamsInUseId);
+  }
   public long startDeserialization() {
     return getStatTime();
   }
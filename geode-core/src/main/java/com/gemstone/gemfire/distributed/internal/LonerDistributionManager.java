@@ -550,6 +550,8 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incPdxSerialization(int bytesWritten) {}
     @Override
+    public void incPdxCompactSerialization(int bytesWritten, int fixedWidthBytes) {}
+    @Override
     public void incPdxDeserialization(int i) {}
     @Override
     public long startPdxInstanceDeserialization() {return 0;}
@@ -558,6 +560,16 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incPdxInstanceCreations() {}
     @Override
+    public void incHdosPoolHits() {}
+    @Override
+    public void incHdosPoolMisses() {}
+    @Override
+    public void incHdosPoolDiscards() {}
+    @Override
+    public void incHdosPoolStreamsInUse(int delta) {}
+    @Override
+    public int getHdosPoolStreamsInUse() {return 0;}
+    @Override
     public void incThreadOwnedReceivers(long value, int dominoCount) {
     }
     @Override
@@ -71,6 +71,13 @@ public class HeapDataOutputStream extends OutputStream implements
   private int memoPosition;
   private Version version;
   private boolean doNotCopy;
+  /**
+   * True once one of this stream's buffers has been handed out, which means
+   * the stream can not be given to {@link HeapDataOutputStreamPool} for reuse.
+   */
+  private boolean buffersExposed;
+  /** True while this stream is acquired from {@link HeapDataOutputStreamPool}. */
+  boolean pooled;
 
   private static final int INITIAL_CAPACITY = 1024;
   
@@ -394,6 +401,7 @@ public class HeapDataOutputStream extends OutputStream implements
    */
   public ByteBuffer finishWritingAndReturnUnusedBuffer() {
     finishWriting();
+    this.buffersExposed = true;
     ByteBuffer result = this.buffer.duplicate();
     if (result.remaining() == 0) {
       // buffer was never used.
@@ -421,6 +429,7 @@ public class HeapDataOutputStream extends OutputStream implements
   public final ByteBuffer toByteBuffer() {
     finishWriting();
     consolidateChunks();
+    this.buffersExposed = true;
     return this.buffer;
   }
   /** gets the contents of this stream as a byte[].
@@ -440,6 +449,43 @@ public class HeapDataOutputStream extends OutputStream implements
       return this.buffer.array();
     }
   }
+
+  /**
+   * Returns a new byte[] holding a copy of the contents of this stream.
+   * Unlike {@link #toByteArray()} the stream's own buffers are never returned
+   * or replaced, so the stream can be reset and written again afterwards.
+   */
+  public final byte[] copyToByteArray() {
+    finishWriting();
+    final byte[] result = new byte[size()];
+    int pos = 0;
+    if (this.chunks != null) {
+      for (ByteBuffer bb: this.chunks) {
+        final int len = bb.remaining();
+        bb.duplicate().get(result, pos, len);
+        pos += len;
+      }
+    }
+    this.buffer.duplicate().get(result, pos, this.buffer.remaining());
+    return result;
+  }
+
+  /**
+   * Returns true if none of this stream's buffers has been handed out so
+   * it can be reset and reused.
+   */
+  final boolean isReusable() {
+    return !this.buffersExposed;
+  }
+
+  /** Returns the capacity of the buffer that is kept by {@link #reset()}. */
+  final int getBufferCapacity() {
+    return this.buffer.capacity();
+  }
+
+  final void setVersion(Version v) {
+    this.version = v;
+  }
   
   
   /**
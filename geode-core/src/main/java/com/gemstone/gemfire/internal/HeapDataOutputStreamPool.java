@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal;
+
+import com.gemstone.gemfire.distributed.internal.DMStats;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
+
+/**
+ * Keeps released {@link HeapDataOutputStream}s per thread so that the
+ * serialization hot paths do not have to allocate a new stream, and its
+ * buffer, for every object they serialize.
+ * <p>
+ * Each thread keeps at most one free stream for each of the size classes in
+ * {@link #SIZE_CLASSES}. {@link #acquire(int, Version)} hands out the smallest
+ * free stream whose buffer is at least the requested size and creates a new
+ * one if there is none. {@link #release(HeapDataOutputStream)} resets the
+ * stream and keeps it unless one of its buffers was handed out, by
+ * {@link HeapDataOutputStream#toByteArray()} for example, or it has grown
+ * past the largest size class.
+ * <p>
+ * Only code that owns the whole lifetime of a stream may use the pool; the
+ * contents have to be copied out, with
+ * {@link HeapDataOutputStream#copyToByteArray()} or one of the sendTo methods,
+ * before the stream is released. Streams that are acquired but never released
+ * are simply garbage collected; the <code>hdosPoolStreamsInUse</code> statistic
+ * counts them so that such leaks show up.
+ * <p>
+ * The pool is off unless the <code>gemfire.HeapDataOutputStreamPool.enabled</code>
+ * system property is set to true. While it is off
+ * {@link #acquire(int, Version)} just creates a new stream and
+ * {@link #release(HeapDataOutputStream)} does nothing.
+ *
+ * @since Geode 1.0
+ */
+public final class HeapDataOutputStreamPool {
+
+  public static boolean ENABLED = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "HeapDataOutputStreamPool.enabled");
+
+  /** The buffer sizes the pool keeps streams for, smallest first. */
+  static final int[] SIZE_CLASSES = { 1024, 4096, 16384, 65536 };
+
+  private static final int DEFAULT_SIZE = 1024;
+
+  private static final ThreadLocal<HeapDataOutputStream[]> freeStreams = new ThreadLocal<HeapDataOutputStream[]>() {
+    @Override
+    protected HeapDataOutputStream[] initialValue() {
+      return new HeapDataOutputStream[SIZE_CLASSES.length];
+    }
+  };
+
+  private HeapDataOutputStreamPool() {
+    // no instances allowed
+  }
+
+  /**
+   * Returns a stream with the default initial size for the given version.
+   */
+  public static HeapDataOutputStream acquire(Version version) {
+    return acquire(DEFAULT_SIZE, version);
+  }
+
+  /**
+   * Returns an empty stream for the given version whose buffer holds at
+   * least <code>sizeHint</code> bytes, or whose chunks are that size if the
+   * hint is bigger than the largest size class.
+   */
+  public static HeapDataOutputStream acquire(int sizeHint, Version version) {
+    if (!ENABLED) {
+      return new HeapDataOutputStream(sizeHint, version);
+    }
+    final DMStats stats = InternalDistributedSystem.getDMStats();
+    final int sizeClass = sizeClassFor(sizeHint);
+    if (sizeClass == -1) {
+      if (stats != null) {
+        stats.incHdosPoolMisses();
+      }
+      return new HeapDataOutputStream(sizeHint, version);
+    }
+    final HeapDataOutputStream[] free = freeStreams.get();
+    HeapDataOutputStream result = null;
+    for (int i = sizeClass; i < free.length; i++) {
+      if (free[i] != null) {
+        result = free[i];
+        free[i] = null;
+        break;
+      }
+    }
+    if (result != null) {
+      result.setVersion(version);
+      if (stats != null) {
+        stats.incHdosPoolHits();
+      }
+    } else {
+      result = new HeapDataOutputStream(SIZE_CLASSES[sizeClass], version);
+      if (stats != null) {
+        stats.incHdosPoolMisses();
+      }
+    }
+    result.pooled = true;
+    if (stats != null) {
+      stats.incHdosPoolStreamsInUse(1);
+    }
+    return result;
+  }
+
+  /**
+   * Gives a stream obtained from {@link #acquire(int, Version)} back to the
+   * calling thread's pool. The caller must not use the stream afterwards.
+   * Streams that did not come from the pool, or were already released, are
+   * ignored.
+   *
+   * @return true if the stream came from the pool
+   */
+  public static boolean release(HeapDataOutputStream hdos) {
+    if (hdos == null || !hdos.pooled) {
+      return false;
+    }
+    hdos.pooled = false;
+    final DMStats stats = InternalDistributedSystem.getDMStats();
+    if (stats != null) {
+      stats.incHdosPoolStreamsInUse(-1);
+    }
+    if (!ENABLED || !hdos.isReusable()) {
+      discarded(stats);
+      return true;
+    }
+    hdos.reset();
+    hdos.setDoNotCopy(false);
+    final int capacity = hdos.getBufferCapacity();
+    int sizeClass = -1;
+    for (int i = 0; i < SIZE_CLASSES.length && SIZE_CLASSES[i] <= capacity; i++) {
+      sizeClass = i;
+    }
+    if (sizeClass == -1 || capacity > SIZE_CLASSES[SIZE_CLASSES.length - 1]) {
+      discarded(stats);
+      return true;
+    }
+    final HeapDataOutputStream[] free = freeStreams.get();
+    if (free[sizeClass] == null) {
+      free[sizeClass] = hdos;
+    } else {
+      discarded(stats);
+    }
+    return true;
+  }
+
+  /** Drops the streams the calling thread keeps, for tests. */
+  static void clear() {
+    freeStreams.remove();
+  }
+
+  /**
+   * Returns the index of the smallest size class that holds
+   * <code>size</code> bytes, or -1 if it is bigger than all of them.
+   */
+  private static int sizeClassFor(int size) {
+    for (int i = 0; i < SIZE_CLASSES.length; i++) {
+      if (size <= SIZE_CLASSES[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void discarded(DMStats stats) {
+    if (stats != null) {
+      stats.incHdosPoolDiscards();
+    }
+  }
+}
@@ -1570,7 +1570,7 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
           throw new ToDataException("PdxSerializer failed when calling toData on " + o.getClass(),  t);
         }
         int bytesWritten = writer.completeByteStreamGeneration();
-        getDMStats(gfc).incPdxSerialization(bytesWritten);
+        recordPdxSerialization(gfc, writer, bytesWritten);
         if (!(out instanceof HeapDataOutputStream)) {
           writer.sendTo(out);
         }
@@ -3111,13 +3111,21 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
       }
     }
     int bytesWritten = writer.completeByteStreamGeneration();
-    getDMStats(gfc).incPdxSerialization(bytesWritten);
+    recordPdxSerialization(gfc, writer, bytesWritten);
     if (!(out instanceof HeapDataOutputStream)) {
       writer.sendTo(out);
     }
     return true;
   }
 
+  private static void recordPdxSerialization(GemFireCacheImpl gfc, PdxWriterImpl writer, int bytesWritten) {
+    DMStats stats = getDMStats(gfc);
+    stats.incPdxSerialization(bytesWritten);
+    if (writer.getCompactEncoding()) {
+      stats.incPdxCompactSerialization(bytesWritten, bytesWritten + writer.getCompactEncodingSavings());
+    }
+  }
+
   public static DMStats getDMStats(GemFireCacheImpl gfc) {
     if (gfc != null) {
       return gfc.getDistributionManager().getStats();
@@ -450,7 +450,7 @@ public class SystemAdmin {
       idx++;
     }
     try {
-      DiskStoreImpl.validate(diskStoreName, dirs);
+      DiskStoreImpl.validate(diskStoreName, dirs, deep);
     } catch (Exception ex) {
       throw new GemFireIOException(" disk-store=" + diskStoreName + ": " + ex, ex); 
     }
@@ -1392,6 +1392,7 @@ public class SystemAdmin {
     "-archive=",
     "-concurrencyLevel=",
     "-debug",
+    "-deep",
     "-remove",
     "-details",
     "-dir=",
@@ -1577,6 +1578,8 @@ public class SystemAdmin {
     helpMap.put("-debug", 
       LocalizedStrings.SystemAdmin_CAUSES_GEMFIRE_TO_PRINT_OUT_EXTRA_INFORMATION_WHEN_IT_FAILS_THIS_OPTION_IS_SUPPORTED_BY_ALL_COMMANDS
         .toLocalizedString()); 
+    helpMap.put("-deep",
+                "Causes validate-disk-store to also read every krf file in full and check it against its checksum.");
     helpMap.put("-details", 
       LocalizedStrings.SystemAdmin_CAUSES_GEMFIRE_TO_PRINT_DETAILED_INFORMATION_WITH_THE_0_COMMAND_IT_MEANS_STATISTIC_DESCRIPTIONS
         .toLocalizedString("stats")); 
@@ -1676,7 +1679,7 @@ public class SystemAdmin {
     usageMap.put("tail-locator-log", "tail-locator-log [-dir=<locatorDir>]");
     usageMap.put("merge-logs", "merge-logs <logFile>+ [-out=<outFile>]");
     usageMap.put("encrypt-password", "encrypt-password <passwordString>");
-    usageMap.put("validate-disk-store", "validate-disk-store <diskStoreName> <directory>+");
+    usageMap.put("validate-disk-store", "validate-disk-store <diskStoreName> <directory>+ [-deep]");
     usageMap.put("upgrade-disk-store", "upgrade-disk-store <diskStoreName> <directory>+ [-maxOplogSize=<int>]");
     usageMap.put("compact-disk-store", "compact-disk-store <diskStoreName> <directory>+ [-maxOplogSize=<int>]");
     usageMap.put("compact-all-disk-stores", "compact-all-disk-stores");
@@ -1691,6 +1694,7 @@ public class SystemAdmin {
   // option statics
   private static boolean debug = false;
   private static boolean details = false;
+  private static boolean deep = false;
   private static boolean nofilter = false;
   private static boolean persec = false;
   private static boolean persample = false;
@@ -1740,7 +1744,7 @@ public class SystemAdmin {
     cmdOptionsMap.put("status-locator",  new String[] {"-dir=", "-D"});
     cmdOptionsMap.put("info-locator",  new String[] {"-dir=", "-D"});
     cmdOptionsMap.put("tail-locator-log",  new String[] {"-dir=", "-D"});
-    cmdOptionsMap.put("validate-disk-store", new String[] {});
+    cmdOptionsMap.put("validate-disk-store", new String[] {"-deep"});
     cmdOptionsMap.put("upgrade-disk-store", new String[] {"-maxOplogSize="});
     cmdOptionsMap.put("compact-disk-store", new String[] {"-maxOplogSize="});
     cmdOptionsMap.put("modify-disk-store", new String[] {"-region=", "-remove",
@@ -1855,6 +1859,8 @@ public class SystemAdmin {
           quiet = true;
         } else if (validArgs[i].equals("-details")) {
           details = true;
+        } else if (validArgs[i].equals("-deep")) {
+          deep = true;
         } else if (validArgs[i].equals("-nofilter")) {
           nofilter = true;
         } else if (validArgs[i].equals("-persec")) {
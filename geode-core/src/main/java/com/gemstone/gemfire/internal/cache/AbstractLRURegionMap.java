@@ -38,6 +38,8 @@ import com.gemstone.gemfire.internal.cache.lru.LRUStatistics;
 import com.gemstone.gemfire.internal.cache.lru.MemLRUCapacityController;
 import com.gemstone.gemfire.internal.cache.lru.NewLIFOClockHand;
 import com.gemstone.gemfire.internal.cache.lru.NewLRUClockHand;
+import com.gemstone.gemfire.internal.cache.lru.StripedLRUClockHand;
+import com.gemstone.gemfire.internal.cache.lru.TinyLFUClockHand;
 import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
 import com.gemstone.gemfire.internal.cache.versions.VersionSource;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -103,6 +105,14 @@ public abstract class AbstractLRURegionMap extends AbstractRegionMap {
     if (ea == EvictionAlgorithm.LIFO_ENTRY || ea == EvictionAlgorithm.LIFO_MEMORY ) {
       _setLruList(new NewLIFOClockHand(owner, _getCCHelper(), internalRegionArgs));
     }
+    else if ("tinylfu".equalsIgnoreCase(NewLRUClockHand.CLOCK_HAND)
+        && (ea == EvictionAlgorithm.LRU_ENTRY || ea == EvictionAlgorithm.LRU_MEMORY)) {
+      _setLruList(new TinyLFUClockHand(owner, _getCCHelper(), internalRegionArgs));
+    }
+    else if ("striped".equalsIgnoreCase(NewLRUClockHand.CLOCK_HAND)
+        || "tinylfu".equalsIgnoreCase(NewLRUClockHand.CLOCK_HAND)) {
+      _setLruList(new StripedLRUClockHand(owner, _getCCHelper(), internalRegionArgs));
+    }
     else {
       _setLruList(new NewLRUClockHand(owner, _getCCHelper(), internalRegionArgs));
     }
@@ -222,6 +232,20 @@ public abstract class AbstractLRURegionMap extends AbstractRegionMap {
   public void finishChangeValueForm() {
     lruUpdateCallback();
   }
+
+  /**
+   * Used when the value of an entry was replaced by another form of the same
+   * value whose size differs, as when {@link ColdValueCompressor} compresses
+   * it. Unlike {@link #beginChangeValueForm} this never evicts, which leaves
+   * that to the next operation on the region.
+   * PRECONDITION: caller has le synced
+   */
+  public final void changeValueSize(LRUEntry le) {
+    int delta = le.updateEntrySize(_getCCHelper());
+    if (delta != 0) {
+      changeTotalEntrySize(delta);
+    }
+  }
   
   private boolean getMustRemove( ) {
     Object d = mustRemove.get();
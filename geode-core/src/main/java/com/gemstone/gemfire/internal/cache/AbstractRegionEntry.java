@@ -106,6 +106,12 @@ public abstract class AbstractRegionEntry implements RegionEntry,
 
 
   protected static final long MARKED_FOR_EVICTION = 0x80L<<56;
+  /**
+   * used for LRUEntry instances. Set along with {@link #RECENTLY_USED} but
+   * only cleared by the {@link ColdValueCompressor} sweep, so the LRU clock
+   * and the sweep each see every use of the entry.
+   */
+  protected static final long USED_SINCE_SWEEP = 0x80L<<48;
 //  public Exception removeTrace; // debugging hot loop in AbstractRegionMap.basicPut()
   
   protected AbstractRegionEntry(RegionEntryContext context,
@@ -1156,7 +1162,25 @@ public abstract class AbstractRegionEntry implements RegionEntry,
     return k.equals(getKey());
   }
 
-  private static final long LAST_MODIFIED_MASK = 0x00FFFFFFFFFFFFFFL;
+  /**
+   * Default implementation. Overridden by subclasses that store a long key
+   * inline so that the lookup does not box k.
+   */
+  @Override
+  public boolean isLongKeyEqual(long k) {
+    return isKeyEqual(k);
+  }
+
+  /**
+   * Default implementation. Overridden by subclasses that store an int key
+   * inline so that the lookup does not box k.
+   */
+  @Override
+  public boolean isIntKeyEqual(int k) {
+    return isKeyEqual(k);
+  }
+
+  private static final long LAST_MODIFIED_MASK = 0x007FFFFFFFFFFFFFL;
 
   protected final void _setLastModified(long lastModifiedTime) {
     if (lastModifiedTime < 0 || lastModifiedTime > LAST_MODIFIED_MASK) {
@@ -1203,6 +1227,22 @@ public abstract class AbstractRegionEntry implements RegionEntry,
     } while(!done);
   }
 
+  /**
+   * Returns true if the entry was used since the last time this was called,
+   * and clears that state. Only LRUEntry instances record their use.
+   */
+  public final boolean checkAndClearUsedSinceSweep() {
+    for (;;) {
+      long bits = getlastModifiedField();
+      if ((bits & USED_SINCE_SWEEP) == 0L) {
+        return false;
+      }
+      if (compareAndSetLastModifiedField(bits, bits & ~USED_SINCE_SWEEP)) {
+        return true;
+      }
+    }
+  }
+
   @Override
   @Retained(ABSTRACT_REGION_ENTRY_PREPARE_VALUE_FOR_CACHE)
   public  Object prepareValueForCache(RegionEntryContext r,
@@ -1263,7 +1303,8 @@ public abstract class AbstractRegionEntry implements RegionEntry,
         } else {
           data = (byte[]) val;
         }
-        byte[] compressedData = compressBytes(r, data);
+        // with adaptive compression the value starts out hot and uncompressed
+        byte[] compressedData = ColdValueCompressor.defersCompression(r, this) ? data : compressBytes(r, data);
         boolean isCompressed = compressedData != data;
         ReferenceCountHelper.setReferenceCountOwner(this);
         MemoryAllocator ma = MemoryAllocatorImpl.getAllocator(); // fix for bug 47875
@@ -47,6 +47,7 @@ import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
 import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
 import com.gemstone.gemfire.internal.offheap.OffHeapHelper;
+import com.gemstone.gemfire.internal.offheap.OffHeapKeyHelper;
 import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
 import com.gemstone.gemfire.internal.offheap.ReferenceCountHelper;
 import com.gemstone.gemfire.internal.offheap.annotations.Released;
@@ -97,6 +98,16 @@ public abstract class AbstractRegionMap implements RegionMap {
     _setMap(createConcurrentMap(attr.initialCapacity, attr.loadFactor,
         attr.concurrencyLevel, false,
         new AbstractRegionEntry.HashRegionEntryCreator()));
+    // the owner may change from a PlaceHolderDiskRegion to the LocalRegion
+    // after recovery so look it up on each retry
+    _getMap().setOptimisticReadRetryListener(new Runnable() {
+      @Override
+      public void run() {
+        if (_isOwnerALocalRegion()) {
+          _getOwner().getCachePerfStats().incOptimisticReadRetries();
+        }
+      }
+    });
 
     final GemFireCacheImpl cache;
     boolean isDisk;
@@ -234,6 +245,16 @@ public abstract class AbstractRegionMap implements RegionMap {
     return re;
   }
 
+  @Override
+  public final RegionEntry getEntryForLongKey(long key) {
+    return (RegionEntry)_getMap().getForLongKey(key);
+  }
+
+  @Override
+  public final RegionEntry getEntryForIntKey(int key) {
+    return (RegionEntry)_getMap().getForIntKey(key);
+  }
+
   protected RegionEntry getEntry(EntryEventImpl event) {
     return getEntry(event.getKey());
   }
@@ -255,6 +276,9 @@ public abstract class AbstractRegionMap implements RegionMap {
       }
       _getOwner().checkReadiness(); // throw RegionDestroyedException
     }
+    if (value == null && re instanceof OffHeapKeyEntry) {
+      OffHeapKeyHelper.storeKey((OffHeapKeyEntry) re);
+    }
     return value;
   }
 
@@ -104,6 +104,7 @@ public class CachePerfStats {
   protected static final int entryCountId;
   protected static final int eventsQueuedId;
   protected static final int retriesId;
+  protected static final int optimisticReadRetriesId;
 
   protected static final int diskTasksWaitingId;
   protected static final int evictorJobsStartedId;
@@ -155,6 +156,8 @@ public class CachePerfStats {
   protected static final int compressionDecompressionsId;
   protected static final int compressionPreCompressedBytesId;
   protected static final int compressionPostCompressedBytesId;
+  protected static final int compressionBackgroundCompressionsId;
+  protected static final int compressionBackgroundDecompressionsId;
   
   /** The Statistics object that we delegate most behavior to */
   protected final Statistics stats;
@@ -258,6 +261,8 @@ public class CachePerfStats {
     final String compressionDecompressionsDesc = "The total number of decompression operations.";
     final String compressionPreCompresssedBytesDesc = "The total number of bytes before compressing.";
     final String compressionPostCompressedBytesDesc = "The total number of bytes after compressing.";
+    final String compressionBackgroundCompressionsDesc = "The total number of values that were compressed in the background because they had not been used recently.";
+    final String compressionBackgroundDecompressionsDesc = "The total number of values that were decompressed in the background because they had been used recently.";
     final String evictByCriteria_evictionsDesc = "The total number of entries evicted";// total actual evictions (entries evicted)
     final String evictByCriteria_evictionTimeDesc= "Time taken for eviction process";// total eviction time including product + user expr. 
     final String evictByCriteria_evictionsInProgressDesc = "Total number of evictions in progress";
@@ -350,6 +355,7 @@ public class CachePerfStats {
         f.createLongCounter("eventsQueued", "Number of events attached to " +
                         "other events for callback invocation", "events"),
         f.createIntCounter("retries", "Number of times a concurrent destroy followed by a create has caused an entry operation to need to retry." ,"operations" ),
+        f.createLongCounter("optimisticReadRetries", "Number of entry lookups that overlapped with a rehash, compaction or remove in the entry map and had to be repeated under its read lock.", "operations"),
         f.createIntCounter("clears", clearsDesc, "operations"),
         f.createIntGauge("diskTasksWaiting", "Current number of disk tasks (oplog compactions, asynchronous recoveries, etc) that are waiting for a thread to run the operation", "operations"),
         f.createLongCounter("conflatedEvents", conflatedEventsDesc, "operations"),
@@ -384,6 +390,8 @@ public class CachePerfStats {
         f.createLongCounter("decompressions", compressionDecompressionsDesc, "operations"),
         f.createLongCounter("preCompressedBytes", compressionPreCompresssedBytesDesc, "bytes"),
         f.createLongCounter("postCompressedBytes", compressionPostCompressedBytesDesc, "bytes"),
+        f.createLongCounter("backgroundCompressions", compressionBackgroundCompressionsDesc, "operations"),
+        f.createLongCounter("backgroundDecompressions", compressionBackgroundDecompressionsDesc, "operations"),
         
         f.createLongCounter("evictByCriteria_evictions", evictByCriteria_evictionsDesc, "operations"),
         f.createLongCounter("evictByCriteria_evictionTime", evictByCriteria_evictionTimeDesc, "nanoseconds"),
@@ -474,6 +482,7 @@ public class CachePerfStats {
     eventsQueuedId = type.nameToId("eventsQueued");
 
     retriesId = type.nameToId("retries");
+    optimisticReadRetriesId = type.nameToId("optimisticReadRetries");
     clearsId = type.nameToId("clears");
 
     diskTasksWaitingId = type.nameToId("diskTasksWaiting");
@@ -514,6 +523,8 @@ public class CachePerfStats {
     compressionDecompressionsId = type.nameToId("decompressions");
     compressionPreCompressedBytesId = type.nameToId("preCompressedBytes");
     compressionPostCompressedBytesId = type.nameToId("postCompressedBytes");
+    compressionBackgroundCompressionsId = type.nameToId("backgroundCompressions");
+    compressionBackgroundDecompressionsId = type.nameToId("backgroundDecompressions");
   }
   
   ////////////////////////  Constructors  ////////////////////////
@@ -741,6 +752,14 @@ public class CachePerfStats {
    public long getTotalPostCompressedBytes() {
      return stats.getLong(compressionPostCompressedBytesId);                    
    }
+
+   public long getTotalBackgroundCompressions() {
+     return stats.getLong(compressionBackgroundCompressionsId);
+   }
+
+   public long getTotalBackgroundDecompressions() {
+     return stats.getLong(compressionBackgroundDecompressionsId);
+   }
    
   //////////////////////  Updating Stats  //////////////////////
   
@@ -767,6 +786,14 @@ public class CachePerfStats {
        stats.incLong(compressionDecompressTimeId, getStatTime() - startTime);
      }
    }
+
+   public void incBackgroundCompressions() {
+     stats.incLong(compressionBackgroundCompressionsId, 1);
+   }
+
+   public void incBackgroundDecompressions() {
+     stats.incLong(compressionBackgroundDecompressionsId, 1);
+   }
    
    /**
    * @return the timestamp that marks the start of the operation
@@ -1147,6 +1174,14 @@ public class CachePerfStats {
     this.stats.incInt(retriesId, 1);
   }
 
+  public long getOptimisticReadRetries() {
+    return this.stats.getLong(optimisticReadRetriesId);
+  }
+
+  public void incOptimisticReadRetries() {
+    this.stats.incLong(optimisticReadRetriesId, 1);
+  }
+
   public void incDiskTasksWaiting() {
     this.stats.incInt(diskTasksWaitingId, 1);
   }
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.cache.RegionDestroyedException;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.SystemTimer.SystemTimerTask;
+import com.gemstone.gemfire.internal.cache.lru.LRUEntry;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
+
+/**
+ * Keeps the values of compressed off-heap regions uncompressed while they are
+ * being used and compressed once they go cold, so that hot reads do not pay
+ * for decompression and cold values still take little memory.
+ * <p>
+ * When {@link #ENABLED}, values written to an off-heap region that has a
+ * compressor and an LRU eviction controller are stored uncompressed. This
+ * task then sweeps those regions every {@link #INTERVAL} milliseconds, looking
+ * at no more than {@link #BATCH_SIZE} entries of each region per run and
+ * carrying on where it stopped the next time. Each entry records whether it
+ * was used since the sweep last saw it, apart from the recently used bit that
+ * the LRU clock clears: an entry that was not read or written since has its
+ * value compressed in place; an entry that was and whose value is compressed
+ * gets its value decompressed in place. The
+ * compressions and decompressions this does are counted in the usual
+ * compression stats of the region, and the in-place changes in
+ * <code>backgroundCompressions</code> and <code>backgroundDecompressions</code>.
+ * <p>
+ * Regions without LRU have no recently used bits, and heap regions do not
+ * record whether a value is compressed, so both keep compressing every value
+ * when it is written.
+ * 
+ * @since Geode 1.0
+ */
+public class ColdValueCompressor extends SystemTimerTask {
+  private static final Logger logger = LogService.getLogger();
+
+  /** True if compression of off-heap LRU regions is deferred to this task. */
+  public static final boolean ENABLED = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "ADAPTIVE_COMPRESSION");
+
+  /** Milliseconds between two sweeps. */
+  public static final long INTERVAL = Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "ADAPTIVE_COMPRESSION_INTERVAL", 1000).longValue();
+
+  /** Most entries of one region looked at in one run. */
+  public static final int BATCH_SIZE = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "ADAPTIVE_COMPRESSION_BATCH_SIZE", 10000).intValue();
+
+  private final GemFireCacheImpl cache;
+  private final int batchSize;
+
+  /**
+   * Where the sweep of each region stopped. Only used by the timer thread.
+   */
+  private final Map<LocalRegion, Iterator<RegionEntry>> cursors = new HashMap<LocalRegion, Iterator<RegionEntry>>();
+
+  ColdValueCompressor(GemFireCacheImpl cache) {
+    this(cache, BATCH_SIZE);
+  }
+
+  ColdValueCompressor(GemFireCacheImpl cache, int batchSize) {
+    this.cache = cache;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Schedules the task with the cache's timer if adaptive compression is
+   * enabled.
+   * 
+   * @return the scheduled task or null if it is not enabled
+   */
+  public static ColdValueCompressor start(GemFireCacheImpl cache) {
+    if (!ENABLED || cache.getOffHeapStore() == null) {
+      return null;
+    }
+    ColdValueCompressor result = new ColdValueCompressor(cache);
+    cache.getCCPTimer().scheduleAtFixedRate(result, INTERVAL, INTERVAL);
+    return result;
+  }
+
+  /**
+   * Returns true if values written to the entry are stored uncompressed and
+   * left to this task to compress.
+   */
+  static boolean defersCompression(RegionEntryContext context, RegionEntry re) {
+    return ENABLED && re instanceof LRUEntry && context.getCompressor() != null;
+  }
+
+  @Override
+  public void run2() {
+    for (Iterator<LocalRegion> it = this.cursors.keySet().iterator(); it.hasNext();) {
+      if (it.next().isDestroyed()) {
+        it.remove();
+      }
+    }
+    for (LocalRegion region : this.cache.getAllRegions()) {
+      if (this.cache.isClosed()) {
+        return;
+      }
+      if (region.getOffHeap() && region.getCompressor() != null
+          && region.getRegionMap() instanceof AbstractLRURegionMap
+          && region.isInitialized() && !region.isDestroyed()) {
+        try {
+          sweep(region);
+        } catch (RegionDestroyedException ignore) {
+          // the next sweep will not see it
+          this.cursors.remove(region);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sweeps the next batch of entries of the region.
+   */
+  void sweep(LocalRegion region) {
+    final AbstractLRURegionMap map = (AbstractLRURegionMap) region.getRegionMap();
+    Iterator<RegionEntry> it = this.cursors.get(region);
+    if (it == null || !it.hasNext()) {
+      it = map.regionEntries().iterator();
+    }
+    int compressed = 0;
+    int decompressed = 0;
+    for (int n = 0; n < this.batchSize && it.hasNext(); n++) {
+      if (region.isDestroyed()) {
+        this.cursors.remove(region);
+        return;
+      }
+      switch (sweepEntry(region, map, it.next())) {
+        case 1:
+          compressed++;
+          break;
+        case -1:
+          decompressed++;
+          break;
+        default:
+      }
+    }
+    this.cursors.put(region, it);
+    if (logger.isTraceEnabled() && (compressed != 0 || decompressed != 0)) {
+      logger.trace("Compressed {} and decompressed {} values of {}", compressed, decompressed, region.getFullPath());
+    }
+  }
+
+  /**
+   * Compresses the value of the entry if it has not been used since the last
+   * sweep and decompresses it if it has.
+   * 
+   * @return 1 if the value was compressed, -1 if it was decompressed and 0 if
+   *         it was left as it is
+   */
+  static int sweepEntry(LocalRegion region, AbstractLRURegionMap map, RegionEntry re) {
+    if (!(re instanceof OffHeapRegionEntry) || !(re instanceof LRUEntry)) {
+      return 0;
+    }
+    final LRUEntry le = (LRUEntry) re;
+    // leaves the recently used bit to the LRU clock
+    final boolean hot = ((AbstractRegionEntry) re).checkAndClearUsedSinceSweep();
+    synchronized (re) {
+      if (re.isRemoved() || le.testEvicted()) {
+        return 0;
+      }
+      if (!OffHeapRegionEntryHelper.changeCompression((OffHeapRegionEntry) re, region, !hot)) {
+        return 0;
+      }
+      map.changeValueSize(le);
+    }
+    if (hot) {
+      region.getCachePerfStats().incBackgroundDecompressions();
+      return -1;
+    }
+    region.getCachePerfStats().incBackgroundCompressions();
+    return 1;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits the rate at which the compactors of one disk store copy values
+ * forward so that compaction does not take all of the disk bandwidth away
+ * from the writes of the regions. Every copied value reserves its length
+ * from a budget that refills at a fixed number of bytes per second; a
+ * compactor that runs ahead of the budget lets go of its locks and sleeps
+ * until it catches up. The budget is shared by all the compactor threads of
+ * the disk store.
+ *
+ * @see DiskStoreImpl#COMPACTION_BYTES_PER_SECOND
+ */
+class CompactionThrottle {
+
+  /**
+   * How far ahead of the budget the compactors may get before they have to
+   * wait, so that small values do not cause a sleep each.
+   */
+  static final long MAX_BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * The longest a compactor sleeps at a time, so that it notices soon when
+   * it is stopped or its disk store is closed.
+   */
+  static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final long bytesPerSecond;
+  private final DiskStoreStats stats;
+
+  /** The time at which the bytes reserved so far are paid for; guarded by this. */
+  private long nextFreeNanos;
+
+  CompactionThrottle(long bytesPerSecond, DiskStoreStats stats) {
+    if (bytesPerSecond <= 0) {
+      throw new IllegalArgumentException("bytesPerSecond must be positive but was " + bytesPerSecond);
+    }
+    this.bytesPerSecond = bytesPerSecond;
+    this.stats = stats;
+    this.nextFreeNanos = System.nanoTime();
+  }
+
+  long getBytesPerSecond() {
+    return this.bytesPerSecond;
+  }
+
+  /**
+   * Reserves the bytes and returns how many nanoseconds the caller has to
+   * wait, with {@link #await}, before writing more.
+   */
+  long reserve(int bytes) {
+    return reserve(bytes, System.nanoTime());
+  }
+
+  /**
+   * Sleeps for the given number of nanoseconds, at most
+   * {@link #MAX_SLEEP_NANOS} at a time, and stops early once
+   * <code>stopped</code> returns true or the thread is interrupted.
+   * 
+   * @return true if the whole time was waited
+   */
+  boolean await(long waitNanos, BooleanSupplier stopped) {
+    if (waitNanos <= 0) {
+      return true;
+    }
+    final long start = System.nanoTime();
+    final long deadline = start + waitNanos;
+    try {
+      long remaining = waitNanos;
+      while (remaining > 0) {
+        if (stopped.getAsBoolean()) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.sleep(Math.min(remaining, MAX_SLEEP_NANOS));
+        remaining = deadline - System.nanoTime();
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      this.stats.endCompactionThrottle(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Reserves the bytes at the given time and returns how many nanoseconds
+   * the caller has to wait before writing them.
+   */
+  synchronized long reserve(int bytes, long now) {
+    if (this.nextFreeNanos - now < 0) {
+      this.nextFreeNanos = now;
+    }
+    this.nextFreeNanos += TimeUnit.SECONDS.toNanos(Math.max(bytes, 0)) / this.bytesPerSecond;
+    final long ahead = this.nextFreeNanos - now;
+    return ahead > MAX_BURST_NANOS ? ahead - MAX_BURST_NANOS : 0;
+  }
+}
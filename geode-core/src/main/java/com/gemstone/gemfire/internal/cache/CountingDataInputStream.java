@@ -17,9 +17,14 @@
 package com.gemstone.gemfire.internal.cache;
 
 import java.io.*;
+import java.util.zip.CRC32;
 
 /**
- * A data input stream that counts the bytes it plans on reading.
+ * A data input stream that counts the bytes it plans on reading. While
+ * {@link #isChecksumming() checksumming} it also keeps a CRC32 of the bytes
+ * read since the last {@link #resetChecksum()}, skipped bytes included, so
+ * that records can be checked against the checksum stored with them. When
+ * not checksumming skipped bytes are not read.
  * 
  * 
  * @since GemFire prPersistSprint2
@@ -29,10 +34,36 @@ public class CountingDataInputStream implements DataInput {
   private final long fileLength;
   private long count;
   private final DataInputStream dis;
+  private final CRC32 checksum = new CRC32();
+  private boolean checksumming;
 
   public CountingDataInputStream(InputStream is, long fileLength) {
+    this(is, fileLength, false);
+  }
+
+  public CountingDataInputStream(InputStream is, long fileLength, boolean checksumming) {
     this.fileLength = fileLength;
-    this.dis = new DataInputStream(is);
+    this.checksumming = checksumming;
+    this.dis = new DataInputStream(new ChecksumInputStream(is));
+  }
+
+  public boolean isChecksumming() {
+    return this.checksumming;
+  }
+
+  /** Starts or stops keeping the checksum of the bytes read. */
+  public void setChecksumming(boolean checksumming) {
+    this.checksumming = checksumming;
+  }
+
+  /** Starts a new checksum with the next byte read. */
+  public void resetChecksum() {
+    this.checksum.reset();
+  }
+
+  /** Returns the checksum of the bytes read since the last reset. */
+  public int getChecksum() {
+    return (int) this.checksum.getValue();
   }
 
   public long getCount() {
@@ -121,4 +152,54 @@ public class CountingDataInputStream implements DataInput {
   public void close() throws IOException {
     this.dis.close();
   }
+
+  /**
+   * Updates the checksum with the bytes read, and skipped, while
+   * checksumming.
+   */
+  private class ChecksumInputStream extends FilterInputStream {
+    ChecksumInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = this.in.read();
+      if (b != -1 && checksumming) {
+        checksum.update(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = this.in.read(b, off, len);
+      if (n != -1 && checksumming) {
+        checksum.update(b, off, n);
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      if (!checksumming) {
+        return this.in.skip(n);
+      }
+      byte[] buf = new byte[(int) Math.min(n, 512)];
+      long total = 0;
+      while (total < n) {
+        int len = read(buf, 0, (int) Math.min(buf.length, n - total));
+        if (len == -1) {
+          break;
+        }
+        total += len;
+      }
+      return total;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
 }
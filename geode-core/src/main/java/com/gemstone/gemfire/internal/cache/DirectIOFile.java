@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * Appends to and reads from an {@link OverflowOplog} file with direct I/O so
+ * that overflow traffic does not push other data out of the page cache.
+ * 
+ * Direct I/O needs the file offset, the length and the memory address of
+ * every transfer to be aligned to {@link #ALIGNMENT}. Appended bytes are
+ * collected in an aligned buffer that always starts at an aligned file
+ * offset and is written out whole once it is full. A flush writes the
+ * partly filled last block too, padded to the alignment, and keeps the bytes
+ * buffered so the block is written again when more is appended. Reads
+ * round the requested range out to whole blocks and read them into an
+ * aligned buffer; bytes that are still in the write buffer are copied from
+ * it. Once the oplog stops appending, the buffer is written out and given
+ * back so that a full oplog holds no buffer.
+ * 
+ * The aligned buffers come from a pool shared by all overflow oplogs.
+ * 
+ * The DIRECT open option needs Java 10 and aligning a buffer needs Java 9,
+ * so both are looked up reflectively. {@link #open(File)} returns null when
+ * either is missing or the file system refuses direct I/O, and the caller
+ * then uses the file as usual. Instances are not thread safe; the oplog
+ * only uses them while synchronized on its file.
+ */
+final class DirectIOFile {
+  private static final Logger logger = LogService.getLogger();
+
+  /** The alignment of direct transfers, a multiple of common block sizes. */
+  static final int ALIGNMENT = 4096;
+
+  /** Size of the buffer that collects appended bytes. */
+  static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
+  /** Size of the buffer reads go through. */
+  static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  /** Upper bound on the number of idle buffers of each size that are kept. */
+  private static final int MAX_POOLED_BUFFERS = 32;
+
+  private static final OpenOption DIRECT = lookupDirectOption();
+  private static final Method ALIGNED_SLICE = lookupAlignedSlice();
+
+  /**
+   * If true, direct I/O is reported as unsupported whatever the JVM. Not
+   * final so tests can change it.
+   */
+  static boolean UNSUPPORTED_FOR_TESTS = false;
+
+  private static final BufferPool writeBuffers = new BufferPool(WRITE_BUFFER_SIZE);
+  private static final BufferPool readBuffers = new BufferPool(READ_BUFFER_SIZE);
+
+  private final FileChannel channel;
+  private ByteBuffer buffer;
+  /**
+   * The file offset of the first byte of {@link #buffer}, which is always
+   * aligned. Once the buffer has been given back, the end of the data.
+   */
+  private long bufferStart;
+
+  private DirectIOFile(FileChannel channel, ByteBuffer buffer) {
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Returns true if this JVM can open files for direct I/O.
+   */
+  static boolean isSupported() {
+    return DIRECT != null && ALIGNED_SLICE != null && !UNSUPPORTED_FOR_TESTS;
+  }
+
+  /**
+   * Opens an existing file for direct I/O, appending at its start. Returns
+   * null if direct I/O is not supported for it.
+   */
+  static DirectIOFile open(File f) {
+    if (!isSupported()) {
+      return null;
+    }
+    ByteBuffer buffer = writeBuffers.acquire();
+    if (buffer == null) {
+      return null;
+    }
+    try {
+      FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ,
+          StandardOpenOption.WRITE, DIRECT);
+      return new DirectIOFile(channel, buffer);
+    } catch (IOException | UnsupportedOperationException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not open {} for direct I/O", f, e);
+      }
+      writeBuffers.release(buffer);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the file offset the next appended byte will have.
+   */
+  long position() {
+    ByteBuffer bb = this.buffer;
+    return bb == null ? this.bufferStart : this.bufferStart + bb.position();
+  }
+
+  /**
+   * Appends the remaining bytes of <code>src</code>, writing out the buffer
+   * each time it fills up.
+   */
+  void write(ByteBuffer src) throws IOException {
+    if (this.buffer == null) {
+      throw new IllegalStateException("No longer appending to this file");
+    }
+    while (src.hasRemaining()) {
+      int n = Math.min(src.remaining(), this.buffer.remaining());
+      int oldLimit = src.limit();
+      src.limit(src.position() + n);
+      this.buffer.put(src);
+      src.limit(oldLimit);
+      if (!this.buffer.hasRemaining()) {
+        writeBuffer(this.buffer.capacity());
+        this.bufferStart += this.buffer.capacity();
+        this.buffer.clear();
+      }
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the file, padding the last block. The bytes
+   * stay buffered until the buffer is full.
+   */
+  void flush() throws IOException {
+    if (this.buffer == null) {
+      return;
+    }
+    int length = this.buffer.position();
+    if (length > 0) {
+      writeBuffer(roundUp(length));
+    }
+  }
+
+  /**
+   * Writes out the buffered bytes and gives the buffer back to the pool.
+   * Nothing can be appended afterwards, but everything can still be read.
+   */
+  void finishAppending() throws IOException {
+    ByteBuffer bb = this.buffer;
+    if (bb != null) {
+      flush();
+      this.bufferStart += bb.position();
+      this.buffer = null;
+      writeBuffers.release(bb);
+    }
+  }
+
+  private void writeBuffer(int length) throws IOException {
+    ByteBuffer bb = this.buffer.duplicate();
+    bb.position(0).limit(length);
+    long pos = this.bufferStart;
+    while (bb.hasRemaining()) {
+      pos += this.channel.write(bb, pos);
+    }
+  }
+
+  /**
+   * Reads <code>length</code> bytes at <code>position</code> into
+   * <code>dst</code>.
+   */
+  void readFully(long position, byte[] dst, int offset, int length) throws IOException {
+    if (position < 0 || position + length > position()) {
+      throw new EOFException("Tried to read " + length + " bytes at " + position
+          + " but only " + position() + " bytes were written");
+    }
+    long pos = position;
+    int off = offset;
+    int remaining = length;
+    if (pos < this.bufferStart) {
+      ByteBuffer readBuffer = readBuffers.acquire();
+      if (readBuffer == null) {
+        throw new IOException("Could not allocate an aligned read buffer");
+      }
+      try {
+        while (remaining > 0 && pos < this.bufferStart) {
+          long blockStart = pos & ~(long)(ALIGNMENT - 1);
+          int skip = (int)(pos - blockStart);
+          int n = (int)Math.min(Math.min(remaining, this.bufferStart - pos),
+              readBuffer.capacity() - skip);
+          readBuffer.clear();
+          readBuffer.limit(roundUp(skip + n));
+          long readPos = blockStart;
+          while (readBuffer.hasRemaining()) {
+            int read = this.channel.read(readBuffer, readPos);
+            if (read < 0) {
+              throw new EOFException("Reached the end of the file at " + readPos);
+            }
+            readPos += read;
+          }
+          readBuffer.position(skip);
+          readBuffer.get(dst, off, n);
+          pos += n;
+          off += n;
+          remaining -= n;
+        }
+      } finally {
+        readBuffers.release(readBuffer);
+      }
+    }
+    if (remaining > 0) {
+      ByteBuffer bb = this.buffer.duplicate();
+      bb.position((int)(pos - this.bufferStart));
+      bb.get(dst, off, remaining);
+    }
+  }
+
+  /**
+   * Closes the file and returns its buffer to the pool.
+   */
+  void close() throws IOException {
+    ByteBuffer bb = this.buffer;
+    this.buffer = null;
+    try {
+      this.channel.close();
+    } finally {
+      if (bb != null) {
+        writeBuffers.release(bb);
+      }
+    }
+  }
+
+  private static int roundUp(int length) {
+    return (length + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+  }
+
+  private static OpenOption lookupDirectOption() {
+    try {
+      Class<?> c = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+      for (Object constant : c.getEnumConstants()) {
+        if ("DIRECT".equals(((Enum<?>)constant).name())) {
+          return (OpenOption)constant;
+        }
+      }
+    } catch (ClassNotFoundException | RuntimeException ignore) {
+    }
+    return null;
+  }
+
+  private static Method lookupAlignedSlice() {
+    try {
+      return ByteBuffer.class.getMethod("alignedSlice", int.class);
+    } catch (NoSuchMethodException | RuntimeException ignore) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a direct buffer of <code>capacity</code> bytes whose address is
+   * aligned, or null if it could not be aligned.
+   */
+  static ByteBuffer allocateAligned(int capacity) {
+    if (ALIGNED_SLICE == null) {
+      return null;
+    }
+    try {
+      ByteBuffer bb = ByteBuffer.allocateDirect(capacity + ALIGNMENT);
+      ByteBuffer aligned = (ByteBuffer)ALIGNED_SLICE.invoke(bb, ALIGNMENT);
+      aligned.limit(capacity);
+      return aligned.slice();
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Idle aligned buffers of one size. Buffers are allocated when the pool is
+   * empty and dropped when it is full.
+   */
+  private static final class BufferPool {
+    private final int bufferSize;
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    BufferPool(int bufferSize) {
+      this.bufferSize = bufferSize;
+    }
+
+    ByteBuffer acquire() {
+      ByteBuffer bb = this.idle.poll();
+      if (bb != null) {
+        this.idleCount.decrementAndGet();
+        bb.clear();
+        return bb;
+      }
+      return allocateAligned(this.bufferSize);
+    }
+
+    void release(ByteBuffer bb) {
+      if (this.idleCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+        this.idle.offer(bb);
+      } else {
+        this.idleCount.decrementAndGet();
+      }
+    }
+  }
+}
@@ -954,6 +954,8 @@ public interface DiskEntry extends RegionEntry {
               
             } else if (did.isPendingAsync() && !maintainRVV) {
               entry.setValueWithContext(region, newValue); // OFFHEAP newValue already prepared
+              // the queued write will pick up the new value
+              dr.getDiskStore().getStats().incAsyncCoalescedWrites();
               
               // nothing needs to be done except
               // fixing up LRU stats
@@ -1681,6 +1683,8 @@ public interface DiskEntry extends RegionEntry {
             if(stamp != null) {
               tag = stamp.asVersionTag();
             }
+          } else {
+            dr.getDiskStore().getStats().incAsyncCoalescedWrites();
           }
         }
         if (checkValue) {
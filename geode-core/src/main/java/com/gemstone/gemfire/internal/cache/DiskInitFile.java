@@ -470,6 +470,13 @@ public class DiskInitFile implements DiskInitFileInterpreter {
 
   private int ifLiveRecordCount = 0;
   private int ifTotalRecordCount = 0;
+  /**
+   * The number of records the file started with: the live records written by
+   * the last compaction, or the estimate of the live records found when the
+   * file was recovered. Every record after them has to be replayed on top of
+   * this snapshot.
+   */
+  private int ifSnapshotRecordCount = 0;
   private boolean compactInProgress;
   // the recovered version
   private Version gfversion;
@@ -552,6 +559,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
         
         this.gotEOF = parser.gotEOF();
         this.nextSeekPosition = dis.getCount();
+        this.ifSnapshotRecordCount = this.ifLiveRecordCount;
         if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
           logger.trace(LogMarker.PERSIST_RECOVERY, "liveRecordCount={} totalRecordCount={}", this.ifLiveRecordCount, this.ifTotalRecordCount);
         }
@@ -1508,23 +1516,33 @@ public class DiskInitFile implements DiskInitFileInterpreter {
 
   /**
    * If the file is smaller than this constant then it
-   * does not need to be compacted.
+   * does not need to be compacted. Not final so tests can change it.
    */
-  private static final long MIN_SIZE_BEFORE_COMPACT = 1024 * 1024;
+  static long MIN_SIZE_BEFORE_COMPACT = 1024 * 1024;
   /**
    * If the ratio of live vs. dead is not less than this constant
    * then no need to compact.
    */
   private static final double COMPACT_RATIO = 0.5;
 
+  /**
+   * Compacts the file once half of its records are garbage, or once more
+   * records have been appended since the last compaction than it wrote. The
+   * second check does not depend on the live record estimate, so it bounds
+   * the records a recovery replays to about twice the current meta-data
+   * even when that estimate is off.
+   */
   private void compactIfNeeded() {
     lock.lock(false);
     try {
       if (this.compactInProgress) return;
       if (this.ifTotalRecordCount == 0) return;
-      if (this.ifTotalRecordCount == this.ifLiveRecordCount) return;
-      if (this.ifRAF.length() <= MIN_SIZE_BEFORE_COMPACT) return;
-      if ((double)this.ifLiveRecordCount / (double)this.ifTotalRecordCount > COMPACT_RATIO) return;
+      // the file may have been preallocated so use the end of its data
+      if (this.ifRAF.getFilePointer() <= MIN_SIZE_BEFORE_COMPACT) return;
+      if (this.ifTotalRecordCount - this.ifSnapshotRecordCount <= this.ifSnapshotRecordCount) {
+        if (this.ifTotalRecordCount == this.ifLiveRecordCount) return;
+        if ((double)this.ifLiveRecordCount / (double)this.ifTotalRecordCount > COMPACT_RATIO) return;
+      }
       compact();
     } catch (IOException ignore) {
       return;
@@ -1689,6 +1707,7 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       savePRConfigs();
       saveCanonicalIds();
       saveRevokedMembers();
+      this.ifSnapshotRecordCount = this.ifTotalRecordCount;
       if (logger.isDebugEnabled()) {
         logger.debug("After compacting init file lrc={} trc={}", this.ifLiveRecordCount, this.ifTotalRecordCount);
       }
@@ -1917,6 +1936,16 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     compact();
   }
 
+  // test hook
+  int getTotalRecordCount() {
+    lock.lock(false);
+    try {
+      return this.ifTotalRecordCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   private byte[] pmidToBytes(PersistentMemberID id) {
     try {
       HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
@@ -1990,6 +2019,9 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       // miss any registrations.
       saveInstantiators();
       saveDataSerializers();
+      // a file that had many dead records is compacted now instead of on the
+      // next write so that the next recovery does not replay them again
+      compactIfNeeded();
     } else {
       this.regListener = null;
     }
@@ -34,6 +34,8 @@ import com.gemstone.gemfire.internal.cache.DiskEntry.RecoveredEntry;
 import com.gemstone.gemfire.internal.cache.ExportDiskRegion.ExportWriter;
 import com.gemstone.gemfire.internal.cache.lru.LRUAlgorithm;
 import com.gemstone.gemfire.internal.cache.lru.LRUStatistics;
+import com.gemstone.gemfire.internal.cache.partitioned.Bucket;
+import com.gemstone.gemfire.internal.cache.partitioned.PRLocallyDestroyedException;
 import com.gemstone.gemfire.internal.cache.persistence.*;
 import com.gemstone.gemfire.internal.cache.snapshot.GFSnapshot;
 import com.gemstone.gemfire.internal.cache.snapshot.GFSnapshot.SnapshotWriter;
@@ -61,6 +63,7 @@ import java.net.InetAddress;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -69,6 +72,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -133,6 +137,15 @@ public class DiskStoreImpl implements DiskStore {
       DiskStoreImpl.RECOVER_VALUES_SYNC_PROPERTY_NAME, false);
   boolean FORCE_KRF_RECOVERY = getBoolean(
       DistributionConfig.GEMFIRE_PREFIX + "disk.FORCE_KRF_RECOVERY", false);
+  /**
+   * Makes asynchronous value recovery load one region or bucket at a time,
+   * choosing primary buckets first and then the regions whose values are
+   * being faulted in by reads, instead of loading every region from one
+   * oplog at a time.
+   */
+  public static final String RECOVER_VALUES_BY_BUCKET_PROPERTY_NAME = DistributionConfig.GEMFIRE_PREFIX + "disk.recoverValuesByBucket";
+  boolean RECOVER_VALUES_BY_BUCKET = getBoolean(
+      DiskStoreImpl.RECOVER_VALUES_BY_BUCKET_PROPERTY_NAME, false);
   
   public static boolean getBoolean(String sysProp, boolean def) {
     return Boolean.valueOf(System.getProperty(sysProp, Boolean.valueOf(def)
@@ -160,13 +173,40 @@ public class DiskStoreImpl implements DiskStore {
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "MAX_OPLOGS_PER_ROLL", 1).intValue())
       .intValue();
   /**
-   *
+   * The number of threads that compact the oplogs of one disk store at the
+   * same time. Each scheduled compaction picks up at least this many oplogs.
    */
   public static final int MAX_CONCURRENT_COMPACTIONS = Integer.getInteger(
       DistributionConfig.GEMFIRE_PREFIX + "MAX_CONCURRENT_COMPACTIONS",
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "MAX_CONCURRENT_ROLLS", 1).intValue())
       .intValue();
   
+  /**
+   * The number of bytes per second that online compaction may copy forward,
+   * shared by all the compactor threads of a disk store. 0, the default, does
+   * not limit compaction.
+   */
+  public static final long COMPACTION_BYTES_PER_SECOND = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "DISK_COMPACTION_BYTES_PER_SECOND", 0L);
+
+  /**
+   * The number of threads that read the drf and krf files of the oplogs being
+   * recovered ahead of the recovery thread, which still parses and applies
+   * all of them. At 1 or less the recovery thread reads every file itself.
+   */
+  public static final int RECOVERY_THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "DISK_RECOVERY_THREADS", 1);
+
+  /**
+   * If true, a backup hard links the crf, drf and krf files of the oplogs it
+   * contains into the backup directory instead of copying them. The backup
+   * rolls the active oplog first, so none of those files are written again.
+   * A file is still copied if the link cannot be made, for example because
+   * the backup directory is on another file system.
+   */
+  static boolean BACKUP_WITH_HARD_LINKS = Boolean.getBoolean(
+      DistributionConfig.GEMFIRE_PREFIX + "BACKUP_WITH_HARD_LINKS");
+
   /**
    * This system property indicates that maximum number of delayed write
    * tasks that can be pending before submitting the tasks start blocking. 
@@ -247,11 +287,20 @@ public class DiskStoreImpl implements DiskStore {
   private final int maxAsyncItems;
   private final AtomicInteger forceFlushCount;
   private final Object asyncMonitor;
+  /**
+   * Set once a producer has woken the flusher because the queue passed half
+   * full; cleared when the flusher drains the queue. Keeps the producers from
+   * notifying it again for every item past that point.
+   */
+  private volatile boolean flusherSignalled;
 
   // complex vars
   /** Compactor task which does the compaction. Null if compaction not possible. */
   private final OplogCompactor oplogCompactor;
 
+  /** Limits the rate of online compaction. Null if it is not limited. */
+  private final CompactionThrottle compactionThrottle;
+
   private DiskInitFile initFile = null;
 
   private volatile DiskStoreBackup diskStoreBackup = null;
@@ -309,6 +358,16 @@ public class DiskStoreImpl implements DiskStore {
 
   private final Object asyncValueRecoveryLock = new Object();
 
+  /**
+   * The number of values faulted in by reads for each region whose values are
+   * being recovered by {@link #RECOVER_VALUES_BY_BUCKET}; null when no such
+   * recovery is in progress.
+   */
+  private volatile ConcurrentMap<Long, AtomicLong> valueRecoveryDemand;
+
+  /** The thread doing the recovery, whose own faults are not demand. */
+  private volatile Thread valueRecoveryThread;
+
   /**
    * The unique id for this disk store.
    * 
@@ -446,6 +505,11 @@ public class DiskStoreImpl implements DiskStore {
     } else {
       this.oplogCompactor = null;
     }
+    if (this.oplogCompactor != null && COMPACTION_BYTES_PER_SECOND > 0) {
+      this.compactionThrottle = new CompactionThrottle(COMPACTION_BYTES_PER_SECOND, this.stats);
+    } else {
+      this.compactionThrottle = null;
+    }
     
     int MAXT = DiskStoreImpl.MAX_CONCURRENT_COMPACTIONS;
     final ThreadGroup compactThreadGroup = LoggingThreadGroup.createThreadGroup("Oplog Compactor Thread Group", this.logger);
@@ -1274,7 +1338,9 @@ public class DiskStoreImpl implements DiskStore {
       } else {
         if (!this.asyncQueue.offer(item)) {
           // queue is full so do a sync write to prevent deadlock
+          final long start = this.stats.getStatTime();
           handleFullAsyncQueue(item);
+          this.stats.endAsyncProducerStall(start);
           // return early since we didn't add it to the queue
           return;
         }
@@ -1282,7 +1348,12 @@ public class DiskStoreImpl implements DiskStore {
       this.stats.incQueueSize(1);
     }
     if (this.maxAsyncItems > 0) {
-      if (checkAsyncItemLimit()) {
+      final int size = this.asyncQueue.size();
+      // wake the flusher when the queue is full, and also once when it
+      // passes half full so that it can shorten its wait (see
+      // getFlusherWaitTime)
+      if (size >= this.maxAsyncItems || (size > this.maxAsyncItems / 2 && !this.flusherSignalled)) {
+        this.flusherSignalled = true;
         synchronized (this.asyncMonitor) {
           this.asyncMonitor.notifyAll();
         }
@@ -1606,6 +1677,10 @@ public class DiskStoreImpl implements DiskStore {
     }
   }
 
+  boolean isFlusherSignalled() {
+    return this.flusherSignalled;
+  }
+
   /**
    * Return true if we have enough async items to do a flush
    */
@@ -1613,20 +1688,44 @@ public class DiskStoreImpl implements DiskStore {
     return this.asyncQueue.size() >= this.maxAsyncItems;
   }
 
+  /**
+   * Returns how many milliseconds the flusher should wait, at most, before
+   * draining the queue. While the queue is no more than half full this is the
+   * configured time interval. Past that the wait shrinks in proportion to the
+   * room left, down to one millisecond, so that under a backlog the flusher
+   * drains before producers find the queue full and have to write for
+   * themselves.
+   */
+  long getFlusherWaitTime(long timeInterval) {
+    if (this.maxAsyncItems <= 0 || timeInterval <= 0) {
+      return timeInterval;
+    }
+    final int half = this.maxAsyncItems / 2;
+    final int size = this.asyncQueue.size();
+    if (size <= half) {
+      return timeInterval;
+    }
+    final long room = Math.max(0, this.maxAsyncItems - size);
+    return Math.max(1, timeInterval * room / (this.maxAsyncItems - half));
+  }
+
   private class FlusherThread implements Runnable {
     private boolean waitUntilFlushIsReady() throws InterruptedException {
       if (maxAsyncItems > 0) {
         final long time = getTimeInterval();
         synchronized (asyncMonitor) {
           if (time > 0) {
-            long nanosRemaining = TimeUnit.MILLISECONDS.toNanos(time);
-            final long endTime = System.nanoTime() + nanosRemaining;
+            final long startTime = System.nanoTime();
+            long nanosRemaining = TimeUnit.MILLISECONDS.toNanos(getFlusherWaitTime(time));
             boolean done = checkAndClearForceFlush() || checkAsyncItemLimit();
             while (!done && nanosRemaining > 0) {
               TimeUnit.NANOSECONDS.timedWait(asyncMonitor, nanosRemaining);
               done = checkAndClearForceFlush() || checkAsyncItemLimit();
               if (!done) {
-                nanosRemaining = endTime - System.nanoTime();
+                // the backlog may have grown while we waited
+                nanosRemaining = startTime
+                    + TimeUnit.MILLISECONDS.toNanos(getFlusherWaitTime(time))
+                    - System.nanoTime();
               }
             }
           } else {
@@ -1679,6 +1778,7 @@ public class DiskStoreImpl implements DiskStore {
       try {
         while (waitUntilFlushIsReady()) {
           int drainCount = fillDrainList();
+          flusherSignalled = false;
           if (drainCount > 0) {
             stats.incQueueSize(-drainCount);
             Iterator it = getDrainList().iterator();
@@ -1718,11 +1818,13 @@ public class DiskStoreImpl implements DiskStore {
                         DiskEntry.Helper.doAsyncFlush(entry, region, tag);
                       } else {
                         // If it is no longer pending someone called
-                        // unscheduleAsyncWrite
-                        // so we don't need to write the entry, but
+                        // unscheduleAsyncWrite, or an earlier item in this
+                        // or a previous drain already wrote the entry's
+                        // current value, so we don't need to write the entry, but
                         // if we have a version tag we need to record the
                         // operation
                         // to update the RVV
+                        stats.incAsyncCoalescedWrites();
                         if (tag != null) {
                           DiskEntry.Helper.doAsyncFlush(tag, region);
                         }
@@ -2081,6 +2183,40 @@ public class DiskStoreImpl implements DiskStore {
     return this.isCompactionPossible;
   }
 
+  /**
+   * Called by a compactor after it copied a value of the given length
+   * forward. Returns how many nanoseconds it has to wait, with
+   * {@link #awaitCompactionThrottle}, because compaction is going faster
+   * than {@link #COMPACTION_BYTES_PER_SECOND}; 0 if it can go on.
+   */
+  long throttleCompaction(int valueLength) {
+    final CompactionThrottle throttle = this.compactionThrottle;
+    if (throttle == null) {
+      return 0;
+    }
+    return throttle.reserve(valueLength);
+  }
+
+  /**
+   * Waits for the time returned by {@link #throttleCompaction}. The caller
+   * must not hold any oplog or compactor lock.
+   * 
+   * @return false if the compactor was stopped or the disk store started
+   *         closing before the time was up
+   */
+  boolean awaitCompactionThrottle(long waitNanos, final OplogCompactor compactor) {
+    return this.compactionThrottle.await(waitNanos, new BooleanSupplier() {
+      @Override
+      public boolean getAsBoolean() {
+        if (!compactor.keepCompactorRunning() || isClosing()) {
+          return true;
+        }
+        final GemFireCacheImpl cache = getCache();
+        return cache != null && cache.getCancelCriterion().isCancelInProgress();
+      }
+    });
+  }
+
   void scheduleCompaction() {
     if (isCompactionEnabled() && !isOfflineCompacting()) {
       this.oplogCompactor.scheduleIfNeeded(getOplogToBeCompacted());
@@ -2708,7 +2844,7 @@ public class DiskStoreImpl implements DiskStore {
     int max = Integer.MAX_VALUE;
     if (!all && max > MAX_OPLOGS_PER_COMPACTION
         && MAX_OPLOGS_PER_COMPACTION > 0) {
-      max = MAX_OPLOGS_PER_COMPACTION;
+      max = Math.max(MAX_OPLOGS_PER_COMPACTION, MAX_CONCURRENT_COMPACTIONS);
     }
     persistentOplogs.getCompactableOplogs(l, max);
 
@@ -2926,12 +3062,16 @@ public class DiskStoreImpl implements DiskStore {
       long compactionStart = getStats().startCompaction();
       long start = System.nanoTime();
       try {
-        for (int i = 0; i < oplogs.length && keepCompactorRunning() /*
-                                                                     * @todo &&
-                                                                     * !owner.
-                                                                     * isDestroyed
-                                                                     */; i++) {
-          totalCount += oplogs[i].compact(this);
+        if (MAX_CONCURRENT_COMPACTIONS > 1 && oplogs.length > 1) {
+          totalCount = compactConcurrently(oplogs);
+        } else {
+          for (int i = 0; i < oplogs.length && keepCompactorRunning() /*
+                                                                       * @todo &&
+                                                                       * !owner.
+                                                                       * isDestroyed
+                                                                       */; i++) {
+            totalCount += oplogs[i].compact(this);
+          }
         }
 
         // TODO:Asif : DiskRegion: How do we tackle
@@ -2944,6 +3084,101 @@ public class DiskStoreImpl implements DiskStore {
       return true /* @todo !owner.isDestroyed */;
     }
 
+    /**
+     * Compacts the oplogs with up to {@link #MAX_CONCURRENT_COMPACTIONS}
+     * threads, each copying the live values of a different oplog forward. The
+     * calling thread takes part; the others are disk store tasks.
+     * 
+     * @return the number of values copied forward
+     */
+    private int compactConcurrently(CompactableOplog[] oplogs) {
+      ConcurrentCompaction compaction = new ConcurrentCompaction(oplogs);
+      int helpers = Math.min(MAX_CONCURRENT_COMPACTIONS, oplogs.length) - 1;
+      for (int i = 0; i < helpers; i++) {
+        if (!executeDiskStoreTask(compaction)) {
+          break;
+        }
+      }
+      compaction.run();
+      return compaction.waitForCompletion();
+    }
+
+    /**
+     * The oplogs of one compaction run shared by the threads compacting them.
+     * Each thread claims the next oplog no other thread has started on until
+     * there are none left. A task that only gets to run after all the oplogs
+     * were claimed does nothing, so the compactor never waits for a task that
+     * is still queued behind other disk store tasks.
+     */
+    private class ConcurrentCompaction implements Runnable {
+      private final CompactableOplog[] oplogs;
+      private int next;
+      private int running;
+      private int totalCount;
+      private RuntimeException failure;
+
+      ConcurrentCompaction(CompactableOplog[] oplogs) {
+        this.oplogs = oplogs;
+      }
+
+      public void run() {
+        synchronized (this) {
+          if (this.next >= this.oplogs.length) {
+            return;
+          }
+          this.running++;
+        }
+        try {
+          for (;;) {
+            CompactableOplog oplog;
+            synchronized (this) {
+              if (this.next >= this.oplogs.length || this.failure != null || !keepCompactorRunning()) {
+                break;
+              }
+              oplog = this.oplogs[this.next++];
+            }
+            int count = oplog.compact(OplogCompactor.this);
+            synchronized (this) {
+              this.totalCount += count;
+            }
+          }
+        } catch (RuntimeException ex) {
+          synchronized (this) {
+            if (this.failure == null) {
+              this.failure = ex;
+            }
+          }
+        } finally {
+          synchronized (this) {
+            this.running--;
+            notifyAll();
+          }
+        }
+      }
+
+      /**
+       * Waits for the threads that claimed an oplog and rethrows the first
+       * exception one of them ran into.
+       */
+      synchronized int waitForCompletion() {
+        boolean interrupted = false;
+        while (this.running > 0) {
+          try {
+            wait();
+          } catch (InterruptedException ex) {
+            interrupted = true;
+          }
+        }
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+        if (this.failure != null) {
+          throw this.failure;
+        }
+        return this.totalCount;
+      }
+    }
+
     private boolean isClosing() {
       if (getCache().isClosed()) {
         return true;
@@ -4022,7 +4257,7 @@ public class DiskStoreImpl implements DiskStore {
     }
   }
 
-  private void validate() {
+  private void validate(boolean deep) throws IOException {
     assert isValidating();
     this.RECOVER_VALUES = false; // save memory @todo should Oplog make sure
                                  // value is deserializable?
@@ -4038,6 +4273,53 @@ public class DiskStoreImpl implements DiskStore {
     }
     System.out.println("Total number of region entries in this disk store is: "
         + getLiveEntryCount());
+    if (deep) {
+      verifyKrfChecksums();
+      System.out.println("Verified " + getVerifiedChecksums()
+          + " checksums of records and krf files.");
+    }
+  }
+
+  /**
+   * Reads every krf in full and checks it against the checksum at its end.
+   * The crfs and drfs have already been checked record by record during
+   * recovery.
+   */
+  private void verifyKrfChecksums() throws IOException {
+    long start = System.nanoTime();
+    long bytes = 0;
+    int withoutChecksum = 0;
+    for (Oplog oplog : this.persistentOplogs.getAllOplogs()) {
+      if (oplog == null) {
+        continue;
+      }
+      long result = oplog.verifyKrfChecksum();
+      if (result < 0) {
+        withoutChecksum++;
+      } else {
+        bytes += result;
+      }
+    }
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    System.out.println("Checked " + bytes + " bytes of krf files in " + millis + " ms.");
+    if (withoutChecksum > 0) {
+      System.out.println(withoutChecksum
+          + " krf files were written without a checksum and were not checked.");
+    }
+  }
+
+  private long verifiedChecksums;
+
+  /**
+   * Called by recovery for every record or file whose checksum it verified.
+   * Only the recovery thread calls it.
+   */
+  void incVerifiedChecksums() {
+    this.verifiedChecksums++;
+  }
+
+  public long getVerifiedChecksums() {
+    return this.verifiedChecksums;
   }
 
   private int liveEntryCount;
@@ -4243,6 +4525,34 @@ public class DiskStoreImpl implements DiskStore {
     return new File(targetDir, BACKUP_DIR_PREFIX + index);
   }
 
+  /**
+   * Puts an oplog file into the backup directory, as a hard link if
+   * {@link #BACKUP_WITH_HARD_LINKS} is set and the link can be made and as a
+   * copy otherwise.
+   */
+  void backupOplogFile(File source, File backupDir) throws IOException {
+    if (!source.exists()) {
+      return;
+    }
+    long start = this.stats.getStatTime();
+    long length = source.length();
+    if (BACKUP_WITH_HARD_LINKS) {
+      File dest = new File(backupDir, source.getName());
+      try {
+        Files.createLink(dest.toPath(), source.toPath());
+        this.stats.endBackupFile(start, length, true);
+        return;
+      } catch (IOException | UnsupportedOperationException e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not link {} to {}, copying it instead", source, dest, e);
+        }
+        dest.delete();
+      }
+    }
+    FileUtil.copy(source, backupDir);
+    this.stats.endBackupFile(start, length, false);
+  }
+
   /**
    * Copy the oplogs to the backup directory. This is the final step of the
    * backup process. The oplogs we copy are defined in the startBackup method.
@@ -4481,9 +4791,17 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   public static void validate(String name, File[] dirs) throws Exception {
+    validate(name, dirs, false);
+  }
+
+  /**
+   * Validates an offline disk store. With <code>deep</code> set every krf is
+   * also read in full and checked against its checksum.
+   */
+  public static void validate(String name, File[] dirs, boolean deep) throws Exception {
     try {
       DiskStoreImpl dsi = createForOfflineValidate(name, dirs);
-      dsi.validate();
+      dsi.validate(deep);
     } finally {
       cleanupOffline();
     }
@@ -4570,8 +4888,12 @@ public class DiskStoreImpl implements DiskStore {
       synchronized (asyncValueRecoveryLock) {
         DiskStoreObserver.startAsyncValueRecovery(DiskStoreImpl.this);
         try {
-          for (Oplog oplog : oplogSet) {
-            oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+          if (RECOVER_VALUES_BY_BUCKET) {
+            recoverValuesByBucket();
+          } else {
+            for (Oplog oplog : oplogSet) {
+              oplog.recoverValuesIfNeeded(currentAsyncValueRecoveryMap);
+            }
           }
         } catch (CancelException ignore) {
           // do nothing
@@ -4585,6 +4907,118 @@ public class DiskStoreImpl implements DiskStore {
         }
       }
     }
+
+    /**
+     * Loads the values of one store at a time from every oplog, releasing
+     * the threads waiting for a store as soon as its values are loaded.
+     */
+    private void recoverValuesByBucket() {
+      valueRecoveryThread = Thread.currentThread();
+      valueRecoveryDemand = new ConcurrentHashMap<Long, AtomicLong>();
+      try {
+        Set<Long> remaining = new HashSet<Long>(recoveredStores.keySet());
+        while (!remaining.isEmpty() && !isClosing()) {
+          Long drId = nextValueRecoveryStore(remaining);
+          remaining.remove(drId);
+          for (Oplog oplog : oplogSet) {
+            Map<Long, DiskRecoveryStore> target = new HashMap<Long, DiskRecoveryStore>(2);
+            synchronized (currentAsyncValueRecoveryMap) {
+              DiskRecoveryStore store = currentAsyncValueRecoveryMap.get(drId);
+              if (store == null) {
+                break;
+              }
+              target.put(drId, store);
+            }
+            oplog.recoverValuesIfNeeded(target);
+            if (target.isEmpty()) {
+              // the lru limit was reached or the region was destroyed
+              break;
+            }
+          }
+          synchronized (currentAsyncValueRecoveryMap) {
+            currentAsyncValueRecoveryMap.remove(drId);
+            currentAsyncValueRecoveryMap.notifyAll();
+          }
+        }
+      } finally {
+        valueRecoveryDemand = null;
+        valueRecoveryThread = null;
+      }
+    }
+
+    /**
+     * Returns the store whose values to load next: a primary bucket if there
+     * is one, and among those the one with the most values faulted in by
+     * reads so far.
+     */
+    private Long nextValueRecoveryStore(Set<Long> remaining) {
+      final Map<Long, AtomicLong> demand = valueRecoveryDemand;
+      Map<Long, DiskRecoveryStore> stores = new HashMap<Long, DiskRecoveryStore>(remaining.size());
+      synchronized (currentAsyncValueRecoveryMap) {
+        for (Long drId : remaining) {
+          stores.put(drId, currentAsyncValueRecoveryMap.get(drId));
+        }
+      }
+      // the primary lookup may go through the cache so do it outside the lock
+      Long best = null;
+      boolean bestPrimary = false;
+      long bestDemand = -1;
+      for (Map.Entry<Long, DiskRecoveryStore> e : stores.entrySet()) {
+        boolean primary = isPrimaryBucket(e.getValue());
+        AtomicLong faults = demand.get(e.getKey());
+        long storeDemand = faults == null ? 0 : faults.get();
+        if (best == null || (primary && !bestPrimary)
+            || (primary == bestPrimary && storeDemand > bestDemand)) {
+          best = e.getKey();
+          bestPrimary = primary;
+          bestDemand = storeDemand;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Returns true if this member hosts the primary of the bucket the store
+     * belongs to. Until the bucket region has been created the store is a
+     * PlaceHolderDiskRegion, so its primary status is taken from the bucket
+     * advisor of the partitioned region, if that exists yet.
+     */
+    private boolean isPrimaryBucket(DiskRecoveryStore store) {
+      if (store instanceof BucketRegion) {
+        return ((BucketRegion) store).getBucketAdvisor().isPrimary();
+      }
+      if (store instanceof PlaceHolderDiskRegion
+          && ((PlaceHolderDiskRegion) store).isBucket()) {
+        try {
+          Bucket bucket = PartitionedRegionHelper.getProxyBucketRegion(
+              getCache(), ((PlaceHolderDiskRegion) store).getName(), false);
+          return bucket != null && bucket.getBucketAdvisor().isPrimary();
+        } catch (PRLocallyDestroyedException ignore) {
+          // the region is being destroyed; its values are not needed first
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Called when a value is faulted in from disk so that
+   * {@link #RECOVER_VALUES_BY_BUCKET} can load the values of the regions
+   * that are being read first.
+   */
+  void recordValueRecoveryDemand(DiskRegionView dr) {
+    final ConcurrentMap<Long, AtomicLong> demand = this.valueRecoveryDemand;
+    if (demand != null && Thread.currentThread() != this.valueRecoveryThread) {
+      AtomicLong faults = demand.get(dr.getId());
+      if (faults == null) {
+        faults = new AtomicLong();
+        AtomicLong old = demand.putIfAbsent(dr.getId(), faults);
+        if (old != null) {
+          faults = old;
+        }
+      }
+      faults.incrementAndGet();
+    }
   }
 
   public void waitForAsyncRecovery(DiskRegion diskRegion) {
@@ -61,6 +61,9 @@ public class DiskStoreStats {
   private static final int removesId;
   private static final int removeTimeId;
   private static final int queueSizeId;
+  private static final int asyncCoalescedWritesId;
+  private static final int asyncProducerStallsId;
+  private static final int asyncProducerStallTimeId;
 
   private static final int compactInsertsId;
   private static final int compactInsertTimeId;
@@ -79,6 +82,40 @@ public class DiskStoreStats {
   private static final int uncreatedRecoveredRegionsId;
   private static final int backupsInProgress;
   private static final int backupsCompleted;
+  private static final int backupBytesCopiedId;
+  private static final int backupBytesLinkedId;
+  private static final int backupFileTimeId;
+
+  private static final int mappedReadsId;
+  private static final int compactThrottlesId;
+  private static final int compactThrottleTimeId;
+  private static final int recoveryOplogsRemainingId;
+  private static final int recoveryBytesPrefetchedId;
+
+  private static final int groupCommitsId;
+  private static final int groupCommitRecordsId;
+  private static final int groupCommitTimeId;
+  private static final int[] groupCommitBatchIds;
+  private static final int[] groupCommitLatencyIds;
+
+  /**
+   * Largest number of records counted by each of the group commit batch size
+   * buckets except the last one, which counts all larger batches.
+   */
+  static final int[] GROUP_COMMIT_BATCH_BOUNDS = {1, 4, 16, 64};
+  private static final String[] GROUP_COMMIT_BATCH_NAMES = {
+    "groupCommitBatchesOf1", "groupCommitBatchesOf2To4",
+    "groupCommitBatchesOf5To16", "groupCommitBatchesOf17To64",
+    "groupCommitBatchesOver64" };
+
+  /**
+   * Nanoseconds below which a wait is counted by each of the group commit
+   * latency buckets except the last one, which counts all longer waits.
+   */
+  static final long[] GROUP_COMMIT_LATENCY_BOUNDS = {100000L, 1000000L, 10000000L};
+  private static final String[] GROUP_COMMIT_LATENCY_NAMES = {
+    "groupCommitLatencyUnder100us", "groupCommitLatencyUnder1ms",
+    "groupCommitLatencyUnder10ms", "groupCommitLatencyOver10ms" };
 
   static {
     String statName = "DiskStoreStatistics";
@@ -153,6 +190,9 @@ public class DiskStoreStats {
          f.createLongCounter("removes", removesDesc, "ops"),
          f.createLongCounter("removeTime", removeTimeDesc, "nanoseconds"),
          f.createIntGauge("queueSize", queueSizeDesc, "entries"),
+         f.createLongCounter("asyncCoalescedWrites", "Total number of asynchronous updates and destroys that were folded into a write already waiting in the async queue for the same entry", "ops"),
+         f.createLongCounter("asyncProducerStalls", "Total number of times a producer found the async queue full and had to write to disk itself", "stalls"),
+         f.createLongCounter("asyncProducerStallTime", "Total amount of time, in nanoseconds, producers spent writing to disk because the async queue was full", "nanoseconds"),
          f.createLongCounter("compactInserts", "Total number of times an oplog compact did a db insert", "inserts"),
          f.createLongCounter("compactInsertTime", "Total amount of time, in nanoseconds, spent doing inserts during a compact", "nanoseconds"),
          f.createLongCounter("compactUpdates", "Total number of times an oplog compact did an update", "updates"),
@@ -172,6 +212,26 @@ public class DiskStoreStats {
          f.createIntGauge("uncreatedRecoveredRegions", "The current number of regions that have been recovered but have not yet been created.", "regions"),
          f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
          f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
+         f.createLongCounter("backupBytesCopied", "The total number of bytes of oplog files that backups copied", "bytes"),
+         f.createLongCounter("backupBytesLinked", "The total number of bytes of oplog files that backups hard linked instead of copying", "bytes"),
+         f.createLongCounter("backupFileTime", "The total amount of time, in nanoseconds, backups spent copying or linking oplog files", "nanoseconds"),
+         f.createLongCounter("mappedReads", "Total number of values read from memory mapped crf files instead of with an oplog read", "reads"),
+         f.createLongCounter("compactThrottles", "Total number of times a compactor waited to stay under the configured compaction rate", "waits"),
+         f.createLongCounter("compactThrottleTime", "Total amount of time, in nanoseconds, compactors spent waiting to stay under the configured compaction rate", "nanoseconds"),
+         f.createIntGauge("recoveryOplogsRemaining", "The number of oplogs the current recovery has not yet replayed", "oplogs"),
+         f.createLongCounter("recoveryBytesPrefetched", "The total number of bytes of drf and krf files read ahead of recovery by recovery threads", "bytes"),
+         f.createLongCounter("groupCommits", "Total number of times a group commit wrote and forced the records of waiting synchronous writers", "commits"),
+         f.createLongCounter("groupCommitRecords", "Total number of synchronous oplog records made durable by group commits", "ops"),
+         f.createLongCounter("groupCommitTime", "Total amount of time, in nanoseconds, spent doing group commits", "nanoseconds"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_NAMES[0], "Number of group commits that made a single record durable", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_NAMES[1], "Number of group commits that made 2 to 4 records durable", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_NAMES[2], "Number of group commits that made 5 to 16 records durable", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_NAMES[3], "Number of group commits that made 17 to 64 records durable", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_NAMES[4], "Number of group commits that made more than 64 records durable", "commits"),
+         f.createLongCounter(GROUP_COMMIT_LATENCY_NAMES[0], "Number of synchronous writes whose group commit completed in under 100 microseconds", "ops"),
+         f.createLongCounter(GROUP_COMMIT_LATENCY_NAMES[1], "Number of synchronous writes whose group commit completed in 100 microseconds to 1 millisecond", "ops"),
+         f.createLongCounter(GROUP_COMMIT_LATENCY_NAMES[2], "Number of synchronous writes whose group commit completed in 1 to 10 milliseconds", "ops"),
+         f.createLongCounter(GROUP_COMMIT_LATENCY_NAMES[3], "Number of synchronous writes whose group commit took 10 milliseconds or more", "ops"),
        });
 
     // Initialize id fields
@@ -204,6 +264,9 @@ public class DiskStoreStats {
     removesId = type.nameToId("removes");
     removeTimeId = type.nameToId("removeTime");
     queueSizeId = type.nameToId("queueSize");
+    asyncCoalescedWritesId = type.nameToId("asyncCoalescedWrites");
+    asyncProducerStallsId = type.nameToId("asyncProducerStalls");
+    asyncProducerStallTimeId = type.nameToId("asyncProducerStallTime");
 
     compactDeletesId = type.nameToId("compactDeletes");
     compactDeleteTimeId = type.nameToId("compactDeleteTime");
@@ -220,6 +283,25 @@ public class DiskStoreStats {
     uncreatedRecoveredRegionsId = type.nameToId("uncreatedRecoveredRegions");
     backupsInProgress = type.nameToId("backupsInProgress");
     backupsCompleted= type.nameToId("backupsCompleted");
+    backupBytesCopiedId = type.nameToId("backupBytesCopied");
+    backupBytesLinkedId = type.nameToId("backupBytesLinked");
+    backupFileTimeId = type.nameToId("backupFileTime");
+    mappedReadsId = type.nameToId("mappedReads");
+    compactThrottlesId = type.nameToId("compactThrottles");
+    compactThrottleTimeId = type.nameToId("compactThrottleTime");
+    recoveryOplogsRemainingId = type.nameToId("recoveryOplogsRemaining");
+    recoveryBytesPrefetchedId = type.nameToId("recoveryBytesPrefetched");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitRecordsId = type.nameToId("groupCommitRecords");
+    groupCommitTimeId = type.nameToId("groupCommitTime");
+    groupCommitBatchIds = new int[GROUP_COMMIT_BATCH_NAMES.length];
+    for (int i = 0; i < groupCommitBatchIds.length; i++) {
+      groupCommitBatchIds[i] = type.nameToId(GROUP_COMMIT_BATCH_NAMES[i]);
+    }
+    groupCommitLatencyIds = new int[GROUP_COMMIT_LATENCY_NAMES.length];
+    for (int i = 0; i < groupCommitLatencyIds.length; i++) {
+      groupCommitLatencyIds[i] = type.nameToId(GROUP_COMMIT_LATENCY_NAMES[i]);
+    }
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -316,6 +398,31 @@ public class DiskStoreStats {
   public void incQueueSize(int delta) {
     this.stats.incInt(queueSizeId, delta);
   }
+
+  public void incAsyncCoalescedWrites() {
+    this.stats.incLong(asyncCoalescedWritesId, 1);
+  }
+
+  public long getAsyncCoalescedWrites() {
+    return this.stats.getLong(asyncCoalescedWritesId);
+  }
+
+  /**
+   * Invoked after a producer wrote its own entry to disk because the async
+   * queue was full.
+   */
+  public void endAsyncProducerStall(long start) {
+    this.stats.incLong(asyncProducerStallsId, 1);
+    this.stats.incLong(asyncProducerStallTimeId, getStatTime() - start);
+  }
+
+  public long getAsyncProducerStalls() {
+    return this.stats.getLong(asyncProducerStallsId);
+  }
+
+  public long getAsyncProducerStallTime() {
+    return this.stats.getLong(asyncProducerStallTimeId);
+  }
   public void incUncreatedRecoveredRegions(int delta) {
     this.stats.incInt(uncreatedRecoveredRegionsId, delta);
   }
@@ -520,7 +627,91 @@ public class DiskStoreStats {
     this.stats.incInt(backupsInProgress, -1);
     this.stats.incInt(backupsCompleted, 1);
   }
+
+  /**
+   * Invoked after a backup copied or hard linked an oplog file of
+   * <code>bytes</code> bytes.
+   */
+  public void endBackupFile(long start, long bytes, boolean linked) {
+    this.stats.incLong(linked ? backupBytesLinkedId : backupBytesCopiedId, bytes);
+    this.stats.incLong(backupFileTimeId, getStatTime() - start);
+  }
+
+  public long getBackupBytesCopied() {
+    return this.stats.getLong(backupBytesCopiedId);
+  }
+
+  public long getBackupBytesLinked() {
+    return this.stats.getLong(backupBytesLinkedId);
+  }
   
+
+  public void incMappedReads() {
+    this.stats.incLong(mappedReadsId, 1);
+  }
+
+  public long getMappedReads() {
+    return this.stats.getLong(mappedReadsId);
+  }
+
+  public void endCompactionThrottle(long nanos) {
+    this.stats.incLong(compactThrottlesId, 1);
+    this.stats.incLong(compactThrottleTimeId, nanos);
+  }
+
+  public long getCompactThrottles() {
+    return this.stats.getLong(compactThrottlesId);
+  }
+
+  public void incRecoveryOplogsRemaining(int delta) {
+    this.stats.incInt(recoveryOplogsRemainingId, delta);
+  }
+
+  public void incRecoveryBytesPrefetched(long bytes) {
+    this.stats.incLong(recoveryBytesPrefetchedId, bytes);
+  }
+
+  public long getRecoveryBytesPrefetched() {
+    return this.stats.getLong(recoveryBytesPrefetchedId);
+  }
+
+  /**
+   * Invoked after a group commit made <code>batchSize</code> records durable.
+   *
+   * @param start
+   *        The time at which the group commit started
+   */
+  public void endGroupCommit(long start, long batchSize) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitRecordsId, batchSize);
+    this.stats.incLong(groupCommitTimeId, getStatTime() - start);
+    int i = 0;
+    while (i < GROUP_COMMIT_BATCH_BOUNDS.length && batchSize > GROUP_COMMIT_BATCH_BOUNDS[i]) {
+      i++;
+    }
+    this.stats.incLong(groupCommitBatchIds[i], 1);
+  }
+
+  /**
+   * Invoked when a synchronous writer is released by a group commit after
+   * waiting <code>nanos</code> for its record to become durable.
+   */
+  public void incGroupCommitLatency(long nanos) {
+    int i = 0;
+    while (i < GROUP_COMMIT_LATENCY_BOUNDS.length && nanos >= GROUP_COMMIT_LATENCY_BOUNDS[i]) {
+      i++;
+    }
+    this.stats.incLong(groupCommitLatencyIds[i], 1);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommitRecords() {
+    return this.stats.getLong(groupCommitRecordsId);
+  }
+
   public Statistics getStats(){
     return stats;
   }
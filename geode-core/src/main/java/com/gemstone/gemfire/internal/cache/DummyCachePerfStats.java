@@ -465,6 +465,10 @@ public class DummyCachePerfStats extends CachePerfStats {
   public void incRetries() {
   }
 
+  @Override
+  public void incOptimisticReadRetries() {
+  }
+
   @Override
   public Statistics getStats() {
     return null;
@@ -459,6 +459,11 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
    */
   private EventTracker.ExpiryTask recordedEventSweeper;
 
+  /**
+   * a system timer task that compresses cold off-heap values, or null
+   */
+  private ColdValueCompressor coldValueCompressor;
+
   private TombstoneService tombstoneService;
 
   /**
@@ -886,6 +891,7 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
       }
       
       recordedEventSweeper = EventTracker.startTrackerServices(this);
+      coldValueCompressor = ColdValueCompressor.start(this);
       tombstoneService = TombstoneService.initialize(this);
 
       TypeRegistry.init();
@@ -2246,6 +2252,9 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
         TXLockService.destroyServices();
 
         EventTracker.stopTrackerServices(this);
+        if (this.coldValueCompressor != null) {
+          this.coldValueCompressor.cancel();
+        }
 
         synchronized (ccpTimerMutex) {
           if (this.ccpTimer != null) {
@@ -1333,6 +1333,73 @@ public class LocalRegion extends AbstractRegion
     return result;
   }
   
+  /**
+   * Same as {@link #get(Object)} for a Long key but an entry that is already
+   * in this member is found without boxing the key. Misses, transactions and
+   * regions that do not store their entries in this region's map (such as a
+   * partitioned region accessor) fall back to the normal get with a boxed key.
+   */
+  public Object getForLongKey(long key) throws TimeoutException, CacheLoaderException {
+    checkReadiness();
+    checkForNoAccess();
+    discoverJTA();
+    if (!isTX()) {
+      Object value = getLocalHit(this.entries.getEntryForLongKey(key));
+      if (value != null) {
+        return value;
+      }
+    }
+    return get(Long.valueOf(key));
+  }
+
+  /**
+   * Same as {@link #get(Object)} for an Integer key but an entry that is
+   * already in this member is found without boxing the key.
+   * @see #getForLongKey(long)
+   */
+  public Object getForIntKey(int key) throws TimeoutException, CacheLoaderException {
+    checkReadiness();
+    checkForNoAccess();
+    discoverJTA();
+    if (!isTX()) {
+      Object value = getLocalHit(this.entries.getEntryForIntKey(key));
+      if (value != null) {
+        return value;
+      }
+    }
+    return get(Integer.valueOf(key));
+  }
+
+  /**
+   * Returns the deserialized value of the given entry and records a get hit,
+   * or returns null without recording anything if the entry has no valid
+   * value so that the caller can do a full get.
+   */
+  private Object getLocalHit(RegionEntry re) {
+    if (re == null || re.isDestroyedOrRemoved()) {
+      return null;
+    }
+    if (this.diskRegion != null) {
+      this.diskRegion.setClearCountReference();
+    }
+    try {
+      CachePerfStats stats = getCachePerfStats();
+      long start = stats.startGet();
+      Object value = getDeserialized(re, false, false, false, false);
+      // the entry may have been destroyed after the check above
+      if (value == null || Token.isInvalidOrRemoved(value)) {
+        return null;
+      }
+      updateStatsForGet(re, true);
+      stats.endGet(start, false);
+      return value;
+    } finally {
+      if (this.diskRegion != null) {
+        this.diskRegion.removeClearCountReference();
+      }
+    }
+  }
+
   /*
    * @see BucketRegion#getSerialized(KeyInfo, boolean, boolean)
    */
@@ -11935,6 +12002,12 @@ public class LocalRegion extends AbstractRegion
       this.cachePerfStats.incRetries();
     }
 
+    @Override
+    public void incOptimisticReadRetries() {
+      this.stats.incLong(optimisticReadRetriesId, 1);
+      this.cachePerfStats.incOptimisticReadRetries();
+    }
+
     @Override
     public void incDiskTasksWaiting() {
       this.stats.incInt(diskTasksWaitingId, 1);
@@ -12047,6 +12120,18 @@ public class LocalRegion extends AbstractRegion
         cachePerfStats.stats.incLong(compressionDecompressTimeId, time);
       }   
     }
+
+    @Override
+    public void incBackgroundCompressions() {
+      stats.incLong(compressionBackgroundCompressionsId, 1);
+      cachePerfStats.stats.incLong(compressionBackgroundCompressionsId, 1);
+    }
+
+    @Override
+    public void incBackgroundDecompressions() {
+      stats.incLong(compressionBackgroundDecompressionsId, 1);
+      cachePerfStats.stats.incLong(compressionBackgroundDecompressionsId, 1);
+    }
   }
   
   /** test hook - dump the backing map for this region */
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import com.gemstone.gemfire.internal.offheap.OffHeapKeyHelper;
+
+/**
+ * An {@link OffHeapRegionEntry} whose key can be moved into off-heap memory
+ * once the entry has been added to its region map. The fields are only
+ * accessed through {@link OffHeapKeyHelper}.
+ * 
+ * @since Geode 1.0
+ */
+public interface OffHeapKeyEntry extends OffHeapRegionEntry {
+  /**
+   * Returns the key if it is on the heap; null once it has been moved
+   * off-heap.
+   */
+  public Object getHeapKey();
+
+  public void setHeapKey(Object key);
+
+  /**
+   * Returns the address of the off-heap copy of the key, 0 if the key has
+   * not been moved, or {@link OffHeapKeyHelper#RELEASED_KEY_ADDRESS}.
+   */
+  public long getKeyAddress();
+
+  public boolean setKeyAddress(long expectedAddr, long newAddr);
+}
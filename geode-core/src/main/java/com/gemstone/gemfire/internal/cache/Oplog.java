@@ -58,7 +58,9 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -68,6 +70,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * Implements an operation log to write to disk. As of prPersistSprint2 this
@@ -141,6 +146,44 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private static final boolean SYNC_WRITES = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncWrites");
 
+  /**
+   * This system property makes synchronous writers wait for a group commit
+   * that writes and forces their records together with those of other
+   * writers instead of each flushing the oplog under its lock.
+   * 
+   * @see OplogGroupCommitter
+   */
+  static final boolean GROUP_COMMIT = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DISK_GROUP_COMMIT");
+
+  /** Null unless {@link #GROUP_COMMIT} is set. */
+  private final OplogGroupCommitter groupCommitter;
+
+  /**
+   * This system property makes values be read from a read only memory mapping
+   * of the crf once the oplog is no longer appended to, instead of with a
+   * seek and read of the file under the oplog lock. The mapping is released
+   * by the garbage collector some time after the oplog is closed, so on
+   * platforms that can not delete a mapped file the crf may outlive the oplog
+   * for a while. Not final so tests can set it.
+   */
+  static boolean MMAP_READS = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DISK_MMAP_READS");
+
+  /**
+   * This system property makes the entry records of crf and drf files end
+   * with a CRC32 of the record, and krf files end with a CRC32 of the whole
+   * file, so that recovery and validation find records that were damaged on
+   * disk instead of failing to deserialize them later. Oplogs written with it
+   * can not be recovered by versions that do not know
+   * {@link #END_OF_RECORD_WITH_CHECKSUM_ID}. Not final so tests can set it.
+   */
+  static boolean RECORD_CHECKSUMS = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DISK_RECORD_CHECKSUMS");
+
+  /** The mapping of the crf used by {@link #MMAP_READS}. */
+  private volatile MappedByteBuffer crfMap;
+
+  /** Set once mapping the crf failed or is not possible; guarded by lock. */
+  private boolean crfMapFailed;
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -178,6 +221,19 @@ public final class Oplog implements CompactableOplog, Flushable {
   private static final byte OPLOG_EOF_ID = 0;
   private static final byte END_OF_RECORD_ID = 21;
 
+  /**
+   * Written to CRF and DRF instead of END_OF_RECORD_ID. Followed by 4 bytes
+   * which is the CRC32 of the record from its opcode up to and including this
+   * byte. Written to the end of a KRF followed by the CRC32 of all the bytes
+   * before it and an END_OF_RECORD_ID.
+   * 
+   * @see #RECORD_CHECKSUMS
+   */
+  private static final byte END_OF_RECORD_WITH_CHECKSUM_ID = 22;
+  static final int CHECKSUM_BYTES = 4;
+  /** The END_OF_RECORD_WITH_CHECKSUM_ID, checksum and END_OF_RECORD_ID ending a krf */
+  private static final int KRF_CHECKSUM_TRAILER_LENGTH = 1 + CHECKSUM_BYTES + 1;
+
   /**
    * Written to CRF and DRF. Followed by 16 bytes which is the leastSigBits and
    * mostSigBits of a UUID for the disk store we belong to. 1: EndOfRecord Is
@@ -434,10 +490,11 @@ public final class Oplog implements CompactableOplog, Flushable {
   private static final byte OPLOG_DEL_ENTRY_8ID = 88;
 
   /**
-   * The maximum size of a DEL_ENTRY record in bytes. Currenty this is 10; 1 for
-   * opcode and 8 for oplogEntryId and 1 for END_OF_RECORD_ID
+   * The maximum size of a DEL_ENTRY record in bytes. Currenty this is 14; 1 for
+   * opcode and 8 for oplogEntryId and 1 for END_OF_RECORD_ID and 4 for the
+   * checksum
    */
-  private static final int MAX_DELETE_ENTRY_RECORD_BYTES = 1 + 8 + 1;
+  private static final int MAX_DELETE_ENTRY_RECORD_BYTES = 1 + 8 + 1 + CHECKSUM_BYTES;
 
   /**
    * Written to beginning of each CRF. Contains the RVV for all regions in the
@@ -566,6 +623,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     setMaxCrfDrfSize();
     this.stats = getParent().getStats();
+    this.groupCommitter = createGroupCommitter();
     this.compactOplogs = getParent().getAutoCompact();
 
     this.closed = false;
@@ -627,6 +685,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     setMaxCrfDrfSize();
     this.stats = prevOplog.stats;
+    this.groupCommitter = createGroupCommitter();
     this.compactOplogs = prevOplog.compactOplogs;
     // copy over the previous Oplog's data version since data is not being
     // transformed at this point
@@ -826,6 +885,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.maxOplogSize = maxOplogSizeParam;
     setMaxCrfDrfSize();
     this.stats = getParent().getStats();
+    this.groupCommitter = createGroupCommitter();
     this.compactOplogs = getParent().getAutoCompact();
     this.closed = true;
     this.crf.RAFClosed = true;
@@ -1253,6 +1313,9 @@ public final class Oplog implements CompactableOplog, Flushable {
     if (retryOplog != null) {
       return retryOplog.getBytesAndBits(dr, id, faultingIn, bitOnly);
     }
+    if (faultingIn) {
+      getParent().recordValueRecoveryDemand(dr);
+    }
     BytesAndBits bb = null;
     long start = this.stats.startRead();
 
@@ -1498,10 +1561,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       try {
         int recordCount = 0;
         boolean foundDiskStoreRecord = false;
-        FileInputStream fis = null;
+        InputStream fis = null;
         try {
-          fis = new FileInputStream(drfFile);
-          dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024), drfFile.length());
+          fis = getOplogSet().openForRecovery(drfFile);
+          dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024), drfFile.length(), RECORD_CHECKSUMS);
           boolean endOfLog = false;
           while (!endOfLog) {
             if (dis.atEndOfFile()) {
@@ -1509,6 +1572,7 @@ public final class Oplog implements CompactableOplog, Flushable {
               break;
             }
             readLastRecord = false;
+            dis.resetChecksum();
             byte opCode = dis.readByte();
             if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
               logger.trace(LogMarker.PERSIST_RECOVERY, "drf byte={} location={}", opCode, Long.toHexString(dis.getCount()));
@@ -1668,9 +1732,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
-    FileInputStream fis;
+    InputStream fis;
     try {
-      fis = new FileInputStream(f);
+      fis = getOplogSet().openForRecovery(f);
     } catch (FileNotFoundException ex) {
       return false;
     }
@@ -1685,7 +1749,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       this.recoverModEntryIdHWM = DiskStoreImpl.INVALID_ID;
       long oplogKeyIdHWM = DiskStoreImpl.INVALID_ID;
       int krfEntryCount = 0;
-      DataInputStream dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
+      // only checksum a krf that ends with a checksum
+      final CRC32 checksum = hasKrfChecksum(f) ? new CRC32() : null;
+      DataInputStream dis = openKrf(fis, checksum);
       final Version version = getProductVersionIfOld();
       final ByteArrayDataInput in = new ByteArrayDataInput();
       try {
@@ -1702,7 +1768,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // file in old format
           fis.close();
           fis = new FileInputStream(f);
-          dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
+          dis = openKrf(fis, checksum);
           readDiskStoreRecord(dis, f);
         } catch (IllegalStateException notOldFileErr) {
           // Failed to read the file. There are two possibilities. Either this
@@ -1710,7 +1776,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // not a valid file at all
           fis.close();
           fis = new FileInputStream(f);
-          dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
+          dis = openKrf(fis, checksum);
           readDiskStoreRecord(dis, f);
         }
 
@@ -1808,6 +1874,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           }
           keyBytes = DataSerializer.readByteArray(dis);
         } // while
+        readKrfChecksum(dis, checksum);
         setRecoverNewEntryId(oplogKeyIdHWM);
       } catch (IOException ex) {
         try {
@@ -1846,6 +1913,33 @@ public final class Oplog implements CompactableOplog, Flushable {
     return true;
   }
 
+  /**
+   * Checks the checksum at the end of a krf, if it has one, against the
+   * checksum of everything read before it.
+   */
+  private void readKrfChecksum(DataInputStream dis, CRC32 checksum) throws IOException {
+    if (checksum == null) {
+      // written without a checksum
+      return;
+    }
+    final int expected = (int) checksum.getValue();
+    final int b = dis.read();
+    if (b == -1) {
+      // written without a checksum
+      return;
+    }
+    if (b != END_OF_RECORD_WITH_CHECKSUM_ID) {
+      throw new IOException("expected the krf checksum (byte==" + END_OF_RECORD_WITH_CHECKSUM_ID + ") after the last key but found " + b);
+    }
+    final int stored = dis.readInt();
+    if (stored != expected) {
+      throw new IOException("Checksum of the krf is " + Integer.toHexString(expected) + " but the stored checksum is "
+          + Integer.toHexString(stored));
+    }
+    readEndOfRecord(dis);
+    getParent().incVerifiedChecksums();
+  }
+
   private void validateOpcode(DataInputStream dis, byte expect) throws IOException {
     byte opCode = dis.readByte();
     if (opCode != expect) {
@@ -1875,7 +1969,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       FileInputStream fis = null;
       try {
         fis = new FileInputStream(this.crf.f);
-        dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024), this.crf.f.length());
+        dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024), this.crf.f.length(), RECORD_CHECKSUMS);
         boolean endOfLog = false;
         while (!endOfLog) {
           // long startPosition = byteCount;
@@ -1884,6 +1978,7 @@ public final class Oplog implements CompactableOplog, Flushable {
             break;
           }
           readLastRecord = false;
+          dis.resetChecksum();
           byte opCode = dis.readByte();
           if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
             logger.trace(LogMarker.PERSIST_RECOVERY, "Oplog opCode={}", opCode);
@@ -2331,7 +2426,18 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private void readEndOfRecord(DataInput di) throws IOException {
     int b = di.readByte();
-    if (b != END_OF_RECORD_ID) {
+    if (b == END_OF_RECORD_WITH_CHECKSUM_ID && di instanceof CountingDataInputStream) {
+      CountingDataInputStream dis = (CountingDataInputStream) di;
+      if (dis.isChecksumming()) {
+        readRecordChecksum(dis);
+      } else {
+        // the file was written with checksums but RECORD_CHECKSUMS is not
+        // set here; this record's bytes were not checksummed so start with
+        // the next one
+        dis.readInt();
+        dis.setChecksumming(true);
+      }
+    } else if (b != END_OF_RECORD_ID) {
       if (b == 0) {
         logger.warn(LocalizedMessage.create(LocalizedStrings.Oplog_PARTIAL_RECORD));
 
@@ -2347,6 +2453,27 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Reads the checksum that follows an END_OF_RECORD_WITH_CHECKSUM_ID and
+   * compares it with the checksum of the bytes read for the record.
+   */
+  private void readRecordChecksum(CountingDataInputStream dis) throws IOException {
+    final int expected = dis.getChecksum();
+    final int stored = dis.readInt();
+    if (stored != expected) {
+      if (stored == 0) {
+        logger.warn(LocalizedMessage.create(LocalizedStrings.Oplog_PARTIAL_RECORD));
+        // we died after writing the end of the last record but before its
+        // checksum
+        throw new EOFException("found partial last record");
+      }
+      throw new IOException("Checksum of the record ending at offset " + (dis.getCount() - CHECKSUM_BYTES)
+          + " is " + Integer.toHexString(expected) + " but the stored checksum is " + Integer.toHexString(stored)
+          + "; the file is corrupt");
+    }
+    getParent().incVerifiedChecksums();
+  }
+
   private static void forceSkipBytes(CountingDataInputStream dis, int len) throws IOException {
     int skipped = dis.skipBytes(len);
     while (skipped < len) {
@@ -3281,6 +3408,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         this.stats.decOpenOplogs();
       }
       this.closed = true;
+      this.crfMap = null;
     }
     synchronized (this.lock/* drf */) {
       unpreblow(this.drf, getMaxDrfSize());
@@ -3545,6 +3673,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       System.out.println("basicCreate KRF_DEBUG");
       Thread.sleep(1000);
     }
+    long commitTicket = 0;
     synchronized (this.lock) { // TODO soplog perf analysis shows this as a
                                // contention point
       // synchronized (this.crf) {
@@ -3606,7 +3735,10 @@ public final class Oplog implements CompactableOplog, Flushable {
         id.setOplogId(getOplogId());
         // do the io while holding lock so that switch can set doneAppending
         // Write the data to the opLog for the synch mode
-        startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+        startPosForSynchOp = writeOpLogBytes(this.crf, async, !isGroupCommit(async));
+        if (isGroupCommit(async)) {
+          commitTicket = this.groupCommitter.append();
+        }
         // if (this.crf.currSize != startPosForSynchOp) {
         // assert false;
         // }
@@ -3657,6 +3789,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       clearOpState();
       // }
     }
+    awaitGroupCommit(commitTicket);
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -3740,6 +3873,11 @@ public final class Oplog implements CompactableOplog, Flushable {
       drName = getParent().getName();
     }
     flushAll(); // needed in case of async
+    if (this.groupCommitter != null && SYNC_WRITES && !this.crf.RAFClosed && !this.drf.RAFClosed) {
+      // flushAll forced every record appended so far; a leader forcing them
+      // may find the files closed by the time it gets to them
+      this.groupCommitter.forced(this.groupCommitter.getAppended());
+    }
     lengthOfOperationCausingSwitch += 20; // for worstcase overhead of writing
                                           // first record
 
@@ -3976,7 +4114,13 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     this.krf.fos = new FileOutputStream(this.krf.f);
     this.krf.bos = new BufferedOutputStream(this.krf.fos, 32768);
-    this.krf.dos = new DataOutputStream(this.krf.bos);
+    if (RECORD_CHECKSUMS) {
+      this.krf.cos = new CheckedOutputStream(this.krf.bos, new CRC32());
+      this.krf.dos = new DataOutputStream(this.krf.cos);
+    } else {
+      this.krf.cos = null;
+      this.krf.dos = new DataOutputStream(this.krf.bos);
+    }
 
     // write oplog magic seq
     this.krf.dos.writeByte(OPLOG_MAGIC_SEQ_ID);
@@ -4057,6 +4201,15 @@ public final class Oplog implements CompactableOplog, Flushable {
     try {
       if (this.krf.fos != null) {
         DataSerializer.writeByteArray(null, this.krf.dos);
+        if (this.krf.cos != null) {
+          // older versions stop reading at the null key so they do not see
+          // this
+          long checksum = this.krf.cos.getChecksum().getValue();
+          this.krf.dos.writeByte(END_OF_RECORD_WITH_CHECKSUM_ID);
+          this.krf.dos.writeInt((int) checksum);
+          this.krf.dos.writeByte(END_OF_RECORD_ID);
+          this.krf.cos = null;
+        }
       } else {
         return;
       }
@@ -4195,8 +4348,115 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
-  private File getKrfFile() {
-    return new File(this.diskFile.getPath() + KRF_FILE_EXT);
+  File getDrfFileForRecovery() {
+    return this.drf.f;
+  }
+
+  /**
+   * Returns true if the krf ends like one written with
+   * {@link #RECORD_CHECKSUMS}, without reading the rest of it. A krf that
+   * can not be read here fails when it is recovered.
+   */
+  private static boolean hasKrfChecksum(File f) {
+    final long length = f.length();
+    if (length <= KRF_CHECKSUM_TRAILER_LENGTH) {
+      return false;
+    }
+    try {
+      RandomAccessFile raf = new RandomAccessFile(f, "r");
+      try {
+        raf.seek(length - KRF_CHECKSUM_TRAILER_LENGTH);
+        if (raf.read() != END_OF_RECORD_WITH_CHECKSUM_ID) {
+          return false;
+        }
+        raf.seek(length - 1);
+        return raf.read() == END_OF_RECORD_ID;
+      } finally {
+        raf.close();
+      }
+    } catch (IOException ignore) {
+      return false;
+    }
+  }
+
+  /**
+   * Opens the krf for reading, keeping the checksum of what is read if it is
+   * not null.
+   */
+  private static DataInputStream openKrf(InputStream fis, CRC32 checksum) {
+    InputStream in = new BufferedInputStream(fis, 1024 * 1024);
+    if (checksum != null) {
+      checksum.reset();
+      in = new CheckedInputStream(in, checksum);
+    }
+    return new DataInputStream(in);
+  }
+
+  /**
+   * Returns the oplog's krf file. Before {@link #recoverCrf} has run for a
+   * recovered oplog that is the one next to its drf, or null if there is no
+   * drf.
+   */
+  File getKrfFile() {
+    File base = this.diskFile;
+    if (base == null) {
+      if (this.drf.f == null) {
+        return null;
+      }
+      // the same name recoverCrf gives diskFile
+      base = new File(this.drf.f.getParentFile(), getOplogSet().getPrefix() + getParent().getName() + "_" + this.oplogId);
+    }
+    return new File(base.getPath() + KRF_FILE_EXT);
+  }
+
+  /**
+   * Reads the krf, if there is one, from start to end and compares it with
+   * the checksum written at its end, without parsing the keys.
+   * 
+   * @return the number of bytes checked; 0 if there is no krf and -1 if the
+   *         krf was written without a checksum
+   * @throws IOException
+   *           if the krf does not match its checksum
+   */
+  long verifyKrfChecksum() throws IOException {
+    final File f = getKrfFile();
+    if (f == null || !f.exists()) {
+      return 0;
+    }
+    final int trailerLength = KRF_CHECKSUM_TRAILER_LENGTH;
+    final long length = f.length() - trailerLength;
+    if (length <= 0) {
+      return -1;
+    }
+    final byte[] trailer = new byte[trailerLength];
+    final CRC32 checksum = new CRC32();
+    FileInputStream fis = new FileInputStream(f);
+    try {
+      final byte[] buffer = new byte[1024 * 1024];
+      long remaining = length;
+      while (remaining > 0) {
+        int n = fis.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (n == -1) {
+          throw new EOFException("krf " + f + " ended after " + (length - remaining) + " bytes");
+        }
+        checksum.update(buffer, 0, n);
+        remaining -= n;
+      }
+      new DataInputStream(fis).readFully(trailer);
+    } finally {
+      fis.close();
+    }
+    // a krf without a checksum ends with the null key
+    if (trailer[0] != END_OF_RECORD_WITH_CHECKSUM_ID || trailer[trailerLength - 1] != END_OF_RECORD_ID) {
+      return -1;
+    }
+    final int stored = ((trailer[1] & 0xff) << 24) | ((trailer[2] & 0xff) << 16) | ((trailer[3] & 0xff) << 8)
+        | (trailer[4] & 0xff);
+    if (stored != (int) checksum.getValue()) {
+      throw new IOException("Checksum of krf " + f + " is " + Long.toHexString(checksum.getValue())
+          + " but the stored checksum is " + Integer.toHexString(stored));
+    }
+    return length + trailerLength;
   }
 
   public List<KRFEntry> getSortedLiveEntries(Collection<DiskRegionInfo> targetRegions) {
@@ -4583,6 +4843,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       System.out.println("basicModify KRF_DEBUG");
       Thread.sleep(1000);
     }
+    long commitTicket = 0;
     synchronized (this.lock) {
       // synchronized (this.crf) {
       if (getOplogSet().getChild() != this) {
@@ -4606,7 +4867,10 @@ public final class Oplog implements CompactableOplog, Flushable {
           long oldOplogId;
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.crf, async, !isGroupCommit(async));
+          if (isGroupCommit(async)) {
+            commitTicket = this.groupCommitter.append();
+          }
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4673,6 +4937,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
       // }
     }
+    awaitGroupCommit(commitTicket);
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -4704,6 +4969,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       InterruptedException {
     boolean useNextOplog = false;
     int adjustment = 0;
+    long commitTicket = 0;
     synchronized (this.lock) {
       if (getOplogSet().getChild() != this) {
         useNextOplog = true;
@@ -4723,7 +4989,10 @@ public final class Oplog implements CompactableOplog, Flushable {
             throw cce;
           }
           this.firstRecord = false;
-          writeOpLogBytes(this.crf, async, true);
+          writeOpLogBytes(this.crf, async, !isGroupCommit(async));
+          if (isGroupCommit(async)) {
+            commitTicket = this.groupCommitter.append();
+          }
           this.crf.currSize = temp;
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.trace(LogMarker.PERSIST_WRITES, "basicSaveConflictVersionTag: drId={} versionStamp={} oplog#", dr.getId(), tag,
@@ -4741,6 +5010,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         clearOpState();
       }
     }
+    awaitGroupCommit(commitTicket);
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -5014,6 +5284,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       System.out.println("basicRemove KRF_DEBUG");
       Thread.sleep(1000);
     }
+    long commitTicket = 0;
     synchronized (this.lock) {
       if (getOplogSet().getChild() != this) {
         useNextOplog = true;
@@ -5053,7 +5324,10 @@ public final class Oplog implements CompactableOplog, Flushable {
           // before we flush the crf.
           // However we can't have removes by async if we are doing a sync write
           // because we might be killed right after we do this write.
-          startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.drf, async, !isGroupCommit(async));
+          if (isGroupCommit(async)) {
+            commitTicket = this.groupCommitter.append();
+          }
           setHasDeletes(true);
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()), entry.getKey(), dr.getId(),
@@ -5086,6 +5360,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         clearOpState();
       }
     }
+    awaitGroupCommit(commitTicket);
     if (useNextOplog) {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
@@ -5135,6 +5410,62 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Returns true if a synchronous record is left in the write buffers for
+   * {@link #groupCommitter} to flush instead of being flushed by the writer.
+   */
+  private boolean isGroupCommit(boolean async) {
+    return !async && this.groupCommitter != null;
+  }
+
+  /**
+   * Waits for the group commit of the record with the given ticket; does
+   * nothing if the ticket is zero. Must be called without holding
+   * {@link #lock} so that the leader of the commit can take it.
+   */
+  private void awaitGroupCommit(long ticket) throws IOException {
+    if (ticket != 0) {
+      this.groupCommitter.awaitCommit(ticket);
+    }
+  }
+
+  private OplogGroupCommitter createGroupCommitter() {
+    if (!GROUP_COMMIT) {
+      return null;
+    }
+    return new OplogGroupCommitter(new OplogGroupCommitter.Flusher() {
+      @Override
+      public long write() throws IOException {
+        synchronized (Oplog.this.lock) {
+          final long written = Oplog.this.groupCommitter.getAppended();
+          // the drf is flushed before the crf; see basicRemove
+          flush(Oplog.this.drf, false);
+          flush(Oplog.this.crf, false);
+          return written;
+        }
+      }
+
+      @Override
+      public void force() throws IOException {
+        if (SYNC_WRITES) {
+          forceChannel(Oplog.this.drf);
+          forceChannel(Oplog.this.crf);
+        }
+      }
+    }, this.stats);
+  }
+
+  /**
+   * Forces the file; throws ClosedChannelException if it was closed, which
+   * the {@link #groupCommitter} handles.
+   */
+  private static void forceChannel(OplogFile olf) throws IOException {
+    if (olf.RAFClosed) {
+      throw new ClosedChannelException();
+    }
+    olf.channel.force(true);
+  }
+
   private final void flushAndSync(OplogFile olf) throws IOException {
     flushAll(false); // @todo
     // flush(olf, true);
@@ -5148,6 +5479,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
         ByteBuffer bb = olf.writeBuf;
         if (bb != null && bb.position() != 0) {
+          updateChecksum(olf, bb);
           bb.flip();
           int flushed = 0;
           do {
@@ -5182,6 +5514,10 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
         this.bbArray[0] = b1;
         this.bbArray[1] = b2;
+        updateChecksum(olf, b1);
+        if (olf.checksumming) {
+          olf.checksum.update(b2.duplicate());
+        }
         b1.flip();
         long flushed = olf.channel.write(this.bbArray);
         this.bbArray[0] = null;
@@ -5199,6 +5535,23 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
   
+  /**
+   * Adds the bytes of the record being written that are in the buffer to the
+   * record's checksum, if it has one. Called before the buffer is written
+   * out and cleared, and at the end of the record.
+   */
+  private static void updateChecksum(OplogFile olf, ByteBuffer bb) {
+    if (olf.checksumming) {
+      if (bb.position() > olf.checksumMark) {
+        ByteBuffer pending = bb.duplicate();
+        pending.limit(bb.position());
+        pending.position(olf.checksumMark);
+        olf.checksum.update(pending);
+      }
+      olf.checksumMark = 0;
+    }
+  }
+
   public final void flushAll() {
     flushAll(false);
   }
@@ -5448,6 +5801,12 @@ public final class Oplog implements CompactableOplog, Flushable {
     } else {
       if (offsetInOplog == -1)
         return null;
+      if (MMAP_READS) {
+        bb = getFromMappedCrf(offsetInOplog, valueLength, userBits);
+        if (bb != null) {
+          return bb;
+        }
+      }
       try {
         for (;;) {
           dr.getCancelCriterion().checkCancelInProgress(null);
@@ -5478,6 +5837,87 @@ public final class Oplog implements CompactableOplog, Flushable {
     return bb;
   }
 
+  /**
+   * Copies the value out of the memory mapped crf without taking the oplog
+   * lock. Returns null if the crf can not be mapped yet, in which case the
+   * value has to be read from the file.
+   */
+  private BytesAndBits getFromMappedCrf(long offsetInOplog, int valueLength, byte userBits) {
+    final MappedByteBuffer map = getCrfMap();
+    if (map == null || offsetInOplog < 0 || offsetInOplog + valueLength > map.limit()) {
+      return null;
+    }
+    // each reader positions its own view of the shared mapping
+    final ByteBuffer view = map.duplicate();
+    view.position((int)offsetInOplog);
+    byte[] valueBytes = new byte[valueLength];
+    view.get(valueBytes);
+    this.stats.incMappedReads();
+    BytesAndBits bb = new BytesAndBits(valueBytes, userBits);
+    final Version version = getProductVersionIfOld();
+    if (version != null) {
+      bb.setVersion(version);
+    }
+    return bb;
+  }
+
+  /**
+   * Returns the mapping of the crf, creating it if the oplog is done being
+   * appended to. Returns null if it is not done, is closed or the crf could
+   * not be mapped.
+   */
+  private MappedByteBuffer getCrfMap() {
+    MappedByteBuffer map = this.crfMap;
+    if (map != null || this.closed) {
+      return map;
+    }
+    synchronized (this.lock/* crf */) {
+      map = this.crfMap;
+      if (map != null || this.closed || !this.doneAppending || this.crfMapFailed) {
+        return map;
+      }
+      final long size = this.crf.bytesFlushed;
+      if (this.crf.f == null || size <= 0 || size > Integer.MAX_VALUE) {
+        this.crfMapFailed = true;
+        return null;
+      }
+      try {
+        RandomAccessFile raf = new RandomAccessFile(this.crf.f, "r");
+        try {
+          // the mapping stays valid after the file is closed
+          map = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+          raf.close();
+        }
+      } catch (IOException ex) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not map {}; reading it instead", this.crf.f, ex);
+        }
+        this.crfMapFailed = true;
+        return null;
+      }
+      this.crfMap = map;
+      return map;
+    }
+  }
+
+  /** Returns true if the crf is currently mapped for reads. */
+  boolean isCrfMapped() {
+    return this.crfMap != null;
+  }
+
+  /**
+   * Forgets the mapping of the crf and keeps it from being mapped again.
+   * Called before the crf is deleted so that reads go to the file, and fail
+   * the usual way, instead of to a mapping of a deleted file.
+   */
+  private void dropCrfMap() {
+    synchronized (this.lock/* crf */) {
+      this.crfMapFailed = true;
+      this.crfMap = null;
+    }
+  }
+
   /**
    * Asif: Extracts the Value byte array & UserBit from the OpLog and inserts it
    * in the wrapper Object of type BytesAndBitsForCompactor which is passed
@@ -5645,6 +6085,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   }
 
   public void deleteCRF() {
+    dropCrfMap();
     oplogSet.crfDelete(this.oplogId);
     DiskStoreBackup inProgressBackup = getParent().getInProgressBackup();
     if (inProgressBackup == null || !inProgressBackup.deferCrfDelete(this)) {
@@ -5653,6 +6094,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   }
 
   public void deleteCRFFileOnly() {
+    dropCrfMap();
     deleteFile(this.crf);
     // replace .crf at the end with .krf
     if (this.crf.f != null) {
@@ -5690,13 +6132,13 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   public void copyTo(File targetDir) throws IOException {
     if (this.crf.f != null) { // fixes bug 43951
-      FileUtil.copy(this.crf.f, targetDir);
+      getParent().backupOplogFile(this.crf.f, targetDir);
     }
-    FileUtil.copy(this.drf.f, targetDir);
+    getParent().backupOplogFile(this.drf.f, targetDir);
 
     // this krf existence check fixes 45089
     if (getParent().getDiskInitFile().hasKrf(this.oplogId)) {
-      FileUtil.copy(this.getKrfFile(), targetDir);
+      getParent().backupOplogFile(this.getKrfFile(), targetDir);
     }
   }
 
@@ -6004,16 +6446,54 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     isCompactorThread.set(Boolean.TRUE);
     assert calledByCompactorThread();
+    try {
+      final CompactionProgress progress = new CompactionProgress();
+      // the locks are not held while waiting for the throttle so that the
+      // regions and the other compactors are not held up by it
+      while (compactUntilThrottled(compactor, progress)) {
+        if (!getParent().awaitCompactionThrottle(progress.throttleNanos, compactor)) {
+          break;
+        }
+      }
+      return progress.totalCount;
+    } finally {
+      assert calledByCompactorThread();
+      isCompactorThread.remove();
+    }
+  }
+
+  /**
+   * How far a compaction of this oplog has got. It is kept while the
+   * compactor lets go of its locks to wait for the throttle.
+   */
+  private static class CompactionProgress {
+    /** The live entries in offset order, or null until they are listed */
+    List<KRFEntry> sortedLiveEntries;
+    int nextSorted;
+    DiskEntry lastDe;
+    int totalCount;
+    /** How long to wait before going on, if compactUntilThrottled returned true */
+    long throttleNanos;
+  }
+
+  /**
+   * Copies live entries forward until they are all copied, the compactor is
+   * stopped, or the disk store's compaction throttle says to wait.
+   * 
+   * @return true if the caller has to wait progress.throttleNanos and call
+   *         this again to copy the rest
+   */
+  private boolean compactUntilThrottled(OplogCompactor compactor, CompactionProgress progress) {
     getParent().acquireCompactorReadLock();
     try {
       if (!compactor.keepCompactorRunning()) {
-        return 0;
+        return false;
       }
       lockCompactor();
       try {
         if (hasNoLiveValues()) {
           handleNoLiveValues();
-          return 0; // do this while holding compactorLock
+          return false; // do this while holding compactorLock
         }
 
         // Asif:Start with a fresh wrapper on every compaction so that
@@ -6023,16 +6503,46 @@ public final class Oplog implements CompactableOplog, Flushable {
         BytesAndBitsForCompactor wrapper = new BytesAndBitsForCompactor();
 
         DiskEntry de;
-        DiskEntry lastDe = null;
         boolean compactFailed = /*
                                  * getParent().getOwner().isDestroyed ||
                                  */!compactor.keepCompactorRunning();
-        int totalCount = 0;
+        // Copy the values forward in the order they were written so that the
+        // reads of the crf move forward through it. Each value is still read
+        // on its own.
+        if (progress.sortedLiveEntries == null) {
+          progress.sortedLiveEntries = getSortedLiveEntries(this.regionMap.values());
+          if (progress.sortedLiveEntries == null) {
+            progress.sortedLiveEntries = Collections.emptyList();
+          }
+        }
+        final List<KRFEntry> sortedLiveEntries = progress.sortedLiveEntries;
+        while (!compactFailed && progress.nextSorted < sortedLiveEntries.size()) {
+          if (!compactor.keepCompactorRunning()) {
+            compactFailed = true;
+            break;
+          }
+          KRFEntry ke = sortedLiveEntries.get(progress.nextSorted++);
+          de = ke.getDiskEntry();
+          if (compactEntry(ke.getDiskRegionView(), de, wrapper)) {
+            progress.totalCount++;
+            getStats().endCompactionUpdate(opStart);
+            progress.throttleNanos = getParent().throttleCompaction(de.getDiskId().getValueLength());
+            if (progress.throttleNanos > 0) {
+              return true;
+            }
+            opStart = getStats().getStatTime();
+          }
+          if (!wrapper.isReusable()) {
+            wrapper = new BytesAndBitsForCompactor();
+          }
+        }
+
+        // Pick up anything that is still live in this oplog; the sorted list
+        // is only a snapshot.
         for (DiskRegionInfo dri : this.regionMap.values()) {
           final DiskRegionView dr = dri.getDiskRegion();
-          if (dr == null)
+          if (dr == null || compactFailed)
             continue;
-          boolean didCompact = false;
           while ((de = dri.getNextLiveEntry()) != null) {
             if (/*
                  * getParent().getOwner().isDestroyed ||
@@ -6040,55 +6550,31 @@ public final class Oplog implements CompactableOplog, Flushable {
               compactFailed = true;
               break;
             }
-            if (lastDe != null) {
-              if (lastDe == de) {
+            if (progress.lastDe != null) {
+              if (progress.lastDe == de) {
                 throw new IllegalStateException("compactor would have gone into infinite loop");
               }
-              assert lastDe != de;
+              assert progress.lastDe != de;
             }
-            lastDe = de;
-            didCompact = false;
-            synchronized (de) { // fix for bug 41797
-              DiskId did = de.getDiskId();
-              assert did != null;
-              synchronized (did) {
-                long oplogId = did.getOplogId();
-                if (oplogId != getOplogId()) {
-                  continue;
-                }
-                boolean toCompact = getBytesAndBitsForCompaction(dr, de, wrapper);
-                if (toCompact) {
-                  if (oplogId != did.getOplogId()) {
-                    // @todo: Is this even possible? Perhaps I should just assert here
-                    // skip this guy his oplogId changed
-                    if (!wrapper.isReusable()) {
-                      wrapper = new BytesAndBitsForCompactor();
-                    } else if (wrapper.getOffHeapData() != null) {
-                      wrapper.setOffHeapData(null, (byte) 0);
-                    }
-                    continue;
-                  }
-                  // write it to the current oplog
-                  getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
-                  // the did's oplogId will now be set to the current active oplog
-                  didCompact = true;
-                }
-              } // did
-            } // de
-            if (didCompact) {
-              totalCount++;
+            progress.lastDe = de;
+            if (compactEntry(dr, de, wrapper)) {
+              progress.totalCount++;
               getStats().endCompactionUpdate(opStart);
-              opStart = getStats().getStatTime();
-              // Asif: Check if the value byte array happens to be any of the
-              // constant
-              // static byte arrays or references the value byte array of
-              // underlying RegionEntry.
-              // If so for preventing data corruption across regions
-              // ( in case of static byte arrays) & for RegionEntry,
-              // recreate the wrapper
-              if (!wrapper.isReusable()) {
-                wrapper = new BytesAndBitsForCompactor();
+              progress.throttleNanos = getParent().throttleCompaction(de.getDiskId().getValueLength());
+              if (progress.throttleNanos > 0) {
+                return true;
               }
+              opStart = getStats().getStatTime();
+            }
+            // Asif: Check if the value byte array happens to be any of the
+            // constant
+            // static byte arrays or references the value byte array of
+            // underlying RegionEntry.
+            // If so for preventing data corruption across regions
+            // ( in case of static byte arrays) & for RegionEntry,
+            // recreate the wrapper
+            if (!wrapper.isReusable()) {
+              wrapper = new BytesAndBitsForCompactor();
             }
           }
         }
@@ -6101,17 +6587,52 @@ public final class Oplog implements CompactableOplog, Flushable {
           // in which our liveEntries list is empty but the liveCount has not
           // yet been decremented.
         }
-        return totalCount;
+        return false;
       } finally {
         unlockCompactor();
       }
     } finally {
       getParent().releaseCompactorReadLock();
-      assert calledByCompactorThread();
-      isCompactorThread.remove();
     }
   }
 
+  /**
+   * Copies the entry's value forward to the current oplog if the value is
+   * still stored in this oplog.
+   * 
+   * @return true if the entry was copied forward
+   */
+  private boolean compactEntry(DiskRegionView dr, DiskEntry de, BytesAndBitsForCompactor wrapper) {
+    synchronized (de) { // fix for bug 41797
+      DiskId did = de.getDiskId();
+      if (did == null) {
+        return false;
+      }
+      synchronized (did) {
+        long oplogId = did.getOplogId();
+        if (oplogId != getOplogId()) {
+          return false;
+        }
+        boolean toCompact = getBytesAndBitsForCompaction(dr, de, wrapper);
+        if (toCompact) {
+          if (oplogId != did.getOplogId()) {
+            // @todo: Is this even possible? Perhaps I should just assert here
+            // skip this guy his oplogId changed
+            if (wrapper.isReusable() && wrapper.getOffHeapData() != null) {
+              wrapper.setOffHeapData(null, (byte) 0);
+            }
+            return false;
+          }
+          // write it to the current oplog
+          getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
+          // the did's oplogId will now be set to the current active oplog
+          return true;
+        }
+        return false;
+      } // did
+    } // de
+  }
+
   public static boolean isCRFFile(String filename) {
     return filename.endsWith(Oplog.CRF_FILE_EXT);
   }
@@ -6351,6 +6872,13 @@ public final class Oplog implements CompactableOplog, Flushable {
     public long currSize;
     public long bytesFlushed;
     public boolean unpreblown;
+    /**
+     * Checksum of the record being written. While it is in use every flush adds
+     * the bytes of writeBuf from checksumMark on to it.
+     */
+    public final CRC32 checksum = new CRC32();
+    public boolean checksumming;
+    public int checksumMark;
   }
 
   private static class KRFile {
@@ -6360,6 +6888,8 @@ public final class Oplog implements CompactableOplog, Flushable {
     DataOutputStream dos;
     long lastOffset = 0;
     int keyNum = 0;
+    /** Null unless the krf is written with a checksum. */
+    CheckedOutputStream cos;
   }
 
   private static String baToString(byte[] ba) {
@@ -6464,9 +6994,33 @@ public final class Oplog implements CompactableOplog, Flushable {
     // private int memberId; // canonicalId of memberID
 
     public final int getSize() {
+      if (isChecksummed()) {
+        return this.size + CHECKSUM_BYTES;
+      }
       return this.size;
     }
 
+    /**
+     * Returns true if the record ends with a checksum. The records that
+     * identify the file are left alone so that older versions can still tell
+     * what they are looking at.
+     */
+    private boolean isChecksummed() {
+      if (!RECORD_CHECKSUMS) {
+        return false;
+      }
+      switch (this.opCode) {
+      case OPLOG_MAGIC_SEQ_ID:
+      case OPLOG_DISK_STORE_ID:
+      case OPLOG_GEMFIRE_VERSION:
+      case OPLOG_NEW_ENTRY_BASE_ID:
+      case OPLOG_RVV:
+        return false;
+      default:
+        return true;
+      }
+    }
+
     public String debugStr() {
       StringBuilder sb = new StringBuilder();
       sb.append(" opcode=").append(this.opCode).append(" len=").append(this.value.getLength()).append(" vb=").append(this.value.getBytesAsString());
@@ -6759,6 +7313,12 @@ public final class Oplog implements CompactableOplog, Flushable {
 
     public long write(OplogFile olf) throws IOException {
       long bytesWritten = 0;
+      final boolean checksummed = isChecksummed();
+      if (checksummed) {
+        olf.checksum.reset();
+        olf.checksumMark = olf.writeBuf.position();
+        olf.checksumming = true;
+      }
       writeByte(olf, this.opCode);
       bytesWritten++;
       if (this.opCode == OPLOG_NEW_ENTRY_BASE_ID) {
@@ -6822,8 +7382,16 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
       }
 
-      writeByte(olf, END_OF_RECORD_ID);
-      bytesWritten++;
+      if (checksummed) {
+        writeByte(olf, END_OF_RECORD_WITH_CHECKSUM_ID);
+        updateChecksum(olf, olf.writeBuf);
+        olf.checksumming = false;
+        writeInt(olf, (int) olf.checksum.getValue());
+        bytesWritten += 1 + CHECKSUM_BYTES;
+      } else {
+        writeByte(olf, END_OF_RECORD_ID);
+        bytesWritten++;
+      }
       return bytesWritten;
     }
 
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Lets the threads that write synchronously to one {@link Oplog} share the
+ * cost of making their records durable. Each writer appends its record to
+ * the oplog's write buffers under the oplog lock, takes a ticket with
+ * {@link #append()} and, after releasing the lock, waits in
+ * {@link #awaitCommit(long)}. The first waiter to find no commit in progress
+ * becomes the leader: it writes everything appended so far with one write
+ * per file, forces the files and then releases every writer whose ticket it
+ * covered. Writers that arrive while a commit is in progress wait for it and
+ * are covered by the next one, so the number of writes and forces goes down
+ * as the number of concurrent writers goes up.
+ * <p>
+ * The leader forces the files without holding the oplog lock, so the oplog
+ * can be switched, and its files closed, while it does. A switch forces
+ * everything appended before it and says so with {@link #forced(long)}; a
+ * leader that then finds the files closed treats its batch as durable. If the
+ * files were closed without being forced, every writer in the batch fails.
+ *
+ * @see Oplog#GROUP_COMMIT
+ */
+class OplogGroupCommitter {
+
+  /** How the leader gets the appended records to disk. */
+  interface Flusher {
+    /**
+     * Writes every record appended so far to the files and returns the
+     * ticket of the last one.
+     */
+    long write() throws IOException;
+
+    /**
+     * Forces what {@link #write()} wrote to the device.
+     * 
+     * @throws ClosedChannelException
+     *           if a file was closed since it was written
+     */
+    void force() throws IOException;
+  }
+
+  private final Flusher flusher;
+  private final DiskStoreStats stats;
+
+  /** Ticket of the last appended record; guarded by the oplog lock. */
+  private long appended;
+
+  /** Ticket of the last record known to be durable; guarded by this. */
+  private long committed;
+
+  /** True while a leader is writing and forcing; guarded by this. */
+  private boolean committing;
+
+  /**
+   * Ticket of the last record of a batch whose files were closed before it
+   * could be forced; guarded by this.
+   */
+  private long lost;
+
+  OplogGroupCommitter(Flusher flusher, DiskStoreStats stats) {
+    this.flusher = flusher;
+    this.stats = stats;
+  }
+
+  /**
+   * Returns the ticket for a record that was just appended. Caller must hold
+   * the lock the records are appended under.
+   */
+  long append() {
+    return ++this.appended;
+  }
+
+  /** Returns the ticket of the last appended record. Caller must hold the lock the records are appended under. */
+  long getAppended() {
+    return this.appended;
+  }
+
+  /**
+   * Records that every record up to the given ticket was forced by someone
+   * other than a leader, and releases the writers waiting for them.
+   */
+  synchronized void forced(long ticket) {
+    if (ticket > this.committed) {
+      this.committed = ticket;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Returns once the record with the given ticket is durable, doing the
+   * commit itself if no other thread is.
+   *
+   * @throws IOException
+   *           if this thread led a commit that failed; the waiting writers
+   *           will try again with a new leader. Also if the files were closed
+   *           before the record could be forced, in which case every writer
+   *           of the batch gets it.
+   */
+  void awaitCommit(long ticket) throws IOException {
+    final long start = System.nanoTime();
+    boolean interrupted = false;
+    try {
+      for (;;) {
+        synchronized (this) {
+          while (this.committed < ticket && this.committing) {
+            try {
+              wait();
+            } catch (InterruptedException ie) {
+              // the record is already in the oplog; finish like a write would
+              interrupted = true;
+            }
+          }
+          if (this.committed >= ticket) {
+            break;
+          }
+          if (this.lost >= ticket) {
+            throw new ClosedChannelException();
+          }
+          this.committing = true;
+        }
+        commit();
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    this.stats.incGroupCommitLatency(System.nanoTime() - start);
+  }
+
+  private void commit() throws IOException {
+    final long start = this.stats.getStatTime();
+    long durable = -1;
+    long closedBatch = -1;
+    try {
+      final long written = this.flusher.write();
+      try {
+        this.flusher.force();
+        durable = written;
+      } catch (ClosedChannelException closed) {
+        // the oplog was switched or closed; the waiters find out which below
+        closedBatch = written;
+      }
+    } finally {
+      long batchSize = 0;
+      synchronized (this) {
+        if (closedBatch > this.committed && closedBatch > this.lost) {
+          // forced(long) was not called for the batch so it may not be on disk
+          this.lost = closedBatch;
+        }
+        if (durable > this.committed) {
+          batchSize = durable - this.committed;
+          this.committed = durable;
+        }
+        this.committing = false;
+        notifyAll();
+      }
+      if (batchSize > 0) {
+        this.stats.endGroupCommit(start, batchSize);
+      }
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Reads the drf and krf files of the oplogs that are being recovered ahead of
+ * the thread that replays them, several files at a time, so that recovery does
+ * not wait for one file after another when the oplogs are spread over several
+ * disks. Only the reads are done in parallel; the records are still parsed
+ * and applied by the recovery thread.
+ * <p>
+ * The replay itself stays on one thread and in the order of
+ * {@link PersistentOplogSet#recoverOplogs(long)} since the newest record of a
+ * key has to be recovered before older ones are skipped. The prefetcher reads
+ * at most as many files ahead as it has threads, reading the next one each
+ * time the recovery thread opens one, and holds at most
+ * {@link #MAX_PREFETCH_BYTES} of them in memory: the bytes of a file count
+ * from when its read starts until the recovery thread closes the stream over
+ * it. Files the recovery thread goes past without opening are dropped, and
+ * files that are missing, empty, larger than the limit or fail to read are
+ * left for the recovery thread to read itself, which also reports any error
+ * the usual way.
+ *
+ * @see DiskStoreImpl#RECOVERY_THREADS
+ */
+class OplogRecoveryPrefetcher {
+  private static final Logger logger = LogService.getLogger();
+
+  /** The most bytes of files that are held in memory at a time. */
+  static final long MAX_PREFETCH_BYTES = 128L * 1024 * 1024;
+
+  private final List<File> files;
+  private final int window;
+  private final long maxBytes;
+  private final DiskStoreStats stats;
+  private final ThreadPoolExecutor pool;
+
+  /** Reads that have been started and not yet opened; guarded by this. */
+  private final Map<File, Prefetch> pending = new HashMap<File, Prefetch>();
+
+  /** Index in {@link #files} of the next file to read; guarded by this. */
+  private int nextToRead;
+
+  /** Index in {@link #files} past the last file opened; guarded by this. */
+  private int opened;
+
+  /**
+   * Bytes of the files being read or held until the recovery thread closes
+   * them; guarded by this.
+   */
+  private long reservedBytes;
+
+  /**
+   * @param files
+   *          the files in the order the recovery thread will open them
+   * @param threads
+   *          the number of files to read at the same time
+   */
+  OplogRecoveryPrefetcher(List<File> files, int threads, DiskStoreStats stats) {
+    this(files, threads, MAX_PREFETCH_BYTES, stats);
+  }
+
+  OplogRecoveryPrefetcher(List<File> files, int threads, long maxBytes, DiskStoreStats stats) {
+    this.files = files;
+    this.window = threads;
+    this.maxBytes = maxBytes;
+    this.stats = stats;
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup("Oplog Recovery Thread Group", logger);
+    final ThreadFactory factory = GemfireCacheHelper.CreateThreadFactory(group, "Oplog Recovery Reader");
+    this.pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        factory);
+    synchronized (this) {
+      readAhead();
+    }
+  }
+
+  /**
+   * Returns a stream over the file, from memory if it was read ahead. The
+   * caller must close it so that the next files can be read ahead.
+   *
+   * @throws FileNotFoundException
+   *           if the file was not read ahead and can not be opened
+   */
+  InputStream open(File f) throws FileNotFoundException {
+    Prefetch read;
+    synchronized (this) {
+      final int index = this.files.indexOf(f);
+      if (index >= this.opened) {
+        for (int i = this.opened; i < index; i++) {
+          final Prefetch skipped = this.pending.remove(this.files.get(i));
+          if (skipped != null) {
+            skipped.future.cancel(false);
+            release(skipped.length);
+          }
+        }
+        this.opened = index + 1;
+      }
+      read = this.pending.remove(f);
+      readAhead();
+    }
+    byte[] bytes = null;
+    if (read != null) {
+      try {
+        bytes = read.future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // read it again below so that the error is reported by the caller
+        if (logger.isDebugEnabled()) {
+          logger.debug("Reading {} ahead of recovery failed", f, e.getCause());
+        }
+      }
+    }
+    // the recovery thread may have deleted the file, as it does an incomplete krf
+    if (bytes != null && f.exists()) {
+      return new PrefetchedInputStream(bytes, read.length);
+    }
+    if (read != null) {
+      synchronized (this) {
+        release(read.length);
+      }
+    }
+    return new FileInputStream(f);
+  }
+
+  void close() {
+    synchronized (this) {
+      for (Prefetch read : this.pending.values()) {
+        read.future.cancel(false);
+      }
+      this.pending.clear();
+      this.nextToRead = this.files.size();
+    }
+    this.pool.shutdown();
+  }
+
+  /**
+   * Starts reading the files that fit in the window and in the byte limit.
+   * Caller must hold this.
+   */
+  private void readAhead() {
+    if (this.nextToRead < this.opened) {
+      // the recovery thread went past files that did not fit in the limit
+      this.nextToRead = this.opened;
+    }
+    while (this.nextToRead < this.files.size() && this.nextToRead < this.opened + this.window) {
+      final File f = this.files.get(this.nextToRead);
+      final long length = f.length();
+      if (length > 0 && length <= this.maxBytes) {
+        if (this.reservedBytes + length > this.maxBytes) {
+          // go on once the recovery thread has closed enough files
+          return;
+        }
+        this.reservedBytes += length;
+        this.pending.put(f, new Prefetch(length, this.pool.submit(new Callable<byte[]>() {
+          @Override
+          public byte[] call() throws IOException {
+            return read(f, (int)length);
+          }
+        })));
+      }
+      this.nextToRead++;
+    }
+  }
+
+  /** Gives back bytes reserved by {@link #readAhead()}. Caller must hold this. */
+  private void release(long length) {
+    this.reservedBytes -= length;
+    readAhead();
+  }
+
+  /**
+   * Returns the contents of the file, or null if it is no longer the given
+   * length.
+   */
+  private byte[] read(File f, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    int count = 0;
+    final FileInputStream fis = new FileInputStream(f);
+    try {
+      while (count < bytes.length) {
+        final int n = fis.read(bytes, count, bytes.length - count);
+        if (n < 0) {
+          return null;
+        }
+        count += n;
+      }
+      if (fis.read() != -1) {
+        return null;
+      }
+    } finally {
+      fis.close();
+    }
+    this.stats.incRecoveryBytesPrefetched(count);
+    return bytes;
+  }
+
+  /** A read that has been started and the bytes reserved for it. */
+  private static class Prefetch {
+    final long length;
+    final Future<byte[]> future;
+
+    Prefetch(long length, Future<byte[]> future) {
+      this.length = length;
+      this.future = future;
+    }
+  }
+
+  /** Gives back the bytes reserved for the file when it is closed. */
+  private class PrefetchedInputStream extends ByteArrayInputStream {
+    private final long reserved;
+    private boolean closed;
+
+    PrefetchedInputStream(byte[] bytes, long reserved) {
+      super(bytes);
+      this.reserved = reserved;
+    }
+
+    @Override
+    public void close() {
+      synchronized (OplogRecoveryPrefetcher.this) {
+        if (!this.closed) {
+          this.closed = true;
+          release(this.reserved);
+        }
+      }
+    }
+  }
+}
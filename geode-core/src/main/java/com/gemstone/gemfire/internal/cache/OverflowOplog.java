@@ -34,6 +34,7 @@ import org.apache.logging.log4j.Logger;
 import com.gemstone.gemfire.cache.DiskAccessException;
 import com.gemstone.gemfire.cache.EntryDestroyedException;
 import com.gemstone.gemfire.distributed.OplogCancelledException;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.internal.cache.DiskEntry.Helper.Flushable;
 import com.gemstone.gemfire.internal.cache.DiskEntry.Helper.ValueWrapper;
@@ -59,6 +60,15 @@ class OverflowOplog implements CompactableOplog, Flushable {
   /** Extension of the oplog file * */
   static final String CRF_FILE_EXT = ".crf";
 
+  /**
+   * If true, overflow oplogs are written and read with direct I/O, bypassing
+   * the page cache, where the JVM and the file system support it. See
+   * {@link DirectIOFile}. Not final so tests can change it.
+   */
+  static boolean DIRECT_IO = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DISK_OVERFLOW_DIRECT_IO");
+
+  private static final AtomicBoolean directIOUnavailableLogged = new AtomicBoolean();
+
   /** The file which will be created on disk * */
   private final File diskFile;
 
@@ -239,10 +249,25 @@ class OverflowOplog implements CompactableOplog, Flushable {
     logger.info(LocalizedMessage.create(LocalizedStrings.Oplog_CREATE_0_1_2,
         new Object[] {toString(), "crf", this.parent.getName()}));
     this.crf.channel = this.crf.raf.getChannel();
+    if (DIRECT_IO) {
+      this.crf.direct = DirectIOFile.open(f);
+      if (this.crf.direct == null && directIOUnavailableLogged.compareAndSet(false, true)) {
+        logger.info("Direct I/O is not available for {} so overflow oplogs use the page cache", f);
+      }
+    }
 
     this.stats.incOpenOplogs();
   }
 
+  /**
+   * Test hook: returns true if this oplog's file is written with direct I/O.
+   */
+  boolean isDirectIO() {
+    synchronized (this.crf) {
+      return this.crf.direct != null;
+    }
+  }
+
   private static ByteBuffer allocateWriteBuf(OverflowOplog previous) {
     ByteBuffer result = null;
     if (previous != null) {
@@ -292,6 +317,9 @@ class OverflowOplog implements CompactableOplog, Flushable {
   {
     synchronized (this.crf) {
       if (!this.crf.RAFClosed) {
+        if (this.crf.direct != null) {
+          this.crf.direct.flush();
+        }
         this.crf.raf.getFD().sync();
       }
       return this.crf.f;
@@ -447,6 +475,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
    * Close the files of a oplog but don't set any state. Used by unit tests
    */
   public void testClose() {
+    closeDirect();
     try {
       this.crf.channel.close();
     } catch (IOException ignore) {
@@ -461,6 +490,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
     flushAll();
     synchronized (this.crf) {
       if (!this.crf.RAFClosed) {
+        closeDirect();
         try {
           this.crf.channel.close();
         } catch (IOException ignore) {
@@ -478,6 +508,17 @@ class OverflowOplog implements CompactableOplog, Flushable {
     this.deleteFiles();
   }
   
+  private void closeDirect() {
+    DirectIOFile direct = this.crf.direct;
+    if (direct != null) {
+      this.crf.direct = null;
+      try {
+        direct.close();
+      } catch (IOException ignore) {
+      }
+    }
+  }
+
   /**
    * Destroys this oplog. First it will call close which will cleanly close all
    * Async threads. The
@@ -738,17 +779,22 @@ class OverflowOplog implements CompactableOplog, Flushable {
         return;
       }
       try {
-      ByteBuffer bb = olf.writeBuf;
-      if (bb != null && bb.position() != 0) {
-        bb.flip();
-        int flushed = 0;
-        do {
-          flushed += olf.channel.write(bb);
-        } while (bb.hasRemaining());
-        // update bytesFlushed after entire writeBuffer is flushed to fix bug 41201
-        olf.bytesFlushed += flushed;
-        bb.clear();
-      }
+        ByteBuffer bb = olf.writeBuf;
+        if (bb != null && bb.position() != 0) {
+          bb.flip();
+          int flushed = 0;
+          if (olf.direct != null) {
+            flushed = bb.remaining();
+            olf.direct.write(bb);
+          } else {
+            do {
+              flushed += olf.channel.write(bb);
+            } while (bb.hasRemaining());
+          }
+          // update bytesFlushed after entire writeBuffer is flushed to fix bug 41201
+          olf.bytesFlushed += flushed;
+          bb.clear();
+        }
       } catch (ClosedChannelException ignore) {
         // It is possible for a channel to be closed when our code does not
         // explicitly call channel.close (when we will set RAFclosed).
@@ -769,9 +815,16 @@ class OverflowOplog implements CompactableOplog, Flushable {
       try {
         assert b1 == olf.writeBuf;
         b1.flip();
-        this.bbArray[1] = b2;
-        long flushed = olf.channel.write(this.bbArray);
-        this.bbArray[1] = null;
+        long flushed;
+        if (olf.direct != null) {
+          flushed = b1.remaining() + b2.remaining();
+          olf.direct.write(b1);
+          olf.direct.write(b2);
+        } else {
+          this.bbArray[1] = b2;
+          flushed = olf.channel.write(this.bbArray);
+          this.bbArray[1] = null;
+        }
         // update bytesFlushed after entire writeBuffer is flushed to fix bug 41201
         olf.bytesFlushed += flushed;
         b1.clear();
@@ -830,7 +883,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
       // Also it is only in case of synch writing, we are writing more
       // than what is actually needed, we will have to reset the pointer.
       // Also need to add in offset in writeBuf in case we are not flushing writeBuf
-      long curFileOffset = olf.channel.position() + olf.writeBuf.position();
+      long curFileOffset = getWritePosition() + olf.writeBuf.position();
       startPos = allocate(curFileOffset, getOpStateSize());
       if (startPos != -1) {
         if (startPos != curFileOffset) {
@@ -882,17 +935,23 @@ class OverflowOplog implements CompactableOplog, Flushable {
       BytesAndBits bb = null;
       long writePosition = 0;
       if (!this.doneAppending) {
-        writePosition = myRAF.getFilePointer();
+        writePosition = getWritePosition();
         bb = attemptWriteBufferGet(writePosition, readPosition, valueLength, userBits);
         if (bb == null) {
           if (/*!getParent().isSync() since compactor groups writes
                 && */ (readPosition+valueLength) > this.crf.bytesFlushed
                       && !this.closed) {
             flushAll(); // fix for bug 41205
-            writePosition = myRAF.getFilePointer();
+            writePosition = getWritePosition();
           }
         }
       }
+      if (bb == null && this.crf.direct != null) {
+        byte[] valueBytes = new byte[valueLength];
+        this.crf.direct.readFully(readPosition, valueBytes, 0, valueLength);
+        this.stats.incOplogReads();
+        bb = new BytesAndBits(valueBytes, userBits);
+      }
       if (bb == null) {
         myRAF.seek(readPosition);
         try {
@@ -923,6 +982,18 @@ class OverflowOplog implements CompactableOplog, Flushable {
     } // sync
   }
 
+  /**
+   * Returns the file offset the next byte flushed from the write buffer will
+   * be written at.
+   */
+  private long getWritePosition() throws IOException {
+    DirectIOFile direct = this.crf.direct;
+    if (direct != null) {
+      return direct.position();
+    }
+    return this.crf.raf.getFilePointer();
+  }
+
   private BytesAndBits attemptWriteBufferGet(long writePosition, long readPosition,
                                              int valueLength, byte userBits) {
     BytesAndBits bb = null;
@@ -1081,6 +1152,13 @@ class OverflowOplog implements CompactableOplog, Flushable {
     if (suggestedOffset+length > this.maxOplogSize) {
       flushAll();
       this.doneAppending = true;
+      if (this.crf.direct != null) {
+        try {
+          this.crf.direct.finishAppending();
+        } catch (IOException ex) {
+          throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()), ex, this.parent);
+        }
+      }
       return -1;
     } else {
       return suggestedOffset;
@@ -1225,6 +1303,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
     public RandomAccessFile raf;
     public boolean RAFClosed;
     public FileChannel channel;
+    /** Used instead of the channel when the oplog does direct I/O. */
+    public DirectIOFile direct;
     public ByteBuffer writeBuf;
     public long currSize; // HWM
     public long bytesFlushed;
@@ -1548,7 +1628,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
           }
           final long writePosition = (this.doneAppending)
             ? this.crf.bytesFlushed
-            : this.crf.raf.getFilePointer();
+            : getWritePosition();
           if ((readPosition+valueLength) > writePosition) {
             throw new DiskAccessException(
               LocalizedStrings.Oplog_TRIED_TO_SEEK_TO_0_BUT_THE_FILE_LENGTH_IS_1_OPLOG_FILE_OBJECT_USED_FOR_READING_2.toLocalizedString(
@@ -1565,6 +1645,16 @@ class OverflowOplog implements CompactableOplog, Flushable {
 //                                           + (this.deleted.get() ? "destroyed" : "closed")
 //                                           + " oplog #" + getOplogId(), this.owner);
 //           }
+          if (this.crf.direct != null) {
+            byte[] valueBytes = wrapper.getBytes();
+            if (valueBytes.length < valueLength) {
+              valueBytes = new byte[valueLength];
+            }
+            this.crf.direct.readFully(readPosition, valueBytes, 0, valueLength);
+            this.stats.incOplogReads();
+            wrapper.setData(valueBytes, userBits, valueLength, true);
+            return true;
+          }
           try {
             this.crf.raf.seek(readPosition);
             this.stats.incOplogSeeks();
@@ -19,7 +19,10 @@ package com.gemstone.gemfire.internal.cache;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -89,6 +92,13 @@ public class PersistentOplogSet implements OplogSet {
    */
   private volatile long maxRecoveredOplogId = 0;
 
+  /**
+   * Reads oplog files ahead of {@link #recoverOplogs(long)}; null unless a
+   * recovery with more than one {@link DiskStoreImpl#RECOVERY_THREADS} is in
+   * progress.
+   */
+  private volatile OplogRecoveryPrefetcher recoveryPrefetcher;
+
   
   public PersistentOplogSet(DiskStoreImpl parent) {
     this.parent = parent;
@@ -451,40 +461,16 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
-      // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds,
-                                      this.alreadyRecoveredOnce.get(),
-                                      latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
+      if (DiskStoreImpl.RECOVERY_THREADS > 1) {
+        this.recoveryPrefetcher = new OplogRecoveryPrefetcher(getRecoveryFiles(oplogSet),
+            DiskStoreImpl.RECOVERY_THREADS, parent.getStats());
       }
-      parent.incDeadRecordCount(deletedIds.size());
-      // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-                                          // @todo make recoverValues per region
-                                          recoverValues(),
-                                          recoverValuesSync(),
-                                          this.alreadyRecoveredOnce.get(),
-                                          oplogsNeedingValueRecovery, 
-                                          latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
-        
-        //Callback to the disk regions to indicate the oplog is recovered
-        //Used for offline export
-        for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+      try {
+        byteCount = recoverOplogFiles(oplogSet, deletedIds, oplogsNeedingValueRecovery, byteCount);
+      } finally {
+        if (this.recoveryPrefetcher != null) {
+          this.recoveryPrefetcher.close();
+          this.recoveryPrefetcher = null;
         }
       }
       long endOpLogRecovery = System.currentTimeMillis();
@@ -536,6 +522,92 @@ public class PersistentOplogSet implements OplogSet {
     return byteCount;
   }
 
+  /**
+   * Replays the drfs and then the crfs or krfs of the oplogs, newest first.
+   */
+  private long recoverOplogFiles(TreeSet<Oplog> oplogSet, OplogEntryIdSet deletedIds,
+      Set<Oplog> oplogsNeedingValueRecovery, long byteCount) {
+    parent.getStats().incRecoveryOplogsRemaining(oplogSet.size());
+    int replayed = 0;
+    try {
+      // first figure out all entries that have been destroyed
+      boolean latestOplog = true;
+      for (Oplog oplog: oplogSet) {
+        byteCount += oplog.recoverDrf(deletedIds,
+                                      this.alreadyRecoveredOnce.get(),
+                                      latestOplog);
+        latestOplog = false;
+        if (!this.alreadyRecoveredOnce.get()) {
+          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+        }
+      }
+      parent.incDeadRecordCount(deletedIds.size());
+      // now figure out live entries
+      latestOplog = true;
+      for (Oplog oplog: oplogSet) {
+        long startOpLogRead = parent.getStats().startOplogRead();
+        long bytesRead = oplog.recoverCrf(deletedIds,
+                                          // @todo make recoverValues per region
+                                          recoverValues(),
+                                          recoverValuesSync(),
+                                          this.alreadyRecoveredOnce.get(),
+                                          oplogsNeedingValueRecovery, 
+                                          latestOplog);
+        latestOplog = false;
+        if (!this.alreadyRecoveredOnce.get()) {
+          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+        }
+        byteCount += bytesRead;
+        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+      
+        //Callback to the disk regions to indicate the oplog is recovered
+        //Used for offline export
+        for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
+          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+        }
+        parent.getStats().incRecoveryOplogsRemaining(-1);
+        replayed++;
+      }
+    } finally {
+      parent.getStats().incRecoveryOplogsRemaining(replayed - oplogSet.size());
+    }
+    return byteCount;
+  }
+
+  /**
+   * Returns the files {@link #recoverOplogs(long)} will read, in the order it
+   * reads them: every drf and then the krfs it reads instead of crfs.
+   */
+  private List<File> getRecoveryFiles(TreeSet<Oplog> oplogSet) {
+    List<File> files = new ArrayList<File>();
+    for (Oplog oplog: oplogSet) {
+      if (oplog.getDrfFileForRecovery() != null) {
+        files.add(oplog.getDrfFileForRecovery());
+      }
+    }
+    if (!recoverValuesSync() && (!parent.isOffline() || parent.FORCE_KRF_RECOVERY)) {
+      for (Oplog oplog: oplogSet) {
+        File krf = oplog.getKrfFile();
+        if (krf != null) {
+          files.add(krf);
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Opens a drf or krf file that is being recovered, from memory if it was
+   * read ahead.
+   */
+  InputStream openForRecovery(File f) throws FileNotFoundException {
+    OplogRecoveryPrefetcher prefetcher = this.recoveryPrefetcher;
+    if (prefetcher != null) {
+      return prefetcher.open(f);
+    }
+    return new FileInputStream(f);
+  }
+
   protected boolean recoverValuesSync() {
     return parent.RECOVER_VALUES_SYNC;
   }
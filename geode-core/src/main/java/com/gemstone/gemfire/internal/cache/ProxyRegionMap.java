@@ -113,6 +113,14 @@ final class ProxyRegionMap implements RegionMap {
     return null;
   }
 
+  public RegionEntry getEntryForLongKey(long key) {
+    return null;
+  }
+
+  public RegionEntry getEntryForIntKey(int key) {
+    return null;
+  }
+
   public RegionEntry putEntryIfAbsent(Object key, RegionEntry re) {
     return null;
   }
@@ -117,6 +117,20 @@ public interface RegionMap extends LRUMapCallbacks {
    * @return the RegionEntry from memory or disk
    */
   public RegionEntry getEntry(Object key);
+
+  /**
+   * fetches the entry for a Long key without boxing the key.
+   * @param key
+   * @return the RegionEntry from memory or null if there is no entry for the key
+   */
+  public RegionEntry getEntryForLongKey(long key);
+
+  /**
+   * fetches the entry for an Integer key without boxing the key.
+   * @param key
+   * @return the RegionEntry from memory or null if there is no entry for the key
+   */
+  public RegionEntry getEntryForIntKey(int key);
   public RegionEntry putEntryIfAbsent(Object key, RegionEntry re);
 
   /**
@@ -1418,6 +1418,20 @@ public class TXManagerImpl implements CacheTransactionManager,
       return this.key.equals(k);
     }
 
+    /**
+     * The refCountMap is keyed by region entries and is never looked up by a
+     * primitive key, so this only has to agree with {@link #isKeyEqual}.
+     */
+    @Override
+    public boolean isLongKeyEqual(long k) {
+      return isKeyEqual(k);
+    }
+
+    @Override
+    public boolean isIntKeyEqual(int k) {
+      return isKeyEqual(k);
+    }
+
     @Override
     public RefCountMapEntry getMapValue() {
       return this;
@@ -40,8 +40,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VMStatsDiskLRURegionEntryHeapLongKey extends VMStatsDiskLRURegionEntryHeap {
   public VMStatsDiskLRURegionEntryHeapLongKey (RegionEntryContext context, long key,
@@ -214,7 +214,7 @@ public class VMStatsDiskLRURegionEntryHeapLongKey extends VMStatsDiskLRURegionEn
   }
   @Override
   public final void setRecentlyUsed() {
-    setBits(RECENTLY_USED);
+    setBits(RECENTLY_USED | USED_SINCE_SWEEP);
   }
   public final void unsetRecentlyUsed() {
     clearBits(~RECENTLY_USED);
@@ -341,5 +341,13 @@ public class VMStatsDiskLRURegionEntryHeapLongKey extends VMStatsDiskLRURegionEn
     }
     return false;
   }
+  @Override
+  public boolean isLongKeyEqual(long k) {
+    return k == this.key;
+  }
+  @Override
+  public boolean isIntKeyEqual(int k) {
+    return false;
+  }
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 }
@@ -40,8 +40,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VMStatsDiskLRURegionEntryHeapStringKey1 extends VMStatsDiskLRURegionEntryHeap {
   public VMStatsDiskLRURegionEntryHeapStringKey1 (RegionEntryContext context, String key,
@@ -231,7 +231,7 @@ public class VMStatsDiskLRURegionEntryHeapStringKey1 extends VMStatsDiskLRURegio
   }
   @Override
   public final void setRecentlyUsed() {
-    setBits(RECENTLY_USED);
+    setBits(RECENTLY_USED | USED_SINCE_SWEEP);
   }
   public final void unsetRecentlyUsed() {
     clearBits(~RECENTLY_USED);
@@ -40,8 +40,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VMStatsDiskLRURegionEntryHeapStringKey2 extends VMStatsDiskLRURegionEntryHeap {
   public VMStatsDiskLRURegionEntryHeapStringKey2 (RegionEntryContext context, String key,
@@ -243,7 +243,7 @@ public class VMStatsDiskLRURegionEntryHeapStringKey2 extends VMStatsDiskLRURegio
   }
   @Override
   public final void setRecentlyUsed() {
-    setBits(RECENTLY_USED);
+    setBits(RECENTLY_USED | USED_SINCE_SWEEP);
   }
   public final void unsetRecentlyUsed() {
     clearBits(~RECENTLY_USED);
@@ -36,8 +36,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VMStatsRegionEntryHeapObjectKey extends VMStatsRegionEntryHeap {
   public VMStatsRegionEntryHeapObjectKey (RegionEntryContext context, Object key,
@@ -18,6 +18,8 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.util.UUID;
 
+import com.gemstone.gemfire.internal.offheap.OffHeapKeyHelper;
+
 public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry implements OffHeapRegionEntry {
   public VMStatsRegionEntryOffHeap(RegionEntryContext context, Object value) {
     super(context, value);
@@ -50,6 +52,9 @@ public abstract class VMStatsRegionEntryOffHeap extends VMStatsRegionEntry imple
           return new VMStatsRegionEntryOffHeapUUIDKey(context, (UUID)key, value);
         }
       }
+      if (OffHeapKeyHelper.canStoreKey(key)) {
+        return new VMStatsRegionEntryOffHeapStoredKey(context, key, value);
+      }
       return new VMStatsRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -18,6 +18,8 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.util.UUID;
 
+import com.gemstone.gemfire.internal.offheap.OffHeapKeyHelper;
+
 public abstract class VMThinRegionEntryOffHeap extends VMThinRegionEntry implements OffHeapRegionEntry {
 
   public VMThinRegionEntryOffHeap(RegionEntryContext context, Object value) {
@@ -52,6 +54,9 @@ public abstract class VMThinRegionEntryOffHeap extends VMThinRegionEntry impleme
           return new VMThinRegionEntryOffHeapUUIDKey(context, (UUID)key, value);
         }
       }
+      if (OffHeapKeyHelper.canStoreKey(key)) {
+        return new VMThinRegionEntryOffHeapStoredKey(context, key, value);
+      }
       return new VMThinRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -49,8 +49,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VersionedStatsDiskLRURegionEntryOffHeapLongKey extends VersionedStatsDiskLRURegionEntryOffHeap {
   public VersionedStatsDiskLRURegionEntryOffHeapLongKey (RegionEntryContext context, long key,
@@ -268,7 +268,7 @@ public class VersionedStatsDiskLRURegionEntryOffHeapLongKey extends VersionedSta
   }
   @Override
   public final void setRecentlyUsed() {
-    setBits(RECENTLY_USED);
+    setBits(RECENTLY_USED | USED_SINCE_SWEEP);
   }
   public final void unsetRecentlyUsed() {
     clearBits(~RECENTLY_USED);
@@ -475,5 +475,13 @@ public class VersionedStatsDiskLRURegionEntryOffHeapLongKey extends VersionedSta
     }
     return false;
   }
+  @Override
+  public boolean isLongKeyEqual(long k) {
+    return k == this.key;
+  }
+  @Override
+  public boolean isIntKeyEqual(int k) {
+    return false;
+  }
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 }
@@ -48,8 +48,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VersionedStatsLRURegionEntryOffHeapObjectKey extends VersionedStatsLRURegionEntryOffHeap {
   public VersionedStatsLRURegionEntryOffHeapObjectKey (RegionEntryContext context, Object key,
@@ -179,7 +179,7 @@ public class VersionedStatsLRURegionEntryOffHeapObjectKey extends VersionedStats
   }
   @Override
   public final void setRecentlyUsed() {
-    setBits(RECENTLY_USED);
+    setBits(RECENTLY_USED | USED_SINCE_SWEEP);
   }
   public final void unsetRecentlyUsed() {
     clearBits(~RECENTLY_USED);
@@ -44,8 +44,8 @@ import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMa
 /**
  * Do not modify this class. It was generated.
  * Instead modify LeafRegionEntry.cpp and then run
- * bin/generateRegionEntryClasses.sh from the directory
- * that contains your build.xml.
+ * dev-tools/generateRegionEntryClasses.sh from the
+ * top level directory of the source tree.
  */
 public class VersionedThinDiskLRURegionEntryHeapLongKey extends VersionedThinDiskLRURegionEntryHeap {
   public VersionedThinDiskLRURegionEntryHeapLongKey (RegionEntryContext context, long key,
@@ -218,7 +218,7 @@ public class VersionedThinDiskLRURegionEntryHeapLongKey extends VersionedThinDis
   }
   @Override
   public final void setRecentlyUsed() {
-    setBits(RECENTLY_USED);
+    setBits(RECENTLY_USED | USED_SINCE_SWEEP);
   }
   public final void unsetRecentlyUsed() {
     clearBits(~RECENTLY_USED);
@@ -361,5 +361,13 @@ public class VersionedThinDiskLRURegionEntryHeapLongKey extends VersionedThinDis
     }
     return false;
   }
+  @Override
+  public boolean isLongKeyEqual(long k) {
+    return k == this.key;
+  }
+  @Override
+  public boolean isIntKeyEqual(int k) {
+    return false;
+  }
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 }
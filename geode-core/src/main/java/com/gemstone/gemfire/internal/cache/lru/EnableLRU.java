@@ -107,6 +107,18 @@ public interface EnableLRU {
    * @return the id
    */
   public int getGreedyReturnsStatId();
+
+  /**
+   * Returns the id of the "lruAdmissions" statistic for this LRU algorithm's
+   * statistics.
+   */
+  public int getAdmissionsStatId();
+
+  /**
+   * Returns the id of the "lruAdmissionRejections" statistic for this LRU
+   * algorithm's statistics.
+   */
+  public int getAdmissionRejectionsStatId();
   
   /**
    * Returns whether or not there is enough room to accommodate data
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import java.util.Arrays;
+
+/**
+ * Estimates how often a key has been used, for {@link TinyLFUClockHand}.
+ *
+ * This is a count-min sketch with {@link #ROWS} rows of 4-bit counters,
+ * packed two to a byte. A key maps to one counter in each row, chosen by
+ * double hashing its spread hash code, and its frequency is the smallest of
+ * those counters. Collisions can therefore only make an estimate too high.
+ * An increment only raises the counters that hold that minimum (a
+ * "conservative update"), which keeps the estimates of colliding keys
+ * closer to their real counts.
+ *
+ * After {@link #AGING_FACTOR} increments per counter in a row every counter
+ * is halved, so keys that used to be popular are eventually forgotten.
+ *
+ * Instances are not thread safe; the clock hand only uses them while holding
+ * its lock.
+ */
+final class FrequencySketch {
+
+  /** The frequency a counter saturates at. */
+  static final int MAX_FREQUENCY = 15;
+
+  /** Number of rows, and so of counters, per key. */
+  private static final int ROWS = 4;
+
+  /** Increments per counter in a row after which all counters are halved. */
+  private static final int AGING_FACTOR = 10;
+
+  private static final int MIN_WIDTH = 16;
+  static final int MAX_WIDTH = 1 << 28;
+
+  /**
+   * Row r holds counter c in the low (even c) or high (odd c) half of byte
+   * <code>(r * width + c) / 2</code>.
+   */
+  private byte[] counters;
+  private int width;
+  private int increments;
+  private int agingPeriod;
+
+  FrequencySketch() {
+    ensureCapacity(MIN_WIDTH);
+  }
+
+  /**
+   * Grows each row to at least <code>maximumSize</code> counters, so that
+   * about that many keys can be told apart. Growing starts over with all
+   * counters at zero.
+   */
+  void ensureCapacity(long maximumSize) {
+    final long wanted = Math.min(Math.max(maximumSize, MIN_WIDTH), MAX_WIDTH);
+    if (this.counters != null && this.width >= wanted) {
+      return;
+    }
+    this.width = Integer.highestOneBit((int)wanted);
+    if (this.width < wanted) {
+      this.width <<= 1;
+    }
+    this.counters = new byte[ROWS * this.width / 2];
+    this.agingPeriod = agingPeriod(this.width);
+    this.increments = 0;
+  }
+
+  /**
+   * Returns the number of increments after which the counters of a sketch
+   * with rows of <code>width</code> counters are halved. At the widest rows
+   * that is more than an int can hold, so it stops at Integer.MAX_VALUE.
+   */
+  static int agingPeriod(int width) {
+    return (int)Math.min(Integer.MAX_VALUE, (long)AGING_FACTOR * width);
+  }
+
+  /** Returns the number of counters in each row, for tests. */
+  int capacity() {
+    return this.width;
+  }
+
+  /** Returns the estimated number of times the hash has been incremented. */
+  int frequency(int hashCode) {
+    final int h1 = spread(hashCode);
+    final int h2 = secondHash(h1);
+    int min = MAX_FREQUENCY;
+    for (int row = 0; row < ROWS; row++) {
+      min = Math.min(min, get(slot(row, h1, h2)));
+    }
+    return min;
+  }
+
+  /** Records one use of the hash, halving all counters when it is time to. */
+  void increment(int hashCode) {
+    final int h1 = spread(hashCode);
+    final int h2 = secondHash(h1);
+    int min = MAX_FREQUENCY;
+    for (int row = 0; row < ROWS; row++) {
+      min = Math.min(min, get(slot(row, h1, h2)));
+    }
+    if (min == MAX_FREQUENCY) {
+      return;
+    }
+    for (int row = 0; row < ROWS; row++) {
+      final int slot = slot(row, h1, h2);
+      if (get(slot) == min) {
+        set(slot, min + 1);
+      }
+    }
+    if (++this.increments >= this.agingPeriod) {
+      age();
+    }
+  }
+
+  /** Sets every counter back to zero. */
+  void clear() {
+    Arrays.fill(this.counters, (byte)0);
+    this.increments = 0;
+  }
+
+  /** Halves every counter and the count of increments. */
+  private void age() {
+    final byte[] c = this.counters;
+    for (int i = 0; i < c.length; i++) {
+      // shifting the byte shifts both nibbles; the mask drops the bit that
+      // moved from the high nibble into the low one
+      c[i] = (byte)((c[i] & 0xff) >>> 1 & 0x77);
+    }
+    this.increments >>>= 1;
+  }
+
+  private int slot(int row, int h1, int h2) {
+    return row * this.width + ((h1 + row * h2) & (this.width - 1));
+  }
+
+  private int get(int slot) {
+    return (this.counters[slot >>> 1] >>> ((slot & 1) << 2)) & 0xf;
+  }
+
+  private void set(int slot, int value) {
+    final int i = slot >>> 1;
+    final int shift = (slot & 1) << 2;
+    this.counters[i] = (byte)((this.counters[i] & ~(0xf << shift)) | (value << shift));
+  }
+
+  /** Mixes the bits of the hash code (the murmur3 32-bit finalizer). */
+  private static int spread(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /** Returns an odd step for double hashing so every row picks another slot. */
+  private static int secondHash(int h1) {
+    return (Integer.rotateLeft(h1, 16) * 0x9e3779b9) | 1;
+  }
+}
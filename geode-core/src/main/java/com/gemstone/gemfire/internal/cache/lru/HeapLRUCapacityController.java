@@ -91,6 +91,8 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
     final String lruDestroysLimitDesc = "Maximum number of entry destroys triggered by LRU before scan occurs.";
     final String lruEvaluationsDesc = "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc = "Number of non-LRU entries evicted during LRU operations";
+    final String lruAdmissionsDesc = "Number of entries kept over an older entry because the frequency policy estimated them to be used more often.";
+    final String lruAdmissionRejectionsDesc = "Number of new entries evicted instead of an older entry because the frequency policy estimated them to be used less often.";
 
     statType = f
         .createType(
@@ -102,7 +104,9 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
                 f.createLongCounter("lruDestroys", lruDestroysDesc, "entries"),
                 f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries"),
                 f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries"),
-                f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"), });
+                f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+                f.createLongCounter("lruAdmissions", lruAdmissionsDesc, "entries"),
+                f.createLongCounter("lruAdmissionRejections", lruAdmissionRejectionsDesc, "entries"), });
   }
 
   // //////////////////// Instance Fields /////////////////////
@@ -268,6 +272,14 @@ public class HeapLRUCapacityController extends LRUAlgorithm {
       public int getGreedyReturnsStatId() {
         return statType.nameToId("lruGreedyReturns");
       }
+
+      public int getAdmissionsStatId() {
+        return statType.nameToId("lruAdmissions");
+      }
+
+      public int getAdmissionRejectionsStatId() {
+        return statType.nameToId("lruAdmissionRejections");
+      }
       
       /**
        * Okay, deep breath. Instead of basing the LRU calculation on the number
@@ -86,6 +86,10 @@ public final class LRUCapacityController extends LRUAlgorithm
       "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc =
       "Number of non-LRU entries evicted during LRU operations";
+    final String lruAdmissionsDesc =
+      "Number of entries kept over an older entry because the frequency policy estimated them to be used more often.";
+    final String lruAdmissionRejectionsDesc =
+      "Number of new entries evicted instead of an older entry because the frequency policy estimated them to be used less often.";
 
     statType = f.createType( "LRUStatistics",
       "Statistics about entry based Least Recently Used region entry disposal",
@@ -97,6 +101,8 @@ public final class LRUCapacityController extends LRUAlgorithm
         f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries" ),
         f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries" ),
         f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+        f.createLongCounter("lruAdmissions", lruAdmissionsDesc, "entries"),
+        f.createLongCounter("lruAdmissionRejections", lruAdmissionRejectionsDesc, "entries"),
       }
     );
     
@@ -312,6 +318,14 @@ public final class LRUCapacityController extends LRUAlgorithm
       public int getGreedyReturnsStatId() {
         return statType.nameToId("lruGreedyReturns");
       }
+
+      public int getAdmissionsStatId() {
+        return statType.nameToId("lruAdmissions");
+      }
+
+      public int getAdmissionRejectionsStatId() {
+        return statType.nameToId("lruAdmissionRejections");
+      }
       
       public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
        return stats.getCounter() + delta > stats.getLimit();
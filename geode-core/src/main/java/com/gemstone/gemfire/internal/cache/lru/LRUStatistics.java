@@ -46,6 +46,9 @@ public class LRUStatistics  {
   protected int destroysId;
   protected  int evaluationsId;
   protected  int greedyReturnsId;
+  /** entries kept, or turned away, by the frequency policy of TinyLFUClockHand */
+  protected int admissionsId;
+  protected int admissionRejectionsId;
 
   // Note: the following atomics have been added so that the LRU code
   // does not depend on the value of a statistic for its operations.
@@ -79,6 +82,8 @@ public class LRUStatistics  {
     destroysId = helper.getDestroysStatId();
     this.evaluationsId = helper.getEvaluationsStatId();
     this.greedyReturnsId = helper.getGreedyReturnsStatId();
+    this.admissionsId = helper.getAdmissionsStatId();
+    this.admissionRejectionsId = helper.getAdmissionRejectionsStatId();
   }
 
   public LRUStatistics(StatisticsFactory factory, String name,
@@ -91,6 +96,8 @@ public class LRUStatistics  {
     destroysId = 0;
     this.evaluationsId = 0;
     this.greedyReturnsId = 0;
+    this.admissionsId = 0;
+    this.admissionRejectionsId = 0;
   }
 
   public void close() {
@@ -200,6 +207,22 @@ public class LRUStatistics  {
   public void incGreedyReturns(long numEvals) {
     stats.incLong(greedyReturnsId, numEvals);
   }
+
+  public void incAdmissions() {
+    stats.incLong(admissionsId, 1);
+  }
+
+  public long getAdmissions() {
+    return stats.getLong(admissionsId);
+  }
+
+  public void incAdmissionRejections() {
+    stats.incLong(admissionRejectionsId, 1);
+  }
+
+  public long getAdmissionRejections() {
+    return stats.getLong(admissionRejectionsId);
+  }
   
 
   public Statistics getStats() {
@@ -122,6 +122,10 @@ public final class MemLRUCapacityController extends LRUAlgorithm
       "Number of entries evaluated during LRU operations.";
     final String lruGreedyReturnsDesc =
       "Number of non-LRU entries evicted during LRU operations";
+    final String lruAdmissionsDesc =
+      "Number of entries kept over an older entry because the frequency policy estimated them to be used more often.";
+    final String lruAdmissionRejectionsDesc =
+      "Number of new entries evicted instead of an older entry because the frequency policy estimated them to be used less often.";
      
     statType = f.createType( "MemLRUStatistics",
       "Statistics about byte based Least Recently Used region entry disposal",
@@ -133,6 +137,8 @@ public final class MemLRUCapacityController extends LRUAlgorithm
         f.createLongGauge("lruDestroysLimit", lruDestroysLimitDesc, "entries" ),
         f.createLongCounter("lruEvaluations", lruEvaluationsDesc, "entries" ),
         f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
+        f.createLongCounter("lruAdmissions", lruAdmissionsDesc, "entries"),
+        f.createLongCounter("lruAdmissionRejections", lruAdmissionRejectionsDesc, "entries"),
       }
     );
   }
@@ -457,6 +463,14 @@ public final class MemLRUCapacityController extends LRUAlgorithm
         return statType.nameToId("lruGreedyReturns");
       }
 
+      public int getAdmissionsStatId() {
+        return statType.nameToId("lruAdmissions");
+      }
+
+      public int getAdmissionRejectionsStatId() {
+        return statType.nameToId("lruAdmissionRejections");
+      }
+
       public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
         return stats.getCounter() + delta > stats.getLimit();
       }
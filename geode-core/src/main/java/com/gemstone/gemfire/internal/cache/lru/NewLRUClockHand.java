@@ -54,7 +54,17 @@ public class NewLRUClockHand  {
 
   public static final boolean debug = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "verbose-lru-clock");
 
-static private final int maxEntries;
+  /**
+   * Selects the clock hand used by LRU regions: "classic" for this class,
+   * "striped" for {@link StripedLRUClockHand}, which batches appends instead of
+   * locking the list for each one, or "tinylfu" for {@link TinyLFUClockHand},
+   * which also weighs how often entries are used. "tinylfu" only applies to
+   * entry count and memory size LRU; heap LRU falls back to "striped". LIFO
+   * regions always use {@link NewLIFOClockHand}.
+   */
+  public static final String CLOCK_HAND = System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "lru.clockHand", "classic");
+
+static final int maxEntries;
 
 static {
   String squelch = System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "lru.maxSearchEntries");
@@ -146,28 +156,36 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
    *
    * @param  aNode  Description of the Parameter
    */  
-  public final void appendEntry( final LRUClockNode aNode ) {
+  public void appendEntry( final LRUClockNode aNode ) {
     synchronized (this.lock) {
-      if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
-        return;
-      }
+      linkEntry(aNode);
+    }
+  }
 
-      if (logger.isTraceEnabled(LogMarker.LRU_CLOCK)) {
-        logger.trace(LogMarker.LRU_CLOCK, LocalizedMessage.create(LocalizedStrings.NewLRUClockHand_ADDING_ANODE_TO_LRU_LIST, aNode));
-      }
-      aNode.setNextLRUNode(this.tail);
-      this.tail.prevLRUNode().setNextLRUNode(aNode);
-      aNode.setPrevLRUNode(this.tail.prevLRUNode());
-      this.tail.setPrevLRUNode(aNode);
-      
-      this.size++;
+  /**
+   * Links the node in before the tail unless it is already in the list.
+   * The caller must hold {@link #lock}.
+   */
+  protected void linkEntry( final LRUClockNode aNode ) {
+    if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
+      return;
     }
+
+    if (logger.isTraceEnabled(LogMarker.LRU_CLOCK)) {
+      logger.trace(LogMarker.LRU_CLOCK, LocalizedMessage.create(LocalizedStrings.NewLRUClockHand_ADDING_ANODE_TO_LRU_LIST, aNode));
+    }
+    aNode.setNextLRUNode(this.tail);
+    this.tail.prevLRUNode().setNextLRUNode(aNode);
+    aNode.setPrevLRUNode(this.tail.prevLRUNode());
+    this.tail.setPrevLRUNode(aNode);
+    
+    this.size++;
   }
 
   /** return the head entry in the list preserving the cupipe requirement of at
    * least one entry left in the list 
    */
-  private LRUClockNode getHeadEntry() {
+  protected LRUClockNode getHeadEntry() {
     synchronized (lock) {
       LRUClockNode aNode = NewLRUClockHand.this.head.nextLRUNode();
       if(aNode == this.tail) {
@@ -406,7 +424,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
   /** Marker class name to identify the lock more easily in thread dumps */
   protected static class HeadLock extends Object  { }
   
-  private static final class GuardNode implements LRUClockNode {
+  static final class GuardNode implements LRUClockNode {
 
     private LRUClockNode next;
     LRUClockNode prev;
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gemstone.gemfire.internal.cache.lru;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
+import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
+
+/**
+ * StripedLRUClockHand keeps the same clock list and eviction behavior as
+ * {@link NewLRUClockHand} but does not take the list lock for every
+ * {@link #appendEntry(LRUClockNode)}. Appended nodes are recorded in small
+ * ring buffers, striped by thread, and linked into the list in batches by
+ * whichever thread finds its buffer full or needs to walk the list. This
+ * turns one lock acquisition per create or update into one per batch, which
+ * matters on heavily evicted regions where every create otherwise serializes
+ * on the clock hand.
+ *
+ * Recently used bits are still set directly on the entries, so the order the
+ * clock sees is the order the buffers are drained in; within a stripe that is
+ * the order the nodes were appended.
+ *
+ * @see NewLRUClockHand#CLOCK_HAND
+ */
+public class StripedLRUClockHand extends NewLRUClockHand {
+
+  /** Number of nodes each stripe can hold before it has to be drained. */
+  static final int STRIPE_CAPACITY = 32;
+  private static final int STRIPE_MASK = STRIPE_CAPACITY - 1;
+
+  /** Upper bound on the number of stripes per clock hand. */
+  private static final int MAX_STRIPES = 16;
+
+  private final AtomicReferenceArray<Stripe> stripes;
+  private final int stripeMask;
+
+  public StripedLRUClockHand(Object region, EnableLRU ccHelper,
+      InternalRegionArguments internalRegionArgs) {
+    super(region, ccHelper, internalRegionArgs);
+    this.stripes = new AtomicReferenceArray<Stripe>(stripeCount());
+    this.stripeMask = this.stripes.length() - 1;
+  }
+
+  public StripedLRUClockHand(Region region, EnableLRU ccHelper,
+      NewLRUClockHand oldList) {
+    super(region, ccHelper, oldList);
+    this.stripes = new AtomicReferenceArray<Stripe>(stripeCount());
+    this.stripeMask = this.stripes.length() - 1;
+  }
+
+  private static int stripeCount() {
+    int n = 1;
+    int procs = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+    while (n < procs) {
+      n <<= 1;
+    }
+    return n;
+  }
+
+  /**
+   * Records the node in the calling thread's stripe. If the stripe is full,
+   * or another thread is appending to it at the same moment, all stripes are
+   * drained and the node is linked directly under the list lock.
+   */
+  @Override
+  public void appendEntry(final LRUClockNode aNode) {
+    // the check for a node that is already linked is left to linkEntry
+    // since the links can only be read reliably under the lock
+    if (stripeFor(Thread.currentThread()).offer(aNode)) {
+      return;
+    }
+    synchronized (this.lock) {
+      drainBuffers();
+      linkEntry(aNode);
+    }
+  }
+
+  @Override
+  protected LRUClockNode getHeadEntry() {
+    synchronized (this.lock) {
+      drainBuffers();
+      return super.getHeadEntry();
+    }
+  }
+
+  /**
+   * Drains the buffers first so that a node that was appended but not yet
+   * linked is removed from the list now instead of waiting for the clock to
+   * discard it.
+   */
+  @Override
+  public boolean unlinkEntry(LRUClockNode entry) {
+    synchronized (this.lock) {
+      drainBuffers();
+    }
+    return super.unlinkEntry(entry);
+  }
+
+  @Override
+  public long getExpensiveListCount() {
+    synchronized (this.lock) {
+      drainBuffers();
+      return super.getExpensiveListCount();
+    }
+  }
+
+  @Override
+  public void clear(RegionVersionVector rvv) {
+    if (rvv != null) {
+      return; // see NewLRUClockHand.clear
+    }
+    synchronized (this.lock) {
+      for (int i = 0; i < this.stripes.length(); i++) {
+        Stripe s = this.stripes.get(i);
+        if (s != null) {
+          s.discard();
+        }
+      }
+      super.clear(rvv);
+    }
+  }
+
+  /** Links every buffered node into the list. Caller must hold {@link #lock}. */
+  protected final void drainBuffers() {
+    for (int i = 0; i < this.stripes.length(); i++) {
+      Stripe s = this.stripes.get(i);
+      if (s != null) {
+        s.drainTo(this);
+      }
+    }
+  }
+
+  private Stripe stripeFor(Thread t) {
+    final int idx = hashThread(t) & this.stripeMask;
+    Stripe s = this.stripes.get(idx);
+    if (s == null) {
+      s = new Stripe();
+      if (!this.stripes.compareAndSet(idx, null, s)) {
+        s = this.stripes.get(idx);
+      }
+    }
+    return s;
+  }
+
+  private static int hashThread(Thread t) {
+    long id = t.getId();
+    int h = (int)(id ^ (id >>> 32));
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    return h;
+  }
+
+  /**
+   * Bounded multi-producer ring buffer. Producers claim a slot by advancing
+   * {@link #writeIndex}; the single consumer is whoever holds the clock hand
+   * lock, so {@link #readIndex} is only written under that lock.
+   */
+  private static final class Stripe {
+    private final AtomicReferenceArray<LRUClockNode> slots =
+        new AtomicReferenceArray<LRUClockNode>(STRIPE_CAPACITY);
+    private final AtomicLong writeIndex = new AtomicLong();
+    private volatile long readIndex;
+
+    boolean offer(LRUClockNode node) {
+      final long w = this.writeIndex.get();
+      if (w - this.readIndex >= STRIPE_CAPACITY) {
+        return false;
+      }
+      if (!this.writeIndex.compareAndSet(w, w + 1)) {
+        return false;
+      }
+      this.slots.lazySet((int)(w & STRIPE_MASK), node);
+      return true;
+    }
+
+    void drainTo(StripedLRUClockHand clock) {
+      long r = this.readIndex;
+      final long w = this.writeIndex.get();
+      while (r < w) {
+        final int idx = (int)(r & STRIPE_MASK);
+        final LRUClockNode node = this.slots.get(idx);
+        if (node == null) {
+          // the producer claimed the slot but has not published it yet
+          break;
+        }
+        this.slots.lazySet(idx, null);
+        clock.linkEntry(node);
+        r++;
+      }
+      this.readIndex = r;
+    }
+
+    void discard() {
+      long r = this.readIndex;
+      final long w = this.writeIndex.get();
+      while (r < w) {
+        final int idx = (int)(r & STRIPE_MASK);
+        if (this.slots.get(idx) == null) {
+          break;
+        }
+        this.slots.lazySet(idx, null);
+        r++;
+      }
+      this.readIndex = r;
+    }
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gemstone.gemfire.internal.cache.lru;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.cache.AbstractRegionEntry;
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
+import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
+
+/**
+ * TinyLFUClockHand picks eviction candidates with a frequency aware policy
+ * in the style of W-TinyLFU instead of recency alone, so that a scan over
+ * many keys that are used once does not push the hot working set out of a
+ * fixed size region.
+ *
+ * The entries are kept in two lists. New entries are appended to a small
+ * window list, which is the list of {@link NewLRUClockHand} and is about one
+ * percent of all entries. Everything else lives in the main list. When an
+ * entry has to be evicted and the window is over its size, the oldest window
+ * entry competes with the entry the clock picks from the main list: the one
+ * with the lower estimated frequency in a {@link FrequencySketch} is
+ * evicted and the other is kept in the main list. A window entry that was
+ * used while it was in the window is moved to the main list without having to
+ * compete.
+ *
+ * The sketch counts every append (creates, updates and fault ins) and every
+ * recently used bit the hand finds set, keyed by the entry's hash. Appends are
+ * buffered as in {@link StripedLRUClockHand}.
+ *
+ * Like {@link NewLRUClockHand#getLRUEntry()} the list lock is only held to
+ * take a node off a list or put it back; each node is examined while
+ * synchronized on the node, and the search returns the next acceptable node
+ * once it has looked at more than gemfire.lru.maxSearchEntries nodes.
+ *
+ * @see NewLRUClockHand#CLOCK_HAND
+ */
+public class TinyLFUClockHand extends StripedLRUClockHand {
+
+  /** Percentage of the entries that the window list may hold. */
+  static final int WINDOW_PERCENT = 1;
+
+  /** Results of {@link #examine}. */
+  private static final int DISCARDED = 0;
+  private static final int KEPT = 1;
+  private static final int EVICTABLE = 2;
+
+  /** Start and end of the main list. */
+  private LRUClockNode mainHead;
+  private LRUClockNode mainTail;
+
+  /**
+   * Number of nodes linked into the window. Entries that are unlinked by a
+   * destroy are not subtracted so this is recounted before it is trusted.
+   */
+  private int windowEstimate;
+
+  private final FrequencySketch sketch = new FrequencySketch();
+
+  public TinyLFUClockHand(Object region, EnableLRU ccHelper,
+      InternalRegionArguments internalRegionArgs) {
+    super(region, ccHelper, internalRegionArgs);
+    initMain();
+  }
+
+  public TinyLFUClockHand(Region region, EnableLRU ccHelper,
+      NewLRUClockHand oldList) {
+    super(region, ccHelper, oldList);
+    initMain();
+  }
+
+  private void initMain() {
+    this.mainHead = new GuardNode();
+    this.mainTail = new GuardNode();
+    this.mainHead.setNextLRUNode(this.mainTail);
+    this.mainTail.setPrevLRUNode(this.mainHead);
+    this.windowEstimate = 0;
+  }
+
+  /** Links new nodes into the window and counts the use in the sketch. */
+  @Override
+  protected void linkEntry(final LRUClockNode aNode) {
+    final int oldSize = this.size;
+    super.linkEntry(aNode);
+    if (this.size != oldSize) {
+      this.windowEstimate++;
+      this.sketch.increment(keyHash(aNode));
+    }
+  }
+
+  @Override
+  public LRUClockNode getLRUEntry() {
+    long numEvals = 0;
+    // an evictable window node that still has to compete with a main node
+    LRUClockNode candidate = null;
+    for (;;) {
+      final boolean greedy = maxEntries > 0 && numEvals > maxEntries;
+      if (candidate == null) {
+        candidate = pollWindow(true);
+        if (candidate != null) {
+          numEvals++;
+          // dropped, or used while in the window and moved to the main list
+          // without a contest
+          if (examine(candidate, greedy) != EVICTABLE) {
+            candidate = null;
+            continue;
+          }
+        }
+      }
+      if (candidate != null && greedy) {
+        stats().incGreedyReturns(1);
+        stats().incEvaluations(numEvals);
+        return candidate;
+      }
+      LRUClockNode victim = pollMain();
+      if (victim == null && candidate == null) {
+        // nothing in the main list; fall back to the window as the plain
+        // clock would
+        victim = pollWindow(false);
+      }
+      if (victim == null) {
+        stats().incEvaluations(numEvals);
+        return candidate;
+      }
+      numEvals++;
+      if (examine(victim, greedy) != EVICTABLE) {
+        continue;
+      }
+      if (greedy) {
+        stats().incGreedyReturns(1);
+      }
+      stats().incEvaluations(numEvals);
+      if (candidate == null) {
+        return victim;
+      }
+      final int candidateFrequency;
+      final int victimFrequency;
+      synchronized (this.lock) {
+        candidateFrequency = this.sketch.frequency(keyHash(candidate));
+        victimFrequency = this.sketch.frequency(keyHash(victim));
+      }
+      if (candidateFrequency > victimFrequency) {
+        stats().incAdmissions();
+        relinkMain(candidate, false);
+        return victim;
+      }
+      else {
+        stats().incAdmissionRejections();
+        relinkMain(victim, true);
+        return candidate;
+      }
+    }
+  }
+
+  @Override
+  public long getExpensiveListCount() {
+    synchronized (this.lock) {
+      long count = super.getExpensiveListCount();
+      for (LRUClockNode aNode = this.mainHead.nextLRUNode(); aNode != this.mainTail; aNode = aNode.nextLRUNode()) {
+        count++;
+      }
+      return count;
+    }
+  }
+
+  @Override
+  public void clear(RegionVersionVector rvv) {
+    if (rvv != null) {
+      return; // see NewLRUClockHand.clear
+    }
+    synchronized (this.lock) {
+      super.clear(rvv);
+      initMain();
+      this.sketch.clear();
+    }
+  }
+
+  /** Returns the sketch's estimate for the node, for tests. */
+  int frequency(LRUClockNode aNode) {
+    synchronized (this.lock) {
+      return this.sketch.frequency(keyHash(aNode));
+    }
+  }
+
+  /**
+   * Decides what to do with a node that was just taken off a list, while
+   * synchronized on it like {@link NewLRUClockHand#getLRUEntry()} does.
+   * Nodes that are in a transaction or already evicted are dropped. A node
+   * whose recently used bit is set, unless the search has become greedy,
+   * has the bit cleared, the use counted and is put back at the end of the
+   * main list.
+   */
+  private int examine(LRUClockNode aNode, boolean greedy) {
+    synchronized (aNode) {
+      if (aNode instanceof AbstractRegionEntry
+          && ((AbstractRegionEntry)aNode).isInUseByTransaction()) {
+        return DISCARDED;
+      }
+      if (aNode.testEvicted()) {
+        return DISCARDED;
+      }
+      if (!greedy && aNode.testRecentlyUsed()) {
+        aNode.unsetRecentlyUsed();
+        synchronized (this.lock) {
+          this.sketch.increment(keyHash(aNode));
+          linkMain(aNode, false);
+        }
+        return KEPT;
+      }
+      return EVICTABLE;
+    }
+  }
+
+  /**
+   * Puts a node that lost or won a contest back into the main list unless it
+   * was evicted in the meantime.
+   */
+  private void relinkMain(LRUClockNode aNode, boolean atHead) {
+    synchronized (aNode) {
+      if (aNode.testEvicted()) {
+        return;
+      }
+      synchronized (this.lock) {
+        linkMain(aNode, atHead);
+      }
+    }
+  }
+
+  /**
+   * Returns true if the window holds more than its share of the entries,
+   * recounting it if the estimate says so. Caller must hold {@link #lock}.
+   */
+  private boolean isWindowOverflowing() {
+    final int windowMax = Math.max(1, (int)((long)this.size * WINDOW_PERCENT / 100));
+    if (this.windowEstimate <= windowMax) {
+      return false;
+    }
+    int count = 0;
+    for (LRUClockNode aNode = this.head.nextLRUNode(); aNode != this.tail; aNode = aNode.nextLRUNode()) {
+      count++;
+    }
+    this.windowEstimate = count;
+    return count > windowMax;
+  }
+
+  /**
+   * Removes and returns the oldest window node, or null if the window is
+   * empty or, when <code>onlyIfOverflowing</code>, within its size.
+   */
+  private LRUClockNode pollWindow(boolean onlyIfOverflowing) {
+    synchronized (this.lock) {
+      drainBuffers();
+      this.sketch.ensureCapacity(this.size);
+      if (onlyIfOverflowing && !isWindowOverflowing()) {
+        return null;
+      }
+      final LRUClockNode aNode = unlinkFirst(this.head, this.tail);
+      if (aNode != null) {
+        this.windowEstimate--;
+      }
+      return aNode;
+    }
+  }
+
+  /** Removes and returns the first node of the main list. */
+  private LRUClockNode pollMain() {
+    synchronized (this.lock) {
+      return unlinkFirst(this.mainHead, this.mainTail);
+    }
+  }
+
+  /** Caller must hold {@link #lock}. */
+  private LRUClockNode unlinkFirst(LRUClockNode first, LRUClockNode last) {
+    final LRUClockNode aNode = first.nextLRUNode();
+    if (aNode == last) {
+      return null;
+    }
+    final LRUClockNode next = aNode.nextLRUNode();
+    first.setNextLRUNode(next);
+    next.setPrevLRUNode(first);
+    aNode.setNextLRUNode(null);
+    aNode.setPrevLRUNode(null);
+    this.size--;
+    return aNode;
+  }
+
+  /**
+   * Links the node at the start or the end of the main list unless it is
+   * already in a list. Caller must hold {@link #lock}.
+   */
+  private void linkMain(LRUClockNode aNode, boolean atHead) {
+    if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
+      return;
+    }
+    final LRUClockNode prev = atHead ? this.mainHead : this.mainTail.prevLRUNode();
+    final LRUClockNode next = prev.nextLRUNode();
+    aNode.setPrevLRUNode(prev);
+    aNode.setNextLRUNode(next);
+    prev.setNextLRUNode(aNode);
+    next.setPrevLRUNode(aNode);
+    this.size++;
+  }
+
+  /**
+   * Uses the hash the region map stored in the entry so that keys that are
+   * kept encoded, inline or off-heap, are not decoded on every count.
+   */
+  private static int keyHash(LRUClockNode aNode) {
+    if (aNode instanceof HashEntry) {
+      final int hash = ((HashEntry<?, ?>)aNode).getEntryHash();
+      if (hash != 0) {
+        return hash;
+      }
+    }
+    return System.identityHashCode(aNode);
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.gemstone.gemfire.compression.CompressionException;
+import com.gemstone.gemfire.compression.Compressor;
+
+/**
+ * An implementation of {@link Compressor} that uses the deflate codec and
+ * is aimed at regions holding many small values, such as PDX records of a
+ * few types. Codecs like Snappy gain little on a value of a couple of hundred
+ * bytes because the value repeats too little of itself. Values of the same
+ * type repeat each other instead, so this compressor trains a preset
+ * dictionary from the first small values it sees and compresses every later
+ * small value against it.
+ * <p>
+ * The dictionary is held by the instance and is never persisted, so a value
+ * compressed by one instance can only be decompressed by the same instance.
+ * That is how the values of a region that is not persistent are compressed:
+ * the compressed form only exists in the memory, or the overflow files, of
+ * the member that created it. Persistent regions can not use it.
+ * 
+ * @since Geode 1.0
+ */
+public final class DictionaryCompressor implements Compressor, Serializable {
+  private static final long serialVersionUID = -1418375493012546218L;
+
+  /** Default number of bytes in the trained dictionary. */
+  public static final int DEFAULT_DICTIONARY_SIZE = 4 * 1024;
+
+  /** Default size of the largest value that is compressed with the dictionary. */
+  public static final int DEFAULT_MAX_VALUE_SIZE = 1024;
+
+  private static final byte NO_DICTIONARY = 0;
+  private static final byte TRAINED_DICTIONARY = 1;
+  /** One byte for the dictionary used and four for the uncompressed length. */
+  private static final int HEADER_SIZE = 5;
+
+  private final int dictionarySize;
+  private final int maxValueSize;
+
+  /** The trained dictionary, or null while it is still being trained. */
+  private transient volatile byte[] dictionary;
+  private transient ByteArrayOutputStream samples;
+
+  private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>();
+  private static final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>();
+
+  /**
+   * Create a new instance of the DictionaryCompressor with the default
+   * dictionary and value sizes.
+   */
+  public DictionaryCompressor() {
+    this(DEFAULT_DICTIONARY_SIZE, DEFAULT_MAX_VALUE_SIZE);
+  }
+
+  /**
+   * Create a new instance of the DictionaryCompressor.
+   * 
+   * @param dictionarySize number of bytes of sample values kept in the dictionary
+   * @param maxValueSize values larger than this are compressed without the dictionary
+   */
+  public DictionaryCompressor(int dictionarySize, int maxValueSize) {
+    if (dictionarySize <= 0) {
+      throw new IllegalArgumentException("dictionarySize must be greater than zero");
+    }
+    if (maxValueSize < 0) {
+      throw new IllegalArgumentException("maxValueSize must not be negative");
+    }
+    this.dictionarySize = dictionarySize;
+    this.maxValueSize = maxValueSize;
+  }
+
+  @Override
+  public byte[] compress(byte[] input) {
+    byte[] dict = null;
+    if (input.length <= this.maxValueSize) {
+      dict = this.dictionary;
+      if (dict == null) {
+        dict = train(input);
+      }
+    }
+    final Deflater deflater = getDeflater();
+    try {
+      if (dict != null) {
+        deflater.setDictionary(dict);
+      }
+      deflater.setInput(input);
+      deflater.finish();
+      byte[] result = new byte[HEADER_SIZE + input.length + (input.length >> 3) + 16];
+      result[0] = dict != null ? TRAINED_DICTIONARY : NO_DICTIONARY;
+      writeInt(result, 1, input.length);
+      int length = HEADER_SIZE;
+      while (!deflater.finished()) {
+        if (length == result.length) {
+          result = copyOf(result, length, length << 1);
+        }
+        length += deflater.deflate(result, length, result.length - length);
+      }
+      return length == result.length ? result : copyOf(result, length, length);
+    } finally {
+      deflater.reset();
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] input) {
+    if (input.length < HEADER_SIZE) {
+      throw new CompressionException("Compressed value is only " + input.length + " bytes long");
+    }
+    final byte[] result = new byte[readInt(input, 1)];
+    final Inflater inflater = getInflater();
+    try {
+      inflater.setInput(input, HEADER_SIZE, input.length - HEADER_SIZE);
+      int length = 0;
+      while (!inflater.finished()) {
+        int n = inflater.inflate(result, length, result.length - length);
+        length += n;
+        if (n == 0) {
+          if (inflater.needsDictionary()) {
+            inflater.setDictionary(getDictionary(input[0]));
+          } else if (inflater.needsInput() || length == result.length) {
+            break;
+          }
+        }
+      }
+      if (!inflater.finished() || length != result.length) {
+        throw new CompressionException("Compressed value is truncated");
+      }
+      return result;
+    } catch (DataFormatException e) {
+      throw new CompressionException(e);
+    } finally {
+      inflater.reset();
+    }
+  }
+
+  /**
+   * Returns true once enough small values have been seen to build the
+   * dictionary.
+   */
+  public boolean isTrained() {
+    return this.dictionary != null;
+  }
+
+  private byte[] getDictionary(byte id) {
+    if (id == TRAINED_DICTIONARY) {
+      final byte[] dict = this.dictionary;
+      if (dict != null) {
+        return dict;
+      }
+    }
+    throw new CompressionException("Value was compressed with a dictionary this compressor does not have");
+  }
+
+  /**
+   * Adds the value to the samples and builds the dictionary once there are
+   * enough of them. The dictionary is the most recent samples, which is what
+   * deflate can refer back to most cheaply.
+   * 
+   * @return the dictionary if it is now trained, otherwise null
+   */
+  private synchronized byte[] train(byte[] input) {
+    if (this.dictionary != null) {
+      return this.dictionary;
+    }
+    if (this.samples == null) {
+      this.samples = new ByteArrayOutputStream(this.dictionarySize);
+    }
+    this.samples.write(input, 0, input.length);
+    if (this.samples.size() < this.dictionarySize) {
+      return null;
+    }
+    final byte[] all = this.samples.toByteArray();
+    final byte[] dict = new byte[this.dictionarySize];
+    System.arraycopy(all, all.length - dict.length, dict, 0, dict.length);
+    this.samples = null;
+    this.dictionary = dict;
+    return dict;
+  }
+
+  private static Deflater getDeflater() {
+    Deflater result = deflaters.get();
+    if (result == null) {
+      result = new Deflater(Deflater.BEST_SPEED);
+      deflaters.set(result);
+    }
+    return result;
+  }
+
+  private static Inflater getInflater() {
+    Inflater result = inflaters.get();
+    if (result == null) {
+      result = new Inflater();
+      inflaters.set(result);
+    }
+    return result;
+  }
+
+  private static byte[] copyOf(byte[] bytes, int length, int newLength) {
+    final byte[] result = new byte[newLength];
+    System.arraycopy(bytes, 0, result, 0, length);
+    return result;
+  }
+
+  private static void writeInt(byte[] bytes, int offset, int v) {
+    bytes[offset] = (byte) (v >>> 24);
+    bytes[offset + 1] = (byte) (v >>> 16);
+    bytes[offset + 2] = (byte) (v >>> 8);
+    bytes[offset + 3] = (byte) v;
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+        | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.dictionarySize + this.maxValueSize;
+  }
+
+  /**
+   * Two instances are only equal if they can decompress each other's
+   * values, that is if they have the same settings and the same dictionary.
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof DictionaryCompressor)) {
+      return false;
+    }
+    final DictionaryCompressor that = (DictionaryCompressor) other;
+    return this.dictionarySize == that.dictionarySize && this.maxValueSize == that.maxValueSize
+        && Arrays.equals(this.dictionary, that.dictionary);
+  }
+}
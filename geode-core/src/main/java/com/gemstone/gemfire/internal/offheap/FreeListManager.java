@@ -21,6 +21,7 @@ import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.logging.LogService;
 import org.apache.logging.log4j.Logger;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -106,6 +107,9 @@ public class FreeListManager {
         tinyFree += cl.computeTotalSize();
       }
     }
+    for (Magazine m: this.magazines) {
+      tinyFree += m.computeTotalSize();
+    }
     return tinyFree;
   }
   long getFreeHugeMemory() {
@@ -123,8 +127,33 @@ public class FreeListManager {
   private final CopyOnWriteArrayList<Fragment> fragmentList;
   private final MemoryAllocatorImpl ma;
 
+  /**
+   * Every magazine handed out by {@link #magazine} so that defragmentation
+   * and the free memory accounting can find the chunks they hold.
+   */
+  private final CopyOnWriteArrayList<Magazine> magazines = new CopyOnWriteArrayList<Magazine>();
+  private final ThreadLocal<Magazine> magazine = new ThreadLocal<Magazine>() {
+    @Override
+    protected Magazine initialValue() {
+      Magazine m = new Magazine(Thread.currentThread(), magazineCapacity);
+      magazines.add(m);
+      return m;
+    }
+  };
+  private final int magazineCapacity;
+  /**
+   * Counts magazine misses so that every {@link #MAGAZINE_REAP_INTERVAL}th
+   * one looks for magazines left behind by threads that have died.
+   */
+  private final AtomicInteger magazineMissCount = new AtomicInteger();
+
   public FreeListManager(MemoryAllocatorImpl ma, final Slab[] slabs) {
+    this(ma, slabs, MAGAZINE_CAPACITY);
+  }
+
+  FreeListManager(MemoryAllocatorImpl ma, final Slab[] slabs, int magazineCapacity) {
     this.ma = ma;
+    this.magazineCapacity = magazineCapacity;
     this.slabs = slabs;
     long total = 0;
     Fragment[] tmp = new Fragment[slabs.length];
@@ -252,6 +281,9 @@ public class FreeListManager {
         cl.logSizes(lw, "Free tiny of size ");
       }
     }
+    for (Magazine m: this.magazines) {
+      m.logSizes(lw, "Free tiny in magazine of size ");
+    }
   }
   private void logFragmentState(Logger lw) {
     for (Fragment f: this.fragmentList) {
@@ -295,6 +327,23 @@ public class FreeListManager {
     verifyHugeMultiple(HUGE_MULTIPLE);
   }
   public final static int MAX_TINY = TINY_MULTIPLE*TINY_FREE_LIST_COUNT;
+  /**
+   * How many freed chunks of each size a thread keeps in its magazine for
+   * its next allocations before it gives half of them back to the shared tiny
+   * free lists. Refills take half this many from the shared list at once.
+   * Set to 0 to have every tiny allocation and free go to the shared lists.
+   */
+  public final static int MAGAZINE_CAPACITY = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_MAGAZINE_CAPACITY", 32);
+  /**
+   * Number of tiny free lists, starting with the smallest, that are cached
+   * in the magazines. Larger chunks always go to the shared lists.
+   */
+  final static int MAGAZINE_FREE_LIST_COUNT = Math.min(TINY_FREE_LIST_COUNT, 64);
+  /**
+   * Number of magazine misses between two looks for the magazines of dead
+   * threads. Must be a power of 2.
+   */
+  final static int MAGAZINE_REAP_INTERVAL = 1024;
   
   /**
    * Return true if the two chunks have been combined into one.
@@ -493,6 +542,171 @@ public class FreeListManager {
     return result;
   }
 
+  /**
+   * Coalesces the free memory of a single slab. Unlike {@link #defragment(int)}
+   * this only takes the free chunks of the one slab away from the free lists,
+   * and only for as long as it takes to sort and combine them, so allocations
+   * keep being served from the other slabs and from whatever this slab had on
+   * its fragments until they are taken. Chunks that could be combined with a
+   * neighbor are turned into a fragment; the others are put back where they
+   * came from.
+   * Returns the number of chunks that were combined away.
+   */
+  int defragmentSlab(int slabId) {
+    final Slab slab = this.slabs[slabId];
+    final long start = slab.getMemoryAddress();
+    final long end = start + slab.getSize();
+    final OffHeapMemoryStats stats = this.ma.getStats();
+    final long startTime = stats.startIncrementalDefragmentation();
+    try {
+      synchronized (this) {
+        ResizableLongArray fromFragments = new ResizableLongArray();
+        ResizableLongArray free = new ResizableLongArray();
+        collectSlabFragmentChunks(start, end, fromFragments);
+        for (int i=0; i < fromFragments.size(); i++) {
+          free.add(fromFragments.get(i));
+        }
+        collectSlabHugeChunks(start, end, free);
+        collectSlabTinyChunks(start, end, free);
+        return coalesceSlabChunks(free, fromFragments);
+      }
+    } finally {
+      stats.endIncrementalDefragmentation(startTime);
+    }
+  }
+
+  int getSlabCount() {
+    return this.slabs.length;
+  }
+
+  /**
+   * Returns the percentage of free memory that is not in the largest
+   * contiguous free chunk. Chunks held in the thread magazines are not
+   * counted since their threads are expected to allocate them again.
+   */
+  int getFreeListFragmentation() {
+    long free = 0;
+    long largest = 0;
+    for (Fragment f: this.fragmentList) {
+      long fragmentFree = f.freeSpace();
+      free += fragmentFree;
+      largest = Math.max(largest, fragmentFree);
+    }
+    for (OffHeapStoredObject c: this.hugeChunkSet) {
+      free += c.getSize();
+      largest = Math.max(largest, c.getSize());
+    }
+    for (int i=0; i < this.tinyFreeLists.length(); i++) {
+      OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
+      if (cl != null && !cl.isEmpty()) {
+        free += cl.computeTotalSize();
+        largest = Math.max(largest, (i+1)*TINY_MULTIPLE);
+      }
+    }
+    if (free <= 0) {
+      return 0;
+    }
+    return (int) ((free - Math.min(largest, free)) * 100 / free);
+  }
+
+  private static boolean isInRange(long addr, long start, long end) {
+    return addr >= start && addr < end;
+  }
+
+  private void collectSlabFragmentChunks(long start, long end, ResizableLongArray result) {
+    ArrayList<Fragment> taken = new ArrayList<Fragment>();
+    for (Fragment f: this.fragmentList) {
+      if (!isInRange(f.getAddress(), start, end)) {
+        continue;
+      }
+      int offset;
+      int diff;
+      do {
+        offset = f.getFreeIndex();
+        diff = f.getSize() - offset;
+      } while (diff >= OffHeapStoredObject.MIN_CHUNK_SIZE && !f.allocate(offset, offset+diff));
+      taken.add(f);
+      if (diff < OffHeapStoredObject.MIN_CHUNK_SIZE) {
+        // see collectFreeFragmentChunks
+        assert diff == 0;
+        continue;
+      }
+      long chunkAddr = f.getAddress()+offset;
+      OffHeapStoredObject.setSize(chunkAddr, diff);
+      result.add(chunkAddr);
+    }
+    this.fragmentList.removeAll(taken);
+  }
+
+  private void collectSlabHugeChunks(long start, long end, ResizableLongArray result) {
+    for (OffHeapStoredObject c: this.hugeChunkSet) {
+      if (isInRange(c.getAddress(), start, end) && this.hugeChunkSet.remove(c)) {
+        result.add(c.getAddress());
+      }
+    }
+  }
+
+  private void collectSlabTinyChunks(long start, long end, ResizableLongArray result) {
+    for (int i=0; i < this.tinyFreeLists.length(); i++) {
+      OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
+      if (cl == null || cl.isEmpty()) {
+        continue;
+      }
+      // unlink in place so the chunks of the other slabs can still be allocated
+      cl.removeInRange(start, end, result);
+    }
+    for (Magazine m: this.magazines) {
+      m.removeInRange(start, end, result);
+    }
+  }
+
+  private int coalesceSlabChunks(ResizableLongArray free, ResizableLongArray fromFragments) {
+    final int count = free.size();
+    Arrays.sort(free.data, 0, count);
+    Arrays.sort(fromFragments.data, 0, fromFragments.size());
+    int combined = 0;
+    ArrayList<Fragment> created = new ArrayList<Fragment>();
+    int i = 0;
+    while (i < count) {
+      final long runAddr = free.get(i);
+      boolean makeFragment = fromFragments.binarySearch(runAddr) >= 0;
+      int j = i+1;
+      while (j < count && combineIfAdjacentAndSmallEnough(runAddr, free.get(j))) {
+        j++;
+      }
+      if (j - i > 1) {
+        combined += j - i - 1;
+        makeFragment = true;
+      }
+      if (makeFragment) {
+        created.add(createFragment(runAddr, OffHeapStoredObject.getSize(runAddr)));
+      } else {
+        int cSize = OffHeapStoredObject.getSize(runAddr);
+        if (cSize <= MAX_TINY) {
+          basicFree(runAddr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+        } else {
+          freeHuge(runAddr, cSize);
+        }
+      }
+      i = j;
+    }
+    if (this.validateMemoryWithFill) {
+      for (Fragment f: created) {
+        f.fill();
+      }
+    }
+    this.fragmentList.addAll(created);
+
+    int largestFragment = 0;
+    for (Fragment f: this.fragmentList) {
+      largestFragment = Math.max(largestFragment, f.freeSpace());
+    }
+    this.ma.getStats().setLargestFragment(largestFragment);
+    this.ma.getStats().setFragments(this.fragmentList.size());
+    this.ma.getStats().setFragmentation(getFragmentation());
+    return combined;
+  }
+
   /**
    * Unit tests override this method to get better test coverage
    */
@@ -594,6 +808,17 @@ public class FreeListManager {
         }
       }
     }
+    for (Magazine m: this.magazines) {
+      OffHeapStoredObjectAddressStack result = new OffHeapStoredObjectAddressStack();
+      m.drainTo(result);
+      if (!result.isEmpty()) {
+        l.add(result);
+      }
+      if (m.isOwnerGone()) {
+        // nobody can add to it any more now that it is empty
+        this.magazines.remove(m);
+      }
+    }
   }
   private void collectFreeHugeChunks(List<LongStack> l) {
     OffHeapStoredObject c = this.hugeChunkSet.pollFirst();
@@ -657,7 +882,81 @@ public class FreeListManager {
     return (int) ((((long)value + (multiple-1)) / multiple) * multiple);
   }
   private OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
-    return basicAllocate(getNearestTinyMultiple(size), TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
+    final int idx = getNearestTinyMultiple(size);
+    // when called back from allocateFromFragment the magazine was already tried
+    if (useFragments && idx < MAGAZINE_FREE_LIST_COUNT && this.magazineCapacity > 0) {
+      long memAddr = allocateFromMagazine(idx);
+      if (memAddr != 0L) {
+        OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
+        checkDataIntegrity(result);
+        result.readyForAllocation();
+        return result;
+      }
+    }
+    return basicAllocate(idx, TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
+  }
+  /**
+   * Returns a free chunk from the calling thread's magazine, refilling the
+   * magazine in one batch from the shared free list if it is empty.
+   * Returns 0 if both are empty.
+   */
+  private long allocateFromMagazine(int idx) {
+    final Magazine m = this.magazine.get();
+    synchronized (m) {
+      long memAddr = m.poll(idx);
+      if (memAddr != 0L) {
+        this.ma.getStats().incMagazineHits();
+        return memAddr;
+      }
+    }
+    this.ma.getStats().incMagazineMisses();
+    // done outside the lock on our own magazine since it locks the others
+    if ((this.magazineMissCount.incrementAndGet() & (MAGAZINE_REAP_INTERVAL-1)) == 0) {
+      reapOrphanedMagazines();
+    }
+    synchronized (m) {
+      OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+      if (clq != null) {
+        m.refill(idx, clq, Math.max(1, this.magazineCapacity/2));
+      }
+      return m.poll(idx);
+    }
+  }
+  /**
+   * Gives the chunks in the magazines of threads that have died back to the
+   * shared tiny free lists and forgets those magazines. Without this the
+   * chunks would only be found again by a full defragmentation.
+   * Returns the number of magazines removed.
+   */
+  int reapOrphanedMagazines() {
+    int removed = 0;
+    for (Magazine m: this.magazines) {
+      if (!m.isOwnerGone()) {
+        continue;
+      }
+      synchronized (m) {
+        for (int idx=0; idx < MAGAZINE_FREE_LIST_COUNT; idx++) {
+          if (m.getCount(idx) > 0) {
+            m.flush(idx, getTinyFreeList(idx), m.getCount(idx));
+          }
+        }
+      }
+      // nobody can add to it any more now that its owner is gone
+      if (this.magazines.remove(m)) {
+        removed++;
+      }
+    }
+    return removed;
+  }
+  private OffHeapStoredObjectAddressStack getTinyFreeList(int idx) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      clq = createFreeListForEmptySlot(this.tinyFreeLists, idx);
+      if (!this.tinyFreeLists.compareAndSet(idx, null, clq)) {
+        clq = this.tinyFreeLists.get(idx);
+      }
+    }
+    return clq;
   }
   private OffHeapStoredObject basicAllocate(int idx, int multiple, int offset, AtomicReferenceArray<OffHeapStoredObjectAddressStack> freeLists, boolean useFragments) {
     OffHeapStoredObjectAddressStack clq = freeLists.get(idx);
@@ -748,7 +1047,25 @@ public class FreeListManager {
     }
   }
   private void freeTiny(long addr, int cSize) {
-    basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+    final int idx = getNearestTinyMultiple(cSize);
+    if (idx < MAGAZINE_FREE_LIST_COUNT && this.magazineCapacity > 0) {
+      freeToMagazine(addr, idx);
+    } else {
+      basicFree(addr, idx, this.tinyFreeLists);
+    }
+  }
+  /**
+   * Keeps the chunk in the calling thread's magazine. If the magazine is
+   * full the older half of it is pushed onto the shared free list first.
+   */
+  private void freeToMagazine(long addr, int idx) {
+    final Magazine m = this.magazine.get();
+    synchronized (m) {
+      if (m.isFull(idx)) {
+        m.flush(idx, getTinyFreeList(idx), Math.max(1, this.magazineCapacity/2));
+      }
+      m.offer(idx, addr);
+    }
   }
   private void basicFree(long addr, int idx, AtomicReferenceArray<OffHeapStoredObjectAddressStack> freeLists) {
     OffHeapStoredObjectAddressStack clq = freeLists.get(idx);
@@ -818,8 +1135,130 @@ public class FreeListManager {
         addr = OffHeapStoredObject.getNext(addr);
       }
     }
+    for (Magazine m: this.magazines) {
+      m.addBlocks(sma, value);
+    }
     return value;
   }
+  /**
+   * The tiny chunks a single thread freed and has not given back to the
+   * shared free lists yet. Only the owning thread allocates from or frees
+   * into it, but defragmentation and the stats walk it from other threads
+   * so every access is synchronized on the magazine.
+   * Each size class is a small stack kept in a long array; unlike the
+   * shared lists nothing is written into the free chunks themselves.
+   */
+  private static final class Magazine {
+    private final WeakReference<Thread> owner;
+    private final int capacity;
+    private final long[][] rounds = new long[MAGAZINE_FREE_LIST_COUNT][];
+    private final int[] counts = new int[MAGAZINE_FREE_LIST_COUNT];
+
+    Magazine(Thread owner, int capacity) {
+      this.owner = new WeakReference<Thread>(owner);
+      this.capacity = capacity;
+    }
+
+    boolean isOwnerGone() {
+      Thread t = this.owner.get();
+      return t == null || !t.isAlive();
+    }
+
+    long poll(int idx) {
+      int count = this.counts[idx];
+      if (count == 0) {
+        return 0L;
+      }
+      count--;
+      this.counts[idx] = count;
+      return this.rounds[idx][count];
+    }
+
+    int getCount(int idx) {
+      return this.counts[idx];
+    }
+
+    boolean isFull(int idx) {
+      return this.counts[idx] >= this.capacity;
+    }
+
+    void offer(int idx, long addr) {
+      getRounds(idx)[this.counts[idx]++] = addr;
+    }
+
+    void refill(int idx, OffHeapStoredObjectAddressStack from, int max) {
+      this.counts[idx] = from.poll(getRounds(idx), max);
+    }
+
+    private long[] getRounds(int idx) {
+      long[] r = this.rounds[idx];
+      if (r == null) {
+        r = new long[this.capacity];
+        this.rounds[idx] = r;
+      }
+      return r;
+    }
+
+    /** Moves the <code>max</code> oldest chunks of the size class to the stack. */
+    void flush(int idx, OffHeapStoredObjectAddressStack to, int max) {
+      final int count = this.counts[idx];
+      final int n = Math.min(max, count);
+      final long[] r = this.rounds[idx];
+      to.offer(r, 0, n);
+      System.arraycopy(r, n, r, 0, count-n);
+      this.counts[idx] = count-n;
+    }
+
+    synchronized void removeInRange(long start, long end, ResizableLongArray result) {
+      for (int i=0; i < this.counts.length; i++) {
+        int kept = 0;
+        for (int j=0; j < this.counts[i]; j++) {
+          long addr = this.rounds[i][j];
+          if (isInRange(addr, start, end)) {
+            result.add(addr);
+          } else {
+            this.rounds[i][kept++] = addr;
+          }
+        }
+        this.counts[i] = kept;
+      }
+    }
+
+    synchronized void drainTo(OffHeapStoredObjectAddressStack to) {
+      for (int i=0; i < this.counts.length; i++) {
+        if (this.counts[i] > 0) {
+          to.offer(this.rounds[i], 0, this.counts[i]);
+          this.counts[i] = 0;
+        }
+      }
+    }
+
+    synchronized long computeTotalSize() {
+      long result = 0;
+      for (int i=0; i < this.counts.length; i++) {
+        for (int j=0; j < this.counts[i]; j++) {
+          result += OffHeapStoredObject.getSize(this.rounds[i][j]);
+        }
+      }
+      return result;
+    }
+
+    synchronized void logSizes(Logger lw, String msg) {
+      for (int i=0; i < this.counts.length; i++) {
+        for (int j=0; j < this.counts[i]; j++) {
+          lw.info(msg + OffHeapStoredObject.getSize(this.rounds[i][j]));
+        }
+      }
+    }
+
+    synchronized void addBlocks(MemoryAllocatorImpl sma, List<MemoryBlock> dest) {
+      for (int i=0; i < this.counts.length; i++) {
+        for (int j=0; j < this.counts[i]; j++) {
+          dest.add(new MemoryBlockNode(sma, new TinyMemoryBlock(this.rounds[i][j], i)));
+        }
+      }
+    }
+  }
   List<MemoryBlock> getAllocatedBlocks() {
     final List<MemoryBlock> value = new ArrayList<MemoryBlock>();
     addBlocksFromChunks(getLiveChunks(), value); // used chunks
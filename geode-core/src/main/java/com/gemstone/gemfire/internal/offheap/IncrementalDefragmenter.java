@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Background thread that keeps off-heap free memory coalesced so that
+ * allocations rarely have to fall back to the stop the world
+ * {@link FreeListManager#defragment(int)}. Every {@link #INTERVAL} milliseconds
+ * it checks how fragmented the free memory is and, if it is at or above
+ * {@link #THRESHOLD} percent, makes a pass over each slab in turn with
+ * {@link FreeListManager#defragmentSlab(int)}, stopping as soon as the
+ * fragmentation drops below the threshold.
+ * <p>
+ * Fragmentation is the larger of {@link FreeListManager#getFragmentation()}
+ * and the share of free memory held on the free lists rather than in
+ * fragments.
+ * 
+ * @since Geode 1.0
+ */
+final class IncrementalDefragmenter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Fragmentation percentage at which slab passes are started.
+   * The default of 0 disables the background defragmenter.
+   */
+  static final int THRESHOLD = Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTATION_THRESHOLD", 0);
+  /**
+   * Milliseconds between fragmentation checks.
+   */
+  static final long INTERVAL = Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTATION_INTERVAL", 1000L);
+
+  private final FreeListManager freeList;
+  private final int threshold;
+  private final long interval;
+  private volatile boolean stopped;
+  private Thread thread;
+  /** The slab the next pass starts at, so that every slab gets its turn. */
+  private int nextSlab;
+
+  IncrementalDefragmenter(FreeListManager freeList, int threshold, long interval) {
+    this.freeList = freeList;
+    this.threshold = threshold;
+    this.interval = interval;
+  }
+
+  /**
+   * Starts a defragmenter for the given free lists if one is configured
+   * and returns it; otherwise returns null.
+   */
+  static IncrementalDefragmenter startIfEnabled(FreeListManager freeList) {
+    if (THRESHOLD <= 0 || INTERVAL <= 0) {
+      return null;
+    }
+    IncrementalDefragmenter result = new IncrementalDefragmenter(freeList, THRESHOLD, INTERVAL);
+    result.start();
+    return result;
+  }
+
+  void start() {
+    this.thread = new Thread(LoggingThreadGroup.createThreadGroup("Off-Heap Defragmenter Thread Group", logger),
+        this, "Off-Heap Defragmenter");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Stops the thread and waits for a pass that is in progress to finish,
+   * so that the slabs can be freed safely after this returns.
+   */
+  void stop() {
+    this.stopped = true;
+    final Thread t = this.thread;
+    if (t == null) {
+      return;
+    }
+    t.interrupt();
+    boolean interrupted = false;
+    while (t.isAlive()) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!this.stopped) {
+      try {
+        Thread.sleep(this.interval);
+      } catch (InterruptedException e) {
+        continue;
+      }
+      try {
+        runOnce();
+      } catch (RuntimeException e) {
+        logger.warn("Off-heap defragmentation pass failed", e);
+      }
+    }
+  }
+
+  /**
+   * Makes at most one pass over every slab, for as long as memory is
+   * fragmented. Returns the number of slabs passed over.
+   */
+  int runOnce() {
+    final int slabCount = this.freeList.getSlabCount();
+    int passes = 0;
+    while (passes < slabCount && !this.stopped && isFragmented()) {
+      this.freeList.defragmentSlab(this.nextSlab);
+      this.nextSlab = (this.nextSlab + 1) % slabCount;
+      passes++;
+    }
+    return passes;
+  }
+
+  boolean isFragmented() {
+    final int fragmentation = Math.max(this.freeList.getFragmentation(), this.freeList.getFreeListFragmentation());
+    return fragmentation >= this.threshold;
+  }
+}
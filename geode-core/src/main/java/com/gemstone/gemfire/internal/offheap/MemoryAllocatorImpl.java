@@ -58,6 +58,8 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
   private MemoryInspector memoryInspector;
 
+  private final IncrementalDefragmenter defragmenter;
+
   private volatile MemoryUsageListener[] memoryUsageListeners = new MemoryUsageListener[0];
   
   private static MemoryAllocatorImpl singleton = null;
@@ -194,6 +196,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     
     this.freeList = new FreeListManager(this, slabs);
     this.memoryInspector = new MemoryInspectorImpl(this.freeList);
+    this.defragmenter = IncrementalDefragmenter.startIfEnabled(this.freeList);
 
     this.stats.incMaxMemory(this.freeList.getTotalMemory());
     this.stats.incFreeMemory(this.freeList.getTotalMemory());
@@ -264,6 +267,12 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
         if (value instanceof OffHeapStoredObject) {
           result.add((OffHeapStoredObject) value);
         }
+        if (re instanceof OffHeapKeyEntry) {
+          long keyAddr = ((OffHeapKeyEntry) re).getKeyAddress();
+          if (keyAddr != 0L && keyAddr != OffHeapKeyHelper.RELEASED_KEY_ADDRESS) {
+            result.add(new OffHeapStoredObject(keyAddr));
+          }
+        }
       }
     }
   }
@@ -356,6 +365,9 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      if (this.defragmenter != null) {
+        this.defragmenter.stop();
+      }
       this.freeList.freeSlabs();
       this.stats.close();
       singleton = null;
@@ -16,10 +16,23 @@
  */
 package com.gemstone.gemfire.internal.offheap;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.query.internal.StructImpl;
+import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.cache.CachedDeserializableFactory;
+import com.gemstone.gemfire.internal.cache.EntryEventImpl;
 import com.gemstone.gemfire.internal.offheap.annotations.Released;
 import com.gemstone.gemfire.internal.offheap.annotations.Retained;
 import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
 
 /**
  * Utility class that provides static method to do some common tasks for off-heap references.
@@ -27,6 +40,13 @@ import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
  * @since Geode 1.0
  */
 public class OffHeapHelper {
+  /**
+   * If true then index maintenance reads PDX values that are stored off-heap
+   * in place instead of copying each of them to the heap first.
+   * See {@link #canReadInPlace(StoredObject)}.
+   */
+  public static boolean READ_PDX_IN_PLACE = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "offheap.readPdxInPlace");
+
   private OffHeapHelper() {
     // no instances allowed
   }
@@ -87,6 +107,91 @@ public class OffHeapHelper {
     return v;
   }
   
+  /**
+   * Returns true if v can be given to {@link #readInPlace(StoredObject)}.
+   */
+  public static boolean canReadInPlace(@Unretained StoredObject v) {
+    return READ_PDX_IN_PLACE && !v.isCompressed() && v.isSerializedPdxInstance();
+  }
+
+  /**
+   * Deserializes v without first copying its bytes to the heap.
+   * If a PdxInstance is returned then it, and any PdxInstance read from its
+   * fields, reads directly from v's off-heap memory. So the caller must keep v
+   * retained for as long as it uses the result and must pass anything it
+   * keeps after that through {@link #copyIfReadInPlace(Object)}.
+   */
+  public static @Unretained Object readInPlace(@Unretained StoredObject v) {
+    return EntryEventImpl.deserializeOffHeap(v);
+  }
+
+  /**
+   * If o is a PdxInstance that reads from off-heap memory then return a heap
+   * copy of it. If o is an array, collection, map or struct that holds such a
+   * PdxInstance, at any depth, then return a copy of it that holds heap
+   * copies instead. Otherwise return o.
+   */
+  public static Object copyIfReadInPlace(Object o) {
+    if (o instanceof PdxInstanceImpl) {
+      return ((PdxInstanceImpl) o).copyIfOffHeap();
+    } else if (o instanceof Object[]) {
+      return copyElementsIfReadInPlace((Object[]) o);
+    } else if (o instanceof StructImpl) {
+      StructImpl s = (StructImpl) o;
+      Object[] values = s.getFieldValues();
+      Object[] copy = copyElementsIfReadInPlace(values);
+      if (copy == values) {
+        return o;
+      }
+      return new StructImpl((StructTypeImpl) s.getStructType(), copy);
+    } else if (o instanceof Collection) {
+      Object[] elements = ((Collection<?>) o).toArray();
+      Object[] copy = copyElementsIfReadInPlace(elements);
+      if (copy == elements) {
+        return o;
+      }
+      Collection<Object> result;
+      if (o instanceof Set) {
+        result = new LinkedHashSet<Object>(copy.length);
+      } else {
+        result = new ArrayList<Object>(copy.length);
+      }
+      Collections.addAll(result, copy);
+      return result;
+    } else if (o instanceof Map) {
+      Map<?, ?> m = (Map<?, ?>) o;
+      Map<Object, Object> result = new LinkedHashMap<Object, Object>(m.size());
+      boolean copied = false;
+      for (Map.Entry<?, ?> e : m.entrySet()) {
+        Object k = copyIfReadInPlace(e.getKey());
+        Object v = copyIfReadInPlace(e.getValue());
+        copied |= k != e.getKey() || v != e.getValue();
+        result.put(k, v);
+      }
+      return copied ? result : o;
+    }
+    return o;
+  }
+
+  /**
+   * Returns array itself if none of its elements need to be copied by
+   * {@link #copyIfReadInPlace(Object)}; otherwise a clone of it that holds
+   * the copies.
+   */
+  private static Object[] copyElementsIfReadInPlace(Object[] array) {
+    Object[] result = array;
+    for (int i = 0; i < array.length; i++) {
+      Object e = copyIfReadInPlace(array[i]);
+      if (e != array[i]) {
+        if (result == array) {
+          result = array.clone();
+        }
+        result[i] = e;
+      }
+    }
+    return result;
+  }
+
   /**
    * @return true if release was done
    */
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import com.gemstone.gemfire.OutOfOffHeapMemoryException;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.OffHeapKeyEntry;
+
+/**
+ * Static methods that keep the keys of {@link OffHeapKeyEntry} instances in
+ * off-heap memory, so that a large off-heap region does not need heap for
+ * its keys as well as for its entries.
+ * <p>
+ * A key starts out on the heap. Once the entry is in the region map
+ * {@link #storeKey(OffHeapKeyEntry)} copies it into a chunk and drops the
+ * heap reference. {@link #releaseKey(OffHeapKeyEntry)}, called when the
+ * entry is released, puts a heap copy back and frees the chunk, so the key
+ * of an entry that has been removed stays readable.
+ * Only String keys are stored, encoded one byte per char when every char
+ * fits in a byte and two bytes per char otherwise.
+ * 
+ * @since Geode 1.0
+ */
+public class OffHeapKeyHelper {
+
+  /**
+   * Set to true to store the String keys of off-heap regions that can not be
+   * inlined into the entry in off-heap memory as well.
+   */
+  public static final boolean OFF_HEAP_REGION_KEYS = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_REGION_KEYS");
+
+  /**
+   * Key address of an entry whose key was released. Chunk addresses are
+   * always 8 byte aligned so this can not be one of them.
+   */
+  public static final long RELEASED_KEY_ADDRESS = 1L;
+
+  private static final byte BYTE_ENCODED = 0;
+  private static final byte CHAR_ENCODED = 1;
+
+  private OffHeapKeyHelper() {
+    // no instances allowed
+  }
+
+  /**
+   * Returns true if entries with this key should be created as
+   * {@link OffHeapKeyEntry} instances.
+   */
+  public static boolean canStoreKey(Object key) {
+    return OFF_HEAP_REGION_KEYS && key.getClass() == String.class;
+  }
+
+  public static Object getKey(OffHeapKeyEntry re) {
+    for (;;) {
+      final long addr = re.getKeyAddress();
+      if (addr != 0L && addr != RELEASED_KEY_ADDRESS) {
+        if (OffHeapStoredObject.retain(addr)) {
+          try {
+            if (re.getKeyAddress() == addr) {
+              return decode(addr);
+            }
+            // the chunk was released and reused before we retained it
+          } finally {
+            OffHeapStoredObject.release(addr);
+          }
+        }
+      }
+      final Object key = re.getHeapKey();
+      if (key != null) {
+        return key;
+      }
+      // the key is being moved off-heap; its address is set before the
+      // heap reference is dropped so the next read will find it
+    }
+  }
+
+  /**
+   * Returns true if the key of the entry equals k. An off-heap key is
+   * compared with k byte by byte where it is stored, so unlike
+   * {@link #getKey(OffHeapKeyEntry)} this does not allocate.
+   */
+  public static boolean isKeyEqual(OffHeapKeyEntry re, Object k) {
+    for (;;) {
+      final long addr = re.getKeyAddress();
+      if (addr != 0L && addr != RELEASED_KEY_ADDRESS) {
+        if (OffHeapStoredObject.retain(addr)) {
+          try {
+            if (re.getKeyAddress() == addr) {
+              return k instanceof String && isEncodedEqual(addr, (String) k);
+            }
+            // the chunk was released and reused before we retained it
+          } finally {
+            OffHeapStoredObject.release(addr);
+          }
+        }
+      }
+      final Object key = re.getHeapKey();
+      if (key != null) {
+        return k.equals(key);
+      }
+      // the key is being moved off-heap; see getKey
+    }
+  }
+
+  /**
+   * Moves the key of an entry that has just been added to its region map
+   * into off-heap memory. Does nothing if the entry was already released.
+   */
+  public static void storeKey(OffHeapKeyEntry re) {
+    final Object key = re.getHeapKey();
+    if (key == null || re.getKeyAddress() != 0L) {
+      return;
+    }
+    final byte[] bytes = encode((String) key);
+    final OffHeapStoredObject chunk;
+    try {
+      chunk = (OffHeapStoredObject) MemoryAllocatorImpl.getAllocator().allocate(bytes.length);
+    } catch (OutOfOffHeapMemoryException ignore) {
+      // the entry is already in the map so just leave the key on the heap
+      return;
+    }
+    chunk.writeDataBytes(0, bytes);
+    if (!re.setKeyAddress(0L, chunk.getAddress())) {
+      chunk.release();
+      return;
+    }
+    re.setHeapKey(null);
+    if (re.getKeyAddress() == RELEASED_KEY_ADDRESS) {
+      // releaseKey ran after we stored the address; make sure the key it
+      // restored is not lost
+      re.setHeapKey(key);
+    }
+  }
+
+  /**
+   * Frees the off-heap copy of the key, if it has one, leaving a heap copy
+   * in its place.
+   */
+  public static void releaseKey(OffHeapKeyEntry re) {
+    for (;;) {
+      final long addr = re.getKeyAddress();
+      if (addr == RELEASED_KEY_ADDRESS) {
+        return;
+      }
+      final Object key = getKey(re);
+      re.setHeapKey(key);
+      if (re.setKeyAddress(addr, RELEASED_KEY_ADDRESS)) {
+        // storeKey may have dropped the heap key after we set it
+        re.setHeapKey(key);
+        if (addr != 0L) {
+          OffHeapStoredObject.release(addr);
+        }
+        return;
+      }
+    }
+  }
+
+  static byte[] encode(String key) {
+    final int length = key.length();
+    boolean byteEncoded = true;
+    for (int i = 0; i < length; i++) {
+      if (key.charAt(i) > 0xff) {
+        byteEncoded = false;
+        break;
+      }
+    }
+    final byte[] result;
+    if (byteEncoded) {
+      result = new byte[1 + length];
+      result[0] = BYTE_ENCODED;
+      for (int i = 0; i < length; i++) {
+        result[1 + i] = (byte) key.charAt(i);
+      }
+    } else {
+      result = new byte[1 + length * 2];
+      result[0] = CHAR_ENCODED;
+      for (int i = 0; i < length; i++) {
+        final char c = key.charAt(i);
+        result[1 + i * 2] = (byte) (c >> 8);
+        result[2 + i * 2] = (byte) c;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if the chunk at addr holds the {@link #encode(String)}
+   * form of key.
+   */
+  static boolean isEncodedEqual(long addr, String key) {
+    final long dataAddr = addr + OffHeapStoredObject.HEADER_SIZE;
+    final int dataSize = OffHeapStoredObject.getDataSize(addr);
+    final int length = key.length();
+    if (AddressableMemoryManager.readByte(dataAddr) == BYTE_ENCODED) {
+      if (dataSize != 1 + length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if ((AddressableMemoryManager.readByte(dataAddr + 1 + i) & 0xff) != key.charAt(i)) {
+          return false;
+        }
+      }
+    } else {
+      if (dataSize != 1 + length * 2) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        final char c = (char) (((AddressableMemoryManager.readByte(dataAddr + 1 + i * 2) & 0xff) << 8)
+            | (AddressableMemoryManager.readByte(dataAddr + 2 + i * 2) & 0xff));
+        if (c != key.charAt(i)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  static String decode(long addr) {
+    final OffHeapStoredObject chunk = new OffHeapStoredObject(addr);
+    final byte[] bytes = new byte[chunk.getDataSize()];
+    chunk.readDataBytes(0, bytes);
+    return decode(bytes);
+  }
+
+  static String decode(byte[] bytes) {
+    final char[] chars;
+    if (bytes[0] == BYTE_ENCODED) {
+      chars = new char[bytes.length - 1];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = (char) (bytes[1 + i] & 0xff);
+      }
+    } else {
+      chars = new char[(bytes.length - 1) / 2];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = (char) (((bytes[1 + i * 2] & 0xff) << 8) | (bytes[2 + i * 2] & 0xff));
+      }
+    }
+    return new String(chars);
+  }
+}
@@ -34,7 +34,11 @@ public interface OffHeapMemoryStats {
   public void setLargestFragment(int value);
   public long startDefragmentation();
   public void endDefragmentation(long start);
+  public long startIncrementalDefragmentation();
+  public void endIncrementalDefragmentation(long start);
   public void setFragmentation(int value);
+  public void incMagazineHits();
+  public void incMagazineMisses();
   
   public long getFreeMemory();
   public long getMaxMemory();
@@ -47,6 +51,10 @@ public interface OffHeapMemoryStats {
   public int getLargestFragment();
   public int getFragmentation();
   public long getDefragmentationTime();
+  public int getIncrementalDefragmentations();
+  public long getIncrementalDefragmentationTime();
+  public long getMagazineHits();
+  public long getMagazineMisses();
   
   public Statistics getStats();
   public void close();
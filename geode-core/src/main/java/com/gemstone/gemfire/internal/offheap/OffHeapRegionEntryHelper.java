@@ -21,6 +21,7 @@ import com.gemstone.gemfire.internal.cache.CachedDeserializableFactory;
 import com.gemstone.gemfire.internal.cache.DiskEntry;
 import com.gemstone.gemfire.internal.cache.DiskId;
 import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.OffHeapKeyEntry;
 import com.gemstone.gemfire.internal.cache.OffHeapRegionEntry;
 import com.gemstone.gemfire.internal.cache.RegionEntryContext;
 import com.gemstone.gemfire.internal.cache.Token;
@@ -336,8 +337,69 @@ public class OffHeapRegionEntryHelper {
     ReferenceCountHelper.setReferenceCountOwner(re);
     releaseAddress(oldAddress);
     ReferenceCountHelper.setReferenceCountOwner(null);
+    if (re instanceof OffHeapKeyEntry && v != Token.REMOVED_PHASE1 && Token.isRemoved(v)) {
+      // destroyed entries and tombstones keep their key on the heap
+      OffHeapKeyHelper.releaseKey((OffHeapKeyEntry) re);
+    }
   }
  
+  /**
+   * Percentage of the off-heap memory that {@link #changeCompression} leaves
+   * free so that it never causes an out of off-heap memory condition.
+   */
+  static final int COMPRESSION_FREE_MEMORY_PERCENT = 5;
+
+  /**
+   * Replaces the off-heap value of the entry with a compressed, or an
+   * uncompressed, copy of itself. Values that are tokens, that are encoded in
+   * the address, or that already have the wanted form are left alone, as are
+   * values whose copy would leave less than {@link #COMPRESSION_FREE_MEMORY_PERCENT}
+   * of the off-heap memory free. The caller must hold the entry's sync.
+   * 
+   * @param context supplies the compressor and the stats
+   * @param compress true to compress the value, false to decompress it
+   * @return true if the value was replaced
+   */
+  public static boolean changeCompression(@Unretained OffHeapRegionEntry re, RegionEntryContext context, boolean compress) {
+    final long oldAddress = re.getAddress();
+    if (!isOffHeap(oldAddress)) {
+      return false;
+    }
+    @Unretained OffHeapStoredObject oldValue = new OffHeapStoredObject(oldAddress);
+    if (oldValue.isCompressed() == compress || !oldValue.retain()) {
+      return false;
+    }
+    try {
+      byte[] data;
+      if (compress) {
+        byte[] uncompressed = oldValue.getCompressedBytes();
+        long time = context.getCachePerfStats().startCompression();
+        data = context.getCompressor().compress(uncompressed);
+        context.getCachePerfStats().endCompression(time, uncompressed.length, data.length);
+      } else {
+        data = oldValue.getDecompressedBytes(context);
+      }
+      MemoryAllocator ma = MemoryAllocatorImpl.getAllocator();
+      if (ma.getFreeMemory() - data.length < ma.getTotalMemory() / 100 * COMPRESSION_FREE_MEMORY_PERCENT) {
+        return false;
+      }
+      ReferenceCountHelper.setReferenceCountOwner(re);
+      @Retained StoredObject newValue = ma.allocateAndInitialize(data, oldValue.isSerialized(), compress);
+      ReferenceCountHelper.setReferenceCountOwner(null);
+      if (!re.setAddress(oldAddress, newValue.getAddress())) {
+        newValue.release();
+        return false;
+      }
+      // release the reference the entry had
+      ReferenceCountHelper.setReferenceCountOwner(re);
+      oldValue.release();
+      ReferenceCountHelper.setReferenceCountOwner(null);
+      return true;
+    } finally {
+      oldValue.release();
+    }
+  }
+
   public static Token getValueAsToken(@Unretained OffHeapRegionEntry re) {
     return addressToToken(re.getAddress());
   }
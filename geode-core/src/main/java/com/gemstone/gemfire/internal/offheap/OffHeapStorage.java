@@ -56,6 +56,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int largestFragmentId;
   private static final int defragmentationTimeId;
   private static final int fragmentationId;
+  private static final int incrementalDefragmentationsId;
+  private static final int incrementalDefragmentationTimeId;
+  private static final int magazineHitsId;
+  private static final int magazineMissesId;
   private static final int defragmentationsInProgressId;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
   
@@ -74,6 +78,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objectsDesc = "The number of objects stored in off-heap memory.";
     final String readsDesc = "The total number of reads of off-heap memory. Only reads of a full object increment this statistic. If only a part of the object is read this statistic is not incremented.";
     final String maxMemoryDesc = "The maximum amount of off-heap memory, in bytes. This is the amount of memory allocated at startup and does not change.";
+    final String incrementalDefragmentationsDesc = "The total number of single slab passes the background defragmenter has made over off-heap memory.";
+    final String incrementalDefragmentationTimeDesc = "The total time spent in single slab passes of the background defragmenter.";
+    final String magazineHitsDesc = "The total number of tiny allocations that were satisfied from the allocating thread's magazine without touching the shared free lists.";
+    final String magazineMissesDesc = "The total number of tiny allocations that found the allocating thread's magazine empty and had to go to the shared free lists.";
 
     final String usedMemory = "usedMemory";
     final String defragmentations = "defragmentations";
@@ -86,6 +94,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objects = "objects";
     final String reads = "reads";
     final String maxMemory = "maxMemory";
+    final String incrementalDefragmentations = "incrementalDefragmentations";
+    final String incrementalDefragmentationTime = "incrementalDefragmentationTime";
+    final String magazineHits = "magazineHits";
+    final String magazineMisses = "magazineMisses";
     
     statsType = f.createType(
         statsTypeName,
@@ -102,6 +114,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(objects, objectsDesc, "objects"),
             f.createLongCounter(reads, readsDesc, "operations"),
             f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),
+            f.createIntCounter(incrementalDefragmentations, incrementalDefragmentationsDesc, "operations"),
+            f.createLongCounter(incrementalDefragmentationTime, incrementalDefragmentationTimeDesc, "nanoseconds", false),
+            f.createLongCounter(magazineHits, magazineHitsDesc, "operations"),
+            f.createLongCounter(magazineMisses, magazineMissesDesc, "operations"),
         }
     );
     
@@ -116,6 +132,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     objectsId = statsType.nameToId(objects);
     readsId = statsType.nameToId(reads);
     maxMemoryId = statsType.nameToId(maxMemory);
+    incrementalDefragmentationsId = statsType.nameToId(incrementalDefragmentations);
+    incrementalDefragmentationTimeId = statsType.nameToId(incrementalDefragmentationTime);
+    magazineHitsId = statsType.nameToId(magazineHits);
+    magazineMissesId = statsType.nameToId(magazineMisses);
   }
 
   public static long parseOffHeapMemorySize(String value) {
@@ -345,6 +365,49 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return this.stats.getInt(fragmentationId);
   }
   
+  @Override
+  public long startIncrementalDefragmentation() {
+    return DistributionStats.getStatTime();
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start) {
+    this.stats.incInt(incrementalDefragmentationsId, 1);
+    if (DistributionStats.enableClockStats) {
+      this.stats.incLong(incrementalDefragmentationTimeId, DistributionStats.getStatTime()-start);
+    }
+  }
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return this.stats.getInt(incrementalDefragmentationsId);
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return this.stats.getLong(incrementalDefragmentationTimeId);
+  }
+
+  @Override
+  public void incMagazineHits() {
+    this.stats.incLong(magazineHitsId, 1);
+  }
+
+  @Override
+  public long getMagazineHits() {
+    return this.stats.getLong(magazineHitsId);
+  }
+
+  @Override
+  public void incMagazineMisses() {
+    this.stats.incLong(magazineMissesId, 1);
+  }
+
+  @Override
+  public long getMagazineMisses() {
+    return this.stats.getLong(magazineMissesId);
+  }
+
   public Statistics getStats() {
     return this.stats;
   }
@@ -367,6 +430,10 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setDefragmentationTime(oldStats.getDefragmentationTime());
     setFragmentation(oldStats.getFragmentation());
+    setIncrementalDefragmentations(oldStats.getIncrementalDefragmentations());
+    setIncrementalDefragmentationTime(oldStats.getIncrementalDefragmentationTime());
+    setMagazineHits(oldStats.getMagazineHits());
+    setMagazineMisses(oldStats.getMagazineMisses());
     
     oldStats.close();
   }
@@ -402,4 +469,20 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private void setFreeMemory(long value) {
     this.stats.setLong(freeMemoryId, value);
   }
+
+  private void setIncrementalDefragmentations(int value) {
+    this.stats.setInt(incrementalDefragmentationsId, value);
+  }
+
+  private void setIncrementalDefragmentationTime(long value) {
+    this.stats.setLong(incrementalDefragmentationTimeId, value);
+  }
+
+  private void setMagazineHits(long value) {
+    this.stats.setLong(magazineHitsId, value);
+  }
+
+  private void setMagazineMisses(long value) {
+    this.stats.setLong(magazineMissesId, value);
+  }
 }
@@ -59,6 +59,53 @@ public class OffHeapStoredObjectAddressStack implements LongStack {
     }
     return result;
   }
+  /**
+   * Pushes <code>count</code> addresses from <code>addrs</code>, starting at
+   * <code>offset</code>, with a single lock acquisition. The last one
+   * pushed, <code>addrs[offset+count-1]</code>, ends up on top.
+   */
+  public void offer(long[] addrs, int offset, int count) {
+    if (count <= 0) {
+      return;
+    }
+    final int end = offset + count - 1;
+    for (int i = offset; i <= end; i++) {
+      assert addrs[i] != 0;
+      MemoryAllocatorImpl.validateAddress(addrs[i]);
+    }
+    // the addresses are owned by the caller so they can be chained before the lock is taken
+    for (int i = end; i > offset; i--) {
+      OffHeapStoredObject.setNext(addrs[i], addrs[i-1]);
+    }
+    synchronized (this) {
+      OffHeapStoredObject.setNext(addrs[offset], this.topAddr);
+      this.topAddr = addrs[end];
+    }
+  }
+  /**
+   * Removes up to <code>max</code> addresses from the top of this stack with
+   * a single lock acquisition and stores them in <code>dest</code> so that
+   * the one that was on top ends up last.
+   * Returns the number of addresses removed.
+   */
+  public int poll(long[] dest, int max) {
+    int count = 0;
+    synchronized (this) {
+      long addr = this.topAddr;
+      while (count < max && addr != 0L) {
+        dest[count++] = addr;
+        addr = OffHeapStoredObject.getNext(addr);
+      }
+      this.topAddr = addr;
+    }
+    // reverse so that dest reads like a stack, with the old top last
+    for (int i = 0, j = count-1; i < j; i++, j--) {
+      long tmp = dest[i];
+      dest[i] = dest[j];
+      dest[j] = tmp;
+    }
+    return count;
+  }
   /**
    * Returns the address of the "top" item in this stack.
    */
@@ -80,6 +127,32 @@ public class OffHeapStoredObjectAddressStack implements LongStack {
     }
     return result;
   }
+  /**
+   * Unlinks every address in [<code>start</code>, <code>end</code>) from this
+   * stack and adds it to <code>result</code>. The other addresses stay on the
+   * stack, in the same order, so they can still be polled while the caller
+   * owns the removed ones.
+   */
+  public void removeInRange(long start, long end, FreeListManager.ResizableLongArray result) {
+    synchronized (this) {
+      long prev = 0L;
+      long addr = this.topAddr;
+      while (addr != 0L) {
+        long next = OffHeapStoredObject.getNext(addr);
+        if (addr >= start && addr < end) {
+          result.add(addr);
+          if (prev == 0L) {
+            this.topAddr = next;
+          } else {
+            OffHeapStoredObject.setNext(prev, next);
+          }
+        } else {
+          prev = addr;
+        }
+        addr = next;
+      }
+    }
+  }
   public void logSizes(Logger logger, String msg) {
     long headAddr = this.topAddr;
     long addr;
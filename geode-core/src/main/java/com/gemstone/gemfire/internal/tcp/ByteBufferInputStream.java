@@ -706,6 +706,258 @@ public class ByteBufferInputStream extends InputStream implements DataInput, jav
       return null;
     }
   }
+
+  /**
+   * A ByteSource with its own position and limit that reads another
+   * ByteSource only with absolute gets, so any number of cursors can read
+   * the same bytes at the same time. It can be pointed at another source
+   * with {@link #setSource}, which lets a thread read many sources with one
+   * cursor without allocating.
+   */
+  public static class CursorByteSource implements ByteSource {
+    private ByteSource source;
+    private int position;
+    private int limit;
+
+    /**
+     * Points this cursor at the start of the given source, with the same
+     * limit as it has, without changing the source's position.
+     */
+    public void setSource(ByteSource source) {
+      this.source = source;
+      this.position = 0;
+      this.limit = source.limit();
+    }
+
+    /**
+     * Returns the current hash code of this byte source; like the other
+     * byte sources it depends only upon its remaining elements.
+     */
+    @Override
+    public int hashCode() {
+      int h = 1;
+      int p = position();
+      for (int i = limit() - 1; i >= p; i--) {
+        h = 31 * h + (int)get(i);
+      }
+      return h;
+    }
+    @Override
+    public boolean equals(Object ob) {
+      if (this == ob) {
+        return true;
+      }
+      if (!(ob instanceof ByteSource)) {
+        return false;
+      }
+      ByteSource that = (ByteSource)ob;
+      if (this.remaining() != that.remaining()) {
+        return false;
+      }
+      int p = this.position();
+      for (int i = this.limit() - 1, j = that.limit() - 1; i >= p; i--, j--) {
+        if (this.get(i) != that.get(j)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private final int nextGetIndex(int nb) {
+      int p = this.position;
+      if (this.limit - p < nb) {
+        throw new BufferUnderflowException();
+      }
+      this.position += nb;
+      return p;
+    }
+
+    private final void checkIndex(int i, int nb) {
+      if ((i < 0) || (nb > this.limit - i)) {
+        throw new IndexOutOfBoundsException();
+      }
+    }
+
+    @Override
+    public int position() {
+      return this.position;
+    }
+    @Override
+    public int limit() {
+      return this.limit;
+    }
+    @Override
+    public int capacity() {
+      return this.source.capacity();
+    }
+    @Override
+    public int remaining() {
+      return this.limit - this.position;
+    }
+    @Override
+    public void position(int newPosition) {
+      if ((newPosition > this.limit) || (newPosition < 0)) {
+        throw new IllegalArgumentException();
+      }
+      this.position = newPosition;
+    }
+    @Override
+    public void limit(int newLimit) {
+      if ((newLimit > capacity()) || (newLimit < 0)) {
+        throw new IllegalArgumentException();
+      }
+      this.limit = newLimit;
+      if (this.position > this.limit) {
+        this.position = this.limit;
+      }
+    }
+
+    @Override
+    public void get(byte[] b) {
+      get(b, 0, b.length);
+    }
+    @Override
+    public void get(byte[] dst, int offset, int length) {
+      if ((offset | length | (offset + length) | (dst.length - (offset + length))) < 0) {
+        throw new IndexOutOfBoundsException();
+      }
+      int p = nextGetIndex(length);
+      if (this.source.hasArray()) {
+        System.arraycopy(this.source.array(), this.source.arrayOffset() + p, dst, offset, length);
+      } else {
+        for (int i = 0; i < length; i++) {
+          dst[offset + i] = this.source.get(p + i);
+        }
+      }
+    }
+    @Override
+    public byte get() {
+      return this.source.get(nextGetIndex(1));
+    }
+    @Override
+    public byte get(int pos) {
+      checkIndex(pos, 1);
+      return this.source.get(pos);
+    }
+    @Override
+    public short getShort() {
+      return this.source.getShort(nextGetIndex(2));
+    }
+    @Override
+    public short getShort(int pos) {
+      checkIndex(pos, 2);
+      return this.source.getShort(pos);
+    }
+    @Override
+    public char getChar() {
+      return this.source.getChar(nextGetIndex(2));
+    }
+    @Override
+    public char getChar(int pos) {
+      checkIndex(pos, 2);
+      return this.source.getChar(pos);
+    }
+    @Override
+    public int getInt() {
+      return this.source.getInt(nextGetIndex(4));
+    }
+    @Override
+    public int getInt(int pos) {
+      checkIndex(pos, 4);
+      return this.source.getInt(pos);
+    }
+    @Override
+    public long getLong() {
+      return this.source.getLong(nextGetIndex(8));
+    }
+    @Override
+    public long getLong(int pos) {
+      checkIndex(pos, 8);
+      return this.source.getLong(pos);
+    }
+    @Override
+    public float getFloat() {
+      return this.source.getFloat(nextGetIndex(4));
+    }
+    @Override
+    public float getFloat(int pos) {
+      checkIndex(pos, 4);
+      return this.source.getFloat(pos);
+    }
+    @Override
+    public double getDouble() {
+      return this.source.getDouble(nextGetIndex(8));
+    }
+    @Override
+    public double getDouble(int pos) {
+      checkIndex(pos, 8);
+      return this.source.getDouble(pos);
+    }
+
+    @Override
+    public boolean hasArray() {
+      return this.source.hasArray();
+    }
+    @Override
+    public byte[] array() {
+      return this.source.array();
+    }
+    @Override
+    public int arrayOffset() {
+      return this.source.arrayOffset();
+    }
+
+    @Override
+    public ByteSource duplicate() {
+      CursorByteSource result = new CursorByteSource();
+      result.source = this.source;
+      result.position = this.position;
+      result.limit = this.limit;
+      return result;
+    }
+    @Override
+    public ByteSource slice(int length) {
+      if (length < 0) {
+        throw new IllegalArgumentException();
+      }
+      return slice(this.position, this.position + length);
+    }
+    @Override
+    public ByteSource slice(int pos, int limit) {
+      if ((limit > this.limit) || (pos > limit) || (pos < 0)) {
+        throw new IllegalArgumentException();
+      }
+      return this.source.slice(pos, limit);
+    }
+
+    @Override
+    public ByteBuffer getBackingByteBuffer() {
+      return null;
+    }
+
+    @Override
+    public void sendTo(ByteBuffer out) {
+      int len = remaining();
+      while (len > 0) {
+        out.put(get());
+        len--;
+      }
+    }
+    @Override
+    public void sendTo(DataOutput out) throws IOException {
+      int len = remaining();
+      if (len == 0) return;
+      if (this.source.hasArray()) {
+        out.write(this.source.array(), this.source.arrayOffset() + this.position, len);
+        this.position = this.limit;
+      } else {
+        while (len > 0) {
+          out.writeByte(get());
+          len--;
+        }
+      }
+    }
+  }
   
   private ByteSource buffer;
 
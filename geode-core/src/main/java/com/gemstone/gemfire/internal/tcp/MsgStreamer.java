@@ -94,6 +94,7 @@ public class MsgStreamer extends OutputStream implements
   protected final void release() {
     MsgIdGenerator.release(this.msgId);
     this.buffer.clear();
+    HeapDataOutputStreamPool.release(this.overflowBuf);
     this.overflowBuf = null;
     Buffers.releaseSenderBuffer(this.buffer, this.stats);
   }
@@ -301,7 +302,7 @@ public class MsgStreamer extends OutputStream implements
   public final void realFlush(boolean lastFlushForMessage) {
     if (isOverflowMode()) {
       if (this.overflowBuf == null) {
-        this.overflowBuf = new HeapDataOutputStream(this.buffer.capacity()-Connection.MSG_HEADER_BYTES, Version.CURRENT);
+        this.overflowBuf = HeapDataOutputStreamPool.acquire(this.buffer.capacity()-Connection.MSG_HEADER_BYTES, Version.CURRENT);
       }
       return;
     }
@@ -939,7 +940,7 @@ public class MsgStreamer extends OutputStream implements
       if (remainingSpace < 5) {
         // we don't even have room to write the length field so just create
         // the overflowBuf
-        this.overflowBuf = new HeapDataOutputStream(this.buffer.capacity()-Connection.MSG_HEADER_BYTES, Version.CURRENT);
+        this.overflowBuf = HeapDataOutputStreamPool.acquire(this.buffer.capacity()-Connection.MSG_HEADER_BYTES, Version.CURRENT);
         this.overflowBuf.writeAsSerializedByteArray(v);
         return;
       }
@@ -971,13 +972,21 @@ public class MsgStreamer extends OutputStream implements
       disableOverflowMode();
       finished = true;
       if (overBuf != null && !isOverflowMode()) {
-        overBuf.sendTo((ByteBufferWriter)this);
+        try {
+          overBuf.sendTo((ByteBufferWriter)this);
+        } finally {
+          HeapDataOutputStreamPool.release(overBuf);
+        }
       }
     } finally {
       if (!finished) {
         // reset buffer and act as if we did nothing
         this.buffer.position(lengthPos);
+        HeapDataOutputStream overBuf = this.overflowBuf;
         disableOverflowMode();
+        if (this.overflowBuf == null) {
+          HeapDataOutputStreamPool.release(overBuf);
+        }
       }
     }
   }
@@ -24,6 +24,7 @@ import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.internal.ByteArrayDataInput;
 import com.gemstone.gemfire.internal.DSCODE;
 import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.HeapDataOutputStreamPool;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.offheap.StoredObject;
 import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
@@ -52,11 +53,15 @@ public class BlobHelper {
    */
   public static byte[] serializeToBlob(Object obj, Version version) throws IOException {
     final long start = startSerialization();
-    HeapDataOutputStream hdos = new HeapDataOutputStream(version);
-    DataSerializer.writeObject(obj, hdos);
-    byte[] result = hdos.toByteArray();
-    endSerialization(start, result.length);
-    return result;
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(version);
+    try {
+      DataSerializer.writeObject(obj, hdos);
+      byte[] result = hdos.copyToByteArray();
+      endSerialization(start, result.length);
+      return result;
+    } finally {
+      HeapDataOutputStreamPool.release(hdos);
+    }
   }
 
   /**
@@ -66,6 +66,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 import com.gemstone.gemfire.CancelException;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
@@ -187,6 +188,14 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
   static final int RETRIES_BEFORE_LOCK = 2;
 
 // GemStone addition
+  /**
+   * Maximum number of entries an optimistic read walks in a bin before giving
+   * up and redoing the lookup under the list read lock. A bin only gets this
+   * long with a badly distributed hashCode, in which case the lock is the
+   * smaller cost.
+   */
+  static final int MAX_OPTIMISTIC_READ_HOPS = 32;
+
   /**
    * Token object to indicate that {@link #remove(Object)} does not need to
    * compare against provided value before removing from segment.
@@ -239,7 +248,28 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
    * bits.
    */
   public static final int keyHash(final Object o, final boolean compareValues) {
-    int h = compareValues ? o.hashCode() : System.identityHashCode(o);
+    return spreadHash(compareValues ? o.hashCode() : System.identityHashCode(o));
+  }
+
+  /**
+   * Returns the hash of a long key without boxing it. This is the same value
+   * as {@link #keyHash(Object, boolean)} returns for a Long with compareValues
+   * set to true.
+   */
+  public static final int longKeyHash(final long key) {
+    return spreadHash((int)(key ^ (key >>> 32)));
+  }
+
+  /**
+   * Returns the hash of an int key without boxing it. This is the same value
+   * as {@link #keyHash(Object, boolean)} returns for an Integer with
+   * compareValues set to true.
+   */
+  public static final int intKeyHash(final int key) {
+    return spreadHash(key);
+  }
+
+  private static int spreadHash(int h) {
     // Spread bits to regularize both segment and index locations,
     // using variant of single-word Wang/Jenkins hash.
     h += (h << 15) ^ 0xffffcd7d;
@@ -291,6 +321,18 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
      */
     boolean isKeyEqual(Object k);
 
+    /**
+     * Return true if the entry's key is a Long equal to k.
+     * Entries that store the key inline can compare without boxing k.
+     */
+    boolean isLongKeyEqual(long k);
+
+    /**
+     * Return true if the entry's key is an Integer equal to k.
+     * Entries that store the key inline can compare without boxing k.
+     */
+    boolean isIntKeyEqual(int k);
+
     /**
      * Get the value for this entry.
      */
@@ -395,6 +437,16 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
     public boolean isKeyEqual(Object k) {
       return k.equals(getKey());
     }
+
+    @Override
+    public boolean isLongKeyEqual(long k) {
+      return isKeyEqual(k);
+    }
+
+    @Override
+    public boolean isIntKeyEqual(int k) {
+      return isKeyEqual(k);
+    }
   }
 
   /**
@@ -512,6 +564,21 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
      */
     final ReentrantReadWriteLock listUpdateLock;
 
+    /**
+     * Write locked together with {@link #listUpdateLock} whenever next links
+     * are changed so that {@link #get(Object, int)} and friends can first walk
+     * a bin without acquiring the list read lock, which is a CAS on state
+     * shared by all readers of the segment. The walk is only trusted if the
+     * stamp still validates afterwards.
+     */
+    final StampedLock listUpdateStamp;
+
+    /**
+     * Invoked each time an optimistic read could not be validated and had to
+     * be redone under {@link #listUpdateLock}.
+     */
+    transient volatile Runnable optimisticReadRetryListener;
+
 // End GemStone addition
 
     Segment(final int initialCapacity, final float lf,
@@ -519,6 +586,7 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
       this.loadFactor = lf;
       this.entryCreator = entryCreator;
       this.listUpdateLock = new ReentrantReadWriteLock();
+      this.listUpdateStamp = new StampedLock();
       setTable(Segment.<K, V> newEntryArray(initialCapacity));
     }
 
@@ -585,10 +653,40 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
       return true;
     }
 
+    /**
+     * Called when a lookup has to be repeated under {@link #listUpdateLock}
+     * because its optimistic walk overlapped with a relinking of next refs.
+     */
+    final void optimisticReadRetried() {
+      final Runnable listener = this.optimisticReadRetryListener;
+      if (listener != null) {
+        listener.run();
+      }
+    }
+
     /* Specialized implementations of map methods */
 
     final V get(final Object key, final int hash) {
       if (this.count != 0) { // read-volatile
+        final long stamp = this.listUpdateStamp.tryOptimisticRead();
+        if (stamp != 0L) {
+          HashEntry<K, V> e = getFirst(hash);
+          int hops = 0;
+          while (e != null && hops++ < MAX_OPTIMISTIC_READ_HOPS) {
+            if (e.getEntryHash() == hash && equalityKeyCompare(key, e)) {
+              final V v = e.getMapValue();
+              if (v != null && this.listUpdateStamp.validate(stamp)) {
+                return v;
+              }
+              break;
+            }
+            e = e.getNextEntry();
+          }
+          if (e == null && this.listUpdateStamp.validate(stamp)) {
+            return null;
+          }
+        }
+        optimisticReadRetried();
 // GemStone change to acquire the read lock on list updates
         final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
             .readLock();
@@ -617,6 +715,110 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
       return null;
     }
 
+    /**
+     * Same as {@link #get(Object, int)} but matches entries with
+     * {@link HashEntry#isLongKeyEqual(long)} so the key is never boxed.
+     */
+    final V getForLongKey(final long key, final int hash) {
+      if (this.count != 0) { // read-volatile
+        final long stamp = this.listUpdateStamp.tryOptimisticRead();
+        if (stamp != 0L) {
+          HashEntry<K, V> e = getFirst(hash);
+          int hops = 0;
+          while (e != null && hops++ < MAX_OPTIMISTIC_READ_HOPS) {
+            if (e.getEntryHash() == hash && e.isLongKeyEqual(key)) {
+              final V v = e.getMapValue();
+              if (v != null && this.listUpdateStamp.validate(stamp)) {
+                return v;
+              }
+              break;
+            }
+            e = e.getNextEntry();
+          }
+          if (e == null && this.listUpdateStamp.validate(stamp)) {
+            return null;
+          }
+        }
+        optimisticReadRetried();
+        final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
+            .readLock();
+        listLock.lock();
+        boolean lockAcquired = true;
+        HashEntry<K, V> e = getFirst(hash);
+        try {
+          while (e != null) {
+            if (e.getEntryHash() == hash && e.isLongKeyEqual(key)) {
+              final V v = e.getMapValue();
+              if (v != null) {
+                return v;
+              }
+              listLock.unlock();
+              lockAcquired = false;
+              return readValueUnderLock(e); // recheck
+            }
+            e = e.getNextEntry();
+          }
+        } finally {
+          if (lockAcquired) {
+            listLock.unlock();
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Same as {@link #get(Object, int)} but matches entries with
+     * {@link HashEntry#isIntKeyEqual(int)} so the key is never boxed.
+     */
+    final V getForIntKey(final int key, final int hash) {
+      if (this.count != 0) { // read-volatile
+        final long stamp = this.listUpdateStamp.tryOptimisticRead();
+        if (stamp != 0L) {
+          HashEntry<K, V> e = getFirst(hash);
+          int hops = 0;
+          while (e != null && hops++ < MAX_OPTIMISTIC_READ_HOPS) {
+            if (e.getEntryHash() == hash && e.isIntKeyEqual(key)) {
+              final V v = e.getMapValue();
+              if (v != null && this.listUpdateStamp.validate(stamp)) {
+                return v;
+              }
+              break;
+            }
+            e = e.getNextEntry();
+          }
+          if (e == null && this.listUpdateStamp.validate(stamp)) {
+            return null;
+          }
+        }
+        optimisticReadRetried();
+        final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
+            .readLock();
+        listLock.lock();
+        boolean lockAcquired = true;
+        HashEntry<K, V> e = getFirst(hash);
+        try {
+          while (e != null) {
+            if (e.getEntryHash() == hash && e.isIntKeyEqual(key)) {
+              final V v = e.getMapValue();
+              if (v != null) {
+                return v;
+              }
+              listLock.unlock();
+              lockAcquired = false;
+              return readValueUnderLock(e); // recheck
+            }
+            e = e.getNextEntry();
+          }
+        } finally {
+          if (lockAcquired) {
+            listLock.unlock();
+          }
+        }
+      }
+      return null;
+    }
+
     final V getNoLock(final Object key, final int hash,
         final boolean lockListForRead) {
       if (this.count != 0) { // read-volatile
@@ -645,6 +847,24 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
 
     final boolean containsKey(final Object key, final int hash) {
       if (this.count != 0) { // read-volatile
+        final long stamp = this.listUpdateStamp.tryOptimisticRead();
+        if (stamp != 0L) {
+          HashEntry<K, V> e = getFirst(hash);
+          int hops = 0;
+          while (e != null && hops++ < MAX_OPTIMISTIC_READ_HOPS) {
+            if (e.getEntryHash() == hash && equalityKeyCompare(key, e)) {
+              if (this.listUpdateStamp.validate(stamp)) {
+                return true;
+              }
+              break;
+            }
+            e = e.getNextEntry();
+          }
+          if (e == null && this.listUpdateStamp.validate(stamp)) {
+            return false;
+          }
+        }
+        optimisticReadRetried();
 // GemStone change to acquire the read lock on list updates
         final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
             .readLock();
@@ -962,6 +1182,7 @@ RETRYLOOP:
             final ReentrantReadWriteLock.WriteLock listWriteLock =
                 this.listUpdateLock.writeLock();
             listWriteLock.lock();
+            final long stamp = this.listUpdateStamp.writeLock();
             try {
               if (newFirst != null) {
                 this.table[i] = newFirst; // deliberately using volatile write
@@ -974,6 +1195,7 @@ RETRYLOOP:
                 newTable[k] = p;
               }
             } finally {
+              this.listUpdateStamp.unlockWrite(stamp);
               listWriteLock.unlock();
             }
             /* (original code)
@@ -1043,6 +1265,7 @@ RETRYLOOP:
             final ReentrantReadWriteLock.WriteLock listWriteLock =
                 this.listUpdateLock.writeLock();
             listWriteLock.lock();
+            final long stamp = this.listUpdateStamp.writeLock();
             try {
               if (p == null) {
                 tab[index] = e.getNextEntry();
@@ -1051,6 +1274,7 @@ RETRYLOOP:
                 p.setNextEntry(e.getNextEntry());
               }
             } finally {
+              this.listUpdateStamp.unlockWrite(stamp);
               listWriteLock.unlock();
             }
             /* (original code)
@@ -1501,6 +1725,56 @@ RETRYLOOP:
     return segmentFor(hash).get(key, hash);
   }
 
+  /**
+   * Returns the value to which the given long key is mapped, or {@code null}
+   * if this map contains no mapping for a Long key with that value. The key is
+   * neither boxed nor hashed through {@link Object#hashCode()}, which assumes
+   * the map uses the default key hashing of {@link #keyHash(Object, boolean)}.
+   * 
+   * @throws UnsupportedOperationException
+   *           if this is an identity map
+   */
+  public final V getForLongKey(final long key) {
+    if (!this.compareValues) {
+      throw new UnsupportedOperationException(
+          "primitive key lookup is not supported by identity maps");
+    }
+    final int hash = longKeyHash(key);
+    return segmentFor(hash).getForLongKey(key, hash);
+  }
+
+  /**
+   * Returns the value to which the given int key is mapped, or {@code null}
+   * if this map contains no mapping for an Integer key with that value.
+   * 
+   * @see #getForLongKey(long)
+   * @throws UnsupportedOperationException
+   *           if this is an identity map
+   */
+  public final V getForIntKey(final int key) {
+    if (!this.compareValues) {
+      throw new UnsupportedOperationException(
+          "primitive key lookup is not supported by identity maps");
+    }
+    final int hash = intKeyHash(key);
+    return segmentFor(hash).getForIntKey(key, hash);
+  }
+
+  /**
+   * Sets a listener that is run whenever a lookup had to fall back to the
+   * segment's list read lock because a concurrent rehash or remove
+   * relinked the bin it was walking. Used to expose how often the
+   * optimistic read path in {@link #get(Object)} is retried.
+   * 
+   * @param listener
+   *          the listener to run on each retry, or null for none
+   */
+  public final void setOptimisticReadRetryListener(final Runnable listener) {
+    for (int i = 0; i < this.segments.length; ++i) {
+      this.segments[i].optimisticReadRetryListener = listener;
+    }
+  }
+
   /**
    * Tests if the specified object is a key in this table.
    * 
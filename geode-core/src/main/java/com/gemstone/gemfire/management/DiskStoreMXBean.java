@@ -135,6 +135,19 @@ public interface DiskStoreMXBean {
    */
   public int getTotalQueueSize();
 
+  /**
+   * Returns the number of asynchronous updates and destroys that did not need
+   * a write of their own because a write of the same entry was already
+   * waiting in the queue.
+   */
+  public long getTotalCoalescedWrites();
+
+  /**
+   * Returns the total time, in nanoseconds, that operations spent writing to
+   * disk themselves because the asynchronous queue was full.
+   */
+  public long getTotalProducerStallTime();
+
   /**
    * Returns the number of backups currently in progress on this DiskStore.
    */
@@ -119,6 +119,16 @@ public class DiskStoreMBean extends NotificationBroadcasterSupport implements
     return bridge.getTotalQueueSize();
   }
 
+  @Override
+  public long getTotalCoalescedWrites() {
+    return bridge.getTotalCoalescedWrites();
+  }
+
+  @Override
+  public long getTotalProducerStallTime() {
+    return bridge.getTotalProducerStallTime();
+  }
+
   @Override
   public int getTotalRecoveriesInProgress() {
     return bridge.getTotalRecoveriesInProgress();
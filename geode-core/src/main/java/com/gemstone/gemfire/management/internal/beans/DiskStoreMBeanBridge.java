@@ -257,6 +257,14 @@ public class DiskStoreMBeanBridge {
   public int getTotalQueueSize() {
     return getDiskStoreStatistic(StatsKey.DISK_QUEUE_SIZE).intValue();
   }
+
+  public long getTotalCoalescedWrites() {
+    return getDiskStoreStatistic(StatsKey.DISK_ASYNC_COALESCED_WRITES).longValue();
+  }
+
+  public long getTotalProducerStallTime() {
+    return getDiskStoreStatistic(StatsKey.DISK_ASYNC_PRODUCER_STALL_TIME).longValue();
+  }
   
   public int getTotalRecoveriesInProgress() {
     return getDiskStoreStatistic(StatsKey.RECOVERIES_IN_PROGRESS).intValue();
@@ -181,6 +181,10 @@ public class StatsKey {
   public static final String TOTAL_FLUSH_TIME = "flushTime";
 
   public static final String DISK_QUEUE_SIZE = "queueSize";
+
+  public static final String DISK_ASYNC_COALESCED_WRITES = "asyncCoalescedWrites";
+
+  public static final String DISK_ASYNC_PRODUCER_STALL_TIME = "asyncProducerStallTime";
   
   public static final String RECOVERIES_IN_PROGRESS = "recoveriesInProgress";
   
@@ -1171,7 +1171,12 @@ public class DiskStoreCommands extends AbstractCommandsSupport {
                   unspecifiedDefaultValue=CliMetaData.ANNOTATION_NULL_VALUE,
                   help=CliStrings.VALIDATE_DISK_STORE__J__HELP)
       @CliMetaData (valueSeparator = ",")
-      String[] jvmProps) {   
+      String[] jvmProps,
+      @CliOption(key=CliStrings.VALIDATE_DISK_STORE__DEEP,
+                  specifiedDefaultValue="true",
+                  unspecifiedDefaultValue="false",
+                  help=CliStrings.VALIDATE_DISK_STORE__DEEP__HELP)
+      boolean deep) {   
     try {
       String resultString = new String();
       
@@ -1204,6 +1209,9 @@ public class DiskStoreCommands extends AbstractCommandsSupport {
       commandList.add(DiskStoreValidater.class.getName());
       commandList.add(diskStoreName);
       commandList.add(dirList.toString());
+      if (deep) {
+        commandList.add(CliStrings.VALIDATE_DISK_STORE__DEEP);
+      }
 
       ProcessBuilder procBuilder = new ProcessBuilder(commandList);
       StringBuilder output = new StringBuilder();
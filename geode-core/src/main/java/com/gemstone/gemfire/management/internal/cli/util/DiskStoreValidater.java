@@ -31,14 +31,15 @@ public class DiskStoreValidater {
    * @param args
    */
   public static void main(String[] args) {
-    if (args.length < 2 || args.length > 2) {
+    if (args.length < 2 || args.length > 3) {
       throw new IllegalArgumentException(
-          "Requires only 2  arguments : <DiskStore> <Dirs>");
+          "Requires 2 or 3 arguments : <DiskStore> <Dirs> [" + CliStrings.VALIDATE_DISK_STORE__DEEP + "]");
     }
-    validate((String) args[0], (String) args[1]);    
+    boolean deep = args.length == 3 && CliStrings.VALIDATE_DISK_STORE__DEEP.equals(args[2]);
+    validate((String) args[0], (String) args[1], deep);    
   }
 
-  static void validate(String diskStoreName, String diskDirs) {
+  static void validate(String diskStoreName, String diskDirs, boolean deep) {
     try {
       File[] dirs = null;      
       String []dirList = null;
@@ -51,7 +52,7 @@ public class DiskStoreValidater {
       } else {
         System.out.println(CliStrings.VALIDATE_DISK_STORE__MSG__NO_DIRS);        
       }
-      DiskStoreImpl.validate(diskStoreName, dirs);      
+      DiskStoreImpl.validate(diskStoreName, dirs, deep);      
     } catch (Exception e) {
       System.out.println(CliStrings.format(CliStrings.VALIDATE_DISK_STORE__MSG__ERROR,   diskStoreName, e.getMessage()));      
     }
@@ -19,6 +19,7 @@ package com.gemstone.gemfire.pdx.internal;
 import com.gemstone.gemfire.CancelException;
 import com.gemstone.gemfire.cache.RegionService;
 import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.internal.CopyOnWriteHashSet;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
@@ -155,6 +156,9 @@ public class AutoSerializableManager {
   }
   
   public void resetCachedTypes() {
+    for (AutoClassInfo ci : classMap.values()) {
+      ci.close();
+    }
     classMap.clear();
   }
   
@@ -382,6 +386,7 @@ public class AutoSerializableManager {
         
         List<PdxFieldWrapper> fieldList = new ArrayList<PdxFieldWrapper>();
         List<PdxFieldWrapper> variableLenFields = new ArrayList<PdxFieldWrapper>();
+        boolean canGenerate = GENERATED;
 
         while (tmpClass != Object.class) {
           Field[] fields = tmpClass.getDeclaredFields();
@@ -394,6 +399,10 @@ public class AutoSerializableManager {
                   getOwner().getFieldName(f, clazz),
                   getOwner().transformFieldValue(f, clazz),
                   getOwner().isIdentityField(f, clazz));
+              if (fw.transform() || ft != FieldType.get(f.getType())) {
+                // the generated code only handles the default mapping
+                canGenerate = false;
+              }
               if (ft.isFixedWidth()) {
                 fieldList.add(fw);
               } else {
@@ -406,6 +415,9 @@ public class AutoSerializableManager {
 
         fieldList.addAll(variableLenFields);
         classInfo = new AutoClassInfo(clazz, fieldList);
+        if (GENERATED) {
+          classInfo.initGenerated(this, canGenerate);
+        }
         logger.info("Auto serializer generating type for {} for fields: {}", clazz, classInfo.toFormattedString());
         classMap.put(clazz, classInfo);
       } // end sync
@@ -575,6 +587,18 @@ public class AutoSerializableManager {
     }
   }
 
+  /**
+   * If true, each auto serialized class gets code generated for it at first
+   * use that writes and reads its fields in order without dispatching on
+   * each field's type, and per class {@link AutoSerializerStats} are kept.
+   * Classes with transformed fields, or fields mapped to a pdx type other
+   * than the one of their declared type, keep using the field wrappers.
+   * Not final so tests can change it; classes already seen keep the mode
+   * they were first seen with.
+   */
+  public static boolean GENERATED =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "AutoSerializer.GENERATED");
+
   // unsafe will be null if the Unsafe class is not available or SAFE was requested.
   // We attempt to use Unsafe by default for best performance.
   private static final UnsafeWrapper unsafe;
@@ -1857,6 +1881,8 @@ public class AutoSerializableManager {
    *          out
    */
   public void writeData(PdxWriter writer, Object obj, AutoClassInfo autoClassInfo) {
+    final AutoSerializerStats stats = autoClassInfo.getStats();
+    final long start = stats != null ? stats.getStatTime() : 0;
     PdxWriterImpl w = (PdxWriterImpl)writer;
     boolean optimizeFieldWrites = false;
     if (autoClassInfo.getSerializedType() != null) {
@@ -1867,6 +1893,14 @@ public class AutoSerializableManager {
         optimizeFieldWrites = true;
       }
     }
+    GeneratedAutoSerializer generated = autoClassInfo.getGenerated();
+    if (optimizeFieldWrites && generated != null) {
+      generated.write(w, obj);
+      if (stats != null) {
+        stats.endSerialization(start);
+      }
+      return;
+    }
     for (PdxFieldWrapper f : autoClassInfo.getFields()) {
       //System.out.println("DEBUG writing field=" + f.getField().getName() + " offset=" + ((PdxWriterImpl)writer).position());
       if (f.transform()) {
@@ -1890,6 +1924,9 @@ public class AutoSerializableManager {
     if (autoClassInfo.getSerializedType() == null) {
       autoClassInfo.setSerializedType(w.getAutoPdxType());
     }
+    if (stats != null) {
+      stats.endSerialization(start);
+    }
   }
 
   private static final boolean USE_CONSTRUCTOR = !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "autopdx.ignoreConstructor");
@@ -1906,6 +1943,8 @@ public class AutoSerializableManager {
     Object result = null;
     if (isRelevant(clazz)) {
       AutoClassInfo ci = getClassInfo(clazz);
+      final AutoSerializerStats stats = ci.getStats();
+      final long start = stats != null ? stats.getStatTime() : 0;
       result = ci.newInstance(clazz);
       InternalPdxReader ri = (InternalPdxReader)reader;
       PdxType pt = ri.getPdxType();
@@ -1917,6 +1956,9 @@ public class AutoSerializableManager {
           f.deserialize(ri, result);
         }
       }
+      if (stats != null) {
+        stats.endDeserialization(start);
+      }
     }
     return result;
   }
@@ -2014,6 +2056,17 @@ public class AutoSerializableManager {
      * The PdxType created by the first serialization by the auto serializer.
      */
     private PdxType serializedType = null;
+
+    /**
+     * The generated code for this class, or null if the fields are
+     * serialized with the field wrappers.
+     */
+    private GeneratedAutoSerializer generated;
+
+    /**
+     * The statistics of this class, or null if they are not kept.
+     */
+    private AutoSerializerStats stats;
     
     public AutoClassInfo(Class<?> clazz, List<PdxFieldWrapper> fields) {
       this.clazzRef = new WeakReference<Class<?>>(clazz);
@@ -2059,6 +2112,44 @@ public class AutoSerializableManager {
     public Class<?> getInfoClass() {
       return this.clazzRef.get();
     }
+
+    /**
+     * Generates the code for this class, if <code>canGenerate</code>, and
+     * creates its statistics if the cache's distributed system is connected.
+     * Called before the instance is published in the class map.
+     */
+    void initGenerated(AutoSerializableManager owner, boolean canGenerate) {
+      Class<?> clazz = getInfoClass();
+      if (canGenerate) {
+        this.generated = GeneratedAutoSerializer.create(owner, clazz, this.fields);
+      }
+      InternalDistributedSystem ids = InternalDistributedSystem.getAnyInstance();
+      if (ids != null && ids.isConnected()) {
+        this.stats = new AutoSerializerStats(ids, clazz.getName(), this.generated != null);
+      }
+    }
+
+    GeneratedAutoSerializer getGenerated() {
+      return this.generated;
+    }
+
+    /**
+     * Returns true if the fields of this class are serialized by generated
+     * code instead of with reflection.
+     */
+    public boolean isGenerated() {
+      return this.generated != null;
+    }
+
+    public AutoSerializerStats getStats() {
+      return this.stats;
+    }
+
+    void close() {
+      if (this.stats != null) {
+        this.stats.close();
+      }
+    }
     public List<PdxFieldWrapper> getFields() {
       return this.fields;
     }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import com.gemstone.gemfire.StatisticDescriptor;
+import com.gemstone.gemfire.Statistics;
+import com.gemstone.gemfire.StatisticsFactory;
+import com.gemstone.gemfire.StatisticsType;
+import com.gemstone.gemfire.StatisticsTypeFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionStats;
+import com.gemstone.gemfire.internal.StatisticsTypeFactoryImpl;
+
+/**
+ * GemFire statistics about the auto serialization of one class by a
+ * {@link AutoSerializableManager}. The instances are named after the class.
+ *
+ * @see AutoSerializableManager#GENERATED
+ */
+public class AutoSerializerStats {
+
+  private static final StatisticsType type;
+
+  private static final int serializationsId;
+  private static final int serializationTimeId;
+  private static final int deserializationsId;
+  private static final int deserializationTimeId;
+  private static final int generatedId;
+
+  static {
+    StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+    type = f.createType("AutoSerializerStats",
+        "Statistics about the auto serialization of a class",
+        new StatisticDescriptor[] {
+          f.createLongCounter("serializations", "Total number of instances of the class that were auto serialized", "ops"),
+          f.createLongCounter("serializationTime", "Total amount of time, in nanoseconds, spent auto serializing instances of the class", "nanoseconds"),
+          f.createLongCounter("deserializations", "Total number of instances of the class that were auto deserialized", "ops"),
+          f.createLongCounter("deserializationTime", "Total amount of time, in nanoseconds, spent auto deserializing instances of the class", "nanoseconds"),
+          f.createIntGauge("generated", "1 if the fields of the class are serialized by generated code, 0 if they are serialized with reflection", "boolean"),
+        });
+    serializationsId = type.nameToId("serializations");
+    serializationTimeId = type.nameToId("serializationTime");
+    deserializationsId = type.nameToId("deserializations");
+    deserializationTimeId = type.nameToId("deserializationTime");
+    generatedId = type.nameToId("generated");
+  }
+
+  private final Statistics stats;
+
+  public AutoSerializerStats(StatisticsFactory f, String className, boolean generated) {
+    this.stats = f.createAtomicStatistics(type, className);
+    this.stats.setInt(generatedId, generated ? 1 : 0);
+  }
+
+  public void close() {
+    this.stats.close();
+  }
+
+  public long getStatTime() {
+    return DistributionStats.getStatTime();
+  }
+
+  public void endSerialization(long start) {
+    this.stats.incLong(serializationsId, 1);
+    this.stats.incLong(serializationTimeId, getStatTime() - start);
+  }
+
+  public void endDeserialization(long start) {
+    this.stats.incLong(deserializationsId, 1);
+    this.stats.incLong(deserializationTimeId, getStatTime() - start);
+  }
+
+  public long getSerializations() {
+    return this.stats.getLong(serializationsId);
+  }
+
+  public long getDeserializations() {
+    return this.stats.getLong(deserializationsId);
+  }
+
+  public Statistics getStats() {
+    return this.stats;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.CancelException;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.pdx.FieldType;
+import com.gemstone.gemfire.pdx.NonPortableClassException;
+import com.gemstone.gemfire.pdx.PdxSerializationException;
+import com.gemstone.gemfire.pdx.internal.AutoSerializableManager.PdxFieldWrapper;
+
+/**
+ * Serializes the fields of one auto serialized class with two method handles
+ * built when the class is first seen: one that writes every field in order
+ * and one that reads them back in order. Each handle is a chain of the
+ * field's getter or setter and the matching {@link PdxWriterImpl} or
+ * {@link PdxReaderImpl} method, so after the JIT has compiled it a write or
+ * read is straight-line code instead of a loop over {@link PdxFieldWrapper}s
+ * that dispatches on the field type for every field. The handles are kept
+ * in final fields of an ordinary instance so no classes have to be defined
+ * at run time.
+ *
+ * Only the ordered paths are handled here, that is when
+ * {@link AutoSerializableManager#writeData} can write the fields in the
+ * order of the class's known pdx type and when the pdx type being read
+ * matches the class exactly. Everything else still goes through the field
+ * wrappers.
+ *
+ * @see AutoSerializableManager#GENERATED
+ */
+final class GeneratedAutoSerializer {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodHandle WRITE_OBJECT;
+  private static final MethodHandle WRITE_OBJECT_ARRAY;
+  static {
+    try {
+      MethodType type = MethodType.methodType(void.class, PdxWriterImpl.class,
+          Object.class, AutoSerializableManager.class);
+      WRITE_OBJECT = LOOKUP.findStatic(GeneratedAutoSerializer.class, "writeObject", type);
+      WRITE_OBJECT_ARRAY = LOOKUP.findStatic(GeneratedAutoSerializer.class,
+          "writeObjectArray", type.changeParameterType(1, Object[].class));
+    } catch (ReflectiveOperationException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  private final Class<?> clazz;
+  private final MethodHandle writer;
+  private final MethodHandle reader;
+
+  private GeneratedAutoSerializer(Class<?> clazz, MethodHandle writer, MethodHandle reader) {
+    this.clazz = clazz;
+    this.writer = writer;
+    this.reader = reader;
+  }
+
+  /**
+   * Builds the handles for the class, or returns null if they could not be
+   * built. The caller must only pass fields whose values are not transformed
+   * and whose pdx type is the one of their declared type.
+   */
+  static GeneratedAutoSerializer create(AutoSerializableManager owner, Class<?> clazz,
+      List<PdxFieldWrapper> fields) {
+    if (fields.isEmpty()) {
+      return null;
+    }
+    try {
+      MethodHandle writer = null;
+      MethodHandle reader = null;
+      for (int i = fields.size() - 1; i >= 0; i--) {
+        PdxFieldWrapper f = fields.get(i);
+        FieldType ft = FieldType.get(f.getField().getType());
+        MethodHandle w = fieldWriter(owner, f.getField(), ft);
+        MethodHandle r = fieldReader(f.getField(), ft);
+        // run this field's handle first and then the ones already chained
+        writer = writer == null ? w : MethodHandles.foldArguments(writer, w);
+        reader = reader == null ? r : MethodHandles.foldArguments(reader, r);
+      }
+      return new GeneratedAutoSerializer(clazz, writer, reader);
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not generate an auto serializer for {}; using reflection", clazz, ex);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Writes all fields of the object. The writer must be writing the class's
+   * known pdx type with no unread data.
+   */
+  void write(PdxWriterImpl writer, Object obj) {
+    try {
+      this.writer.invokeExact(writer, obj);
+    } catch (Throwable t) {
+      throw handleException(true, t);
+    }
+  }
+
+  /**
+   * Reads all fields into the object from a reader that is positioned at the
+   * first field of a pdx type that matches the class.
+   */
+  void read(PdxReaderImpl reader, Object obj) {
+    try {
+      this.reader.invokeExact(reader, obj);
+    } catch (Throwable t) {
+      throw handleException(false, t);
+    }
+  }
+
+  private RuntimeException handleException(boolean serialization, Throwable t) {
+    if (t instanceof Error) {
+      throw (Error)t;
+    } else if (t instanceof CancelException
+        || t instanceof NonPortableClassException
+        || t instanceof PdxSerializationException) {
+      // rethrown as is, like AutoSerializableManager.handleException does
+      return (RuntimeException)t;
+    }
+    return new PdxSerializationException((serialization ? "Serialization" : "Deserialization")
+        + " error for class " + this.clazz.getName(), t);
+  }
+
+  /** Returns a handle of type (PdxWriterImpl, Object)void that writes the field. */
+  private static MethodHandle fieldWriter(AutoSerializableManager owner, Field field,
+      FieldType ft) throws ReflectiveOperationException {
+    final Class<?> valueType = valueType(ft);
+    MethodHandle write;
+    if (ft == FieldType.OBJECT) {
+      write = MethodHandles.insertArguments(WRITE_OBJECT, 2, owner);
+    } else if (ft == FieldType.OBJECT_ARRAY) {
+      write = MethodHandles.insertArguments(WRITE_OBJECT_ARRAY, 2, owner);
+    } else {
+      write = LOOKUP.findVirtual(PdxWriterImpl.class, "write" + methodSuffix(ft),
+          MethodType.methodType(void.class, valueType));
+    }
+    MethodHandle getter = LOOKUP.unreflectGetter(field)
+        .asType(MethodType.methodType(valueType, Object.class));
+    return MethodHandles.filterArguments(write, 1, getter);
+  }
+
+  /** Returns a handle of type (PdxReaderImpl, Object)void that reads the field. */
+  private static MethodHandle fieldReader(Field field, FieldType ft)
+      throws ReflectiveOperationException {
+    final Class<?> valueType = valueType(ft);
+    MethodHandle read = LOOKUP.findVirtual(PdxReaderImpl.class, "read" + methodSuffix(ft),
+        MethodType.methodType(valueType)).asType(
+            MethodType.methodType(field.getType(), PdxReaderImpl.class));
+    MethodHandle setter = LOOKUP.unreflectSetter(field)
+        .asType(MethodType.methodType(void.class, Object.class, field.getType()));
+    // (Object, PdxReaderImpl)void with the arguments swapped to match the writer
+    MethodHandle set = MethodHandles.filterArguments(setter, 1, read);
+    return MethodHandles.permuteArguments(set,
+        MethodType.methodType(void.class, PdxReaderImpl.class, Object.class), 1, 0);
+  }
+
+  private static String methodSuffix(FieldType ft) {
+    switch (ft) {
+    case BOOLEAN: return "Boolean";
+    case BYTE: return "Byte";
+    case CHAR: return "Char";
+    case SHORT: return "Short";
+    case INT: return "Int";
+    case LONG: return "Long";
+    case FLOAT: return "Float";
+    case DOUBLE: return "Double";
+    case DATE: return "Date";
+    case STRING: return "String";
+    case OBJECT: return "Object";
+    case BOOLEAN_ARRAY: return "BooleanArray";
+    case CHAR_ARRAY: return "CharArray";
+    case BYTE_ARRAY: return "ByteArray";
+    case SHORT_ARRAY: return "ShortArray";
+    case INT_ARRAY: return "IntArray";
+    case LONG_ARRAY: return "LongArray";
+    case FLOAT_ARRAY: return "FloatArray";
+    case DOUBLE_ARRAY: return "DoubleArray";
+    case STRING_ARRAY: return "StringArray";
+    case OBJECT_ARRAY: return "ObjectArray";
+    case ARRAY_OF_BYTE_ARRAYS: return "ArrayOfByteArrays";
+    default:
+      throw new IllegalStateException("unhandled field type " + ft);
+    }
+  }
+
+  private static Class<?> valueType(FieldType ft) {
+    switch (ft) {
+    case BOOLEAN: return boolean.class;
+    case BYTE: return byte.class;
+    case CHAR: return char.class;
+    case SHORT: return short.class;
+    case INT: return int.class;
+    case LONG: return long.class;
+    case FLOAT: return float.class;
+    case DOUBLE: return double.class;
+    case DATE: return Date.class;
+    case STRING: return String.class;
+    case OBJECT: return Object.class;
+    case BOOLEAN_ARRAY: return boolean[].class;
+    case CHAR_ARRAY: return char[].class;
+    case BYTE_ARRAY: return byte[].class;
+    case SHORT_ARRAY: return short[].class;
+    case INT_ARRAY: return int[].class;
+    case LONG_ARRAY: return long[].class;
+    case FLOAT_ARRAY: return float[].class;
+    case DOUBLE_ARRAY: return double[].class;
+    case STRING_ARRAY: return String[].class;
+    case OBJECT_ARRAY: return Object[].class;
+    case ARRAY_OF_BYTE_ARRAYS: return byte[][].class;
+    default:
+      throw new IllegalStateException("unhandled field type " + ft);
+    }
+  }
+
+  // the portability check can be changed on the serializer at any time
+  // so it is read on every write like the field wrappers do
+  private static void writeObject(PdxWriterImpl writer, Object value, AutoSerializableManager owner) {
+    writer.writeObject(value, owner.getCheckPortability());
+  }
+
+  private static void writeObjectArray(PdxWriterImpl writer, Object[] value, AutoSerializableManager owner) {
+    writer.writeObjectArray(value, owner.getCheckPortability());
+  }
+}
@@ -58,6 +58,14 @@ public class PdxField implements DataSerializable, Comparable<PdxField> {
    */
   private boolean deleted;
 
+  /**
+   * True if this field is an int or long of a type that uses the compact
+   * encoding. Set by {@link PdxType#addField(PdxField)} since it is
+   * recorded on the type, not on each field.
+   * @since Geode 1.0
+   */
+  private transient boolean compact;
+
   public PdxField() {
   }
 
@@ -81,6 +89,7 @@ public class PdxField implements DataSerializable, Comparable<PdxField> {
     this.type = other.type;
     this.identityField = other.identityField;
     this.deleted = other.deleted;
+    this.compact = other.compact;
   }
 
   public String getFieldName() {
@@ -96,7 +105,19 @@ public class PdxField implements DataSerializable, Comparable<PdxField> {
   }
 
   public boolean isVariableLengthType() {
-    return !this.type.isFixedWidth();
+    return this.compact || !this.type.isFixedWidth();
+  }
+
+  /**
+   * Returns true if this field's value is written as a variable length
+   * number instead of at the fixed width of its type.
+   */
+  public boolean isCompact() {
+    return this.compact;
+  }
+
+  void setCompact(boolean compact) {
+    this.compact = compact;
   }
 
   public FieldType getFieldType() {
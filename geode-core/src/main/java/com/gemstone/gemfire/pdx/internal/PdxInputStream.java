@@ -25,6 +25,7 @@ import java.util.Date;
 
 import com.gemstone.gemfire.DataSerializer;
 import com.gemstone.gemfire.InternalGemFireException;
+import com.gemstone.gemfire.internal.InternalDataSerializer;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
 import com.gemstone.gemfire.internal.offheap.StoredObject;
 import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream;
@@ -213,6 +214,42 @@ public class PdxInputStream extends ImmutableByteBufferInputStream {
     }
   }
 
+  /**
+   * Reads a number written by
+   * {@link InternalDataSerializer#writeSignedVL(long, java.io.DataOutput)}
+   * that starts at the given position.
+   */
+  public long readSignedVL(int pos) {
+    try {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final byte b = super.readByte(pos++);
+        result |= (long)(b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return InternalDataSerializer.decodeZigZag64(result);
+        }
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new PdxSerializationException("Failed reading a compact PDX field", e);
+    }
+    throw new PdxSerializationException("Malformed compact PDX field");
+  }
+
+  /**
+   * Reads a number written by
+   * {@link InternalDataSerializer#writeSignedVL(long, java.io.DataOutput)}
+   * at the current position.
+   */
+  public long readSignedVL() {
+    try {
+      return InternalDataSerializer.readSignedVL(this);
+    } catch (IOException e) {
+      throw new PdxSerializationException("Failed reading a compact PDX field", e);
+    } catch (IndexOutOfBoundsException e) {
+      throw new PdxSerializationException("Failed reading a compact PDX field", e);
+    }
+  }
+
   @Override
   public short readShort(int pos) {
     try {
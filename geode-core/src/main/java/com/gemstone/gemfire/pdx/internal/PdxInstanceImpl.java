@@ -40,6 +40,7 @@ import com.gemstone.gemfire.internal.InternalDataSerializer;
 import com.gemstone.gemfire.internal.Sendable;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.ByteSource;
+import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.CursorByteSource;
 import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.ByteSourceFactory;
 import com.gemstone.gemfire.pdx.JSONFormatter;
 import com.gemstone.gemfire.pdx.PdxInstance;
@@ -174,6 +175,22 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
     }
   }
 
+  /**
+   * Returns this instance if its bytes are on the heap, otherwise a copy of it
+   * that is. An instance that reads its fields from off-heap memory must be
+   * copied before it can outlive the reference that keeps that memory
+   * allocated.
+   */
+  public PdxInstanceImpl copyIfOffHeap() {
+    PdxReaderImpl ur = getUnmodifiableReader();
+    if (ur.hasHeapBytes()) {
+      return this;
+    }
+    byte[] bytes = new byte[ur.basicSize()];
+    ur.basicSendTo(ByteBuffer.wrap(bytes));
+    return new PdxInstanceImpl(ur.getPdxType(), new PdxInputStream(bytes), bytes.length);
+  }
+
   // this is for internal use of the query engine.
   public Object getCachedObject() {
     Object result = this.cachedObjectForm; 
@@ -501,92 +518,35 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
     return this;
   }
 
-  // All PdxReaderImpl methods that might change the ByteBuffer position
-  // need to be synchronized so that they are done atomically.
-  // This fixes bug 43178.
-  
-  // primitive read methods all use absolute read methods so they do not set position
-  // so no sync is needed. Fixed width fields all use absolute read methods.
-
-  @Override
-  public synchronized String readString(String fieldName) {
-    return super.readString(fieldName);
-  }
-
-  @Override
-  public synchronized Object readObject(String fieldName) {
-    return super.readObject(fieldName);
-  }
-
-  @Override
-  public
-  synchronized Object readObject(PdxField ft) {
-    return super.readObject(ft);
-  }
-
-  @Override
-  public synchronized char[] readCharArray(String fieldName) {
-    return super.readCharArray(fieldName);
-  }
-
-  @Override
-  public synchronized boolean[] readBooleanArray(String fieldName) {
-    return super.readBooleanArray(fieldName);
-  }
-
-  @Override
-  public synchronized byte[] readByteArray(String fieldName) {
-    return super.readByteArray(fieldName);
-  }
-
-  @Override
-  public synchronized short[] readShortArray(String fieldName) {
-    return super.readShortArray(fieldName);
-  }
-
-  @Override
-  public synchronized int[] readIntArray(String fieldName) {
-    return super.readIntArray(fieldName);
-  }
-
-  @Override
-  public synchronized long[] readLongArray(String fieldName) {
-    return super.readLongArray(fieldName);
-  }
-
-  @Override
-  public synchronized float[] readFloatArray(String fieldName) {
-    return super.readFloatArray(fieldName);
-  }
-
-  @Override
-  public synchronized double[] readDoubleArray(String fieldName) {
-    return super.readDoubleArray(fieldName);
-  }
-
-  @Override
-  public synchronized String[] readStringArray(String fieldName) {
-    return super.readStringArray(fieldName);
-  }
-
-  @Override
-  public synchronized Object[] readObjectArray(String fieldName) {
-    return super.readObjectArray(fieldName);
-  }
-
-  @Override
-  public synchronized Object[] readObjectArray(PdxField ft) {
-    return super.readObjectArray(ft);
-  }
+  // Variable length fields are read from a stream of the calling thread that
+  // is pointed at this instance's bytes, so that concurrent threads can read
+  // fields of the same instance without locking or allocating (bug 43178 was
+  // caused by sharing the position). The stream's cursor only does absolute
+  // reads of the shared heap or off-heap bytes. It keeps a reference to the
+  // bytes it last read until the thread reads another instance.
+  // Fixed width fields all use absolute read methods.
+  private static final ThreadLocal<PdxInputStream> vlfStream = new ThreadLocal<PdxInputStream>() {
+    @Override
+    protected PdxInputStream initialValue() {
+      PdxInputStream result = new PdxInputStream();
+      result.setBuffer(new CursorByteSource());
+      return result;
+    }
+  };
 
   @Override
-  public synchronized byte[][] readArrayOfByteArrays(String fieldName) {
-    return super.readArrayOfByteArrays(fieldName);
+  protected PdxInputStream getVlfStream() {
+    PdxInputStream result = vlfStream.get();
+    ((CursorByteSource)result.getBuffer()).setSource(getByteSource());
+    return result;
   }
 
+  // Reading an object can run application code that reads a field of another
+  // instance on this thread, so objects are read from a duplicate of the
+  // stream instead of the thread's stream.
   @Override
-  public synchronized Object readField(String fieldName) {
-    return super.readField(fieldName);
+  protected PdxInputStream getObjectStream() {
+    return duplicateStream();
   }
 
   @Override
@@ -627,6 +587,14 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
   public Object getRawField(String fieldName){
     return getUnmodifiableReader(fieldName).readRawField(fieldName);
   }
+
+  /**
+   * Like {@link #getRawField(String)} for a field of this instance's
+   * {@link #getPdxType() pdx type}, so the name is not looked up again.
+   */
+  public Object getRawField(PdxField ft) {
+    return getUnmodifiableReader(ft.getFieldName()).readRawField(ft);
+  }
   
   
  public Object getDefaultValueIfFieldExistsInAnyPdxVersions(String fieldName,
@@ -198,6 +198,20 @@ public class PdxOutputStream implements ByteBufferWriter {
     this.hdos.writeLong(value);
   }
 
+  /**
+   * Writes the value as a zig zag encoded variable length number.
+   * @return the number of bytes written
+   */
+  public int writeSignedVL(long value) {
+    final int start = this.hdos.size();
+    try {
+      InternalDataSerializer.writeSignedVL(value, this.hdos);
+    } catch (IOException e) {
+      throw new PdxSerializationException("Exception while serializing a PDX field", e);
+    }
+    return this.hdos.size() - start;
+  }
+
   public void writeFloat(float value) {
     this.hdos.writeFloat(value);
   }
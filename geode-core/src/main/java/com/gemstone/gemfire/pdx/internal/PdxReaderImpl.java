@@ -29,6 +29,7 @@ import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream;
 import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.ByteSource;
+import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.ByteSourceFactory;
 import com.gemstone.gemfire.pdx.FieldType;
 import com.gemstone.gemfire.pdx.PdxFieldTypeMismatchException;
 import com.gemstone.gemfire.pdx.PdxInstance;
@@ -206,9 +207,15 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public int readInt(PdxField ft) {
+    if (ft.isCompact()) {
+      return (int)dis.readSignedVL(getPositionForField(ft));
+    }
     return dis.readInt(getPositionForField(ft));
   }
   public int readInt() {
+    if (this.blobType.getCompactEncoding()) {
+      return (int)dis.readSignedVL();
+    }
     return dis.readInt();
   }
 
@@ -225,9 +232,15 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public long readLong(PdxField ft) {
+    if (ft.isCompact()) {
+      return dis.readSignedVL(getPositionForField(ft));
+    }
     return dis.readLong(getPositionForField(ft));
   }
   public long readLong() {
+    if (this.blobType.getCompactEncoding()) {
+      return dis.readSignedVL();
+    }
     return dis.readLong();
   }
 
@@ -304,7 +317,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public String readString(PdxField ft) {
-    return this.dis.readString(getPositionForField(ft));
+    return getVlfStream().readString(getPositionForField(ft));
   }
   public String readString() {
     return this.dis.readString();
@@ -327,7 +340,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft instanceof DefaultPdxField) {
       return null; // default object value
     }
-    return this.dis.readObject(getPositionForField(ft));
+    return getObjectStream().readObject(getPositionForField(ft));
   }
   public Object readObject() {
     return this.dis.readObject();
@@ -347,7 +360,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public char[] readCharArray(PdxField ft) {
-    return this.dis.readCharArray(getPositionForField(ft));
+    return getVlfStream().readCharArray(getPositionForField(ft));
   }
   public char[] readCharArray() {
     return this.dis.readCharArray();
@@ -367,7 +380,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public boolean[] readBooleanArray(PdxField ft) {
-    return this.dis.readBooleanArray(getPositionForField(ft));
+    return getVlfStream().readBooleanArray(getPositionForField(ft));
   }
   public boolean[] readBooleanArray() {
     return this.dis.readBooleanArray();
@@ -387,7 +400,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public byte[] readByteArray(PdxField ft) {
-    return this.dis.readByteArray(getPositionForField(ft));
+    return getVlfStream().readByteArray(getPositionForField(ft));
   }
   public byte[] readByteArray() {
     return this.dis.readByteArray();
@@ -407,7 +420,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public short[] readShortArray(PdxField ft) {
-    return this.dis.readShortArray(getPositionForField(ft));
+    return getVlfStream().readShortArray(getPositionForField(ft));
   }
   public short[] readShortArray() {
     return this.dis.readShortArray();
@@ -427,7 +440,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public int[] readIntArray(PdxField ft) {
-    return this.dis.readIntArray(getPositionForField(ft));
+    return getVlfStream().readIntArray(getPositionForField(ft));
   }
   public int[] readIntArray() {
     return this.dis.readIntArray();
@@ -447,7 +460,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public long[] readLongArray(PdxField ft) {
-    return this.dis.readLongArray(getPositionForField(ft));
+    return getVlfStream().readLongArray(getPositionForField(ft));
   }
   public long[] readLongArray() {
     return this.dis.readLongArray();
@@ -467,7 +480,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public float[] readFloatArray(PdxField ft) {
-    return this.dis.readFloatArray(getPositionForField(ft));
+    return getVlfStream().readFloatArray(getPositionForField(ft));
   }
   public float[] readFloatArray() {
     return this.dis.readFloatArray();
@@ -487,7 +500,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public double[] readDoubleArray(PdxField ft) {
-    return this.dis.readDoubleArray(getPositionForField(ft));
+    return getVlfStream().readDoubleArray(getPositionForField(ft));
   }
   public double[] readDoubleArray() {
     return this.dis.readDoubleArray();
@@ -507,7 +520,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public String[] readStringArray(PdxField ft) {
-    return this.dis.readStringArray(getPositionForField(ft));
+    return getVlfStream().readStringArray(getPositionForField(ft));
   }
   public String[] readStringArray() {
     return this.dis.readStringArray();
@@ -529,7 +542,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft instanceof DefaultPdxField) {
       return null; // default array value
     }
-    return this.dis.readObjectArray(getPositionForField(ft));
+    return getObjectStream().readObjectArray(getPositionForField(ft));
   }
   public Object[] readObjectArray() {
     return this.dis.readObjectArray();
@@ -549,7 +562,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   }
 
   public byte[][] readArrayOfByteArrays(PdxField ft) {
-    return this.dis.readArrayOfByteArrays(getPositionForField(ft));
+    return getVlfStream().readArrayOfByteArrays(getPositionForField(ft));
   }
   public byte[][] readArrayOfByteArrays() {
     return this.dis.readArrayOfByteArrays();
@@ -626,6 +639,13 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft == null) {
       return null;
     }
+    return readField(ft);
+  }
+
+  /**
+   * Reads a field already looked up in this reader's pdx type.
+   */
+  public Object readField(PdxField ft) {
     switch (ft.getFieldType()) {
     case CHAR:
       return readChar(ft);
@@ -792,10 +812,25 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     return getRaw(ft);
   }
 
+  /**
+   * Returns the bytes of the field. Compact fields are returned at the fixed
+   * width of their type so that the raw bytes of a field do not depend on the
+   * encoding of the type it was read from.
+   */
   protected ByteSource getRaw(PdxField ft) {
     if (ft instanceof DefaultPdxField) {
       return ((DefaultPdxField)ft).getDefaultBytes();
     }
+    if (ft.isCompact()) {
+      final long v = dis.readSignedVL(getPositionForField(ft));
+      final ByteBuffer bb;
+      if (ft.getFieldType() == FieldType.INT) {
+        bb = ByteBuffer.allocate(DataSize.INTEGER_SIZE).putInt(0, (int)v);
+      } else {
+        bb = ByteBuffer.allocate(DataSize.LONG_SIZE).putLong(0, v);
+      }
+      return ByteSourceFactory.create(bb);
+    }
     int startOffset = getAbsolutePosition(ft);
     int nextFieldIdx = ft.getFieldIndex()+1;
     int endOffset;
@@ -821,6 +856,49 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     this.dis.sendTo(bb);
   }
 
+  /**
+   * Returns the stream that variable length fields other than objects are
+   * read from. Those reads position the stream so by default they can not be
+   * done by more than one thread at a time; {@link PdxInstanceImpl}
+   * overrides this to read from a stream of the calling thread instead.
+   */
+  protected PdxInputStream getVlfStream() {
+    return this.dis;
+  }
+
+  /**
+   * Returns the stream that object fields are read from. Unlike the other
+   * variable length fields, reading an object can run application code that
+   * reads fields of another pdx instance on the same thread.
+   */
+  protected PdxInputStream getObjectStream() {
+    return this.dis;
+  }
+
+  /**
+   * Returns the bytes of this reader's stream. Callers must only use
+   * absolute reads on it so that the stream's position is not changed.
+   */
+  protected final ByteSource getByteSource() {
+    return this.dis.getBuffer();
+  }
+
+  /**
+   * Returns a new stream over the same heap or off-heap bytes as this
+   * reader's stream but with its own position. No bytes are copied.
+   */
+  protected final PdxInputStream duplicateStream() {
+    return new PdxInputStream(this.dis);
+  }
+
+  /**
+   * Returns true if this reader's bytes are in a heap array, false if they
+   * are, for example, in off-heap memory.
+   */
+  protected boolean hasHeapBytes() {
+    return this.dis.getBuffer().hasArray();
+  }
+
   protected int basicSize() {
     return this.dis.size();
   }
@@ -837,6 +915,11 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
    */
   public void orderedDeserialize(Object obj, AutoClassInfo ci) {
     PdxReaderImpl reader = prepForOrderedReading();
+    GeneratedAutoSerializer generated = ci.getGenerated();
+    if (generated != null) {
+      generated.read(reader, obj);
+      return;
+    }
     for (PdxFieldWrapper f: ci.getFields()) {
       //System.out.println("DEBUG reading field=" + f.getField().getName() + " offset=" + reader.dis.position());
       f.orderedDeserialize(reader, obj);
@@ -869,11 +952,19 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft == null) {
       return null;
     }
+    return readRawField(ft);
+  }
+
+  /**
+   * Like {@link #readRawField(String)} for a field already looked up in this
+   * reader's pdx type.
+   */
+  public Object readRawField(PdxField ft) {
     if (ft.getFieldType() == FieldType.STRING) {
       return readPdxString(ft);
     }
     else{
-      return readField(field);
+      return readField(ft);
     }
   }
   
@@ -885,13 +976,18 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
   public PdxString readPdxString(PdxField ft){
     ByteSource buffer = dis.getBuffer();
     byte[] bytes = null;
+    int offset;
     if(buffer.hasArray()){
       bytes = buffer.array();
+      offset = getPositionForField(ft) + buffer.arrayOffset();
     }
     else{
-      throw new IllegalStateException();
+      // the blob is off-heap; copy just this field's bytes to the heap
+      ByteSource raw = getRaw(ft);
+      bytes = new byte[raw.remaining()];
+      raw.get(bytes);
+      offset = 0;
     }
-    int offset = getPositionForField(ft) + buffer.arrayOffset();
     // Do not create PdxString if the field is NULL
     if(bytes[offset] == DSCODE.NULL || bytes[offset] == DSCODE.NULL_STRING){
       return null;
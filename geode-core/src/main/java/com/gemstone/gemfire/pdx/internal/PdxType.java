@@ -34,10 +34,12 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import com.gemstone.gemfire.DataSerializable;
 import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.internal.ClassPathLoader;
 import com.gemstone.gemfire.internal.InternalDataSerializer;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.pdx.FieldType;
 import com.gemstone.gemfire.pdx.PdxFieldAlreadyExistsException;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
 import com.gemstone.gemfire.pdx.internal.AutoSerializableManager.AutoClassInfo;
@@ -46,6 +48,15 @@ public class PdxType implements DataSerializable {
   
   private static final long serialVersionUID = -1950047949756115279L;
 
+  /**
+   * If true then types defined by this member write their int and long
+   * fields as variable length numbers. See {@link #getCompactEncoding()}.
+   * Data written this way can not be read by members that do not know about
+   * the compact encoding so it should only be enabled after all members,
+   * clients and WAN sites have been upgraded.
+   */
+  public static boolean COMPACT_ENCODING = Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "pdx.compactEncoding");
+
   private int cachedHash = 0; 
   
   private int typeId;
@@ -56,6 +67,12 @@ public class PdxType implements DataSerializable {
    * @since GemFire 8.1
    */
   private boolean hasDeletedField;
+  /**
+   * True if the int and long fields of this type are written with the
+   * compact encoding.
+   * @since Geode 1.0
+   */
+  private boolean compactEncoding;
 
   /**
    * A count of the total number of variable length field offsets.
@@ -74,12 +91,14 @@ public class PdxType implements DataSerializable {
   public PdxType(String name, boolean expectDomainClass) {
     this.className = name;
     this.noDomainClass = !expectDomainClass;
+    this.compactEncoding = COMPACT_ENCODING;
   }
 
   public PdxType(PdxType copy) {
     this.typeId = copy.typeId;
     this.className = copy.className;
     this.noDomainClass = copy.noDomainClass;
+    this.compactEncoding = copy.compactEncoding;
     this.vlfCount = copy.vlfCount;
     for (PdxField ft: copy.fields) {
       addField(ft);
@@ -88,6 +107,7 @@ public class PdxType implements DataSerializable {
 
   private static final byte NO_DOMAIN_CLASS_BIT = 1;
   private static final byte HAS_DELETED_FIELD_BIT = 2;
+  private static final byte COMPACT_ENCODING_BIT = 4;
   
   public void fromData(DataInput in) throws IOException, ClassNotFoundException {
     this.className = DataSerializer.readString(in);
@@ -95,6 +115,7 @@ public class PdxType implements DataSerializable {
       byte bits = in.readByte();
       this.noDomainClass = (bits & NO_DOMAIN_CLASS_BIT) != 0;
       this.hasDeletedField = (bits & HAS_DELETED_FIELD_BIT) != 0;
+      this.compactEncoding = (bits & COMPACT_ENCODING_BIT) != 0;
     }
 
     this.typeId = in.readInt();
@@ -116,6 +137,7 @@ public class PdxType implements DataSerializable {
       // 8.1 and after we write a byte whose bits are:
       // 1: noDomainClass
       // 2: hasDeletedField
+      // 4: compactEncoding
       byte bits = 0;
       if (this.noDomainClass) {
         bits |= NO_DOMAIN_CLASS_BIT;
@@ -133,6 +155,11 @@ public class PdxType implements DataSerializable {
           bits |= HAS_DELETED_FIELD_BIT;
         }
       }
+      // Members that do not know about this bit ignore it and would misread
+      // data of this type. See COMPACT_ENCODING.
+      if (this.compactEncoding) {
+        bits |= COMPACT_ENCODING_BIT;
+      }
       out.writeByte(bits);
     }
 
@@ -154,6 +181,9 @@ public class PdxType implements DataSerializable {
     if(hash == 0) {
       hash = 1;
       hash = hash * 31 + this.className.hashCode();
+      if (this.compactEncoding) {
+        hash = hash * 31 + 1;
+      }
       for(PdxField field : this.fields) {
         hash = hash * 31 + field.hashCode();
       }
@@ -181,6 +211,9 @@ public class PdxType implements DataSerializable {
     if (this.noDomainClass != otherVT.noDomainClass) {
       return false;
     }
+    if (this.compactEncoding != otherVT.compactEncoding) {
+      return false;
+    }
     if (otherVT.fields.size() != this.fields.size()
         || otherVT.vlfCount != this.vlfCount) {
       return false;
@@ -235,6 +268,26 @@ public class PdxType implements DataSerializable {
   public boolean getNoDomainClass() {
     return this.noDomainClass;
   }
+
+  /**
+   * Returns true if the int and long fields of this type are written as
+   * zig zag encoded variable length numbers (see
+   * {@link InternalDataSerializer#writeSignedVL(long, DataOutput)}) instead
+   * of at their fixed width. Since their length varies these fields are
+   * treated as variable length fields and are found through the offset table.
+   * @since Geode 1.0
+   */
+  public boolean getCompactEncoding() {
+    return this.compactEncoding;
+  }
+
+  /**
+   * Returns true if a field of the given type is written with the
+   * compact encoding by a type that uses it.
+   */
+  static boolean isCompactFieldType(FieldType type) {
+    return type == FieldType.INT || type == FieldType.LONG;
+  }
   
   public int getTypeId() {
     return this.typeId;
@@ -262,6 +315,7 @@ public class PdxType implements DataSerializable {
     if (this.fieldsMap.put(ft.getFieldName(), ft) != null) {
       throw new PdxFieldAlreadyExistsException("The field \"" + ft.getFieldName() + "\" already exists.");
     }
+    ft.setCompact(this.compactEncoding && isCompactFieldType(ft.getFieldType()));
     this.fields.add(ft);
   }
   
@@ -478,6 +532,9 @@ public class PdxType implements DataSerializable {
       printStream.print(" dsId=");
       printStream.print(getDSId());
     }
+    if (getCompactEncoding()) {
+      printStream.print(" compact");
+    }
     printStream.println();
     if (printFields) {
       for (PdxField field: this.fields) {
@@ -73,6 +73,21 @@ public class PdxWriterImpl implements PdxWriter {
   private PdxType existingType;
   private PdxType newType;
   private int fieldId = -1;
+  private boolean initialized = false;
+  /**
+   * True if the type being written uses the compact encoding.
+   * See {@link PdxType#getCompactEncoding()}.
+   */
+  private boolean compactEncoding = false;
+  /**
+   * The number of compact fields that needed an offset.
+   */
+  private int compactOffsetCount = 0;
+  /**
+   * The number of bytes the compact fields saved compared to writing them at
+   * their fixed width, not counting their offsets.
+   */
+  private int compactSavings = 0;
   
   /**
    * If true then extra validation is done to detect if mistakes have been made in
@@ -135,7 +150,17 @@ public class PdxWriterImpl implements PdxWriter {
   }
   
   private void initialize() {
+    if (this.initialized) {
+      return;
+    }
+    this.initialized = true;
     writeHeader();
+    initializeType();
+    PdxType pt = definingNewPdxType() ? this.newType : this.existingType;
+    this.compactEncoding = pt != null && pt.getCompactEncoding();
+  }
+
+  private void initializeType() {
     if (this.existingType != null) {
       // PdxInstance is using us to flush its dirty fields
       return;
@@ -226,23 +251,41 @@ public class PdxWriterImpl implements PdxWriter {
   }
 
   public PdxWriter writeInt(String fieldName, int value) {
+    final boolean compact = markCompactField();
     updateMetaData(fieldName, FieldType.INT);
-    this.os.writeInt(value);
+    writeIntValue(compact, value);
     return this;
   }
   public void writeInt(int value) {
+    final boolean compact = markCompactField();
     beforeFieldWrite();
-    this.os.writeInt(value);
+    writeIntValue(compact, value);
+  }
+  private void writeIntValue(boolean compact, int value) {
+    if (compact) {
+      this.compactSavings += DataSize.INTEGER_SIZE - this.os.writeSignedVL(value);
+    } else {
+      this.os.writeInt(value);
+    }
   }
 
   public PdxWriter writeLong(String fieldName, long value) {
+    final boolean compact = markCompactField();
     updateMetaData(fieldName, FieldType.LONG);
-    this.os.writeLong(value);
+    writeLongValue(compact, value);
     return this;
   }
   public void writeLong(long value) {
+    final boolean compact = markCompactField();
     beforeFieldWrite();
-    this.os.writeLong(value);
+    writeLongValue(compact, value);
+  }
+  private void writeLongValue(boolean compact, long value) {
+    if (compact) {
+      this.compactSavings += DataSize.LONG_SIZE - this.os.writeSignedVL(value);
+    } else {
+      this.os.writeLong(value);
+    }
   }
 
   public PdxWriter writeFloat(String fieldName, float value) {
@@ -538,6 +581,7 @@ public class PdxWriterImpl implements PdxWriter {
     int fieldDataSize = getCurrentOffset();
     // Take the list of offsets and append it in reverse order.
     byte sizeOfOffset = getSizeOfOffset(this.vlfCount, fieldDataSize);
+    this.compactSavings -= this.compactOffsetCount * sizeOfOffset;
     // System.out.println("Size of each offset: " + sizeOfOffset +
     // " byte(s), curPos: " + this.curPos + ", numOfOffsets: " +
     // this.offsetIndex);
@@ -603,6 +647,40 @@ public class PdxWriterImpl implements PdxWriter {
     }
   }
   
+  /**
+   * Called before writing an int or long field. If the type being written
+   * uses the compact encoding the field is marked as a variable length field.
+   * @return true if the field should be written compactly
+   */
+  private boolean markCompactField() {
+    initialize();
+    if (!this.compactEncoding) {
+      return false;
+    }
+    if (this.hasSeenFirstVlf) {
+      this.compactOffsetCount++;
+    }
+    markVariableField();
+    return true;
+  }
+
+  /**
+   * Returns true if the int and long fields were written with the compact
+   * encoding.
+   */
+  public boolean getCompactEncoding() {
+    return this.compactEncoding;
+  }
+
+  /**
+   * Returns the number of bytes the compact encoding saved compared to
+   * writing the int and long fields at their fixed width. Only valid
+   * after {@link #completeByteStreamGeneration()}.
+   */
+  public int getCompactEncodingSavings() {
+    return this.compactSavings;
+  }
+
   /**
    * Make sure we have room to add a VLF offset.
    */
@@ -717,7 +795,17 @@ public class PdxWriterImpl implements PdxWriter {
     }
   }
 
+  /**
+   * Writes the raw bytes of a field. Raw int and long fields are always at
+   * their fixed width (see {@link PdxReaderImpl#getRaw(PdxField)}) and are
+   * converted if the type being written uses the compact encoding.
+   */
   public void writeRawField(PdxField ft, ByteSource data) {
+    if (PdxType.isCompactFieldType(ft.getFieldType())) {
+      final int pos = data.position();
+      writeRawNumber(ft, ft.getFieldType() == FieldType.INT ? data.getInt(pos) : data.getLong(pos));
+      return;
+    }
     if (ft.isVariableLengthType()) {
       markVariableField();
     }
@@ -726,6 +814,11 @@ public class PdxWriterImpl implements PdxWriter {
   }
   
   public void writeRawField(PdxField ft, byte[] data) {
+    if (PdxType.isCompactFieldType(ft.getFieldType())) {
+      final ByteBuffer bb = ByteBuffer.wrap(data);
+      writeRawNumber(ft, ft.getFieldType() == FieldType.INT ? bb.getInt(0) : bb.getLong(0));
+      return;
+    }
     if (ft.isVariableLengthType()) {
       markVariableField();
     }
@@ -733,6 +826,16 @@ public class PdxWriterImpl implements PdxWriter {
     this.os.write(data, 0, data.length);
   }
 
+  private void writeRawNumber(PdxField ft, long value) {
+    final boolean compact = markCompactField();
+    updateMetaData(ft);
+    if (ft.getFieldType() == FieldType.INT) {
+      writeIntValue(compact, (int)value);
+    } else {
+      writeLongValue(compact, value);
+    }
+  }
+
   void writeField(PdxField f, Object value)  {
     switch (f.getFieldType()) {
     case CHAR:
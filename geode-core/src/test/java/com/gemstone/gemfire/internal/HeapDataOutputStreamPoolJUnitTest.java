@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests {@link HeapDataOutputStreamPool}.
+ */
+@Category(UnitTest.class)
+public class HeapDataOutputStreamPoolJUnitTest {
+
+  private boolean wasEnabled;
+
+  @Before
+  public void setUp() {
+    this.wasEnabled = HeapDataOutputStreamPool.ENABLED;
+    HeapDataOutputStreamPool.ENABLED = true;
+    HeapDataOutputStreamPool.clear();
+  }
+
+  @After
+  public void tearDown() {
+    HeapDataOutputStreamPool.ENABLED = this.wasEnabled;
+    HeapDataOutputStreamPool.clear();
+  }
+
+  @Test
+  public void testReleasedStreamIsReused() throws Exception {
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(100, Version.CURRENT);
+    DataSerializer.writeString("hello", hdos);
+    assertTrue(HeapDataOutputStreamPool.release(hdos));
+
+    HeapDataOutputStream again = HeapDataOutputStreamPool.acquire(100, null);
+    assertSame(hdos, again);
+    assertEquals(0, again.size());
+    assertNull(again.getVersion());
+    HeapDataOutputStreamPool.release(again);
+  }
+
+  @Test
+  public void testAcquireUsesSizeClasses() {
+    HeapDataOutputStream small = HeapDataOutputStreamPool.acquire(10, Version.CURRENT);
+    assertEquals(1024, small.getBufferCapacity());
+    HeapDataOutputStream large = HeapDataOutputStreamPool.acquire(5000, Version.CURRENT);
+    assertEquals(16384, large.getBufferCapacity());
+    HeapDataOutputStreamPool.release(small);
+    HeapDataOutputStreamPool.release(large);
+
+    // a stream is never smaller than asked for but may be bigger
+    assertSame(large, HeapDataOutputStreamPool.acquire(2000, Version.CURRENT));
+    assertNotSame(small, HeapDataOutputStreamPool.acquire(2000, Version.CURRENT));
+    assertSame(small, HeapDataOutputStreamPool.acquire(10, Version.CURRENT));
+  }
+
+  @Test
+  public void testStreamsTooBigAreNotPooled() {
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(100000, Version.CURRENT);
+    assertFalse(HeapDataOutputStreamPool.release(hdos));
+    assertNotSame(hdos, HeapDataOutputStreamPool.acquire(100000, Version.CURRENT));
+  }
+
+  @Test
+  public void testExposedStreamIsNotReused() {
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(Version.CURRENT);
+    hdos.writeInt(7);
+    byte[] bytes = hdos.toByteArray();
+    assertTrue(HeapDataOutputStreamPool.release(hdos));
+    assertNotSame(hdos, HeapDataOutputStreamPool.acquire(Version.CURRENT));
+    assertEquals(4, bytes.length);
+  }
+
+  @Test
+  public void testDoubleReleaseIsIgnored() {
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(Version.CURRENT);
+    assertTrue(HeapDataOutputStreamPool.release(hdos));
+    assertFalse(HeapDataOutputStreamPool.release(hdos));
+    assertFalse(HeapDataOutputStreamPool.release(new HeapDataOutputStream(Version.CURRENT)));
+    assertSame(hdos, HeapDataOutputStreamPool.acquire(Version.CURRENT));
+    assertNotSame(hdos, HeapDataOutputStreamPool.acquire(Version.CURRENT));
+  }
+
+  @Test
+  public void testDisabledPoolCreatesStreams() {
+    HeapDataOutputStreamPool.ENABLED = false;
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(Version.CURRENT);
+    assertFalse(HeapDataOutputStreamPool.release(hdos));
+    assertNotSame(hdos, HeapDataOutputStreamPool.acquire(Version.CURRENT));
+  }
+
+  @Test
+  public void testCopyToByteArrayKeepsChunks() {
+    HeapDataOutputStream hdos = HeapDataOutputStreamPool.acquire(Version.CURRENT);
+    byte[] expected = new byte[3000];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte)i;
+    }
+    hdos.write(expected, 0, expected.length);
+    assertTrue(Arrays.equals(expected, hdos.copyToByteArray()));
+    assertTrue(Arrays.equals(expected, hdos.copyToByteArray()));
+    assertTrue(hdos.isReusable());
+    HeapDataOutputStreamPool.release(hdos);
+    assertSame(hdos, HeapDataOutputStreamPool.acquire(Version.CURRENT));
+  }
+
+  @Test
+  public void testSerializeToBlobWithPool() throws Exception {
+    byte[] first = BlobHelper.serializeToBlob("value1");
+    byte[] second = BlobHelper.serializeToBlob("value2");
+    assertEquals("value1", BlobHelper.deserializeBlob(first));
+    assertEquals("value2", BlobHelper.deserializeBlob(second));
+    HeapDataOutputStream pooled = HeapDataOutputStreamPool.acquire(Version.CURRENT);
+    assertEquals(0, pooled.size());
+    assertNotSame(first, second);
+  }
+}
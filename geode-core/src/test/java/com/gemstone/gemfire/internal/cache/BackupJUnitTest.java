@@ -291,6 +291,52 @@ public class BackupJUnitTest {
     assertNull(region.get("A"));
   }
   
+  @Test
+  public void testBackupWithHardLinks() throws IOException, InterruptedException {
+    DiskStoreImpl.BACKUP_WITH_HARD_LINKS = true;
+    try {
+      DiskStoreFactory dsf = cache.createDiskStoreFactory();
+      dsf.setDiskDirs(diskDirs);
+      dsf.setMaxOplogSize(1);
+      dsf.setAutoCompact(false);
+      dsf.setAllowForceCompaction(true);
+      dsf.setCompactionThreshold(20);
+      DiskStoreImpl ds = (DiskStoreImpl) dsf.create("diskStore");
+      Region region = createRegion();
+
+      //Put enough data to roll some oplogs
+      for(int i =0; i < 1024; i++) {
+        region.put(i, getBytes(i));
+      }
+
+      RestoreScript script= new RestoreScript();
+      ds.startBackup(backupDir, null, script);
+
+      //Compacting deletes the live oplogs, which must not affect the links
+      for(int i =2; i < 1024; i++) {
+        assertTrue(region.destroy(i) != null);
+      }
+      assertTrue(ds.forceCompaction());
+      region.put("A", "A");
+
+      ds.finishBackup(new BackupManager(cache.getDistributedSystem().getDistributedMember(), cache));
+      script.generate(backupDir);
+      assertTrue(ds.getStats().getBackupBytesLinked() > 1024 * 1024);
+      assertEquals(0, ds.getStats().getBackupBytesCopied());
+
+      cache.close();
+      destroyDiskDirs();
+      restoreBackup(false);
+      createCache();
+      createDiskStore();
+      region = createRegion();
+      validateEntriesExist(region, 0, 1024);
+      assertNull(region.get("A"));
+    } finally {
+      DiskStoreImpl.BACKUP_WITH_HARD_LINKS = false;
+    }
+  }
+
   @Test
   public void testBackupCacheXml() throws Exception {
     DiskStoreImpl ds = createDiskStore();
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.compression.SnappyCompressor;
+import com.gemstone.gemfire.internal.cache.lru.LRUEntry;
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntryHelper;
+import com.gemstone.gemfire.internal.offheap.StoredObject;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class ColdValueCompressorJUnitTest {
+
+  private GemFireCacheImpl cache;
+  private LocalRegion region;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(OFF_HEAP_MEMORY_SIZE, "2m");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+    Region<Object, Object> r = this.cache.createRegionFactory(RegionShortcut.LOCAL).setOffHeap(true)
+        .setCompressor(new SnappyCompressor())
+        .setEvictionAttributes(EvictionAttributes.createLRUMemoryAttributes(100, null, EvictionAction.LOCAL_DESTROY))
+        .create("coldValues");
+    this.region = (LocalRegion) r;
+  }
+
+  @After
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  private static String value() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      sb.append("value ");
+    }
+    return sb.toString();
+  }
+
+  private boolean isCompressed(RegionEntry re) {
+    return ((StoredObject) OffHeapRegionEntryHelper._getValue((OffHeapRegionEntry) re)).isCompressed();
+  }
+
+  private int sweep(RegionEntry re) {
+    return ColdValueCompressor.sweepEntry(this.region, (AbstractLRURegionMap) this.region.getRegionMap(), re);
+  }
+
+  @Test
+  public void valuesAreCompressedWhenColdAndDecompressedWhenHot() {
+    this.region.put("key", value());
+    RegionEntry re = this.region.getRegionEntry("key");
+    assertEquals(!ColdValueCompressor.ENABLED, isCompressed(re));
+    int compressedSize = 0;
+
+    // written since the last sweep so it is hot
+    assertEquals(ColdValueCompressor.ENABLED ? 0 : -1, sweep(re));
+    assertFalse(isCompressed(re));
+    int uncompressedSize = ((LRUEntry) re).getEntrySize();
+
+    // not used since then
+    assertEquals(1, sweep(re));
+    assertTrue(isCompressed(re));
+    compressedSize = ((LRUEntry) re).getEntrySize();
+    assertTrue(compressedSize < uncompressedSize);
+    assertEquals(0, sweep(re));
+    assertEquals(value(), this.region.get("key"));
+
+    // read since the last sweep
+    assertEquals(-1, sweep(re));
+    assertFalse(isCompressed(re));
+    assertEquals(uncompressedSize, ((LRUEntry) re).getEntrySize());
+    assertEquals(value(), this.region.get("key"));
+    assertEquals(0, sweep(re));
+    assertFalse(isCompressed(re));
+
+    CachePerfStats stats = this.region.getCachePerfStats();
+    assertEquals(1, stats.getTotalBackgroundCompressions());
+    assertEquals(ColdValueCompressor.ENABLED ? 1 : 2, stats.getTotalBackgroundDecompressions());
+  }
+
+  @Test
+  public void sweepLeavesTheRecentlyUsedBitToTheLRUClock() {
+    this.region.put("key", value());
+    RegionEntry re = this.region.getRegionEntry("key");
+    assertTrue(((LRUEntry) re).testRecentlyUsed());
+
+    sweep(re);
+    assertEquals(1, sweep(re));
+
+    assertTrue(((LRUEntry) re).testRecentlyUsed());
+  }
+
+  @Test
+  public void sweepLooksAtOneBatchOfEntriesPerRun() {
+    for (int i = 0; i < 5; i++) {
+      this.region.put("key" + i, value());
+    }
+    ColdValueCompressor compressor = new ColdValueCompressor(this.cache, 2);
+
+    compressor.sweep(this.region);
+    assertEquals(3, countUsedSinceSweep());
+
+    for (int i = 0; i < 5; i++) {
+      this.region.put("key" + i, value());
+    }
+    // carries on with the three entries it has not looked at yet
+    compressor.sweep(this.region);
+    compressor.sweep(this.region);
+    assertEquals(2, countUsedSinceSweep());
+  }
+
+  private int countUsedSinceSweep() {
+    int result = 0;
+    for (Object key : this.region.keySet()) {
+      AbstractRegionEntry re = (AbstractRegionEntry) this.region.getRegionEntry(key);
+      if (re.checkAndClearUsedSinceSweep()) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void destroyedEntriesAreLeftAlone() {
+    this.region.put("key", value());
+    RegionEntry re = this.region.getRegionEntry("key");
+    this.region.destroy("key");
+    assertEquals(0, sweep(re));
+    assertEquals(0, this.cache.getOffHeapStore().getUsedMemory());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactionThrottleJUnitTest {
+
+  private static final long ONE_MB = 1024 * 1024;
+
+  private static final BooleanSupplier NEVER_STOPPED = new BooleanSupplier() {
+    @Override
+    public boolean getAsBoolean() {
+      return false;
+    }
+  };
+
+  private DiskStoreStats stats;
+
+  @Before
+  public void setUp() {
+    this.stats = new DiskStoreStats(new LocalStatisticsFactory(null), "test");
+  }
+
+  @Test
+  public void testBurstIsNotThrottled() {
+    CompactionThrottle throttle = new CompactionThrottle(ONE_MB, this.stats);
+    long now = System.nanoTime();
+    // 100ms worth of bytes is allowed without waiting
+    assertEquals(0, throttle.reserve((int) (ONE_MB / 20), now));
+    assertEquals(0, throttle.reserve((int) (ONE_MB / 20), now));
+  }
+
+  @Test
+  public void testWaitsForBytesOverTheBurst() {
+    CompactionThrottle throttle = new CompactionThrottle(ONE_MB, this.stats);
+    long now = System.nanoTime();
+    assertEquals(0, throttle.reserve((int) (ONE_MB / 10), now));
+    long wait = throttle.reserve((int) (ONE_MB / 2), now);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(500), wait, TimeUnit.MICROSECONDS.toNanos(10));
+  }
+
+  @Test
+  public void testBudgetRefillsOverTime() {
+    CompactionThrottle throttle = new CompactionThrottle(ONE_MB, this.stats);
+    long now = System.nanoTime();
+    assertTrue(throttle.reserve((int) ONE_MB, now) > 0);
+    // a second later the megabyte is paid for
+    assertEquals(0, throttle.reserve((int) (ONE_MB / 10), now + TimeUnit.SECONDS.toNanos(1)));
+    // idle time is not saved up beyond the burst
+    long later = now + TimeUnit.SECONDS.toNanos(60);
+    assertEquals(0, throttle.reserve((int) (ONE_MB / 10), later));
+    assertTrue(throttle.reserve((int) (ONE_MB / 10), later) > 0);
+  }
+
+  @Test
+  public void testAwaitRecordsWait() {
+    CompactionThrottle throttle = new CompactionThrottle(ONE_MB, this.stats);
+    assertTrue(throttle.await(throttle.reserve((int) (ONE_MB / 10)), NEVER_STOPPED));
+    assertEquals(0, this.stats.getCompactThrottles());
+    long wait = throttle.reserve((int) (ONE_MB / 4));
+    assertTrue(wait > 0);
+    assertTrue(throttle.await(wait, NEVER_STOPPED));
+    assertEquals(1, this.stats.getCompactThrottles());
+  }
+
+  @Test
+  public void testAwaitStopsWhenStopped() {
+    CompactionThrottle throttle = new CompactionThrottle(ONE_MB, this.stats);
+    final AtomicInteger checks = new AtomicInteger();
+    long start = System.nanoTime();
+    assertFalse(throttle.await(TimeUnit.SECONDS.toNanos(60), new BooleanSupplier() {
+      @Override
+      public boolean getAsBoolean() {
+        return checks.incrementAndGet() > 2;
+      }
+    }));
+    assertEquals(3, checks.get());
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    assertEquals(1, this.stats.getCompactThrottles());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRateMustBePositive() {
+    new CompactionThrottle(0, this.stats);
+  }
+}
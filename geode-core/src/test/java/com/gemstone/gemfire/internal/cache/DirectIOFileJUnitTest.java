@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class DirectIOFileJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  @After
+  public void tearDown() {
+    OverflowOplog.DIRECT_IO = false;
+    DirectIOFile.UNSUPPORTED_FOR_TESTS = false;
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private DirectIOFile open() throws Exception {
+    assumeTrue(DirectIOFile.isSupported());
+    File f = this.temporaryFolder.newFile("direct.crf");
+    try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+      raf.setLength(4 * DirectIOFile.WRITE_BUFFER_SIZE);
+    }
+    DirectIOFile direct = DirectIOFile.open(f);
+    assumeNotNull(direct);
+    return direct;
+  }
+
+  private static void assertBytes(DirectIOFile direct, byte[] expected, int pos, int length) throws Exception {
+    byte[] actual = new byte[length];
+    direct.readFully(pos, actual, 0, length);
+    assertArrayEquals(Arrays.copyOfRange(expected, pos, pos + length), actual);
+  }
+
+  @Test
+  public void readsWhatWasAppended() throws Exception {
+    DirectIOFile direct = open();
+    byte[] data = new byte[3 * DirectIOFile.WRITE_BUFFER_SIZE + 1234];
+    Random random = new Random(17);
+    random.nextBytes(data);
+
+    int written = 0;
+    while (written < data.length) {
+      int n = Math.min(data.length - written, 1 + random.nextInt(10000));
+      direct.write(ByteBuffer.wrap(data, written, n));
+      written += n;
+      assertEquals(written, direct.position());
+      if (random.nextInt(4) == 0) {
+        direct.flush();
+      }
+      // read back the last record, which may still be buffered
+      assertBytes(direct, data, written - n, n);
+    }
+
+    // ranges on disk, in the buffer, across the two and across blocks
+    for (int i = 0; i < 1000; i++) {
+      int pos = random.nextInt(data.length);
+      int length = random.nextInt(Math.min(data.length - pos, 3 * DirectIOFile.READ_BUFFER_SIZE) + 1);
+      assertBytes(direct, data, pos, length);
+    }
+
+    direct.finishAppending();
+    assertEquals(data.length, direct.position());
+    assertBytes(direct, data, 0, data.length);
+    assertBytes(direct, data, data.length - 10, 10);
+    direct.close();
+  }
+
+  @Test
+  public void openReturnsNullWhenUnsupported() throws Exception {
+    DirectIOFile.UNSUPPORTED_FOR_TESTS = true;
+    assertFalse(DirectIOFile.isSupported());
+    assertNull(DirectIOFile.open(this.temporaryFolder.newFile("direct.crf")));
+  }
+
+  @Test
+  public void overflowOplogsUsePageCacheWhenDirectIOIsOff() throws Exception {
+    Region<Integer, byte[]> region = createOverflowRegion();
+    fillAndCheck(region);
+    for (OverflowOplog oplog : getOverflowOplogs(region)) {
+      assertFalse(oplog.isDirectIO());
+    }
+  }
+
+  @Test
+  public void overflowOplogsFallBackToPageCacheWhenUnsupported() throws Exception {
+    DirectIOFile.UNSUPPORTED_FOR_TESTS = true;
+    OverflowOplog.DIRECT_IO = true;
+    Region<Integer, byte[]> region = createOverflowRegion();
+    fillAndCheck(region);
+    for (OverflowOplog oplog : getOverflowOplogs(region)) {
+      assertFalse(oplog.isDirectIO());
+    }
+  }
+
+  @Test
+  public void overflowRegionWithDirectIO() throws Exception {
+    OverflowOplog.DIRECT_IO = true;
+    fillAndCheck(createOverflowRegion());
+  }
+
+  private Region<Integer, byte[]> createOverflowRegion() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+    this.cache.createDiskStoreFactory().setDiskDirs(new File[] { this.temporaryFolder.newFolder("overflow") })
+        .setMaxOplogSize(1).create("overflow");
+    Region<Integer, byte[]> region = this.cache.<Integer, byte[]> createRegionFactory(RegionShortcut.LOCAL_OVERFLOW)
+        .setDiskStoreName("overflow")
+        .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(10, EvictionAction.OVERFLOW_TO_DISK))
+        .create("region");
+    return region;
+  }
+
+  private static List<OverflowOplog> getOverflowOplogs(Region<?, ?> region) {
+    List<OverflowOplog> oplogs = ((LocalRegion)region).getDiskStore().testHookGetAllOverflowOplogs();
+    assertFalse(oplogs.isEmpty());
+    return oplogs;
+  }
+
+  private static void fillAndCheck(Region<Integer, byte[]> region) {
+    for (int i = 0; i < 3000; i++) {
+      region.put(i, value(i, 0));
+    }
+    for (int i = 0; i < 3000; i += 3) {
+      region.put(i, value(i, 1));
+    }
+    for (int i = 0; i < 3000; i++) {
+      assertArrayEquals(value(i, i % 3 == 0 ? 1 : 0), region.get(i));
+    }
+  }
+
+  private static byte[] value(int i, int version) {
+    byte[] bytes = new byte[500 + i % 1000];
+    Arrays.fill(bytes, (byte)(i + version));
+    return bytes;
+  }
+}
@@ -781,6 +781,41 @@ public class DiskIFJUnitTest extends DiskRegionTestingBase
     assertEquals(null, store.getPersistentPRConfig("pr1"));
   }
   
+  @Test
+  public void testIFCompactedOnRecovery() throws Exception {
+    DiskStoreImpl store = (DiskStoreImpl) cache.createDiskStoreFactory().create("testStore");
+    PRPersistentConfig config = new PRPersistentConfig(5, "j");
+    store.addPersistentPR("pr", config);
+
+    // fill the file with garbage without letting it compact
+    long minSize = DiskInitFile.MIN_SIZE_BEFORE_COMPACT;
+    DiskInitFile.MIN_SIZE_BEFORE_COMPACT = Long.MAX_VALUE;
+    try {
+      for (int i = 0; i < 30000; i++) {
+        store.addPersistentPR("partitionedRegion" + i, config);
+        store.removePersistentPR("partitionedRegion" + i);
+      }
+      assertTrue(store.getDiskInitFile().getTotalRecordCount() > 60000);
+    } finally {
+      DiskInitFile.MIN_SIZE_BEFORE_COMPACT = minSize;
+    }
+
+    //recover the store, which should compact it
+    cache.close();
+    cache =createCache();
+    store = (DiskStoreImpl) cache.createDiskStoreFactory().create("testStore");
+    assertTrue(store.getDiskInitFile().getTotalRecordCount() < 100);
+    assertEquals(config, store.getPersistentPRConfig("pr"));
+    assertEquals(null, store.getPersistentPRConfig("partitionedRegion0"));
+
+    //recover the store again
+    cache.close();
+    cache =createCache();
+    store = (DiskStoreImpl) cache.createDiskStoreFactory().create("testStore");
+    assertTrue(store.getDiskInitFile().getTotalRecordCount() < 100);
+    assertEquals(config, store.getPersistentPRConfig("pr"));
+  }
+
   private void close(LocalRegion lr) {
     lr.close();
     lr.getDiskStore().close();
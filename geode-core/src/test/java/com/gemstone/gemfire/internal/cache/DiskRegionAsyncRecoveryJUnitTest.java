@@ -41,6 +41,7 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     DiskStoreObserver.setInstance(null);
     System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "true");
     System.setProperty(DiskStoreImpl.RECOVER_VALUES_SYNC_PROPERTY_NAME, "false");
+    System.clearProperty(DiskStoreImpl.RECOVER_VALUES_BY_BUCKET_PROPERTY_NAME);
   }
   
   @Test
@@ -319,6 +320,60 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     }
   }
   
+  @Test
+  public void testRecoverValuesByBucketProperty() throws InterruptedException {
+    System.setProperty(DiskStoreImpl.RECOVER_VALUES_BY_BUCKET_PROPERTY_NAME, "true");
+    Region region = createRegion();
+    Region region2 = createRegion("region2");
+    
+    putEntries(region, 0, 50, "A");
+    putEntries(region2, 0, 50, "A");
+    
+    cache.close();
+    
+    cache =createCache();
+
+    final CountDownLatch suspendRecovery = new CountDownLatch(1);
+    final CountDownLatch recoveryDone = new CountDownLatch(1);
+    DiskStoreObserver.setInstance(new DiskStoreObserver() {
+      
+      @Override
+      public void beforeAsyncValueRecovery(DiskStoreImpl store) {
+        try {
+          suspendRecovery.await();
+        } catch (InterruptedException e) {
+          fail("interrupted");
+        }
+      }
+
+      @Override
+      public void afterAsyncValueRecovery(DiskStoreImpl store) {
+        recoveryDone.countDown();
+      }
+    });
+    try {
+    region = createRegion();
+    region2 = createRegion("region2");
+    
+    // reads are served from disk while the values are not loaded
+    checkEntriesInMemory(region2, 0, 50, "A", false);
+    checkEntries(region2, 0, 40, "A");
+    
+    putEntries(region2, 0, 10, "B");
+    removeEntries(region2, 20, 30);
+    
+    suspendRecovery.countDown();
+    recoveryDone.await();
+    
+    checkEntriesInMemory(region, 0, 50, "A", true);
+    checkEntriesInMemory(region2, 0, 10, "B", true);
+    checkEntries(region2, 20, 30, null);
+    checkEntriesInMemory(region2, 30, 50, "A", true);
+    } finally {
+      suspendRecovery.countDown();
+    }
+  }
+  
   @Test
   public void testCloseOpenRegion() throws InterruptedException {
     Region region = createRegion();
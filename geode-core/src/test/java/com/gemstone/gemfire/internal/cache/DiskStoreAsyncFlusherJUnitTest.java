@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests the statistics and the wait of the async flusher of a disk store.
+ */
+@Category(IntegrationTest.class)
+public class DiskStoreAsyncFlusherJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private File diskDir;
+
+  @Before
+  public void setUp() throws Exception {
+    this.diskDir = this.temporaryFolder.newFolder("async");
+    createCache();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private void createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+  }
+
+  private Region<Integer, String> createRegion(int queueSize) {
+    this.cache.createDiskStoreFactory().setDiskDirs(new File[] { this.diskDir })
+        .setQueueSize(queueSize).setTimeInterval(60000).create("asyncStore");
+    return this.cache.<Integer, String> createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("asyncStore").setDiskSynchronous(false).create("region");
+  }
+
+  private DiskStoreImpl getDiskStore() {
+    return (DiskStoreImpl)this.cache.findDiskStore("asyncStore");
+  }
+
+  @Test
+  public void updatesOfAQueuedEntryAreCoalesced() {
+    Region<Integer, String> region = createRegion(1000);
+    for (int i = 0; i < 100; i++) {
+      region.put(1, "value" + i);
+    }
+    region.destroy(1);
+    region.put(2, "two");
+    DiskStoreStats stats = getDiskStore().getStats();
+    assertEquals(102, stats.getQueueSize());
+
+    // every operation is queued to keep the version vector, but only the
+    // first item of each entry writes its value
+    getDiskStore().forceFlush();
+    assertEquals(100, stats.getAsyncCoalescedWrites());
+    assertEquals(0, stats.getAsyncProducerStalls());
+    this.cache.close();
+    createCache();
+    region = createRegion(1000);
+    assertFalse(region.containsKey(1));
+    assertEquals("two", region.get(2));
+  }
+
+  @Test
+  public void producersWriteThroughAFullQueue() {
+    Region<Integer, String> region = createRegion(1);
+    DiskStoreStats stats = getDiskStore().getStats();
+    // the flusher may drain between puts, so only some of them have to stall
+    for (int i = 0; i < 100; i++) {
+      region.put(i, "value" + i);
+    }
+    assertTrue(stats.getAsyncProducerStalls() > 0);
+
+    getDiskStore().forceFlush();
+    this.cache.close();
+    createCache();
+    region = createRegion(1);
+    for (int i = 0; i < 100; i++) {
+      assertEquals("value" + i, region.get(i));
+    }
+  }
+
+  @Test
+  public void flusherWaitShrinksWithTheBacklog() {
+    Region<Integer, String> region = createRegion(4);
+    DiskStoreImpl store = getDiskStore();
+    assertEquals(60000, store.getFlusherWaitTime(60000));
+    region.put(1, "one");
+    region.put(2, "two");
+    assertEquals(60000, store.getFlusherWaitTime(60000));
+    region.put(3, "three");
+    assertEquals(30000, store.getFlusherWaitTime(60000));
+    assertEquals(0, store.getFlusherWaitTime(0));
+  }
+
+  @Test
+  public void flusherIsSignalledOnceWhenTheQueuePassesHalfFull() {
+    Region<Integer, String> region = createRegion(8);
+    DiskStoreImpl store = getDiskStore();
+    for (int i = 0; i < 4; i++) {
+      region.put(i, "value" + i);
+    }
+    assertFalse(store.isFlusherSignalled());
+    region.put(4, "value4");
+    assertTrue(store.isFlusherSignalled());
+
+    store.forceFlush();
+    assertFalse(store.isFlusherSignalled());
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.DiskAccessException;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OplogChecksumJUnitTest {
+
+  private static final String STORE_NAME = "checksums";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File dir;
+  private GemFireCacheImpl cache;
+  private Region<Integer, byte[]> region;
+
+  @Before
+  public void setUp() throws Exception {
+    Oplog.RECORD_CHECKSUMS = true;
+    this.dir = this.temporaryFolder.newFolder(STORE_NAME);
+  }
+
+  @After
+  public void tearDown() {
+    Oplog.RECORD_CHECKSUMS = false;
+    closeCache();
+  }
+
+  private void createRegion() {
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+    this.cache.createDiskStoreFactory().setDiskDirs(new File[] { this.dir }).setMaxOplogSize(1).setAutoCompact(false)
+        .create(STORE_NAME);
+    this.region = this.cache.<Integer, byte[]> createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(STORE_NAME).create("checksummed");
+  }
+
+  private void closeCache() {
+    if (this.cache != null) {
+      this.cache.close();
+      this.cache = null;
+    }
+  }
+
+  private DiskStoreImpl getDiskStore() {
+    return (DiskStoreImpl) this.cache.findDiskStore(STORE_NAME);
+  }
+
+  private static byte[] value(int i) {
+    byte[] bytes = new byte[1000];
+    Arrays.fill(bytes, (byte) i);
+    return bytes;
+  }
+
+  private void putEntries() {
+    for (int i = 0; i < 2000; i++) {
+      this.region.put(i, value(i));
+    }
+    for (int i = 0; i < 2000; i += 10) {
+      this.region.destroy(i);
+    }
+  }
+
+  private void checkEntries() {
+    assertEquals(1800, this.region.size());
+    for (int i = 0; i < 2000; i++) {
+      if (i % 10 == 0) {
+        assertNull(this.region.get(i));
+      } else {
+        assertArrayEquals(value(i), this.region.get(i));
+      }
+    }
+  }
+
+  private File[] listFiles(final String extension) {
+    File[] files = this.dir.listFiles((d, name) -> name.endsWith(extension));
+    Arrays.sort(files);
+    return files;
+  }
+
+  /**
+   * Flips a byte in the middle of the first run of <code>length</code>
+   * copies of <code>b</code> found in the files.
+   */
+  private static void corrupt(File[] files, byte b, int length) throws IOException {
+    for (File f : files) {
+      byte[] bytes = Files.readAllBytes(f.toPath());
+      int run = 0;
+      for (int i = 0; i < bytes.length; i++) {
+        run = bytes[i] == b ? run + 1 : 0;
+        if (run == length) {
+          bytes[i - length / 2] ^= 0x10;
+          Files.write(f.toPath(), bytes);
+          return;
+        }
+      }
+    }
+    fail("did not find the bytes to corrupt");
+  }
+
+  @Test
+  public void recordsAreVerifiedWhenTheCrfIsRecovered() {
+    createRegion();
+    putEntries();
+    closeCache();
+    // without the krfs the keys are recovered from the crfs
+    for (File krf : listFiles(Oplog.KRF_FILE_EXT)) {
+      assertTrue(krf.delete());
+    }
+
+    createRegion();
+    checkEntries();
+    assertTrue(getDiskStore().getVerifiedChecksums() >= 2000);
+  }
+
+  @Test
+  public void oplogsWithoutChecksumsCanStillBeRecovered() {
+    Oplog.RECORD_CHECKSUMS = false;
+    createRegion();
+    putEntries();
+    closeCache();
+
+    Oplog.RECORD_CHECKSUMS = true;
+    createRegion();
+    checkEntries();
+    for (int i = 0; i < 2000; i += 10) {
+      this.region.put(i, value(i));
+    }
+    closeCache();
+
+    createRegion();
+    assertEquals(2000, this.region.size());
+    for (int i = 0; i < 2000; i++) {
+      assertArrayEquals(value(i), this.region.get(i));
+    }
+  }
+
+  @Test
+  public void oplogsWithChecksumsCanBeRecoveredWithChecksumsOff() {
+    createRegion();
+    putEntries();
+    closeCache();
+    for (File krf : listFiles(Oplog.KRF_FILE_EXT)) {
+      assertTrue(krf.delete());
+    }
+
+    Oplog.RECORD_CHECKSUMS = false;
+    createRegion();
+    checkEntries();
+    // the records were written with checksums so they are still verified
+    assertTrue(getDiskStore().getVerifiedChecksums() >= 2000);
+  }
+
+  @Test
+  public void validationFindsACorruptValue() throws Exception {
+    createRegion();
+    putEntries();
+    closeCache();
+    DiskStoreImpl.validate(STORE_NAME, new File[] { this.dir }, true);
+
+    corrupt(listFiles(Oplog.CRF_FILE_EXT), (byte) 77, 1000);
+    try {
+      DiskStoreImpl.validate(STORE_NAME, new File[] { this.dir }, false);
+      fail("expected DiskAccessException");
+    } catch (DiskAccessException expected) {
+    }
+  }
+
+  @Test
+  public void deepValidationFindsACorruptKrf() throws Exception {
+    createRegion();
+    putEntries();
+    closeCache();
+    File[] krfs = listFiles(Oplog.KRF_FILE_EXT);
+    assertTrue(krfs.length > 0);
+    DiskStoreImpl.validate(STORE_NAME, new File[] { this.dir }, true);
+
+    // flip a bit of the checksum itself
+    byte[] bytes = Files.readAllBytes(krfs[0].toPath());
+    bytes[bytes.length - 3] ^= 0x01;
+    Files.write(krfs[0].toPath(), bytes);
+    DiskStoreImpl.validate(STORE_NAME, new File[] { this.dir }, false);
+    try {
+      DiskStoreImpl.validate(STORE_NAME, new File[] { this.dir }, true);
+      fail("expected IOException");
+    } catch (IOException expected) {
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OplogGroupCommitterJUnitTest {
+
+  /** Stands in for the oplog lock that records are appended under. */
+  private final Object lock = new Object();
+
+  private DiskStoreStats stats;
+  private TestFlusher flusher;
+  private OplogGroupCommitter committer;
+
+  @Before
+  public void setUp() {
+    this.stats = new DiskStoreStats(new LocalStatisticsFactory(null), "test");
+    this.flusher = new TestFlusher();
+    this.committer = new OplogGroupCommitter(this.flusher, this.stats);
+  }
+
+  @Test
+  public void singleWriterCommitsItsOwnRecord() throws Exception {
+    this.committer.awaitCommit(append());
+    assertEquals(1, this.flusher.writes.get());
+    assertEquals(1, this.flusher.forces.get());
+    assertEquals(1, this.flusher.durable);
+    assertEquals(1, this.stats.getGroupCommits());
+    assertEquals(1, this.stats.getGroupCommitRecords());
+  }
+
+  @Test
+  public void writersThatArriveDuringACommitShareTheNextOne() throws Exception {
+    final int waiters = 8;
+    this.flusher.blockFirstWrite();
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    Thread leader = startWriter(failures);
+    assertTrue(this.flusher.firstWriteStarted.await(30, TimeUnit.SECONDS));
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < waiters; i++) {
+      threads.add(startWriter(failures));
+    }
+    // every waiter has appended once the appended ticket says so
+    while (true) {
+      synchronized (this.lock) {
+        if (this.committer.getAppended() == waiters + 1) {
+          break;
+        }
+      }
+      Thread.sleep(1);
+    }
+    this.flusher.releaseFirstWrite.countDown();
+    leader.join(30000);
+    for (Thread t : threads) {
+      t.join(30000);
+    }
+    assertTrue(failures.toString(), failures.isEmpty());
+    assertEquals(2, this.flusher.writes.get());
+    assertEquals(waiters + 1, this.flusher.durable);
+    assertEquals(2, this.stats.getGroupCommits());
+    assertEquals(waiters + 1, this.stats.getGroupCommitRecords());
+  }
+
+  @Test
+  public void failedCommitIsRetriedByTheNextWaiter() throws Exception {
+    this.flusher.failNextForce = true;
+    long ticket = append();
+    try {
+      this.committer.awaitCommit(ticket);
+      fail("expected IOException");
+    } catch (IOException expected) {
+    }
+    assertEquals(0, this.stats.getGroupCommits());
+    this.committer.awaitCommit(ticket);
+    assertEquals(1, this.stats.getGroupCommits());
+    assertEquals(1, this.flusher.durable);
+  }
+
+  @Test
+  public void batchIsDurableWhenTheOplogIsSwitchedDuringTheForce() throws Exception {
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    this.flusher.beforeForce = new Runnable() {
+      public void run() {
+        // the switch flushes and forces everything appended, under the
+        // oplog lock, and then closes the files
+        synchronized (lock) {
+          committer.forced(committer.getAppended());
+          flusher.closed = true;
+        }
+      }
+    };
+    this.flusher.blockFirstWrite();
+    Thread leader = startWriter(failures);
+    assertTrue(this.flusher.firstWriteStarted.await(30, TimeUnit.SECONDS));
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(startWriter(failures));
+    }
+    awaitAppended(5);
+    this.flusher.releaseFirstWrite.countDown();
+    leader.join(30000);
+    for (Thread t : threads) {
+      t.join(30000);
+    }
+
+    assertTrue(failures.toString(), failures.isEmpty());
+    assertEquals(0, this.flusher.durable);
+  }
+
+  @Test
+  public void everyWriterOfTheBatchFailsWhenTheOplogIsClosedDuringTheForce() throws Exception {
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    this.flusher.beforeForce = new Runnable() {
+      public void run() {
+        flusher.closed = true;
+      }
+    };
+    this.flusher.blockFirstWrite();
+    Thread leader = startWriter(failures);
+    assertTrue(this.flusher.firstWriteStarted.await(30, TimeUnit.SECONDS));
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(startWriter(failures));
+    }
+    awaitAppended(5);
+    this.flusher.releaseFirstWrite.countDown();
+    leader.join(30000);
+    for (Thread t : threads) {
+      t.join(30000);
+    }
+
+    assertEquals(5, failures.size());
+    for (Throwable t : failures) {
+      assertTrue(t.toString(), t instanceof ClosedChannelException);
+    }
+    assertEquals(0, this.stats.getGroupCommits());
+  }
+
+  @Test
+  public void commitsInTicketOrder() throws Exception {
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 16; i++) {
+      threads.add(new Thread(new Runnable() {
+        public void run() {
+          try {
+            for (int j = 0; j < 200; j++) {
+              long ticket = append();
+              committer.awaitCommit(ticket);
+              assertTrue(flusher.durable >= ticket);
+            }
+          } catch (Throwable t) {
+            synchronized (failures) {
+              failures.add(t);
+            }
+          }
+        }
+      }));
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join(60000);
+    }
+    assertTrue(failures.toString(), failures.isEmpty());
+    assertEquals(16 * 200, this.flusher.durable);
+    assertEquals(16 * 200, this.stats.getGroupCommitRecords());
+    assertTrue(this.stats.getGroupCommits() <= 16 * 200);
+  }
+
+  private void awaitAppended(long ticket) throws InterruptedException {
+    while (true) {
+      synchronized (this.lock) {
+        if (this.committer.getAppended() == ticket) {
+          return;
+        }
+      }
+      Thread.sleep(1);
+    }
+  }
+
+  private long append() {
+    synchronized (this.lock) {
+      return this.committer.append();
+    }
+  }
+
+  private Thread startWriter(final List<Throwable> failures) {
+    Thread t = new Thread(new Runnable() {
+      public void run() {
+        try {
+          committer.awaitCommit(append());
+        } catch (Throwable t) {
+          synchronized (failures) {
+            failures.add(t);
+          }
+        }
+      }
+    });
+    t.start();
+    return t;
+  }
+
+  private class TestFlusher implements OplogGroupCommitter.Flusher {
+    final AtomicInteger writes = new AtomicInteger();
+    final AtomicInteger forces = new AtomicInteger();
+    final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    final CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+    volatile boolean blockFirstWrite;
+    volatile boolean failNextForce;
+    /** Run by the first force, with the files still open. */
+    volatile Runnable beforeForce;
+    /** Set once the files are closed. */
+    volatile boolean closed;
+    /** The last ticket that was written and forced. */
+    volatile long durable;
+    private long written;
+
+    void blockFirstWrite() {
+      this.blockFirstWrite = true;
+    }
+
+    @Override
+    public long write() throws IOException {
+      synchronized (lock) {
+        this.written = committer.getAppended();
+      }
+      if (this.writes.incrementAndGet() == 1 && this.blockFirstWrite) {
+        this.firstWriteStarted.countDown();
+        try {
+          this.releaseFirstWrite.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+      return this.written;
+    }
+
+    @Override
+    public void force() throws IOException {
+      this.forces.incrementAndGet();
+      Runnable r = this.beforeForce;
+      if (r != null) {
+        this.beforeForce = null;
+        r.run();
+      }
+      if (this.closed) {
+        throw new ClosedChannelException();
+      }
+      if (this.failNextForce) {
+        this.failNextForce = false;
+        throw new IOException("test");
+      }
+      this.durable = this.written;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OplogMappedReadJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private GemFireCacheImpl cache;
+  private DiskStoreImpl diskStore;
+  private Region<Integer, byte[]> region;
+
+  @Before
+  public void setUp() throws Exception {
+    Oplog.MMAP_READS = true;
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+    this.diskStore = (DiskStoreImpl) this.cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] { this.temporaryFolder.newFolder("mapped") }).setMaxOplogSize(1).setAutoCompact(false)
+        .create("mapped");
+    this.region = this.cache.<Integer, byte[]> createRegionFactory(RegionShortcut.LOCAL_PERSISTENT_OVERFLOW)
+        .setDiskStoreName("mapped")
+        .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(10, EvictionAction.OVERFLOW_TO_DISK))
+        .create("mappedReads");
+  }
+
+  @After
+  public void tearDown() {
+    Oplog.MMAP_READS = false;
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private static byte[] value(int i) {
+    byte[] bytes = new byte[1000];
+    Arrays.fill(bytes, (byte) i);
+    return bytes;
+  }
+
+  @Test
+  public void valuesOnFinishedOplogsAreReadFromTheMapping() {
+    for (int i = 0; i < 3000; i++) {
+      this.region.put(i, value(i));
+    }
+    for (int i = 0; i < 3000; i++) {
+      assertArrayEquals(value(i), this.region.get(i));
+    }
+    assertTrue(this.diskStore.getStats().getMappedReads() > 0);
+  }
+
+  @Test
+  public void deletingTheCrfDropsItsMapping() {
+    for (int i = 0; i < 3000; i++) {
+      this.region.put(i, value(i));
+    }
+    for (int i = 0; i < 3000; i++) {
+      this.region.get(i);
+    }
+    Oplog mapped = null;
+    for (Oplog oplog : this.diskStore.getPersistentOplogSet(((LocalRegion) this.region).getDiskRegion()).getAllOplogs()) {
+      if (oplog.isCrfMapped()) {
+        mapped = oplog;
+      }
+    }
+    assertNotNull(mapped);
+
+    // what the compactor does once an oplog has no live values left, even
+    // when its drf has to be kept
+    mapped.deleteCRFFileOnly();
+
+    assertFalse(mapped.isCrfMapped());
+  }
+
+  @Test
+  public void updatedValuesAreReadFromTheirNewOplog() {
+    for (int i = 0; i < 3000; i++) {
+      this.region.put(i, value(i));
+    }
+    for (int i = 0; i < 3000; i += 2) {
+      this.region.put(i, value(i + 1));
+    }
+    for (int i = 0; i < 3000; i++) {
+      assertArrayEquals(value(i % 2 == 0 ? i + 1 : i), this.region.get(i));
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.internal.LocalStatisticsFactory;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OplogRecoveryPrefetcherJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private DiskStoreStats stats;
+  private OplogRecoveryPrefetcher prefetcher;
+
+  @Before
+  public void setUp() {
+    this.stats = new DiskStoreStats(new LocalStatisticsFactory(null), "test");
+  }
+
+  @After
+  public void tearDown() {
+    if (this.prefetcher != null) {
+      this.prefetcher.close();
+    }
+  }
+
+  @Test
+  public void opensFilesReadAheadFromMemory() throws Exception {
+    List<File> files = createFiles(5, 1000);
+    this.prefetcher = new OplogRecoveryPrefetcher(files, 2, this.stats);
+    for (int i = 0; i < files.size(); i++) {
+      InputStream in = this.prefetcher.open(files.get(i));
+      assertTrue(in instanceof ByteArrayInputStream);
+      assertContents(i, 1000, in);
+    }
+    assertEquals(5 * 1000, this.stats.getRecoveryBytesPrefetched());
+  }
+
+  @Test
+  public void skippedFilesAreDropped() throws Exception {
+    List<File> files = createFiles(6, 100);
+    this.prefetcher = new OplogRecoveryPrefetcher(files, 2, this.stats);
+    assertContents(3, 100, this.prefetcher.open(files.get(3)));
+    assertContents(5, 100, this.prefetcher.open(files.get(5)));
+    // a file that was skipped is read directly if it is opened after all
+    InputStream in = this.prefetcher.open(files.get(1));
+    assertFalse(in instanceof ByteArrayInputStream);
+    assertContents(1, 100, in);
+  }
+
+  @Test
+  public void readsAheadNoMoreThanTheByteLimit() throws Exception {
+    List<File> files = createFiles(5, 1000);
+    this.prefetcher = new OplogRecoveryPrefetcher(files, 4, 2500, this.stats);
+    InputStream in0 = this.prefetcher.open(files.get(0));
+    InputStream in1 = this.prefetcher.open(files.get(1));
+    assertTrue(in0 instanceof ByteArrayInputStream);
+    assertTrue(in1 instanceof ByteArrayInputStream);
+    // the first two are still open so the third did not fit
+    InputStream in2 = this.prefetcher.open(files.get(2));
+    assertFalse(in2 instanceof ByteArrayInputStream);
+    assertContents(2, 1000, in2);
+    // closing them lets the rest be read ahead
+    assertContents(0, 1000, in0);
+    assertContents(1, 1000, in1);
+    for (int i = 3; i < files.size(); i++) {
+      InputStream in = this.prefetcher.open(files.get(i));
+      assertTrue(in instanceof ByteArrayInputStream);
+      assertContents(i, 1000, in);
+    }
+    assertEquals(4 * 1000, this.stats.getRecoveryBytesPrefetched());
+  }
+
+  @Test
+  public void fileLargerThanTheByteLimitIsReadDirectly() throws Exception {
+    List<File> files = createFiles(2, 1000);
+    this.prefetcher = new OplogRecoveryPrefetcher(files, 2, 500, this.stats);
+    InputStream in = this.prefetcher.open(files.get(0));
+    assertFalse(in instanceof ByteArrayInputStream);
+    assertContents(0, 1000, in);
+    assertEquals(0, this.stats.getRecoveryBytesPrefetched());
+  }
+
+  @Test
+  public void deletedFileIsNotFound() throws Exception {
+    List<File> files = createFiles(2, 100);
+    this.prefetcher = new OplogRecoveryPrefetcher(files, 2, this.stats);
+    assertContents(0, 100, this.prefetcher.open(files.get(0)));
+    assertTrue(files.get(1).delete());
+    try {
+      this.prefetcher.open(files.get(1)).close();
+      fail("expected FileNotFoundException");
+    } catch (FileNotFoundException expected) {
+    }
+  }
+
+  @Test
+  public void unknownFileIsReadDirectly() throws Exception {
+    List<File> files = createFiles(3, 10);
+    this.prefetcher = new OplogRecoveryPrefetcher(files.subList(0, 2), 4, this.stats);
+    InputStream in = this.prefetcher.open(files.get(2));
+    assertFalse(in instanceof ByteArrayInputStream);
+    assertContents(2, 10, in);
+  }
+
+  private List<File> createFiles(int count, int length) throws IOException {
+    List<File> files = new ArrayList<File>();
+    for (int i = 0; i < count; i++) {
+      File f = this.temporaryFolder.newFile("oplog" + i + ".drf");
+      FileOutputStream out = new FileOutputStream(f);
+      try {
+        for (int j = 0; j < length; j++) {
+          out.write(i);
+        }
+      } finally {
+        out.close();
+      }
+      files.add(f);
+    }
+    return files;
+  }
+
+  private static void assertContents(int fill, int length, InputStream in) throws IOException {
+    try {
+      byte[] bytes = new byte[length];
+      new DataInputStream(in).readFully(bytes);
+      for (byte b : bytes) {
+        assertEquals(fill, b);
+      }
+      assertEquals(-1, in.read());
+    } finally {
+      in.close();
+    }
+  }
+}
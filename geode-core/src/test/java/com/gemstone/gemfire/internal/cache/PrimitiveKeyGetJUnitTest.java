@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.*;
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests the primitive key get fast path of {@link LocalRegion}.
+ */
+@Category(IntegrationTest.class)
+public class PrimitiveKeyGetJUnitTest {
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    this.cache = new CacheFactory().set(MCAST_PORT, "0").set(LOCATORS, "").create();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void getForLongKeyReturnsLocalValue() {
+    Region<Long, String> region = this.cache.<Long, String> createRegionFactory(RegionShortcut.LOCAL).create("longKeys");
+    for (long i = 0; i < 1000; i++) {
+      region.put(i, "value" + i);
+    }
+    LocalRegion lr = (LocalRegion) region;
+    CachePerfStats stats = lr.getCachePerfStats();
+    int gets = stats.getGets();
+    for (long i = 0; i < 1000; i++) {
+      assertEquals("value" + i, lr.getForLongKey(i));
+    }
+    assertEquals(gets + 1000, stats.getGets());
+    assertNull(lr.getForLongKey(1000L));
+    assertNull(lr.getForIntKey(5));
+  }
+
+  @Test
+  public void getForIntKeyReturnsLocalValue() {
+    Region<Integer, String> region = this.cache.<Integer, String> createRegionFactory(RegionShortcut.REPLICATE).create("intKeys");
+    region.put(5, "five");
+    LocalRegion lr = (LocalRegion) region;
+    assertEquals("five", lr.getForIntKey(5));
+    assertNull(lr.getForLongKey(5L));
+  }
+
+  @Test
+  public void invalidOrDestroyedEntriesAreMisses() {
+    Region<Long, String> region = this.cache.<Long, String> createRegionFactory(RegionShortcut.LOCAL).create("misses");
+    region.put(1L, "one");
+    region.put(2L, "two");
+    region.invalidate(1L);
+    region.destroy(2L);
+    LocalRegion lr = (LocalRegion) region;
+    assertNull(lr.getForLongKey(1L));
+    assertNull(lr.getForLongKey(2L));
+  }
+
+  @Test
+  public void partitionedRegionFallsBackToBoxedGet() {
+    Region<Long, String> region = this.cache.<Long, String> createRegionFactory(RegionShortcut.PARTITION).create("partitioned");
+    region.put(3L, "three");
+    assertEquals("three", ((LocalRegion) region).getForLongKey(3L));
+  }
+}
@@ -235,11 +235,11 @@ public class LRUClockJUnitTest {
   }
   
   /** manufacture a node so that a shared type can be used by SharedLRUClockTest. */
-  private LRUTestEntry getANode( int id ) {
+  protected LRUTestEntry getANode( int id ) {
     return new LocalLRUTestEntry( id );
   }
 
-  private interface LRUTestEntry extends LRUClockNode {
+  protected interface LRUTestEntry extends LRUClockNode {
     public int id();
   }
   
@@ -342,7 +342,7 @@ public class LRUClockJUnitTest {
     public int cloneCount( ) { return 0; }
   }
 
-  private class TestEnableLRU implements EnableLRU {
+  protected class TestEnableLRU implements EnableLRU {
 
     private final StatisticsType statType;
 
@@ -375,6 +375,8 @@ public class LRUClockJUnitTest {
           f.createLongCounter("lruGreedyReturns", lruGreedyReturnsDesc, "entries"),
           f.createLongCounter("lruDestroys", lruDestroysDesc, "entries" ),
           f.createLongCounter("lruDestroysLimit", lruDestroysLimitDesc, "entries" ),
+          f.createLongCounter("lruAdmissions", "lruAdmissions", "entries" ),
+          f.createLongCounter("lruAdmissionRejections", "lruAdmissionRejections", "entries" ),
         }
       );
     }
@@ -453,6 +455,16 @@ public class LRUClockJUnitTest {
       return statType.nameToId("lruGreedyReturns");
     }
 
+    @Override
+    public int getAdmissionsStatId() {
+      return statType.nameToId("lruAdmissions");
+    }
+
+    @Override
+    public int getAdmissionRejectionsStatId() {
+      return statType.nameToId("lruAdmissionRejections");
+    }
+
     @Override
     public boolean mustEvict(LRUStatistics stats, Region region, int delta) {
       throw new UnsupportedOperationException("Not implemented");
@@ -480,12 +492,12 @@ public class LRUClockJUnitTest {
     }
   }
 
-  /** overridden in SharedLRUClockTest to test SharedLRUClockHand */
-  private NewLRUClockHand getAClockHand( Region reg, EnableLRU elru ) {
+  /** overridden in StripedLRUClockJUnitTest to test StripedLRUClockHand */
+  protected NewLRUClockHand getAClockHand( Region reg, EnableLRU elru ) {
     return new NewLRUClockHand( reg, elru,new InternalRegionArguments());
   }
   
-  private Region getARegion() throws Exception {
+  protected Region getARegion() throws Exception {
     DistributedSystem ds = DistributedSystem.connect( sysProps );
     Cache c = null;
     try {
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Runs the clock tests of {@link LRUClockJUnitTest} against
+ * {@link StripedLRUClockHand} and adds tests for appends that are still
+ * sitting in the stripes.
+ */
+@Category(IntegrationTest.class)
+public class StripedLRUClockJUnitTest extends LRUClockJUnitTest {
+
+  @Override
+  protected NewLRUClockHand getAClockHand( Region reg, EnableLRU elru ) {
+    return new StripedLRUClockHand( reg, elru, new InternalRegionArguments());
+  }
+
+  @Test
+  public void testBufferedAppendsAreCountedAndCleared() throws Exception {
+    NewLRUClockHand clock = getAClockHand( getARegion(), new TestEnableLRU() );
+    for( int i = 0; i < StripedLRUClockHand.STRIPE_CAPACITY * 3; i++ ) {
+      clock.appendEntry( getANode( i ) );
+    }
+    assertEquals(StripedLRUClockHand.STRIPE_CAPACITY * 3, clock.getExpensiveListCount());
+
+    LRUTestEntry buffered = getANode( -1 );
+    clock.appendEntry( buffered );
+    clock.clear(null);
+    assertEquals(0, clock.getExpensiveListCount());
+    assertNull(clock.getLRUEntry());
+    assertNull(buffered.nextLRUNode());
+  }
+
+  @Test
+  public void testConcurrentAppendsAreAllEvictable() throws Exception {
+    final NewLRUClockHand clock = getAClockHand( getARegion(), new TestEnableLRU() );
+    final int threads = 8;
+    final int perThread = 1000;
+    final LRUTestEntry[][] nodes = new LRUTestEntry[threads][perThread];
+    Thread[] appenders = new Thread[threads];
+    for( int t = 0; t < threads; t++ ) {
+      for( int i = 0; i < perThread; i++ ) {
+        nodes[t][i] = getANode( t * perThread + i );
+      }
+      final LRUTestEntry[] mine = nodes[t];
+      appenders[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for( LRUTestEntry n : mine ) {
+            clock.appendEntry( n );
+          }
+        }
+      });
+      appenders[t].start();
+    }
+    for( Thread t : appenders ) {
+      t.join();
+    }
+
+    Set<Integer> seen = new HashSet<Integer>();
+    LRUTestEntry n;
+    while( (n = (LRUTestEntry) clock.getLRUEntry()) != null ) {
+      assertTrue("returned twice: " + n.id(), seen.add(n.id()));
+    }
+    assertEquals(threads * perThread, seen.size());
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Runs the clock tests of {@link LRUClockJUnitTest} against
+ * {@link TinyLFUClockHand}, which must behave like the LRU clock while all
+ * entries are new, and checks that frequently used entries survive a scan.
+ */
+@Category(IntegrationTest.class)
+public class TinyLFUClockJUnitTest extends LRUClockJUnitTest {
+
+  @Override
+  protected NewLRUClockHand getAClockHand( Region reg, EnableLRU elru ) {
+    return new TinyLFUClockHand( reg, elru, new InternalRegionArguments());
+  }
+
+  /**
+   * Unlike the LRU clock the last unused entry stays in the window and the
+   * main list is evicted first once the window is down to its share.
+   */
+  @Override
+  @Test
+  public void testRecentlyUsed() throws Exception {
+    NewLRUClockHand clock = getAClockHand( getARegion(), new TestEnableLRU() );
+    LRUTestEntry[] nodes = new LRUTestEntry[10];
+    for( int i = 0; i < 10; i++ ) {
+      nodes[i] = getANode( i );
+      clock.appendEntry( nodes[i] );
+      if ( i % 2 == 0 ) {
+        nodes[i].setRecentlyUsed();
+      }
+    }
+
+    int[] expected = { 1, 3, 5, 7, 0, 2, 4, 6, 8, 9 };
+    for( int i : expected ) {
+      LRUTestEntry n = (LRUTestEntry) clock.getLRUEntry( );
+      assertTrue( "expected nodes[" + nodes[i].id() + "], found nodes[" + n.id() + "]", n == nodes[i] );
+    }
+    assertNull( clock.getLRUEntry( ) );
+    assertEquals( 4, clock.stats().getAdmissionRejections() );
+  }
+
+  @Test
+  public void testHotEntriesSurviveScan() throws Exception {
+    NewLRUClockHand clock = getAClockHand( getARegion(), new TestEnableLRU() );
+    final int capacity = 100;
+    LRUTestEntry[] hot = new LRUTestEntry[20];
+    int id = 0;
+    for( int i = 0; i < hot.length; i++ ) {
+      hot[i] = getANode( id++ );
+      clock.appendEntry( hot[i] );
+      hot[i].setRecentlyUsed();
+    }
+    while( id < capacity ) {
+      clock.appendEntry( getANode( id++ ) );
+    }
+
+    // scan through ten times the capacity in keys that are used once
+    for( int round = 0; round < 100; round++ ) {
+      if ( round % 2 == 0 ) {
+        for( LRUTestEntry h : hot ) {
+          h.setRecentlyUsed();
+        }
+      }
+      for( int i = 0; i < 10; i++ ) {
+        clock.appendEntry( getANode( id++ ) );
+        LRUClockNode evicted = clock.getLRUEntry();
+        assertNotNull( evicted );
+        evicted.setEvicted();
+      }
+    }
+
+    for( LRUTestEntry h : hot ) {
+      assertFalse( "hot entry " + h.id() + " was evicted", h.testEvicted() );
+    }
+    assertEquals( capacity, clock.getExpensiveListCount() );
+    assertTrue( clock.stats().getAdmissionRejections() > 0 );
+  }
+
+  @Test
+  public void testConcurrentEvictionReturnsEachNodeOnce() throws Exception {
+    final NewLRUClockHand clock = getAClockHand( getARegion(), new TestEnableLRU() );
+    final int appenders = 4;
+    final int perThread = 5000;
+    final Set<Integer> evicted = ConcurrentHashMap.newKeySet();
+    final AtomicReference<String> failure = new AtomicReference<String>();
+    final AtomicBoolean appending = new AtomicBoolean(true);
+    Thread[] threads = new Thread[appenders + 2];
+    for( int t = 0; t < appenders; t++ ) {
+      final int base = t * perThread;
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for( int i = 0; i < perThread; i++ ) {
+            LRUTestEntry n = getANode( base + i );
+            clock.appendEntry( n );
+            if ( i % 3 == 0 ) {
+              n.setRecentlyUsed();
+            }
+          }
+        }
+      });
+    }
+    for( int t = appenders; t < threads.length; t++ ) {
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (;;) {
+            boolean more = appending.get();
+            LRUClockNode n = clock.getLRUEntry();
+            if ( n == null ) {
+              if ( !more ) {
+                return;
+              }
+              Thread.yield();
+              continue;
+            }
+            synchronized( n ) {
+              n.setEvicted();
+            }
+            if ( !evicted.add( ((LRUTestEntry) n).id() ) ) {
+              failure.set( "returned twice: " + ((LRUTestEntry) n).id() );
+            }
+          }
+        }
+      });
+    }
+    for( Thread t : threads ) {
+      t.start();
+    }
+    for( int t = 0; t < appenders; t++ ) {
+      threads[t].join();
+    }
+    appending.set(false);
+    for( int t = appenders; t < threads.length; t++ ) {
+      threads[t].join();
+    }
+    assertNull( failure.get() );
+    assertEquals( appenders * perThread, evicted.size() );
+    assertEquals( 0, clock.getExpensiveListCount() );
+  }
+
+  @Test
+  public void testSketchCountsAndAges() {
+    FrequencySketch sketch = new FrequencySketch();
+    sketch.ensureCapacity(64);
+    for( int i = 0; i < 5; i++ ) {
+      sketch.increment( 42 );
+    }
+    assertEquals( 5, sketch.frequency( 42 ) );
+    for( int i = 0; i < 100; i++ ) {
+      sketch.increment( 7 );
+    }
+    assertEquals( FrequencySketch.MAX_FREQUENCY, sketch.frequency( 7 ) );
+
+    // enough increments of other keys halve every counter at least once
+    for( int i = 0; i < 10 * sketch.capacity(); i++ ) {
+      sketch.increment( 1000 + i );
+    }
+    assertTrue( sketch.frequency( 7 ) < FrequencySketch.MAX_FREQUENCY );
+    assertTrue( sketch.frequency( 42 ) < 5 );
+
+    sketch.clear();
+    assertEquals( 0, sketch.frequency( 7 ) );
+  }
+
+  @Test
+  public void testSketchAgingPeriodAtMaxWidth() {
+    assertEquals( 640, FrequencySketch.agingPeriod( 64 ) );
+    // 10 * MAX_WIDTH does not fit in an int
+    assertEquals( Integer.MAX_VALUE, FrequencySketch.agingPeriod( FrequencySketch.MAX_WIDTH ) );
+    assertTrue( FrequencySketch.agingPeriod( FrequencySketch.MAX_WIDTH / 2 ) > 0 );
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.compression;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.compression.CompressionException;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class DictionaryCompressorJUnitTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static byte[] record(int i) {
+    return ("{\"customerId\":" + i + ",\"firstName\":\"first" + i + "\",\"lastName\":\"last" + i
+        + "\",\"street\":\"" + i + " Main Street\",\"city\":\"Springfield\",\"status\":\"ACTIVE\"}").getBytes(UTF8);
+  }
+
+  @Test
+  public void smallValuesRoundTripBeforeAndAfterTraining() {
+    DictionaryCompressor compressor = new DictionaryCompressor(1024, 512);
+    int i = 0;
+    while (!compressor.isTrained()) {
+      byte[] value = record(i++);
+      assertArrayEquals(value, compressor.decompress(compressor.compress(value)));
+    }
+    for (int j = 0; j < 100; j++) {
+      byte[] value = record(i++);
+      assertArrayEquals(value, compressor.decompress(compressor.compress(value)));
+    }
+  }
+
+  @Test
+  public void trainedDictionaryShrinksSmallValues() {
+    DictionaryCompressor compressor = new DictionaryCompressor(1024, 512);
+    byte[] value = record(123456);
+    int untrainedLength = compressor.compress(value).length;
+    for (int i = 0; !compressor.isTrained(); i++) {
+      compressor.compress(record(i));
+    }
+    int trainedLength = compressor.compress(value).length;
+    assertTrue("trained " + trainedLength + " untrained " + untrainedLength, trainedLength * 2 < untrainedLength);
+  }
+
+  @Test
+  public void largeValuesDoNotUseTheDictionary() {
+    DictionaryCompressor compressor = new DictionaryCompressor(64, 16);
+    byte[] value = new byte[100 * 1024];
+    Arrays.fill(value, (byte) 7);
+    byte[] compressed = compressor.compress(value);
+    assertFalse(compressor.isTrained());
+    assertTrue(compressed.length < 1024);
+    assertArrayEquals(value, compressor.decompress(compressed));
+    assertArrayEquals(new byte[0], compressor.decompress(compressor.compress(new byte[0])));
+  }
+
+  @Test(expected = CompressionException.class)
+  public void decompressWithoutTheDictionaryFails() {
+    DictionaryCompressor trained = new DictionaryCompressor(256, 512);
+    for (int i = 0; !trained.isTrained(); i++) {
+      trained.compress(record(i));
+    }
+    new DictionaryCompressor(256, 512).decompress(trained.compress(record(1)));
+  }
+
+  @Test
+  public void equalsComparesTheDictionary() {
+    DictionaryCompressor trained = new DictionaryCompressor(256, 512);
+    DictionaryCompressor untrained = new DictionaryCompressor(256, 512);
+    assertEquals(trained, untrained);
+    assertEquals(trained.hashCode(), untrained.hashCode());
+    assertNotEquals(trained, new DictionaryCompressor(256, 128));
+
+    for (int i = 0; !trained.isTrained(); i++) {
+      trained.compress(record(i));
+    }
+    assertNotEquals(trained, untrained);
+
+    for (int i = 0; !untrained.isTrained(); i++) {
+      untrained.compress(record(i));
+    }
+    assertEquals(trained, untrained);
+  }
+
+  @Test(expected = CompressionException.class)
+  public void decompressOfTruncatedValueFails() {
+    DictionaryCompressor compressor = new DictionaryCompressor();
+    byte[] compressed = compressor.compress(record(1));
+    compressor.decompress(Arrays.copyOf(compressed, compressed.length - 3));
+  }
+}
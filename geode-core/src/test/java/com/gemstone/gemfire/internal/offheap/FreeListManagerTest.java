@@ -61,6 +61,10 @@ public class FreeListManagerTest {
   private static TestableFreeListManager createFreeListManager(MemoryAllocatorImpl ma, Slab[] slabs, int maxCombine) {
     return new TestableFreeListManager(ma, slabs, maxCombine);
   }
+
+  private static TestableFreeListManager createFreeListManagerWithMagazineCapacity(MemoryAllocatorImpl ma, Slab[] slabs, int magazineCapacity) {
+    return new TestableFreeListManager(ma, slabs, 0, magazineCapacity);
+  }
   
   private void setUpSingleSlabManager() {
     setUpSingleSlabManager(DEFAULT_SLAB_SIZE);
@@ -704,6 +708,187 @@ public class FreeListManagerTest {
     assertThat(ob).hasSize(3);
   }
 
+  @Test
+  public void tinyAllocationAfterFreeIsMagazineHit() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject c = this.freeListManager.allocate(24);
+    verify(this.stats).incMagazineMisses();
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+
+    OffHeapStoredObject c2 = this.freeListManager.allocate(24);
+
+    assertThat(c2.getAddress()).isEqualTo(c.getAddress());
+    verify(this.stats).incMagazineHits();
+  }
+
+  @Test
+  public void zeroMagazineCapacityUsesSharedFreeLists() {
+    this.freeListManager = createFreeListManagerWithMagazineCapacity(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 0);
+    OffHeapStoredObject c = this.freeListManager.allocate(24);
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+
+    OffHeapStoredObject c2 = this.freeListManager.allocate(24);
+
+    assertThat(c2.getAddress()).isEqualTo(c.getAddress());
+    verify(this.stats, never()).incMagazineHits();
+    verify(this.stats, never()).incMagazineMisses();
+  }
+
+  @Test
+  public void fullMagazineFlushesHalfToSharedFreeList() throws Exception {
+    this.freeListManager = createFreeListManagerWithMagazineCapacity(ma, new Slab[] {new SlabImpl(DEFAULT_SLAB_SIZE)}, 4);
+    final List<Long> freed = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      freed.add(this.freeListManager.allocate(24).getAddress());
+    }
+    for (long addr: freed) {
+      OffHeapStoredObject.release(addr, this.freeListManager);
+    }
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(5 * computeExpectedSize(24));
+
+    // another thread has an empty magazine so it refills from the shared list
+    final List<Long> allocated = new ArrayList<>();
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        allocated.add(freeListManager.allocate(24).getAddress());
+        allocated.add(freeListManager.allocate(24).getAddress());
+      }
+    });
+    t.start();
+    t.join();
+
+    assertThat(allocated).containsExactly(freed.get(1), freed.get(0));
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(3 * computeExpectedSize(24));
+  }
+
+  @Test
+  public void reapOrphanedMagazinesReturnsChunksOfDeadThreads() throws Exception {
+    setUpSingleSlabManager();
+    final List<Long> freed = new ArrayList<>();
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        freed.add(freeListManager.allocate(24).getAddress());
+        OffHeapStoredObject.release(freed.get(0), freeListManager);
+      }
+    });
+    t.start();
+    t.join();
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(24));
+
+    assertThat(this.freeListManager.reapOrphanedMagazines()).isEqualTo(1);
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(24));
+    assertThat(this.freeListManager.allocate(24).getAddress()).isEqualTo(freed.get(0));
+    assertThat(this.freeListManager.reapOrphanedMagazines()).isZero();
+  }
+
+  @Test
+  public void defragmentCollectsMagazineChunks() {
+    Slab chunk = new SlabImpl(96);
+    this.freeListManager = createFreeListManager(ma, new Slab[] {chunk});
+    List<OffHeapStoredObject> chunks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      chunks.add(this.freeListManager.allocate(24));
+    }
+    for (OffHeapStoredObject c: chunks) {
+      OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    }
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(96);
+
+    OffHeapStoredObject c = this.freeListManager.allocate(96-8);
+
+    assertThat(c.getAddress()).isEqualTo(chunk.getMemoryAddress());
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
+
+  @Test
+  public void defragmentSlabCombinesAdjacentFreeChunks() {
+    Slab chunk = new SlabImpl(96);
+    this.freeListManager = createFreeListManager(ma, new Slab[] {chunk});
+    List<OffHeapStoredObject> chunks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      chunks.add(this.freeListManager.allocate(24));
+    }
+    for (OffHeapStoredObject c: chunks) {
+      OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    }
+
+    assertThat(this.freeListManager.defragmentSlab(0)).isEqualTo(2);
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+    assertThat(this.freeListManager.getFragmentList()).hasSize(1);
+    assertThat(this.freeListManager.getFreeFragmentMemory()).isEqualTo(96);
+    verify(this.stats).startIncrementalDefragmentation();
+    verify(this.stats).endIncrementalDefragmentation(anyLong());
+    verify(this.stats).setLargestFragment(96);
+
+    OffHeapStoredObject c = this.freeListManager.allocate(96-8);
+    assertThat(c.getAddress()).isEqualTo(chunk.getMemoryAddress());
+    verify(this.stats, never()).startDefragmentation();
+  }
+
+  @Test
+  public void defragmentSlabPutsBackChunksWithoutFreeNeighbors() {
+    Slab chunk = new SlabImpl(96);
+    this.freeListManager = createFreeListManager(ma, new Slab[] {chunk});
+    OffHeapStoredObject c1 = this.freeListManager.allocate(24);
+    this.freeListManager.allocate(24);
+    OffHeapStoredObject c3 = this.freeListManager.allocate(24);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c3.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.defragmentSlab(0)).isZero();
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(64);
+    assertThat(this.freeListManager.getFragmentList()).isEmpty();
+  }
+
+  @Test
+  public void defragmentSlabLeavesOtherSlabsAlone() {
+    Slab slab0 = new SlabImpl(64);
+    Slab slab1 = new SlabImpl(64);
+    this.freeListManager = createFreeListManagerWithMagazineCapacity(ma, new Slab[] {slab0, slab1}, 0);
+    List<OffHeapStoredObject> chunks = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      chunks.add(this.freeListManager.allocate(24));
+    }
+    for (OffHeapStoredObject c: chunks) {
+      OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    }
+    // the largest free chunk is one of the four 32 byte chunks
+    assertThat(this.freeListManager.getFreeListFragmentation()).isEqualTo(75);
+
+    this.freeListManager.defragmentSlab(0);
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(64);
+    assertThat(this.freeListManager.getFreeFragmentMemory()).isEqualTo(64);
+    assertThat(this.freeListManager.getFragmentList()).contains(new Fragment(slab0.getMemoryAddress(), 64));
+    assertThat(this.freeListManager.getFreeListFragmentation()).isEqualTo(50);
+  }
+
+  @Test
+  public void freeListFragmentationIgnoresMagazineChunks() {
+    Slab slab = new SlabImpl(64);
+    this.freeListManager = createFreeListManager(ma, new Slab[] {slab});
+    OffHeapStoredObject c1 = this.freeListManager.allocate(24);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(24);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(64);
+    assertThat(this.freeListManager.getFreeListFragmentation()).isZero();
+  }
+
+  @Test
+  public void freeListFragmentationIsZeroForOneFragment() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject.release(this.freeListManager.allocate(24).getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.getFreeListFragmentation()).isZero();
+  }
+
   @Test
   public void allocatedBlocksEmptyIfNoAllocations() {
     Slab chunk = new SlabImpl(10);
@@ -907,7 +1092,11 @@ public class FreeListManagerTest {
     }
 
     public TestableFreeListManager(MemoryAllocatorImpl ma, Slab[] slabs, int maxCombine) {
-      super(ma, slabs);
+      this(ma, slabs, maxCombine, FreeListManager.MAGAZINE_CAPACITY);
+    }
+
+    public TestableFreeListManager(MemoryAllocatorImpl ma, Slab[] slabs, int maxCombine, int magazineCapacity) {
+      super(ma, slabs, magazineCapacity);
       this.maxCombine = maxCombine;
     }
 
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class IncrementalDefragmenterJUnitTest {
+
+  private final FreeListManager freeList = mock(FreeListManager.class);
+
+  @Test
+  public void nothingIsDoneBelowThreshold() {
+    when(this.freeList.getSlabCount()).thenReturn(3);
+    when(this.freeList.getFragmentation()).thenReturn(10);
+    when(this.freeList.getFreeListFragmentation()).thenReturn(20);
+    IncrementalDefragmenter defragmenter = new IncrementalDefragmenter(this.freeList, 30, 1000);
+
+    assertEquals(0, defragmenter.runOnce());
+    verify(this.freeList, never()).defragmentSlab(anyInt());
+  }
+
+  @Test
+  public void eachSlabGetsOnePassInTurn() {
+    when(this.freeList.getSlabCount()).thenReturn(3);
+    when(this.freeList.getFreeListFragmentation()).thenReturn(50);
+    IncrementalDefragmenter defragmenter = new IncrementalDefragmenter(this.freeList, 30, 1000);
+
+    assertEquals(3, defragmenter.runOnce());
+    verify(this.freeList).defragmentSlab(0);
+    verify(this.freeList).defragmentSlab(1);
+    verify(this.freeList).defragmentSlab(2);
+  }
+
+  @Test
+  public void passesStopOnceFragmentationDropsBelowThreshold() {
+    when(this.freeList.getSlabCount()).thenReturn(3);
+    when(this.freeList.getFragmentation()).thenReturn(40, 40, 0);
+    IncrementalDefragmenter defragmenter = new IncrementalDefragmenter(this.freeList, 30, 1000);
+
+    assertEquals(2, defragmenter.runOnce());
+    verify(this.freeList).defragmentSlab(0);
+    verify(this.freeList).defragmentSlab(1);
+
+    // the next round starts where the last one stopped
+    when(this.freeList.getFragmentation()).thenReturn(40, 0);
+    assertEquals(1, defragmenter.runOnce());
+    verify(this.freeList).defragmentSlab(2);
+  }
+
+  @Test
+  public void backgroundThreadRunsPassesUntilStopped() throws Exception {
+    when(this.freeList.getSlabCount()).thenReturn(1);
+    when(this.freeList.getFragmentation()).thenReturn(100);
+    IncrementalDefragmenter defragmenter = new IncrementalDefragmenter(this.freeList, 30, 1);
+
+    defragmenter.start();
+    try {
+      verify(this.freeList, timeout(30000).atLeast(2)).defragmentSlab(0);
+    } finally {
+      defragmenter.stop();
+    }
+    reset(this.freeList);
+    Thread.sleep(20);
+    verifyZeroInteractions(this.freeList);
+  }
+}
@@ -103,6 +103,35 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
     return 0;
   }
   @Override
+  public long startIncrementalDefragmentation() {
+    return 0;
+  }
+  @Override
+  public void endIncrementalDefragmentation(long start) {
+  }
+  @Override
+  public int getIncrementalDefragmentations() {
+    return 0;
+  }
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return 0;
+  }
+  @Override
+  public void incMagazineHits() {
+  }
+  @Override
+  public long getMagazineHits() {
+    return 0;
+  }
+  @Override
+  public void incMagazineMisses() {
+  }
+  @Override
+  public long getMagazineMisses() {
+    return 0;
+  }
+  @Override
   public void close() {
     this.isClosed = true;
   }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.cache.OffHeapKeyEntry;
+import com.gemstone.gemfire.internal.cache.Token;
+import com.gemstone.gemfire.internal.cache.VMThinRegionEntryOffHeapStoredKey;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OffHeapKeyHelperJUnitTest {
+
+  private static final String KEY = "a key that is too long to be inlined into the entry";
+
+  private MemoryAllocatorImpl ma;
+
+  @Before
+  public void setUp() {
+    OutOfOffHeapMemoryListener ooohml = mock(OutOfOffHeapMemoryListener.class);
+    OffHeapMemoryStats stats = mock(OffHeapMemoryStats.class);
+    this.ma = (MemoryAllocatorImpl) MemoryAllocatorImpl.create(ooohml, stats, 1, OffHeapStorage.MIN_SLAB_SIZE, OffHeapStorage.MIN_SLAB_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  @Test
+  public void encodedKeysDecodeToEqualStrings() {
+    String[] keys = { "", "latin-1 éÿ", "wide 中文", "surrogate 😀 and a lone \ud800" };
+    for (String key : keys) {
+      assertEquals(key, OffHeapKeyHelper.decode(OffHeapKeyHelper.encode(key)));
+    }
+    assertEquals(1 + KEY.length(), OffHeapKeyHelper.encode(KEY).length);
+  }
+
+  @Test
+  public void storeKeyMovesTheKeyOffHeap() {
+    OffHeapKeyEntry re = new VMThinRegionEntryOffHeapStoredKey(null, KEY, Token.INVALID);
+    assertEquals(0L, re.getKeyAddress());
+    assertSame(KEY, re.getKey());
+
+    OffHeapKeyHelper.storeKey(re);
+
+    assertNull(re.getHeapKey());
+    assertNotEquals(0L, re.getKeyAddress());
+    assertEquals(KEY, re.getKey());
+    assertTrue(this.ma.getUsedMemory() > 0);
+  }
+
+  @Test
+  public void isKeyEqualComparesTheStoredBytes() {
+    String[] keys = { KEY, "latin-1 éÿ", "wide 中文" };
+    for (String key : keys) {
+      VMThinRegionEntryOffHeapStoredKey re = new VMThinRegionEntryOffHeapStoredKey(null, key, Token.INVALID);
+      OffHeapKeyHelper.storeKey(re);
+      assertNull(re.getHeapKey());
+
+      assertTrue(re.isKeyEqual(new String(key)));
+      assertFalse(re.isKeyEqual(key + "x"));
+      assertFalse(re.isKeyEqual(key.substring(1)));
+      assertFalse(re.isKeyEqual(key.replace(key.charAt(key.length() - 1), '?')));
+      assertFalse(re.isKeyEqual(Integer.valueOf(1)));
+      re.release();
+      assertTrue(re.isKeyEqual(key));
+    }
+  }
+
+  @Test
+  public void releaseFreesTheKeyButKeepsItReadable() {
+    OffHeapKeyEntry re = new VMThinRegionEntryOffHeapStoredKey(null, KEY, Token.INVALID);
+    OffHeapKeyHelper.storeKey(re);
+
+    re.release();
+
+    assertEquals(OffHeapKeyHelper.RELEASED_KEY_ADDRESS, re.getKeyAddress());
+    assertEquals(KEY, re.getKey());
+    assertEquals(0L, this.ma.getUsedMemory());
+
+    // an entry that was released never stores its key again
+    OffHeapKeyHelper.storeKey(re);
+    assertEquals(OffHeapKeyHelper.RELEASED_KEY_ADDRESS, re.getKeyAddress());
+    assertEquals(0L, this.ma.getUsedMemory());
+  }
+
+  @Test
+  public void tombstonesKeepTheirKeyOnHeap() {
+    OffHeapKeyEntry re = new VMThinRegionEntryOffHeapStoredKey(null, KEY, Token.REMOVED_PHASE1);
+    OffHeapKeyHelper.storeKey(re);
+    assertNotEquals(0L, re.getKeyAddress());
+
+    OffHeapRegionEntryHelper.setValue(re, Token.TOMBSTONE);
+
+    assertEquals(OffHeapKeyHelper.RELEASED_KEY_ADDRESS, re.getKeyAddress());
+    assertEquals(KEY, re.getKey());
+    assertEquals(0L, this.ma.getUsedMemory());
+  }
+
+  @Test
+  public void releaseOfAnEntryWhoseKeyWasNeverStored() {
+    OffHeapKeyEntry re = new VMThinRegionEntryOffHeapStoredKey(null, KEY, Token.INVALID);
+
+    OffHeapKeyHelper.releaseKey(re);
+    OffHeapKeyHelper.releaseKey(re);
+
+    assertEquals(OffHeapKeyHelper.RELEASED_KEY_ADDRESS, re.getKeyAddress());
+    assertSame(KEY, re.getKey());
+  }
+
+  @Test
+  public void keyStaysOnHeapWhenOutOfOffHeapMemory() {
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < OffHeapStorage.MIN_SLAB_SIZE) {
+      sb.append(KEY);
+    }
+    String key = sb.toString();
+    OffHeapKeyEntry re = new VMThinRegionEntryOffHeapStoredKey(null, key, Token.INVALID);
+
+    OffHeapKeyHelper.storeKey(re);
+
+    assertEquals(0L, re.getKeyAddress());
+    assertSame(key, re.getKey());
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionFactory;
+import com.gemstone.gemfire.cache.query.*;
+import com.gemstone.gemfire.cache.query.internal.StructImpl;
+import com.gemstone.gemfire.cache.query.internal.types.ObjectTypeImpl;
+import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
+import com.gemstone.gemfire.cache.query.types.ObjectType;
+import com.gemstone.gemfire.distributed.ConfigurationProperties;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+import com.gemstone.gemfire.pdx.internal.PdxString;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.LOCATORS;
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test reading off-heap PDX values in place during index maintenance.
+ * The cache reads PDX serialized so that the values are PdxInstances.
+ */
+@Category(IntegrationTest.class)
+public class OffHeapReadPdxInPlaceJUnitTest {
+  private GemFireCacheImpl gfc;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(ConfigurationProperties.OFF_HEAP_MEMORY_SIZE, "100m");
+    this.gfc = (GemFireCacheImpl) new CacheFactory(props).setPdxReadSerialized(true).create();
+    OffHeapHelper.READ_PDX_IN_PLACE = true;
+  }
+  @After
+  public void tearDown() {
+    OffHeapHelper.READ_PDX_IN_PLACE = false;
+    this.gfc.close();
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  @Test
+  public void testIndexesReadPdxInPlace() throws Exception {
+    Region<Object, Object> r = createRegion();
+    QueryService qs = this.gfc.getQueryService();
+    qs.createIndex("nameIdx", "name", "/r");
+    qs.createHashIndex("idIdx", "id", "/r");
+    for (int i = 0; i < 100; i++) {
+      r.put(i, createPdx(i, "name" + i));
+    }
+    for (int i = 0; i < 100; i += 2) {
+      r.put(i, createPdx(i + 1000, "updated" + i));
+    }
+    Query byName = qs.newQuery("select * from /r where name = $1");
+    Query byId = qs.newQuery("select * from /r where id = $1");
+    assertEquals(0, ((SelectResults) byName.execute(new Object[] { "name2" })).size());
+    assertEquals(1, ((SelectResults) byName.execute(new Object[] { "updated2" })).size());
+    assertEquals(1, ((SelectResults) byName.execute(new Object[] { "name3" })).size());
+    assertEquals(0, ((SelectResults) byId.execute(new Object[] { 2 })).size());
+    assertEquals(1, ((SelectResults) byId.execute(new Object[] { 1002 })).size());
+    assertEquals(1, ((SelectResults) byId.execute(new Object[] { 3 })).size());
+    r.destroy(3);
+    assertEquals(0, ((SelectResults) byName.execute(new Object[] { "name3" })).size());
+    assertEquals(0, ((SelectResults) byId.execute(new Object[] { 3 })).size());
+  }
+
+  @Test
+  public void testReadPdxInPlace() {
+    Region<Object, Object> r = createRegion();
+    r.put("k", createPdx(7, "seven"));
+    StoredObject so = getStoredObject(r, "k");
+    try {
+      assertTrue(OffHeapHelper.canReadInPlace(so));
+      PdxInstanceImpl pi = (PdxInstanceImpl) OffHeapHelper.readInPlace(so);
+      assertEquals(7, pi.getField("id"));
+      assertEquals("seven", pi.getField("name"));
+      assertEquals(new PdxString("seven"), pi.getRawField("name"));
+      PdxInstanceImpl copy = (PdxInstanceImpl) OffHeapHelper.copyIfReadInPlace(pi);
+      assertNotSame(pi, copy);
+      assertEquals(pi, copy);
+      assertSame(copy, copy.copyIfOffHeap());
+    } finally {
+      so.release();
+    }
+  }
+
+  @Test
+  public void testCopyIfReadInPlaceCopiesNestedInstances() {
+    Region<Object, Object> r = createRegion();
+    List<Object> list = new ArrayList<Object>();
+    list.add(createPdx(2, "two"));
+    r.put("k", this.gfc.createPdxInstanceFactory("parent")
+        .writeObjectArray("array", new Object[] { createPdx(1, "one") })
+        .writeObject("list", list)
+        .create());
+    StoredObject so = getStoredObject(r, "k");
+    try {
+      PdxInstanceImpl pi = (PdxInstanceImpl) OffHeapHelper.readInPlace(so);
+
+      Object[] array = (Object[]) pi.getField("array");
+      assertReadsInPlace(array[0]);
+      Object[] arrayCopy = (Object[]) OffHeapHelper.copyIfReadInPlace(array);
+      assertNotSame(array, arrayCopy);
+      assertEquals(array[0], arrayCopy[0]);
+      assertReadsFromHeap(arrayCopy[0]);
+
+      List<?> inPlaceList = (List<?>) pi.getField("list");
+      assertReadsInPlace(inPlaceList.get(0));
+      List<?> listCopy = (List<?>) OffHeapHelper.copyIfReadInPlace(inPlaceList);
+      assertEquals(inPlaceList, listCopy);
+      assertReadsFromHeap(listCopy.get(0));
+
+      StructImpl struct = new StructImpl(new StructTypeImpl(new String[] { "a", "b" },
+          new ObjectType[] { new ObjectTypeImpl(Object.class), new ObjectTypeImpl(Object.class) }),
+          new Object[] { "x", Collections.singletonMap("k", array[0]) });
+      StructImpl structCopy = (StructImpl) OffHeapHelper.copyIfReadInPlace(struct);
+      assertNotSame(struct, structCopy);
+      assertEquals("x", structCopy.get("a"));
+      Object mapValue = ((Map<?, ?>) structCopy.get("b")).get("k");
+      assertEquals(array[0], mapValue);
+      assertReadsFromHeap(mapValue);
+
+      // nothing to copy
+      assertSame(arrayCopy, OffHeapHelper.copyIfReadInPlace(arrayCopy));
+      assertSame(listCopy, OffHeapHelper.copyIfReadInPlace(listCopy));
+      assertSame(structCopy, OffHeapHelper.copyIfReadInPlace(structCopy));
+    } finally {
+      so.release();
+    }
+  }
+
+  private static void assertReadsInPlace(Object o) {
+    assertNotSame(o, ((PdxInstanceImpl) o).copyIfOffHeap());
+  }
+
+  private static void assertReadsFromHeap(Object o) {
+    assertSame(o, ((PdxInstanceImpl) o).copyIfOffHeap());
+  }
+
+  private Region<Object, Object> createRegion() {
+    RegionFactory<Object, Object> rf = this.gfc.createRegionFactory();
+    rf.setOffHeap(true);
+    return rf.create("r");
+  }
+
+  private static StoredObject getStoredObject(Region<Object, Object> r, Object key) {
+    LocalRegion lr = (LocalRegion) r;
+    return (StoredObject) lr.getRegionEntry(key).getValueOffHeapOrDiskWithoutFaultIn(lr);
+  }
+
+  private PdxInstance createPdx(int id, String name) {
+    return this.gfc.createPdxInstanceFactory("readInPlace").writeInt("id", id).writeString("name", name).create();
+  }
+}
@@ -199,6 +199,14 @@ public class OffHeapStorageJUnitTest {
       stats.incReads();
       assertEquals(1, stats.getReads());
 
+      stats.endIncrementalDefragmentation(stats.startIncrementalDefragmentation());
+      assertEquals(1, stats.getIncrementalDefragmentations());
+
+      stats.incMagazineHits();
+      assertEquals(1, stats.getMagazineHits());
+      stats.incMagazineMisses();
+      assertEquals(1, stats.getMagazineMisses());
+
       stats.setFragmentation(100);
       assertEquals(100, stats.getFragmentation());
       stats.setFragmentation(0);
@@ -246,6 +254,10 @@ public class OffHeapStorageJUnitTest {
       assertEquals(0, stats.getLargestFragment());
       assertEquals(0, stats.getObjects());
       assertEquals(0, stats.getReads());
+      assertEquals(0, stats.getIncrementalDefragmentations());
+      assertEquals(0, stats.getIncrementalDefragmentationTime());
+      assertEquals(0, stats.getMagazineHits());
+      assertEquals(0, stats.getMagazineMisses());
 
       OutOfOffHeapMemoryException ex = null;
       try {
@@ -124,6 +124,34 @@ public class OffHeapStoredObjectAddressStackJUnitTest {
     }
   }
 
+  @Test
+  public void batchOfferAndPollKeepStackOrder() {
+    SlabImpl slab = new SlabImpl(1024);
+    try {
+      MemoryAllocatorImpl ma = MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(), new NullOffHeapMemoryStats(), new SlabImpl[]{slab});
+      long[] addrs = new long[4];
+      for (int i = 0; i < addrs.length; i++) {
+        addrs[i] = ((OffHeapStoredObject) ma.allocate(64)).getAddress();
+      }
+
+      OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack();
+      stack.offer(addrs[0]);
+      stack.offer(addrs, 1, 3);
+      assertEquals(addrs[3], stack.getTopAddress());
+
+      long[] dest = new long[4];
+      assertEquals(2, stack.poll(dest, 2));
+      assertEquals(addrs[2], dest[0]);
+      assertEquals(addrs[3], dest[1]);
+      assertEquals(addrs[1], stack.poll());
+      assertEquals(addrs[0], stack.poll());
+      assertEquals(0, stack.poll(dest, 2));
+      assertEquals(true, stack.isEmpty());
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
   @Test
   public void addressZeroOfferCausesFailedAssertion() {
     OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack(0L);
@@ -171,6 +199,36 @@ public class OffHeapStoredObjectAddressStackJUnitTest {
     }
   }
 
+  @Test
+  public void removeInRangeOnlyUnlinksAddressesInTheRange() {
+    SlabImpl slab = new SlabImpl(1024);
+    try {
+      MemoryAllocatorImpl ma = MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(), new NullOffHeapMemoryStats(), new SlabImpl[]{slab});
+      long[] addrs = new long[5];
+      for (int i = 0; i < addrs.length; i++) {
+        addrs[i] = ((OffHeapStoredObject) ma.allocate(64)).getAddress();
+      }
+      OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack();
+      for (long addr : addrs) {
+        stack.offer(addr);
+      }
+      FreeListManager.ResizableLongArray removed = new FreeListManager.ResizableLongArray();
+      // the top, one in the middle and the bottom
+      stack.removeInRange(addrs[4], addrs[4] + 1, removed);
+      stack.removeInRange(addrs[2], addrs[2] + 1, removed);
+      stack.removeInRange(addrs[0], addrs[0] + 1, removed);
+      assertEquals(3, removed.size());
+      assertEquals(addrs[4], removed.get(0));
+      assertEquals(addrs[2], removed.get(1));
+      assertEquals(addrs[0], removed.get(2));
+      assertEquals(addrs[3], stack.poll());
+      assertEquals(addrs[1], stack.poll());
+      assertEquals(true, stack.isEmpty());
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
   @Test
   public void stackWithChunkTotalSizeIsChunkSize() {
     SlabImpl slab = new SlabImpl(1024);
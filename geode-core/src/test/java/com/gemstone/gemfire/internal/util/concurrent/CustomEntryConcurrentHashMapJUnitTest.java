@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.util.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CustomEntryConcurrentHashMapJUnitTest {
+
+  @Test
+  public void primitiveKeyHashMatchesBoxedKeyHash() {
+    long[] longKeys = { 0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 0x123456789ABCDEFL };
+    for (long key : longKeys) {
+      assertEquals(CustomEntryConcurrentHashMap.keyHash(Long.valueOf(key), true),
+          CustomEntryConcurrentHashMap.longKeyHash(key));
+    }
+    int[] intKeys = { 0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 123456789 };
+    for (int key : intKeys) {
+      assertEquals(CustomEntryConcurrentHashMap.keyHash(Integer.valueOf(key), true),
+          CustomEntryConcurrentHashMap.intKeyHash(key));
+    }
+  }
+
+  @Test
+  public void getForLongKeyFindsLongKeys() {
+    CustomEntryConcurrentHashMap<Object, Object> map = new CustomEntryConcurrentHashMap<>();
+    for (long i = -500; i < 500; i++) {
+      map.put(i * 1000003L, "v" + i);
+    }
+    for (long i = -500; i < 500; i++) {
+      assertEquals("v" + i, map.getForLongKey(i * 1000003L));
+    }
+    assertNull(map.getForLongKey(1L));
+  }
+
+  @Test
+  public void getForIntKeyFindsIntKeys() {
+    CustomEntryConcurrentHashMap<Object, Object> map = new CustomEntryConcurrentHashMap<>();
+    for (int i = -500; i < 500; i++) {
+      map.put(i, "v" + i);
+    }
+    for (int i = -500; i < 500; i++) {
+      assertEquals("v" + i, map.getForIntKey(i));
+    }
+    assertNull(map.getForIntKey(500));
+  }
+
+  @Test
+  public void primitiveKeyLookupDoesNotMatchOtherKeyTypes() {
+    CustomEntryConcurrentHashMap<Object, Object> map = new CustomEntryConcurrentHashMap<>();
+    map.put(7, "int");
+    map.put(8L, "long");
+    assertNull(map.getForLongKey(7L));
+    assertNull(map.getForIntKey(8));
+    assertEquals("int", map.getForIntKey(7));
+    assertEquals("long", map.getForLongKey(8L));
+  }
+
+  @Test
+  public void lookupRetriesUnderLockWhileListsAreBeingRelinked() {
+    CustomEntryConcurrentHashMap<Object, Object> map = new CustomEntryConcurrentHashMap<>();
+    final AtomicInteger retries = new AtomicInteger();
+    map.setOptimisticReadRetryListener(new Runnable() {
+      @Override
+      public void run() {
+        retries.incrementAndGet();
+      }
+    });
+    map.put(42L, "v");
+    assertEquals("v", map.get(42L));
+    assertEquals(0, retries.get());
+
+    CustomEntryConcurrentHashMap.Segment<Object, Object> segment = map.segmentFor(
+        CustomEntryConcurrentHashMap.keyHash(42L, true));
+    long stamp = segment.listUpdateStamp.writeLock();
+    try {
+      assertEquals("v", map.get(42L));
+      assertEquals("v", map.getForLongKey(42L));
+      assertTrue(map.containsKey(42L));
+      assertNull(map.get(43L));
+    } finally {
+      segment.listUpdateStamp.unlockWrite(stamp);
+    }
+    assertTrue(retries.get() >= 3);
+  }
+
+  @Test
+  public void concurrentRelinkingNeverHidesStableEntries() throws Exception {
+    final CustomEntryConcurrentHashMap<Object, Object> map =
+        new CustomEntryConcurrentHashMap<>(16, 0.75f, 1);
+    final int stable = 200;
+    for (int i = 0; i < stable; i++) {
+      map.put(i, "stable" + i);
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<String> failure = new AtomicReference<>();
+    Thread reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        while (!done.get() && failure.get() == null) {
+          for (int i = 0; i < stable; i++) {
+            if (map.getForIntKey(i) == null || !map.containsKey(i)) {
+              failure.set("missed key " + i);
+              return;
+            }
+          }
+        }
+      }
+    });
+    reader.start();
+    try {
+      // grow and remove repeatedly so the stable entries keep getting
+      // relinked underneath the reader
+      for (int round = 0; round < 50 && failure.get() == null; round++) {
+        for (int i = stable; i < stable + 5000; i++) {
+          map.put(i, "transient");
+        }
+        for (int i = stable; i < stable + 5000; i++) {
+          map.remove(i);
+        }
+      }
+    } finally {
+      done.set(true);
+      reader.join();
+    }
+    assertNull(failure.get());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void getForLongKeyOnIdentityMapThrows() {
+    CustomEntryConcurrentHashMap<Object, Object> map = new CustomEntryConcurrentHashMap<>(16, 0.75f, 16, true);
+    map.getForLongKey(1L);
+  }
+}
@@ -157,6 +157,67 @@ public class AutoSerializableJUnitTest {
     }
   }
 
+  @Test
+  public void testGeneratedSerializer() throws Exception {
+    AutoSerializableManager.GENERATED = true;
+    try {
+      setupSerializer("com.gemstone.gemfire.pdx.DomainObjectPdxAuto");
+      DomainObjectPdxAuto objOut = new DomainObjectPdxAuto(4);
+      objOut.set("string_0", "test string value");
+      objOut.set("long_0", 99L);
+      objOut.anInteger = 7;
+      objOut.aChar = 'c';
+      objOut.aBoolean = true;
+      objOut.aByte = 1;
+      objOut.aShort = 2;
+      objOut.anInt = 3;
+      objOut.aLong = 4L;
+      objOut.aFloat = 5.5F;
+      objOut.aDouble = 6.5D;
+      objOut.aDate = new Date(1000);
+      objOut.anEnum = DomainObjectPdxAuto.Day.MONDAY;
+      objOut.aString = "a string";
+      objOut.aMap = new HashMap();
+      objOut.aMap.put("k", "v");
+      objOut.aBooleanArray = new boolean[] { true, false };
+      objOut.aCharArray = new char[] { 'a', 'b' };
+      objOut.aByteArray = new byte[] { 1, 2 };
+      objOut.aShortArray = new short[] { 3, 4 };
+      objOut.anIntArray = new int[] { 5, 6 };
+      objOut.aLongArray = new long[] { 7, 8 };
+      objOut.aFloatArray = new float[] { 9, 10 };
+      objOut.aDoubleArray = new double[] { 11, 12 };
+      objOut.aStringArray = new String[] { "x", null };
+      objOut.anObjectArray = new Object[] { "y", 13 };
+      objOut.anArrayOfByteArray = new byte[][] { { 14 }, null };
+
+      PdxInstanceImpl.setPdxReadSerialized(false);
+      try {
+        // the first write defines the pdx type; the later ones and the
+        // reads use the generated code
+        for (int i = 0; i < 3; i++) {
+          HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+          DataSerializer.writeObject(objOut, out);
+          Object objIn = DataSerializer.readObject(new DataInputStream(
+              new ByteArrayInputStream(out.toByteArray())));
+          // equals compares the byte arrays of anArrayOfByteArray by identity
+          assertArrayEquals(objOut.anArrayOfByteArray, ((DomainObjectPdxAuto)objIn).anArrayOfByteArray);
+          ((DomainObjectPdxAuto)objIn).anArrayOfByteArray = objOut.anArrayOfByteArray;
+          assertEquals(objOut, objIn);
+        }
+      } finally {
+        PdxInstanceImpl.setPdxReadSerialized(true);
+      }
+
+      AutoSerializableManager.AutoClassInfo ci = manager.getExistingClassInfo(DomainObjectPdxAuto.class);
+      assertTrue(ci.isGenerated());
+      assertEquals(3, ci.getStats().getSerializations());
+      assertEquals(3, ci.getStats().getDeserializations());
+    } finally {
+      AutoSerializableManager.GENERATED = false;
+    }
+  }
+
   @Test
   public void testConcurrentHashMap() throws Exception {
     setupSerializer("java.util.concurrent..*");
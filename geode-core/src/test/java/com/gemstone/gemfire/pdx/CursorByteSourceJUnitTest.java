@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.pdx;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.ByteSource;
+import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.ByteSourceFactory;
+import com.gemstone.gemfire.internal.tcp.ByteBufferInputStream.CursorByteSource;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CursorByteSourceJUnitTest extends ByteSourceJUnitTest {
+
+  @Override
+  protected ByteSource createByteSource(byte[] bytes) {
+    CursorByteSource result = new CursorByteSource();
+    result.setSource(ByteSourceFactory.wrap(bytes));
+    return result;
+  }
+
+  @Test
+  public void testReadsDoNotMoveTheSource() {
+    ByteSource source = ByteSourceFactory.wrap(new byte[]{1,2,3,4,5,6,7,8,9,0});
+    source.position(3);
+    CursorByteSource cursor = new CursorByteSource();
+    cursor.setSource(source);
+    assertEquals(0, cursor.position());
+    assertEquals(1, cursor.get());
+    assertEquals(0x02030405, cursor.getInt());
+    byte[] bytes = new byte[3];
+    cursor.get(bytes);
+    assertArrayEquals(new byte[]{6,7,8}, bytes);
+    assertEquals(3, source.position());
+  }
+
+  @Test
+  public void testSetSourceRepointsTheCursor() {
+    CursorByteSource cursor = new CursorByteSource();
+    cursor.setSource(ByteSourceFactory.wrap(new byte[]{1,2,3}));
+    cursor.position(2);
+    cursor.setSource(ByteSourceFactory.wrap(new byte[]{4,5}));
+    assertEquals(0, cursor.position());
+    assertEquals(2, cursor.limit());
+    assertEquals(4, cursor.get());
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.pdx;
+
+import static com.gemstone.gemfire.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.PdxSerializerObject;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.pdx.internal.PdxField;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceFactoryImpl;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+import com.gemstone.gemfire.pdx.internal.PdxType;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests the compact encoding of pdx int and long fields.
+ */
+@Category(IntegrationTest.class)
+public class PdxCompactEncodingJUnitTest {
+
+  private GemFireCacheImpl cache;
+  private boolean wasCompact;
+
+  @Before
+  public void setUp() {
+    this.wasCompact = PdxType.COMPACT_ENCODING;
+    this.cache = (GemFireCacheImpl) new CacheFactory()
+        .set(MCAST_PORT, "0")
+        .setPdxReadSerialized(true)
+        .create();
+  }
+
+  @After
+  public void tearDown() {
+    PdxType.COMPACT_ENCODING = this.wasCompact;
+    this.cache.close();
+  }
+
+  private static PdxInstance createInstance(boolean compact, int i1, long l1, String s, int i2, long l2) {
+    PdxType.COMPACT_ENCODING = compact;
+    PdxInstanceFactory f = PdxInstanceFactoryImpl.newCreator("compactTest", false);
+    f.writeInt("i1", i1);
+    f.writeLong("l1", l1);
+    f.writeDouble("d", 1.5);
+    f.writeString("s", s);
+    f.writeInt("i2", i2);
+    f.writeByte("b", (byte)7);
+    f.writeLong("l2", l2);
+    return f.create();
+  }
+
+  private static void checkFields(PdxInstance pi, int i1, long l1, String s, int i2, long l2) {
+    assertEquals(i1, pi.getField("i1"));
+    assertEquals(l1, pi.getField("l1"));
+    assertEquals(1.5, pi.getField("d"));
+    assertEquals(s, pi.getField("s"));
+    assertEquals(i2, pi.getField("i2"));
+    assertEquals((byte)7, pi.getField("b"));
+    assertEquals(l2, pi.getField("l2"));
+  }
+
+  @Test
+  public void testCompactInstanceIsSmaller() throws Exception {
+    PdxInstance fixed = createInstance(false, 1, 2L, "abc", -3, 40L);
+    PdxInstance compact = createInstance(true, 1, 2L, "abc", -3, 40L);
+    PdxType fixedType = ((PdxInstanceImpl)fixed).getPdxType();
+    PdxType compactType = ((PdxInstanceImpl)compact).getPdxType();
+    assertFalse(fixedType.getCompactEncoding());
+    assertTrue(compactType.getCompactEncoding());
+    assertFalse(fixedType.equals(compactType));
+    assertTrue(compactType.getPdxField("l1").isCompact());
+    assertTrue(compactType.getPdxField("l1").isVariableLengthType());
+    assertFalse(compactType.getPdxField("d").isCompact());
+    assertFalse(fixedType.getPdxField("l1").isCompact());
+
+    checkFields(fixed, 1, 2L, "abc", -3, 40L);
+    checkFields(compact, 1, 2L, "abc", -3, 40L);
+    byte[] fixedBytes = BlobHelper.serializeToBlob(fixed);
+    byte[] compactBytes = BlobHelper.serializeToBlob(compact);
+    assertTrue(fixedBytes.length + " <= " + compactBytes.length, compactBytes.length < fixedBytes.length);
+
+    checkFields((PdxInstance)BlobHelper.deserializeBlob(compactBytes), 1, 2L, "abc", -3, 40L);
+  }
+
+  @Test
+  public void testExtremeValues() throws Exception {
+    PdxInstance pi = createInstance(true, Integer.MIN_VALUE, Long.MAX_VALUE, null, Integer.MAX_VALUE, Long.MIN_VALUE);
+    checkFields(pi, Integer.MIN_VALUE, Long.MAX_VALUE, null, Integer.MAX_VALUE, Long.MIN_VALUE);
+    byte[] bytes = BlobHelper.serializeToBlob(pi);
+    checkFields((PdxInstance)BlobHelper.deserializeBlob(bytes), Integer.MIN_VALUE, Long.MAX_VALUE, null, Integer.MAX_VALUE, Long.MIN_VALUE);
+  }
+
+  @Test
+  public void testLargeInstanceUsesWideOffsets() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 70000; i++) {
+      sb.append((char)('a' + (i % 26)));
+    }
+    String s = sb.toString();
+    PdxInstance pi = createInstance(true, 300, -70000L, s, 5, 1L << 40);
+    checkFields(pi, 300, -70000L, s, 5, 1L << 40);
+    byte[] bytes = BlobHelper.serializeToBlob(pi);
+    checkFields((PdxInstance)BlobHelper.deserializeBlob(bytes), 300, -70000L, s, 5, 1L << 40);
+  }
+
+  @Test
+  public void testCompactAndFixedInstancesAreEqual() {
+    PdxInstance fixed = createInstance(false, 1, 2L, "abc", 0, 400000L);
+    PdxInstance compact = createInstance(true, 1, 2L, "abc", 0, 400000L);
+    assertEquals(fixed, compact);
+    assertEquals(compact, fixed);
+    assertEquals(fixed.hashCode(), compact.hashCode());
+    assertFalse(compact.equals(createInstance(true, 1, 2L, "abc", 0, 400001L)));
+  }
+
+  @Test
+  public void testWritableCompactInstance() {
+    PdxInstance pi = createInstance(true, 1, 2L, "abc", 3, 4L);
+    WritablePdxInstance wpi = pi.createWriter();
+    wpi.setField("i2", 300000);
+    checkFields(wpi, 1, 2L, "abc", 300000, 4L);
+    wpi.setField("s", "a longer string");
+    checkFields(wpi, 1, 2L, "a longer string", 300000, 4L);
+    wpi.setField("l1", -2L);
+    checkFields(wpi, 1, -2L, "a longer string", 300000, 4L);
+  }
+
+  @Test
+  public void testWriteRawFieldConvertsEncoding() {
+    PdxInstanceImpl fixed = (PdxInstanceImpl)createInstance(false, 11, 12L, "x", 13, 14L);
+    PdxType.COMPACT_ENCODING = true;
+    PdxInstanceFactoryImpl f = (PdxInstanceFactoryImpl)PdxInstanceFactoryImpl.newCreator("compactTest", false);
+    for (PdxField field: fixed.getPdxType().getFields()) {
+      f.writeRaw(field, fixed.getRaw(field.getFieldIndex()).getBackingByteBuffer());
+    }
+    PdxInstance compact = f.create();
+    assertTrue(((PdxInstanceImpl)compact).getPdxType().getCompactEncoding());
+    checkFields(compact, 11, 12L, "x", 13, 14L);
+    assertEquals(fixed, compact);
+  }
+
+  @Test
+  public void testPdxSerializable() throws Exception {
+    PdxType.COMPACT_ENCODING = true;
+    CompactValue v = new CompactValue(-1, 1234567890123L, "hello", 42, 99L);
+    byte[] bytes = BlobHelper.serializeToBlob(v);
+    PdxInstanceImpl pi = (PdxInstanceImpl)BlobHelper.deserializeBlob(bytes);
+    assertTrue(pi.getPdxType().getCompactEncoding());
+    assertEquals(1234567890123L, pi.getField("l1"));
+    assertEquals(v, pi.getObject());
+  }
+
+  @Test
+  public void testAutoSerializer() throws Exception {
+    this.cache.close();
+    PdxType.COMPACT_ENCODING = true;
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "auto.serialization.no.hardcoded.excludes", "true");
+    try {
+      this.cache = (GemFireCacheImpl) new CacheFactory()
+          .set(MCAST_PORT, "0")
+          .setPdxSerializer(new ReflectionBasedAutoSerializer(Pattern.quote(AutoValue.class.getName())))
+          .create();
+      for (int i = 0; i < 3; i++) {
+        // the second time around the auto serializer reads the fields in order
+        AutoValue v = new AutoValue();
+        v.i1 = -i;
+        v.l1 = 1L << (20 * i);
+        v.s = "value" + i;
+        v.i2 = Integer.MAX_VALUE - i;
+        byte[] bytes = BlobHelper.serializeToBlob(v);
+        AutoValue result = (AutoValue)BlobHelper.deserializeBlob(bytes);
+        assertEquals(v.i1, result.i1);
+        assertEquals(v.l1, result.l1);
+        assertEquals(v.s, result.s);
+        assertEquals(v.i2, result.i2);
+      }
+    } finally {
+      System.clearProperty(DistributionConfig.GEMFIRE_PREFIX + "auto.serialization.no.hardcoded.excludes");
+    }
+  }
+
+  public static class AutoValue implements PdxSerializerObject {
+    public int i1;
+    public long l1;
+    public String s;
+    public int i2;
+  }
+
+  public static class CompactValue implements PdxSerializable {
+    private int i1;
+    private long l1;
+    private String s;
+    private int i2;
+    private long l2;
+
+    public CompactValue() {
+    }
+
+    public CompactValue(int i1, long l1, String s, int i2, long l2) {
+      this.i1 = i1;
+      this.l1 = l1;
+      this.s = s;
+      this.i2 = i2;
+      this.l2 = l2;
+    }
+
+    public void toData(PdxWriter writer) {
+      writer.writeInt("i1", this.i1);
+      writer.writeLong("l1", this.l1);
+      writer.writeString("s", this.s);
+      writer.writeInt("i2", this.i2);
+      writer.writeLong("l2", this.l2);
+    }
+
+    public void fromData(PdxReader reader) {
+      this.i1 = reader.readInt("i1");
+      this.l1 = reader.readLong("l1");
+      this.s = reader.readString("s");
+      this.i2 = reader.readInt("i2");
+      this.l2 = reader.readLong("l2");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CompactValue)) {
+        return false;
+      }
+      CompactValue other = (CompactValue)o;
+      return this.i1 == other.i1 && this.l1 == other.l1 && this.s.equals(other.s)
+          && this.i2 == other.i2 && this.l2 == other.l2;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.i1;
+    }
+  }
+}
@@ -34,6 +34,7 @@ import org.junit.experimental.categories.Category;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.gemstone.gemfire.distributed.ConfigurationProperties.MCAST_PORT;
 import static org.junit.Assert.*;
@@ -114,6 +115,43 @@ public class PdxInstanceFactoryJUnitTest {
     assertEquals(true, c0.compareTo(pie1) < 0);
     assertEquals(true, c2.compareTo(pie1) > 0);
   }
+  @Test
+  public void testConcurrentFieldReads() throws Exception {
+    PdxInstanceFactory c = PdxInstanceFactoryImpl.newCreator("concurrentReads", false);
+    c.writeInt("intField", 37);
+    c.writeString("stringField1", "value1");
+    c.writeString("stringField2", "a longer second value");
+    c.writeIntArray("intArrayField", new int[] {1, 2, 3});
+    c.writeObject("objectField", new Date(123456L));
+    final PdxInstance pi = c.create();
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        public void run() {
+          try {
+            for (int j = 0; j < 10000; j++) {
+              assertEquals(37, pi.getField("intField"));
+              assertEquals("value1", pi.getField("stringField1"));
+              assertEquals("a longer second value", pi.getField("stringField2"));
+              assertArrayEquals(new int[] {1, 2, 3}, (int[])pi.getField("intArrayField"));
+              assertEquals(new Date(123456L), pi.getField("objectField"));
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+      }, "concurrentReads-" + i);
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
   @Test
   public void testPortableWriteObject() throws IOException, ClassNotFoundException {
     PdxInstanceFactory c = PdxInstanceFactoryImpl.newCreator("portable", false);